@@ -11,6 +11,13 @@ import java.util.Optional;
 /**
  * Handles cache invalidation events triggered by Consul watches.
  * This ensures all engine instances stay in sync when data changes in Consul.
+ *
+ * <p>Events are only fired for keys that actually changed, and each one invalidates the entries it affects.
+ * Invalidation is asynchronous: observers run on the thread that delivers the Consul watch result, so they
+ * must not block on the cache.
+ *
+ * <p>Pipeline definitions and cluster pipelines themselves are not cached here: they are served from the
+ * replicated KV snapshot, whose parsed-object cache applies the same changes as deltas.
  */
 @ApplicationScoped
 public class CacheInvalidationHandler {
@@ -26,10 +33,7 @@ public class CacheInvalidationHandler {
     public void onPipelineDefinitionChanged(@Observes ConsulPipelineDefinitionChangedEvent event) {
         LOG.infof("Pipeline definition changed: %s - invalidating caches", event.pipelineId());
         
-        // Invalidate the specific pipeline definition cache
-        invalidateCache("pipeline-definitions", event.pipelineId());
-        
-        // Invalidate the pipeline list cache since the list may have changed
+        // The list holds summaries of every definition, so any change affects its single entry
         invalidateAllCache("pipeline-definitions-list");
         
         // Invalidate existence cache
@@ -45,70 +49,39 @@ public class CacheInvalidationHandler {
     public void onModuleRegistrationChanged(@Observes ConsulModuleRegistrationChangedEvent event) {
         LOG.infof("Module registration changed: %s - invalidating caches", event.moduleId());
         
-        // Invalidate all module-related caches
+        // The module lists are built from the service catalog, not from the KV entry in the event, so they
+        // cannot be patched from it; each holds a single entry
         invalidateAllCache("global-modules-list");
         invalidateAllCache("global-modules-enabled");
         invalidateCache("global-modules", event.moduleId());
         invalidateCache("module-health-status", event.moduleId());
     }
     
-    /**
-     * Handle cluster pipeline changes by invalidating related caches
-     */
-    public void onClusterPipelineChanged(@Observes ConsulClusterPipelineChangedEvent event) {
-        LOG.infof("Cluster pipeline changed: %s/%s - invalidating caches", 
-                  event.clusterName(), event.pipelineId());
-        
-        // Invalidate cluster pipeline caches
-        invalidateCache("cluster-pipelines-list", event.clusterName());
-        invalidateCache("cluster-pipelines", event.clusterName(), event.pipelineId());
-    }
-    
     /**
      * Invalidate a specific cache entry
      */
-    private void invalidateCache(String cacheName, Object... keys) {
-        try {
-            Optional<Cache> cacheOpt = cacheManager.getCache(cacheName);
-            if (cacheOpt.isPresent()) {
-                Cache cache = cacheOpt.get();
-                if (keys.length == 0) {
-                    cache.invalidateAll().await().indefinitely();
-                } else if (keys.length == 1) {
-                    cache.invalidate(keys[0]).await().indefinitely();
-                } else {
-                    // For multi-key caches, construct a composite key
-                    String compositeKey = String.join(":", 
-                        java.util.Arrays.stream(keys)
-                            .map(Object::toString)
-                            .toArray(String[]::new));
-                    cache.invalidate(compositeKey).await().indefinitely();
-                }
-                LOG.debugf("Invalidated cache %s for key(s): %s", cacheName, 
-                          java.util.Arrays.toString(keys));
-            } else {
-                LOG.debugf("Cache %s not found - may not be initialized yet", cacheName);
-            }
-        } catch (Exception e) {
-            LOG.warnf(e, "Failed to invalidate cache %s", cacheName);
+    private void invalidateCache(String cacheName, Object key) {
+        Optional<Cache> cacheOpt = cacheManager.getCache(cacheName);
+        if (cacheOpt.isEmpty()) {
+            LOG.debugf("Cache %s not found - may not be initialized yet", cacheName);
+            return;
         }
+        cacheOpt.get().invalidate(key).subscribe().with(
+            ignored -> LOG.debugf("Invalidated cache %s for key: %s", cacheName, key),
+            error -> LOG.warnf(error, "Failed to invalidate cache %s", cacheName));
     }
     
     /**
      * Invalidate all entries in a cache
      */
     private void invalidateAllCache(String cacheName) {
-        try {
-            Optional<Cache> cacheOpt = cacheManager.getCache(cacheName);
-            if (cacheOpt.isPresent()) {
-                Cache cache = cacheOpt.get();
-                cache.invalidateAll().await().indefinitely();
-                LOG.debugf("Invalidated all entries in cache %s", cacheName);
-            } else {
-                LOG.debugf("Cache %s not found - may not be initialized yet", cacheName);
-            }
-        } catch (Exception e) {
-            LOG.warnf(e, "Failed to invalidate all entries in cache %s", cacheName);
+        Optional<Cache> cacheOpt = cacheManager.getCache(cacheName);
+        if (cacheOpt.isEmpty()) {
+            LOG.debugf("Cache %s not found - may not be initialized yet", cacheName);
+            return;
         }
+        cacheOpt.get().invalidateAll().subscribe().with(
+            ignored -> LOG.debugf("Invalidated all entries in cache %s", cacheName),
+            error -> LOG.warnf(error, "Failed to invalidate all entries in cache %s", cacheName));
     }
-}
\ No newline at end of file
+}
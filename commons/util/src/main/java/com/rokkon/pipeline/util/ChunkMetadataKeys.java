@@ -0,0 +1,22 @@
+package com.rokkon.pipeline.util;
+
+/**
+ * Keys of {@code SemanticChunk} metadata that one pipeline step writes and another reads, kept in one place
+ * so producer and consumer cannot drift apart.
+ */
+public final class ChunkMetadataKeys {
+
+    /**
+     * Set by the chunker on a near-duplicate chunk, holding the ID of the canonical chunk it repeats.
+     * The embedder does not embed chunks carrying this key.
+     */
+    public static final String NEAR_DUPLICATE_OF = "near_duplicate_of";
+
+    /**
+     * Set by the chunker next to {@link #NEAR_DUPLICATE_OF}, holding the estimated similarity to the canonical chunk.
+     */
+    public static final String NEAR_DUPLICATE_SIMILARITY = "near_duplicate_similarity";
+
+    private ChunkMetadataKeys() {
+    }
+}
@@ -0,0 +1,69 @@
+package com.rokkon.pipeline.util;
+
+import java.util.BitSet;
+
+/**
+ * A unit of a {@link SegmentedIndex}: entries numbered {@code 0..size()-1}, each belonging to a document, plus
+ * the bits of the entries deleted since the segment was written. Deleted entries stay in the segment until a
+ * merge drops them. Callers serialize mutations against reads ({@link SegmentedIndex} holds a read-write lock).
+ */
+public abstract class DeletableSegment {
+
+    protected final BitSet deleted;
+
+    protected DeletableSegment(BitSet deleted) {
+        this.deleted = deleted;
+    }
+
+    /**
+     * @return Number of entries, deleted ones included
+     */
+    public abstract int size();
+
+    /**
+     * @return The entries of the document; empty if none
+     */
+    protected abstract int[] entriesOf(String documentId);
+
+    /**
+     * Marks every entry of the document deleted.
+     *
+     * @return Number of entries newly deleted
+     */
+    public int deleteDocument(String documentId) {
+        int newlyDeleted = 0;
+        for (int entry : entriesOf(documentId)) {
+            if (!deleted.get(entry)) {
+                deleted.set(entry);
+                newlyDeleted++;
+            }
+        }
+        return newlyDeleted;
+    }
+
+    /**
+     * Marks the given entries deleted, e.g. deletions a flushed buffer carries into its written segment.
+     */
+    public void deleteEntries(BitSet entries) {
+        deleted.or(entries);
+    }
+
+    public boolean isDeleted(int entry) {
+        return deleted.get(entry);
+    }
+
+    public int deletedCount() {
+        return deleted.cardinality();
+    }
+
+    public int liveCount() {
+        return size() - deletedCount();
+    }
+
+    /**
+     * @return A copy of the deletion bits, for persisting or carrying over
+     */
+    public BitSet deletedSnapshot() {
+        return (BitSet) deleted.clone();
+    }
+}
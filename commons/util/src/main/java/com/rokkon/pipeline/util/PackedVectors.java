@@ -0,0 +1,176 @@
+package com.rokkon.pipeline.util;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import com.rokkon.search.model.ChunkEmbedding;
+import com.rokkon.search.model.Embedding;
+import com.rokkon.search.model.PackedVector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * Reads and writes {@link PackedVector}s, the compact wire form of embeddings.
+ *
+ * <p>Three encodings are supported:
+ * <ul>
+ *   <li>{@code FP32} - raw little-endian floats; lossless, same size as the packed repeated field
+ *       but decoded with a single bulk copy.</li>
+ *   <li>{@code FP16} - little-endian half precision; half the size, about three significant digits.</li>
+ *   <li>{@code INT8} - affine scalar quantization over the vector's own min/max range; a quarter of the
+ *       size, error bounded by {@code scale / 2} per dimension.</li>
+ * </ul>
+ *
+ * <p>All methods work on {@code float[]} directly, so no {@code Float} boxing happens on either side.
+ * Use {@link #vectorOf(ChunkEmbedding)} / {@link #vectorOf(Embedding)} to read an embedding regardless
+ * of whether it was written packed or as a repeated field.
+ */
+public final class PackedVectors {
+
+    private static final int INT8_LEVELS = 255;
+
+    private PackedVectors() {
+    }
+
+    /**
+     * Parses an encoding name ({@code fp32}, {@code fp16} or {@code int8}, case-insensitive).
+     *
+     * @throws IllegalArgumentException for unknown names
+     */
+    public static PackedVector.Encoding encodingOf(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "fp32":
+                return PackedVector.Encoding.FP32;
+            case "fp16":
+                return PackedVector.Encoding.FP16;
+            case "int8":
+                return PackedVector.Encoding.INT8;
+            default:
+                throw new IllegalArgumentException("Unknown vector encoding: " + name + " (expected fp32, fp16 or int8)");
+        }
+    }
+
+    /**
+     * Encodes a vector.
+     *
+     * @throws IllegalArgumentException if the encoding is unspecified
+     */
+    public static PackedVector pack(float[] vector, PackedVector.Encoding encoding) {
+        PackedVector.Builder packed = PackedVector.newBuilder()
+                .setEncoding(encoding)
+                .setDimension(vector.length);
+        switch (encoding) {
+            case FP32: {
+                ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.asFloatBuffer().put(vector);
+                return packed.setData(wrap(buffer.array())).build();
+            }
+            case FP16: {
+                ByteBuffer buffer = ByteBuffer.allocate(vector.length * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (float value : vector) {
+                    buffer.putShort(Float.floatToFloat16(value));
+                }
+                return packed.setData(wrap(buffer.array())).build();
+            }
+            case INT8: {
+                float min = Float.POSITIVE_INFINITY;
+                float max = Float.NEGATIVE_INFINITY;
+                for (float value : vector) {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+                byte[] data = new byte[vector.length];
+                if (vector.length == 0 || !(max > min)) {
+                    // Empty or constant vector: every value is the offset
+                    return packed.setData(wrap(data)).setScale(0f).setOffset(vector.length == 0 ? 0f : min).build();
+                }
+                float scale = (max - min) / INT8_LEVELS;
+                // q = -128 maps to min, q = 127 to max
+                float offset = min + 128 * scale;
+                for (int i = 0; i < vector.length; i++) {
+                    int q = Math.round((vector[i] - offset) / scale);
+                    data[i] = (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, q));
+                }
+                return packed.setData(wrap(data)).setScale(scale).setOffset(offset).build();
+            }
+            default:
+                throw new IllegalArgumentException("Cannot pack a vector with encoding " + encoding);
+        }
+    }
+
+    /**
+     * Decodes a packed vector.
+     *
+     * @throws IllegalArgumentException if the encoding is unknown or the data does not match the dimension
+     */
+    public static float[] unpack(PackedVector packed) {
+        int dimension = packed.getDimension();
+        ByteBuffer buffer = packed.getData().asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        float[] vector = new float[dimension];
+        switch (packed.getEncoding()) {
+            case FP32:
+                checkLength(packed, Float.BYTES);
+                buffer.asFloatBuffer().get(vector);
+                return vector;
+            case FP16:
+                checkLength(packed, Short.BYTES);
+                for (int i = 0; i < dimension; i++) {
+                    vector[i] = Float.float16ToFloat(buffer.getShort());
+                }
+                return vector;
+            case INT8:
+                checkLength(packed, Byte.BYTES);
+                float scale = packed.getScale();
+                float offset = packed.getOffset();
+                for (int i = 0; i < dimension; i++) {
+                    vector[i] = buffer.get() * scale + offset;
+                }
+                return vector;
+            default:
+                throw new IllegalArgumentException("Cannot unpack a vector with encoding " + packed.getEncoding());
+        }
+    }
+
+    /**
+     * The vector of a chunk embedding: the packed form when present, otherwise the repeated field.
+     */
+    public static float[] vectorOf(ChunkEmbedding embedding) {
+        if (embedding.hasPackedVector()) {
+            return unpack(embedding.getPackedVector());
+        }
+        float[] vector = new float[embedding.getVectorCount()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.getVector(i);
+        }
+        return vector;
+    }
+
+    /**
+     * The vector of a named embedding: the packed form when present, otherwise the repeated field.
+     */
+    public static float[] vectorOf(Embedding embedding) {
+        if (embedding.hasPackedVector()) {
+            return unpack(embedding.getPackedVector());
+        }
+        float[] vector = new float[embedding.getVectorCount()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.getVector(i);
+        }
+        return vector;
+    }
+
+    private static ByteString wrap(byte[] data) {
+        // The array is freshly allocated and never modified afterwards, so it can back the ByteString directly
+        return UnsafeByteOperations.unsafeWrap(data);
+    }
+
+    private static void checkLength(PackedVector packed, int bytesPerValue) {
+        long expected = (long) packed.getDimension() * bytesPerValue;
+        if (packed.getData().size() != expected) {
+            throw new IllegalArgumentException(String.format(
+                    "%s vector of dimension %d needs %d bytes but has %d",
+                    packed.getEncoding(), packed.getDimension(), expected, packed.getData().size()));
+        }
+    }
+}
@@ -76,6 +76,20 @@ public class ProtoFieldMapper {
 
     // --- Nested Helper Classes ---
 
+    /**
+     * Reads the value at a dot-notation path, e.g. "body", "custom_data.summary" or "metadata.author".
+     * Struct fields are traversed by key, map fields are looked up by key, and Struct values are
+     * unwrapped to Java types (String, Double, Boolean, List, Struct).
+     *
+     * @param source The message to read from
+     * @param path Dot-notation path to the value
+     * @return The value, or null if an optional field, struct key or map key is not set
+     * @throws MappingException if the path does not resolve against the message type
+     */
+    public Object getValue(MessageOrBuilder source, String path) throws MappingException {
+        return fieldAccessor.getValue(source, path, path);
+    }
+
     public static class MappingException extends Exception {
         public MappingException(String message, String rule) {
             super(message + (rule != null ? " (Rule: '" + rule + "')" : ""));
@@ -175,6 +189,15 @@ public class ProtoFieldMapper {
                     MessageOrBuilder currentMsg = (MessageOrBuilder) current;
                     FieldDescriptor fd = findField(currentMsg.getDescriptorForType(), part, rule);
 
+                    if (fd.isMapField() && i < parts.length - 1) {
+                        // The next segment is a map key, e.g. "metadata.author"
+                        String key = parts[++i];
+                        current = getMapValue(currentMsg, fd, key);
+                        if (current == null && i < parts.length - 1) {
+                            throw new MappingException("Cannot resolve path '" + path + "': key '" + key + "' not found in map '" + part + "'", rule);
+                        }
+                        continue;
+                    }
                     if (i == parts.length - 1) {
                         if (!fd.isRepeated() && !currentMsg.hasField(fd)) return null;
                         return currentMsg.getField(fd);
@@ -254,6 +277,19 @@ public class ProtoFieldMapper {
             }
         }
 
+        private Object getMapValue(MessageOrBuilder message, FieldDescriptor mapField, String key) {
+            FieldDescriptor keyField = mapField.getMessageType().findFieldByName("key");
+            FieldDescriptor valueField = mapField.getMessageType().findFieldByName("value");
+            for (Object entry : (List<?>) message.getField(mapField)) {
+                Message entryMessage = (Message) entry;
+                if (key.equals(String.valueOf(entryMessage.getField(keyField)))) {
+                    Object value = entryMessage.getField(valueField);
+                    return value instanceof Value ? unwrapValue((Value) value) : value;
+                }
+            }
+            return null;
+        }
+
         private static class PathResolutionResult {
             final Object container;
             final String finalPathPart;
@@ -0,0 +1,471 @@
+package com.rokkon.pipeline.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * The segment lifecycle shared by the local indexes of the sink modules: one index per directory, made of
+ * immutable segment files named by a manifest plus an in-memory buffer.
+ *
+ * <p>New entries go to the buffer ({@code B}). {@link #flush()} writes it out as a segment file and maps it
+ * ({@code M}); {@link #merge} rewrites small or delete-heavy segments into one, dropping deleted entries.
+ * Flushing and merging build and write the new segment outside the lock, so ingest and search only wait for
+ * the swap. A buffer being flushed stays searchable and keeps receiving deletes until its segment replaces it.
+ *
+ * <p>Entries are grouped by document: replacing a document deletes all its entries and adds the new ones.
+ * Deletes of flushed entries are tombstones, persisted next to the segment on the next flush. Entries and
+ * tombstones that were not yet flushed are lost if the process dies, until the document is processed again;
+ * the manifest only ever names complete segment files, so what was flushed stays readable.
+ *
+ * <p>Subclasses supply the segment format: how a buffer is written, how a file is opened and how live
+ * entries of several segments are copied into a new buffer. They create an index with {@link #createEmpty()}
+ * or {@link #openSegments(List)}.
+ *
+ * @param <S> The segment type searches see
+ * @param <B> The in-memory segment receiving new entries
+ * @param <M> The mapped segment read from a written file
+ */
+public abstract class SegmentedIndex<S extends DeletableSegment, B extends S, M extends S> implements Closeable {
+
+    public static final String MANIFEST = "segments";
+    private static final String SEGMENT_PREFIX = "seg_";
+    private static final String DELETES_SUFFIX = ".del";
+    // Mapped segments must stay below 2GB
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final String name;
+    private final Path directory;
+    private final String segmentSuffix;
+    private final LongFunction<B> bufferFactory;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Serializes flushes and merges; taken before the read-write lock
+    private final Object maintenance = new Object();
+
+    private List<M> segments = List.of();
+    private B buffer;
+    // A buffer being flushed: frozen for inserts, still searched and still receiving deletes
+    private B flushing;
+    // Only touched by flushes and merges, under the maintenance monitor
+    private long nextGeneration;
+    // Segments whose tombstones changed since they were last persisted
+    private final Set<M> dirtyDeletes = new HashSet<>();
+    // Documents deleted while a merge runs, re-applied to the merged segment; null when not merging
+    private Set<String> deletedDuringMerge;
+
+    /**
+     * @param segmentSuffix File name suffix of segments, e.g. {@code .inv}
+     * @param bufferFactory Creates an empty buffer for the given segment generation
+     */
+    protected SegmentedIndex(String name, Path directory, String segmentSuffix, LongFunction<B> bufferFactory) {
+        this.name = name;
+        this.directory = directory;
+        this.segmentSuffix = segmentSuffix;
+        this.bufferFactory = bufferFactory;
+        this.buffer = bufferFactory.apply(0);
+    }
+
+    /**
+     * @return The manifest's lines, header lines first and then one segment file name per line
+     */
+    protected static List<String> readManifest(Path directory) throws IOException {
+        return Files.readAllLines(directory.resolve(MANIFEST), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the deletion bits stored next to a segment file, or none if there are none yet.
+     */
+    public static BitSet readDeletes(Path deletesFile) throws IOException {
+        return Files.exists(deletesFile) ? BitSet.valueOf(Files.readAllBytes(deletesFile)) : new BitSet();
+    }
+
+    /**
+     * Writes deletion bits next to a segment file, atomically replacing earlier ones.
+     */
+    public static void writeDeletes(BitSet deleted, Path deletesFile) throws IOException {
+        writeAtomically(deletesFile, deleted.toByteArray());
+    }
+
+    /**
+     * Writes an empty manifest into a new index directory.
+     */
+    protected final void createEmpty() throws IOException {
+        Files.createDirectories(directory);
+        writeManifest(List.of());
+    }
+
+    /**
+     * Opens the segments the manifest names, removing segment files it does not name (left by a flush or merge
+     * that did not complete).
+     *
+     * @param segmentNames The manifest's lines after its header
+     */
+    protected final void openSegments(List<String> segmentNames) throws IOException {
+        List<M> opened = new ArrayList<>();
+        Set<String> live = new HashSet<>(Set.of(MANIFEST));
+        long generations = 0;
+        for (String segmentName : segmentNames) {
+            if (segmentName.isBlank()) {
+                continue;
+            }
+            long generation = Long.parseLong(segmentName.substring(SEGMENT_PREFIX.length(),
+                    segmentName.length() - segmentSuffix.length()));
+            generations = Math.max(generations, generation + 1);
+            Path file = directory.resolve(segmentName);
+            opened.add(openSegment(file, deletesFile(file)));
+            live.add(segmentName);
+            live.add(deletesFile(file).getFileName().toString());
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (!live.contains(file.getFileName().toString())) {
+                    log.info("Removing unreferenced file {} from index '{}'", file.getFileName(), name);
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        segments = List.copyOf(opened);
+        nextGeneration = generations;
+        buffer = bufferFactory.apply(nextGeneration);
+    }
+
+    /**
+     * Maps a written segment file with its deletion bits, if any.
+     */
+    protected abstract M openSegment(Path file, Path deletesFile) throws IOException;
+
+    /**
+     * Writes a buffer (never empty) to a new segment file.
+     */
+    protected abstract void writeSegment(B segment, Path file) throws IOException;
+
+    /**
+     * Copies the entries not set in {@code deletions} of each source, in order, into a new buffer.
+     *
+     * @param generation Generation of the segment the buffer is written to
+     * @return The merged buffer, or null if no source has a live entry
+     */
+    protected abstract B mergeLive(List<M> sources, List<BitSet> deletions, long generation);
+
+    /**
+     * @return Approximate bytes the segment's live entries add to a merged segment file
+     */
+    protected abstract long mergeBytes(M segment);
+
+    protected abstract Path fileOf(M segment);
+
+    /**
+     * @return Lines written at the top of the manifest, before the segment names
+     */
+    protected List<String> manifestHeader() {
+        return List.of();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Deletes the document's entries, then lets {@code add} add the new ones to the buffer, atomically for
+     * searches.
+     */
+    protected final void replace(String documentId, Consumer<B> add) {
+        lock.writeLock().lock();
+        try {
+            deleteLocked(documentId);
+            add.accept(buffer);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of entries deleted
+     */
+    public int deleteDocument(String documentId) {
+        lock.writeLock().lock();
+        try {
+            return deleteLocked(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int deleteLocked(String documentId) {
+        int deleted = 0;
+        for (M segment : segments) {
+            int count = segment.deleteDocument(documentId);
+            if (count > 0) {
+                dirtyDeletes.add(segment);
+                deleted += count;
+            }
+        }
+        if (flushing != null) {
+            deleted += flushing.deleteDocument(documentId);
+        }
+        deleted += buffer.deleteDocument(documentId);
+        if (deletedDuringMerge != null) {
+            deletedDuringMerge.add(documentId);
+        }
+        return deleted;
+    }
+
+    /**
+     * Runs {@code reader} under the read lock over every segment: the mapped ones in manifest order, then the
+     * buffer being flushed, if any, then the buffer.
+     */
+    protected final <T> T read(Function<List<S>, T> reader) {
+        lock.readLock().lock();
+        try {
+            List<S> all = new ArrayList<>(segments.size() + 2);
+            all.addAll(segments);
+            if (flushing != null) {
+                all.add(flushing);
+            }
+            all.add(buffer);
+            return reader.apply(all);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of mapped segments; call from within {@link #read}
+     */
+    protected final int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return Number of entries added since the last flush
+     */
+    public int bufferedCount() {
+        lock.readLock().lock();
+        try {
+            return buffer.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the in-memory buffer out as a new segment and persists changed tombstones. A flush that fails
+     * leaves the frozen buffer searchable and is retried by the next call.
+     */
+    public void flush() throws IOException {
+        synchronized (maintenance) {
+            B toWrite;
+            long generation;
+            lock.writeLock().lock();
+            try {
+                if (flushing == null && buffer.size() > 0) {
+                    flushing = buffer;
+                    buffer = bufferFactory.apply(nextGeneration);
+                }
+                toWrite = flushing;
+                generation = nextGeneration;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (toWrite != null) {
+                Path file = segmentFile(generation);
+                writeSegment(toWrite, file);
+                M written = openSegment(file, deletesFile(file));
+                lock.writeLock().lock();
+                try {
+                    nextGeneration = generation + 1;
+                    written.deleteEntries(flushing.deletedSnapshot());
+                    if (written.deletedCount() > 0) {
+                        dirtyDeletes.add(written);
+                    }
+                    List<M> updated = new ArrayList<>(segments);
+                    updated.add(written);
+                    writeManifest(updated);
+                    segments = List.copyOf(updated);
+                    flushing = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                log.debug("Flushed {} entries of index '{}' to {}", written.size(), name, file.getFileName());
+            }
+            persistDeletes();
+        }
+    }
+
+    /**
+     * Merges segments when there are more than {@code maxSegments}, always including segments with more
+     * than {@code maxDeletedRatio} of their entries deleted. The merged segment holds only live entries.
+     *
+     * @return true if segments were merged
+     */
+    public boolean merge(int maxSegments, double maxDeletedRatio) throws IOException {
+        synchronized (maintenance) {
+            List<M> sources = new ArrayList<>();
+            List<BitSet> deletions = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                sources.addAll(selectMergeSources(maxSegments, maxDeletedRatio));
+                if (sources.isEmpty()) {
+                    return false;
+                }
+                for (M source : sources) {
+                    deletions.add(source.deletedSnapshot());
+                }
+                deletedDuringMerge = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            M merged = null;
+            try {
+                long generation = nextGeneration;
+                B builder = mergeLive(sources, deletions, generation);
+                if (builder != null) {
+                    nextGeneration = generation + 1;
+                    Path file = segmentFile(generation);
+                    writeSegment(builder, file);
+                    merged = openSegment(file, deletesFile(file));
+                }
+            } catch (IOException | RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    deletedDuringMerge = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                List<M> updated = new ArrayList<>(segments);
+                updated.removeAll(sources);
+                if (merged != null) {
+                    for (String documentId : deletedDuringMerge) {
+                        merged.deleteDocument(documentId);
+                    }
+                    if (merged.deletedCount() > 0) {
+                        dirtyDeletes.add(merged);
+                    }
+                    updated.add(merged);
+                }
+                writeManifest(updated);
+                segments = List.copyOf(updated);
+                sources.forEach(dirtyDeletes::remove);
+                deletedDuringMerge = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (M source : sources) {
+                Files.deleteIfExists(fileOf(source));
+                Files.deleteIfExists(deletesFile(fileOf(source)));
+            }
+            log.info("Merged {} segments of index '{}' into {}", sources.size(), name,
+                    merged != null ? merged.size() + " entries" : "nothing (all deleted)");
+            persistDeletes();
+            return true;
+        }
+    }
+
+    private List<M> selectMergeSources(int maxSegments, double maxDeletedRatio) {
+        List<M> sources = new ArrayList<>();
+        List<M> others = new ArrayList<>();
+        for (M segment : segments) {
+            if (segment.size() > 0 && (double) segment.deletedCount() / segment.size() > maxDeletedRatio) {
+                sources.add(segment);
+            } else {
+                others.add(segment);
+            }
+        }
+        int excess = segments.size() - Math.max(1, maxSegments);
+        if (excess > 0) {
+            others.sort(Comparator.comparingLong(this::mergeBytes));
+            long bytes = 0;
+            for (M source : sources) {
+                bytes += mergeBytes(source);
+            }
+            // Merging n segments into one removes n - 1
+            for (M candidate : others) {
+                if (sources.size() > excess || bytes + mergeBytes(candidate) > MAX_SEGMENT_BYTES) {
+                    break;
+                }
+                sources.add(candidate);
+                bytes += mergeBytes(candidate);
+            }
+            if (sources.size() == 1 && sources.get(0).deletedCount() == 0) {
+                sources.clear();
+            }
+        }
+        return sources;
+    }
+
+    private void persistDeletes() throws IOException {
+        List<M> changed;
+        List<BitSet> bits = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            changed = new ArrayList<>(dirtyDeletes);
+            for (M segment : changed) {
+                bits.add(segment.deletedSnapshot());
+            }
+            dirtyDeletes.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (int i = 0; i < changed.size(); i++) {
+            writeDeletes(bits.get(i), deletesFile(fileOf(changed.get(i))));
+        }
+    }
+
+    private void writeManifest(List<M> manifestSegments) throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        for (String line : manifestHeader()) {
+            manifest.append(line).append('\n');
+        }
+        for (M segment : manifestSegments) {
+            manifest.append(fileOf(segment).getFileName()).append('\n');
+        }
+        writeAtomically(directory.resolve(MANIFEST), manifest.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path segmentFile(long generation) {
+        return directory.resolve(SEGMENT_PREFIX + generation + segmentSuffix);
+    }
+
+    private Path deletesFile(Path segmentFile) {
+        String fileName = segmentFile.getFileName().toString();
+        return segmentFile.resolveSibling(fileName.substring(0, fileName.length() - segmentSuffix.length()) + DELETES_SUFFIX);
+    }
+
+    /**
+     * Flushes remaining buffered entries. Mapped segments are released when collected.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,123 @@
+package com.rokkon.pipeline.util;
+
+import com.rokkon.search.model.ChunkEmbedding;
+import com.rokkon.search.model.Embedding;
+import com.rokkon.search.model.PackedVector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class PackedVectorsTest {
+
+    private static final int DIMENSION = 384;
+
+    @Test
+    void fp32RoundTripIsLossless() {
+        float[] vector = randomVector(1L);
+
+        PackedVector packed = PackedVectors.pack(vector, PackedVector.Encoding.FP32);
+
+        assertThat(packed.getData().size()).isEqualTo(DIMENSION * 4);
+        assertThat(PackedVectors.unpack(packed)).containsExactly(vector);
+    }
+
+    @Test
+    void fp32IsLittleEndian() {
+        PackedVector packed = PackedVectors.pack(new float[]{1.0f}, PackedVector.Encoding.FP32);
+
+        // 1.0f is 0x3F800000
+        assertThat(packed.getData().toByteArray()).containsExactly(0x00, 0x00, 0x80, 0x3F);
+    }
+
+    @Test
+    void fp16RoundTripKeepsThreeDigits() {
+        float[] vector = randomVector(2L);
+
+        PackedVector packed = PackedVectors.pack(vector, PackedVector.Encoding.FP16);
+
+        assertThat(packed.getData().size()).isEqualTo(DIMENSION * 2);
+        float[] unpacked = PackedVectors.unpack(packed);
+        for (int i = 0; i < DIMENSION; i++) {
+            assertThat(unpacked[i]).isCloseTo(vector[i], within(Math.abs(vector[i]) * 1e-3f + 1e-6f));
+        }
+    }
+
+    @Test
+    void int8ErrorIsBoundedByHalfAStep() {
+        float[] vector = randomVector(3L);
+
+        PackedVector packed = PackedVectors.pack(vector, PackedVector.Encoding.INT8);
+
+        assertThat(packed.getData().size()).isEqualTo(DIMENSION);
+        float[] unpacked = PackedVectors.unpack(packed);
+        float tolerance = packed.getScale() / 2 + 1e-6f;
+        for (int i = 0; i < DIMENSION; i++) {
+            assertThat(unpacked[i]).isCloseTo(vector[i], within(tolerance));
+        }
+    }
+
+    @Test
+    void int8HandlesConstantAndEmptyVectors() {
+        PackedVector constant = PackedVectors.pack(new float[]{0.25f, 0.25f, 0.25f}, PackedVector.Encoding.INT8);
+        assertThat(PackedVectors.unpack(constant)).containsExactly(0.25f, 0.25f, 0.25f);
+
+        PackedVector empty = PackedVectors.pack(new float[0], PackedVector.Encoding.INT8);
+        assertThat(PackedVectors.unpack(empty)).isEmpty();
+    }
+
+    @Test
+    void packedEncodingsShrinkTheSerializedEmbedding() {
+        float[] vector = randomVector(4L);
+        ChunkEmbedding.Builder repeated = ChunkEmbedding.newBuilder().setTextContent("chunk");
+        for (float value : vector) {
+            repeated.addVector(value);
+        }
+        int repeatedSize = repeated.build().getSerializedSize();
+
+        int fp16Size = ChunkEmbedding.newBuilder().setTextContent("chunk")
+                .setPackedVector(PackedVectors.pack(vector, PackedVector.Encoding.FP16)).build().getSerializedSize();
+        int int8Size = ChunkEmbedding.newBuilder().setTextContent("chunk")
+                .setPackedVector(PackedVectors.pack(vector, PackedVector.Encoding.INT8)).build().getSerializedSize();
+
+        assertThat(fp16Size).isLessThan(repeatedSize * 55 / 100);
+        assertThat(int8Size).isLessThan(repeatedSize * 30 / 100);
+    }
+
+    @Test
+    void vectorOfPrefersThePackedForm() {
+        ChunkEmbedding packed = ChunkEmbedding.newBuilder()
+                .setPackedVector(PackedVectors.pack(new float[]{1f, 2f}, PackedVector.Encoding.FP32))
+                .build();
+        Embedding repeated = Embedding.newBuilder().addVector(3f).addVector(4f).build();
+
+        assertThat(PackedVectors.vectorOf(packed)).containsExactly(1f, 2f);
+        assertThat(PackedVectors.vectorOf(repeated)).containsExactly(3f, 4f);
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        PackedVector truncated = PackedVectors.pack(new float[]{1f, 2f}, PackedVector.Encoding.FP32).toBuilder()
+                .setDimension(3)
+                .build();
+
+        assertThatThrownBy(() -> PackedVectors.unpack(truncated))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("needs 12 bytes but has 8");
+        assertThatThrownBy(() -> PackedVectors.pack(new float[]{1f}, PackedVector.Encoding.ENCODING_UNSPECIFIED))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(PackedVectors.encodingOf(" INT8 ")).isEqualTo(PackedVector.Encoding.INT8);
+    }
+
+    private static float[] randomVector(long seed) {
+        Random random = new Random(seed);
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian() * 0.05f;
+        }
+        return vector;
+    }
+}
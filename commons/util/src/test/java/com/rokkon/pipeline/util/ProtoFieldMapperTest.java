@@ -205,6 +205,26 @@ public class ProtoFieldMapperTest {
         assertEquals(NullValue.NULL_VALUE, customData.getFieldsOrThrow("source_system").getNullValue());
     }
 
+    @Test
+    void testGetValueReadsStructPath() throws ProtoFieldMapper.MappingException {
+        Message source = createSourcePipeStream();
+        assertEquals("v1.2", mapper.getValue(source, "document.custom_data.info.version"));
+        assertEquals(98765.0, mapper.getValue(source, "document.custom_data.run_id"));
+        assertEquals(Arrays.asList("java", "protobuf"), mapper.getValue(source, "document.keywords"));
+    }
+
+    @Test
+    void testGetValueLooksUpMapKeys() throws ProtoFieldMapper.MappingException, InvalidProtocolBufferException {
+        // A Struct read as a plain message exposes its entries through the map field "fields"
+        Struct struct = Struct.newBuilder()
+                .putFields("author", Value.newBuilder().setStringValue("Ada").build())
+                .build();
+        Message asMessage = DynamicMessage.parseFrom(Struct.getDescriptor(), struct.toByteString());
+
+        assertEquals("Ada", mapper.getValue(asMessage, "fields.author"));
+        assertNull(mapper.getValue(asMessage, "fields.missing"));
+    }
+
     @Test
     void testInvalidSourcePath() {
         Message source = createSourcePipeStream();
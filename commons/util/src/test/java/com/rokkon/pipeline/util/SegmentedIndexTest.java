@@ -0,0 +1,244 @@
+package com.rokkon.pipeline.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the segment lifecycle against a minimal segment format: one {@code entryId documentId} line per entry.
+ */
+class SegmentedIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void flushedSegmentsAndTombstonesSurviveReopen() throws Exception {
+        LineIndex index = LineIndex.create(tempDir);
+        index.add("doc-1", "a", "b");
+        index.add("doc-2", "c");
+        index.flush();
+        index.add("doc-3", "d");
+
+        assertThat(index.deleteDocument("doc-1")).isEqualTo(2);
+        assertThat(index.deleteDocument("doc-1")).isZero();
+        assertThat(index.bufferedCount()).isEqualTo(1);
+        index.flush();
+
+        LineIndex reopened = LineIndex.open(tempDir);
+        assertThat(reopened.liveEntryIds()).containsExactly("c", "d");
+        assertThat(reopened.segments()).isEqualTo(2);
+        assertThat(Files.readAllLines(tempDir.resolve(SegmentedIndex.MANIFEST)))
+                .containsExactly("format=lines", "seg_0.lines", "seg_1.lines");
+    }
+
+    @Test
+    void replacingADocumentDeletesItsFlushedAndBufferedEntries() throws Exception {
+        LineIndex index = LineIndex.create(tempDir);
+        index.add("doc-1", "old-flushed");
+        index.flush();
+        index.add("doc-1", "old-buffered");
+        index.add("doc-1", "new");
+
+        assertThat(index.liveEntryIds()).containsExactly("new");
+    }
+
+    @Test
+    void mergeKeepsLiveEntriesInOrderAndRemovesSourceFiles() throws Exception {
+        LineIndex index = LineIndex.create(tempDir);
+        for (int segment = 0; segment < 3; segment++) {
+            for (int i = segment * 10; i < (segment + 1) * 10; i++) {
+                index.add("doc-" + i, "e" + i);
+            }
+            index.flush();
+        }
+        for (int i = 0; i < 30; i += 3) {
+            index.deleteDocument("doc-" + i);
+        }
+
+        assertThat(index.merge(1, 0.5)).isTrue();
+        assertThat(index.merge(1, 0.5)).isFalse();
+
+        List<String> expected = IntStream.range(0, 30).filter(i -> i % 3 != 0).mapToObj(i -> "e" + i).toList();
+        assertThat(index.liveEntryIds()).isEqualTo(expected);
+        assertThat(index.segments()).isEqualTo(1);
+        assertThat(files(".lines")).containsExactly("seg_3.lines");
+        assertThat(files(".del")).isEmpty();
+        assertThat(LineIndex.open(tempDir).liveEntryIds()).isEqualTo(expected);
+    }
+
+    @Test
+    void rewritesDeleteHeavySegmentsAndDropsFullyDeletedOnes() throws Exception {
+        LineIndex index = LineIndex.create(tempDir);
+        index.add("doc-1", "a");
+        index.add("doc-2", "b");
+        index.add("doc-3", "c");
+        index.flush();
+        index.add("doc-4", "d");
+        index.flush();
+        index.deleteDocument("doc-1");
+        index.deleteDocument("doc-2");
+        index.deleteDocument("doc-4");
+
+        assertThat(index.merge(8, 0.5)).isTrue();
+
+        assertThat(index.liveEntryIds()).containsExactly("c");
+        assertThat(index.segments()).isEqualTo(1);
+    }
+
+    @Test
+    void openRemovesFilesTheManifestDoesNotName() throws Exception {
+        LineIndex index = LineIndex.create(tempDir);
+        index.add("doc-1", "a");
+        index.flush();
+        Files.writeString(tempDir.resolve("seg_7.lines"), "partial");
+        Files.writeString(tempDir.resolve("seg_8.lines.tmp"), "partial");
+
+        LineIndex reopened = LineIndex.open(tempDir);
+
+        assertThat(files(".lines")).containsExactly("seg_0.lines");
+        assertThat(tempDir.resolve("seg_8.lines.tmp")).doesNotExist();
+        // New segments continue after the highest generation the manifest names
+        reopened.add("doc-2", "b");
+        reopened.flush();
+        assertThat(files(".lines")).containsExactlyInAnyOrder("seg_0.lines", "seg_1.lines");
+    }
+
+    private List<String> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    /**
+     * Entries of one segment; a written one also knows its file.
+     */
+    static final class LineSegment extends DeletableSegment {
+        final List<String> entryIds = new ArrayList<>();
+        final List<String> documentIds = new ArrayList<>();
+        final Path file;
+
+        LineSegment(Path file, BitSet deleted) {
+            super(deleted);
+            this.file = file;
+        }
+
+        void add(String entryId, String documentId) {
+            entryIds.add(entryId);
+            documentIds.add(documentId);
+        }
+
+        @Override
+        public int size() {
+            return entryIds.size();
+        }
+
+        @Override
+        protected int[] entriesOf(String documentId) {
+            return IntStream.range(0, documentIds.size()).filter(i -> documentIds.get(i).equals(documentId)).toArray();
+        }
+    }
+
+    static final class LineIndex extends SegmentedIndex<LineSegment, LineSegment, LineSegment> {
+
+        private LineIndex(Path directory) {
+            super("lines", directory, ".lines", generation -> new LineSegment(null, new BitSet()));
+        }
+
+        static LineIndex create(Path directory) throws IOException {
+            LineIndex index = new LineIndex(directory);
+            index.createEmpty();
+            return index;
+        }
+
+        static LineIndex open(Path directory) throws IOException {
+            List<String> lines = readManifest(directory);
+            assertThat(lines.get(0)).isEqualTo("format=lines");
+            LineIndex index = new LineIndex(directory);
+            index.openSegments(lines.subList(1, lines.size()));
+            return index;
+        }
+
+        void add(String documentId, String... entryIds) {
+            replace(documentId, buffer -> {
+                for (String entryId : entryIds) {
+                    buffer.add(entryId, documentId);
+                }
+            });
+        }
+
+        List<String> liveEntryIds() {
+            return read(segments -> {
+                List<String> live = new ArrayList<>();
+                for (LineSegment segment : segments) {
+                    for (int i = 0; i < segment.size(); i++) {
+                        if (!segment.isDeleted(i)) {
+                            live.add(segment.entryIds.get(i));
+                        }
+                    }
+                }
+                return live;
+            });
+        }
+
+        int segments() {
+            return read(segments -> segmentCount());
+        }
+
+        @Override
+        protected LineSegment openSegment(Path file, Path deletesFile) throws IOException {
+            LineSegment segment = new LineSegment(file, readDeletes(deletesFile));
+            for (String line : Files.readAllLines(file)) {
+                String[] parts = line.split(" ");
+                segment.add(parts[0], parts[1]);
+            }
+            return segment;
+        }
+
+        @Override
+        protected void writeSegment(LineSegment segment, Path file) throws IOException {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < segment.size(); i++) {
+                lines.add(segment.entryIds.get(i) + " " + segment.documentIds.get(i));
+            }
+            Files.write(file, lines);
+        }
+
+        @Override
+        protected LineSegment mergeLive(List<LineSegment> sources, List<BitSet> deletions, long generation) {
+            LineSegment merged = new LineSegment(null, new BitSet());
+            for (int s = 0; s < sources.size(); s++) {
+                LineSegment source = sources.get(s);
+                for (int i = deletions.get(s).nextClearBit(0); i < source.size(); i = deletions.get(s).nextClearBit(i + 1)) {
+                    merged.add(source.entryIds.get(i), source.documentIds.get(i));
+                }
+            }
+            return merged.size() > 0 ? merged : null;
+        }
+
+        @Override
+        protected long mergeBytes(LineSegment segment) {
+            return segment.liveCount();
+        }
+
+        @Override
+        protected Path fileOf(LineSegment segment) {
+            return segment.file;
+        }
+
+        @Override
+        protected List<String> manifestHeader() {
+            return List.of("format=lines");
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
 import com.rokkon.pipeline.consul.service.ClusterServiceImpl;
 import com.rokkon.pipeline.util.ObjectMapperFactory;
 import com.rokkon.pipeline.validation.ValidationResult;
+import com.rokkon.pipeline.consul.store.TestKvStores;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusIntegrationTest;
 import io.quarkus.test.junit.QuarkusTestProfile;
@@ -156,6 +157,10 @@ public class ClusterResourceIT extends ClusterResourceTestBase {
             java.lang.reflect.Field kvPrefixField = ClusterServiceImpl.class.getDeclaredField("kvPrefix");
             kvPrefixField.setAccessible(true);
             kvPrefixField.set(clusterService, testNamespace);
+
+            java.lang.reflect.Field kvStoreField = ClusterServiceImpl.class.getDeclaredField("kvStore");
+            kvStoreField.setAccessible(true);
+            kvStoreField.set(clusterService, TestKvStores.of(connectionManager, testNamespace));
         } catch (Exception e) {
             LOG.errorf(e, "Failed to set ClusterServiceImpl fields");
             throw new RuntimeException("Failed to set up test", e);
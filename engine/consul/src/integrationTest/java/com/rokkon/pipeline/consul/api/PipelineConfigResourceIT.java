@@ -273,16 +273,6 @@ public class PipelineConfigResourceIT extends PipelineConfigResourceTestBase {
             kvPrefixField.setAccessible(true);
             kvPrefixField.set(pipelineConfigService, testNamespace);
 
-            // Set consulHost
-            java.lang.reflect.Field consulHostField = PipelineConfigServiceImpl.class.getDeclaredField("consulHost");
-            consulHostField.setAccessible(true);
-            consulHostField.set(pipelineConfigService, consulHost);
-
-            // Set consulPort
-            java.lang.reflect.Field consulPortField = PipelineConfigServiceImpl.class.getDeclaredField("consulPort");
-            consulPortField.setAccessible(true);
-            consulPortField.set(pipelineConfigService, String.valueOf(consulPort));
-
             // Set validator
             java.lang.reflect.Field validatorField = PipelineConfigServiceImpl.class.getDeclaredField("validator");
             validatorField.setAccessible(true);
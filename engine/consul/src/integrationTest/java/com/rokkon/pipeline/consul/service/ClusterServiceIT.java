@@ -6,6 +6,7 @@ import com.rokkon.pipeline.consul.ConsulTestResource;
 import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
 import com.rokkon.pipeline.consul.test.IsolatedConsulKvIntegrationTestBase;
 import com.rokkon.pipeline.util.ObjectMapperFactory;
+import com.rokkon.pipeline.consul.store.TestKvStores;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusIntegrationTest;
 import io.quarkus.test.junit.QuarkusTestProfile;
@@ -76,6 +77,7 @@ class ClusterServiceIT extends IsolatedConsulKvIntegrationTestBase {
         clusterService.connectionManager = connectionManager;
         clusterService.objectMapper = objectMapper;
         clusterService.kvPrefix = testNamespace; // Use our isolated namespace
+        clusterService.kvStore = TestKvStores.of(connectionManager, testNamespace);
 
         LOG.info("ClusterService created with isolated namespace");
     }
@@ -16,6 +16,8 @@ import com.rokkon.pipeline.validation.CompositeValidatorBuilder;
 import com.rokkon.pipeline.validation.ValidationResult;
 import com.rokkon.pipeline.validation.ValidationResultFactory;
 import com.rokkon.test.containers.ModuleContainerResource;
+import com.rokkon.pipeline.consul.store.ConsulKvStore;
+import com.rokkon.pipeline.consul.store.TestKvStores;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusIntegrationTest;
 import io.quarkus.test.junit.QuarkusTestProfile;
@@ -134,20 +136,28 @@ class ModuleWhitelistServiceIT extends IsolatedConsulKvIntegrationTestBase {
             })
             .build();
 
+        // Both services read through one replica of the isolated namespace
+        ConsulKvStore kvStore = TestKvStores.of(connectionManager, testNamespace);
+
         // Create ClusterService implementation
         clusterService = new ClusterServiceImpl();
         clusterService.connectionManager = connectionManager;
         clusterService.objectMapper = objectMapper;
         clusterService.kvPrefix = testNamespace; // Use our isolated namespace
+        clusterService.kvStore = kvStore;
 
         // Create PipelineConfigService implementation
         pipelineConfigService = new PipelineConfigServiceImpl();
-        pipelineConfigService.consulHost = consulHost;
-        pipelineConfigService.consulPort = String.valueOf(consulPort);
+        pipelineConfigService.connectionManager = connectionManager;
         pipelineConfigService.objectMapper = objectMapper;
         pipelineConfigService.clusterService = clusterService;
         pipelineConfigService.validator = pipelineValidator;
         pipelineConfigService.kvPrefix = testNamespace; // Use our isolated namespace
+        pipelineConfigService.kvStore = kvStore;
+        pipelineConfigService.configCache = TestKvStores.cacheOver(kvStore, objectMapper);
+        pipelineConfigService.schemaRegistry = new ModuleSchemaRegistry();
+        pipelineConfigService.schemaRegistry.objectMapper = objectMapper;
+        pipelineConfigService.schemaRegistry.kvStore = kvStore;
 
         // Create ModuleWhitelistService implementation
         whitelistService = new ModuleWhitelistServiceImpl();
@@ -9,6 +9,7 @@ import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
 import com.rokkon.pipeline.consul.test.IsolatedConsulKvIntegrationTestBase;
 import com.rokkon.pipeline.util.ObjectMapperFactory;
 import com.rokkon.pipeline.validation.CompositeValidator;
+import com.rokkon.pipeline.consul.store.TestKvStores;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusIntegrationTest;
 import io.quarkus.test.junit.QuarkusTestProfile;
@@ -79,6 +80,7 @@ class ModuleWhitelistServiceSimpleIT extends IsolatedConsulKvIntegrationTestBase
         clusterService.connectionManager = connectionManager;
         clusterService.objectMapper = objectMapper;
         clusterService.kvPrefix = testNamespace; // Use our isolated namespace
+        clusterService.kvStore = TestKvStores.of(connectionManager, testNamespace);
 
         // Create ModuleWhitelistService implementation
         whitelistService = new ModuleWhitelistServiceImpl();
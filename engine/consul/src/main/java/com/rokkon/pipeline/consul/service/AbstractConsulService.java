@@ -2,17 +2,28 @@ package com.rokkon.pipeline.consul.service;
 
 import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.vertx.UniHelper;
 import io.vertx.ext.consul.ConsulClient;
+import io.vertx.ext.consul.TxnError;
+import io.vertx.ext.consul.TxnKVOperation;
+import io.vertx.ext.consul.TxnRequest;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 
+import java.util.List;
+
 /**
  * Base class for services that need to interact with Consul.
- * Provides a unified way to get a Consul client.
+ * Provides a unified way to get a Consul client, and batched KV writes through Consul transactions.
  */
 public abstract class AbstractConsulService {
 
+    /**
+     * Most operations Consul accepts in one transaction.
+     */
+    protected static final int MAX_TXN_OPERATIONS = 64;
+
     @Inject
     protected ConsulConnectionManager connectionManager;
 
@@ -28,4 +39,69 @@ public abstract class AbstractConsulService {
                         Response.Status.SERVICE_UNAVAILABLE
                 ));
     }
-}
\ No newline at end of file
+
+    /**
+     * Applies the batch atomically in one Consul transaction: either every operation is applied or, if any
+     * check fails, none is.
+     *
+     * @throws IllegalArgumentException (as a failed Uni) if the batch exceeds {@link #MAX_TXN_OPERATIONS}
+     */
+    protected Uni<KvWriteBatch.Result> commit(KvWriteBatch batch) {
+        if (batch.size() > MAX_TXN_OPERATIONS) {
+            return Uni.createFrom().failure(new IllegalArgumentException(
+                    "A Consul transaction takes at most " + MAX_TXN_OPERATIONS + " operations, got " + batch.size()));
+        }
+        if (batch.isEmpty()) {
+            return Uni.createFrom().item(new KvWriteBatch.Result(true, 0, List.of()));
+        }
+        return getConsulClient().flatMap(client -> execute(client, batch.operations(), 0));
+    }
+
+    /**
+     * Applies a batch of any size in transactions of up to {@link #MAX_TXN_OPERATIONS} operations, one after the
+     * other. Each transaction is atomic, the batch as a whole is not: the first failing transaction stops the
+     * commit, and {@link KvWriteBatch.Result#applied()} tells how many operations went through before it.
+     */
+    protected Uni<KvWriteBatch.Result> commitInChunks(KvWriteBatch batch) {
+        if (batch.isEmpty()) {
+            return Uni.createFrom().item(new KvWriteBatch.Result(true, 0, List.of()));
+        }
+        return getConsulClient().flatMap(client -> commitChunks(client, batch.operations(), 0));
+    }
+
+    private Uni<KvWriteBatch.Result> commitChunks(ConsulClient client, List<TxnKVOperation> operations, int from) {
+        int to = Math.min(from + MAX_TXN_OPERATIONS, operations.size());
+        return execute(client, operations.subList(from, to), from)
+                .flatMap(result -> {
+                    if (!result.committed() || to == operations.size()) {
+                        return Uni.createFrom().item(new KvWriteBatch.Result(
+                                result.committed(), from + result.applied(), result.errors()));
+                    }
+                    return commitChunks(client, operations, to);
+                });
+    }
+
+    /**
+     * Runs one transaction; errors name operations by their position in the whole batch.
+     */
+    private Uni<KvWriteBatch.Result> execute(ConsulClient client, List<TxnKVOperation> operations, int offset) {
+        TxnRequest request = new TxnRequest();
+        operations.forEach(request::addOperation);
+        return UniHelper.toUni(client.transaction(request))
+                .map(response -> {
+                    if (response.getErrorsSize() == 0) {
+                        return new KvWriteBatch.Result(true, operations.size(), List.of());
+                    }
+                    List<String> errors = response.getErrors().stream()
+                            .map(error -> describe(error, operations, offset))
+                            .toList();
+                    return new KvWriteBatch.Result(false, 0, errors);
+                });
+    }
+
+    private static String describe(TxnError error, List<TxnKVOperation> operations, int offset) {
+        int index = error.getOpIndex();
+        String key = index >= 0 && index < operations.size() ? operations.get(index).getKey() : "?";
+        return "Operation " + (offset + index) + " on '" + key + "' failed: " + error.getWhat();
+    }
+}
@@ -8,6 +8,7 @@ import com.rokkon.pipeline.config.model.PipelineGraphConfig;
 import com.rokkon.pipeline.config.model.PipelineModuleMap;
 import com.rokkon.pipeline.config.service.ClusterService;
 import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import com.rokkon.pipeline.consul.store.ConsulKvStore;
 import com.rokkon.pipeline.validation.ValidationResult;
 import com.rokkon.pipeline.validation.ValidationResultFactory;
 import io.smallrye.mutiny.Uni;
@@ -40,6 +41,9 @@ public class ClusterServiceImpl implements ClusterService {
     @Inject
     ObjectMapper objectMapper;
 
+    @Inject
+    ConsulKvStore kvStore;
+
     private ConsulClient getConsulClient() {
         return connectionManager.getClient().orElseThrow(() -> 
             new WebApplicationException("Consul not connected", Response.Status.SERVICE_UNAVAILABLE)
@@ -89,21 +93,8 @@ public class ClusterServiceImpl implements ClusterService {
     public Uni<Optional<ClusterMetadata>> getCluster(String clusterName) {
         String key = buildClusterKey(clusterName) + "/metadata";
 
-        return UniHelper.toUni(getConsulClient().getValue(key))
-            .map(keyValue -> {
-                if (keyValue == null || keyValue.getValue() == null) {
-                    return Optional.<ClusterMetadata>empty();
-                }
-
-                try {
-                    String json = keyValue.getValue();
-                    ClusterMetadata metadata = objectMapper.readValue(json, ClusterMetadata.class);
-                    return Optional.of(metadata);
-                } catch (Exception e) {
-                    LOG.errorf(e, "Failed to parse cluster metadata for %s", clusterName);
-                    return Optional.<ClusterMetadata>empty();
-                }
-            })
+        return kvStore.snapshot()
+            .map(snapshot -> snapshot.value(key).flatMap(json -> parseMetadata(clusterName, json)))
             .onFailure().recoverWithItem(error -> {
                 LOG.debugf("Failed to get cluster metadata for %s: %s", clusterName, error.getMessage());
                 return Optional.empty();
@@ -119,6 +110,7 @@ public class ClusterServiceImpl implements ClusterService {
 
         return UniHelper.toUni(getConsulClient().deleteValues(key))
             .map(response -> {
+                kvStore.invalidate();
                 LOG.infof("Deleted cluster: %s", clusterName);
                 return ValidationResultFactory.success();
             })
@@ -129,71 +121,26 @@ public class ClusterServiceImpl implements ClusterService {
     }
 
     public Uni<List<Cluster>> listClusters() {
-        String prefix = kvPrefix + "/clusters";
+        String prefix = kvPrefix + "/clusters/";
         LOG.debugf("Listing clusters with prefix: %s", prefix);
-        
-        return UniHelper.toUni(getConsulClient().getKeys(prefix))
-            .onItem().transformToUni(keys -> {
-                LOG.debugf("Found %d keys under prefix %s", keys != null ? keys.size() : 0, prefix);
-                if (keys != null && !keys.isEmpty()) {
-                    LOG.debugf("Keys: %s", keys);
-                }
-                
-                if (keys == null || keys.isEmpty()) {
-                    return Uni.createFrom().item(new ArrayList<Cluster>());
-                }
 
-                // Extract unique cluster names
-                Set<String> clusterNames = new java.util.HashSet<>();
-                for (String key : keys) {
-                    // Remove the prefix to get the relative path
-                    if (key.startsWith(prefix + "/")) {
-                        String relativePath = key.substring(prefix.length() + 1);
-                        String[] parts = relativePath.split("/");
-                        // First part after prefix should be the cluster name
-                        if (parts.length > 0 && !parts[0].isEmpty()) {
-                            clusterNames.add(parts[0]);
-                        }
-                    }
+        // One snapshot read instead of a key listing plus a metadata read per cluster
+        return kvStore.snapshot()
+            .map(snapshot -> {
+                List<Cluster> result = new ArrayList<>();
+                for (String name : snapshot.childNames(prefix)) {
+                    snapshot.value(prefix + name + "/metadata")
+                        .flatMap(json -> parseMetadata(name, json))
+                        .ifPresent(meta -> {
+                            // Handle null createdAt gracefully
+                            String createdAtStr = meta.createdAt() != null ?
+                                meta.createdAt().toString() :
+                                Instant.now().toString();
+                            result.add(new Cluster(name, createdAtStr, meta));
+                        });
                 }
-                LOG.debugf("Extracted cluster names: %s", clusterNames);
-
-                // Get metadata for each cluster
-                List<Uni<Optional<Cluster>>> clusterUnis = new ArrayList<>();
-                for (String name : clusterNames) {
-                    clusterUnis.add(
-                        getCluster(name).map(metaOpt -> {
-                            if (metaOpt.isPresent()) {
-                                ClusterMetadata meta = metaOpt.get();
-                                Map<String, String> metadataStrings = new java.util.HashMap<>();
-                                meta.metadata().forEach((k, v) -> metadataStrings.put(k, String.valueOf(v)));
-
-                                // Handle null createdAt gracefully
-                                String createdAtStr = meta.createdAt() != null ? 
-                                    meta.createdAt().toString() : 
-                                    Instant.now().toString();
-
-                                return Optional.of(new Cluster(
-                                    name,
-                                    createdAtStr,
-                                    meta
-                                ));
-                            }
-                            return Optional.<Cluster>empty();
-                        })
-                    );
-                }
-
-                return Uni.combine().all().unis(clusterUnis)
-                    .with(list -> {
-                        List<Cluster> result = new ArrayList<>();
-                        for (Object obj : list) {
-                            @SuppressWarnings("unchecked")
-                            Optional<Cluster> opt = (Optional<Cluster>) obj;
-                            opt.ifPresent(result::add);
-                        }
-                        return result;
-                    });
+                LOG.debugf("Found %d clusters at KV index %d", result.size(), snapshot.index());
+                return result;
             })
             .onFailure().recoverWithItem(error -> {
                 LOG.errorf(error, "Failed to list clusters");
@@ -201,6 +148,15 @@ public class ClusterServiceImpl implements ClusterService {
             });
     }
 
+    private Optional<ClusterMetadata> parseMetadata(String clusterName, String json) {
+        try {
+            return Optional.of(objectMapper.readValue(json, ClusterMetadata.class));
+        } catch (Exception e) {
+            LOG.errorf(e, "Failed to parse cluster metadata for %s", clusterName);
+            return Optional.empty();
+        }
+    }
+
     private Uni<ValidationResult> storeClusterMetadata(String clusterName, ClusterMetadata metadata) {
         try {
             String json = objectMapper.writeValueAsString(metadata);
@@ -208,6 +164,7 @@ public class ClusterServiceImpl implements ClusterService {
 
             return UniHelper.toUni(getConsulClient().putValue(key, json))
                 .map(success -> {
+                    kvStore.invalidate();
                     if (Boolean.TRUE.equals(success)) {
                         LOG.infof("Created cluster: %s", clusterName);
                         return ValidationResultFactory.success();
@@ -249,6 +206,7 @@ public class ClusterServiceImpl implements ClusterService {
 
             return UniHelper.toUni(getConsulClient().putValue(key, json))
                 .map(success -> {
+                    kvStore.invalidate();
                     if (Boolean.TRUE.equals(success)) {
                         LOG.infof("Created initial config for cluster: %s", clusterName);
                         return ValidationResultFactory.success();
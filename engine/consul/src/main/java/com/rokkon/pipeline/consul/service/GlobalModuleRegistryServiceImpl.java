@@ -1,27 +1,24 @@
 package com.rokkon.pipeline.consul.service;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import com.rokkon.pipeline.commons.model.GlobalModuleRegistryService;
-import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
 import com.rokkon.pipeline.consul.config.ConsulConfigSource;
+import com.rokkon.pipeline.consul.store.ConsulKvStore;
+import com.rokkon.pipeline.consul.store.KvSnapshot;
 import com.rokkon.pipeline.events.ModuleRegistrationRequestEvent; // @deprecated - for event-based registration
 import com.rokkon.pipeline.events.ModuleRegistrationResponseEvent; // @deprecated - for event-based registration
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.networknt.schema.JsonSchema;
-import com.networknt.schema.JsonSchemaFactory;
-import com.networknt.schema.SpecVersion;
 import io.quarkus.cache.CacheInvalidate;
 import io.quarkus.cache.CacheKey;
 import io.quarkus.cache.CacheResult;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.vertx.UniHelper;
 import io.vertx.ext.consul.ConsulClient;
 import io.vertx.ext.consul.Service;
 import io.vertx.ext.consul.ServiceOptions;
 import io.vertx.ext.consul.CheckOptions;
 import io.vertx.ext.consul.CheckStatus;
 import io.vertx.ext.consul.ServiceEntry;
-import io.vertx.ext.consul.ServiceEntryList;
-import io.vertx.ext.consul.ServiceList;
+import io.vertx.ext.consul.ServiceQueryOptions;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Event;
 import jakarta.enterprise.event.Observes;
@@ -31,9 +28,9 @@ import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.HashSet;
@@ -51,19 +48,18 @@ import io.quarkus.scheduler.Scheduled;
  * Modules are registered globally and can be referenced by clusters.
  */
 @ApplicationScoped
-public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryService {
+public class GlobalModuleRegistryServiceImpl extends AbstractConsulService implements GlobalModuleRegistryService {
     
     private static final Logger LOG = Logger.getLogger(GlobalModuleRegistryServiceImpl.class);
     
+    /**
+     * Tag carried by every module service registered in Consul.
+     */
+    private static final String MODULE_TAG = "module";
+    
     @ConfigProperty(name = "pipeline.consul.kv-prefix", defaultValue = "pipeline")
     String kvPrefix;
     
-    @Inject
-    ConsulConnectionManager connectionManager;
-    
-    @Inject
-    ObjectMapper objectMapper;
-    
     /**
      * @deprecated Part of the event-based registration approach. Use direct calls instead.
      */
@@ -74,7 +70,11 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
     @Inject
     ConsulConfigSource config;
     
-    private final JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+    @Inject
+    ConsulKvStore kvStore;
+    
+    @Inject
+    ModuleSchemaRegistry schemaRegistry;
     
     /**
      * Register a module globally in Consul.
@@ -95,7 +95,6 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
             int enginePort,
             String jsonSchema) {
         
-        ConsulClient client = getConsulClient();
         String moduleId = generateModuleId(moduleName);
         
         LOG.infof("Registering module globally: %s (%s) at %s:%d (engine connection: %s:%d)", 
@@ -106,14 +105,10 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
         final String containerName = metadata != null ? metadata.get("containerName") : null;
         final String hostname = metadata != null ? metadata.get("hostname") : null;
         
-        // Validate JSON Schema v7 if provided
-        if (jsonSchema != null && !jsonSchema.trim().isEmpty()) {
-            if (!isValidJsonSchemaV7(jsonSchema)) {
-                throw new IllegalArgumentException(
-                    String.format("Invalid JSON Schema v7 provided for module '%s'", moduleName)
-                );
-            }
-        }
+        // Validate JSON Schema v7 if provided; compiled once here and reused for every custom config check
+        final ModuleSchemaRegistry.CompiledSchema compiledSchema = jsonSchema != null && !jsonSchema.trim().isEmpty()
+            ? schemaRegistry.compile(moduleName, version, jsonSchema)
+            : null;
         
         // Allow multiple instances of the same module type to register
         // Each instance gets a unique moduleId but shares the same moduleName
@@ -159,8 +154,8 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
                     
                     // Validate schema consistency across instances
                     for (ModuleRegistration existing : sameNameModules) {
-                        if (existing.jsonSchema() != null && jsonSchema != null) {
-                            if (!areJsonSchemasEquivalent(existing.jsonSchema(), jsonSchema)) {
+                        if (existing.jsonSchema() != null && compiledSchema != null) {
+                            if (!schemaRegistry.isEquivalent(existing.jsonSchema(), compiledSchema)) {
                                 LOG.errorf("Module %s schema mismatch detected for new instance", moduleName);
                                 return Uni.createFrom().failure(new IllegalArgumentException(
                                     String.format("Schema mismatch for module '%s'. All instances must have the same schema.", 
@@ -247,9 +242,9 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
                 
                 // Register the service
                 LOG.infof("Registering service with Consul: %s (ID: %s)", moduleName, moduleId);
-                return Uni.createFrom().completionStage(
+                return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
                     client.registerService(serviceOptions).toCompletionStage()
-                )
+                ))
                 .onItem().transformToUni(v -> {
                     LOG.infof("Service registered with Consul, now storing metadata in KV");
                     // Store additional metadata in KV
@@ -257,6 +252,9 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
                 })
                 .onItem().transform(v -> {
                     LOG.infof("Module registration complete: %s", moduleId);
+                    if (compiledSchema != null) {
+                        schemaRegistry.register(compiledSchema);
+                    }
                     return registration;
                 });
             })
@@ -275,104 +273,18 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
      */
     @Override
     @CacheResult(cacheName = "global-modules-list")
-    @SuppressWarnings("unchecked")
     public Uni<Set<ModuleRegistration>> listRegisteredModules() {
-        ConsulClient client = getConsulClient();
-        
-        // Try to get all services with module tag directly using health endpoint
-        return ((Uni<Set<ModuleRegistration>>) (Uni<?>) Uni.createFrom().<List<Service>>emitter(emitter -> {
-            // First, we need to get the list of all services from catalog
-            client.catalogServices()
-                .onComplete(catalogResult -> {
-                    if (catalogResult.failed()) {
-                        LOG.warnf("Failed to get catalog services: %s", catalogResult.cause());
-                        emitter.complete(new ArrayList<>());
-                        return;
-                    }
-                    
-                    ServiceList serviceList = catalogResult.result();
-                    if (serviceList == null || serviceList.getList() == null) {
-                        LOG.debugf("No services found in catalog");
-                        emitter.complete(new ArrayList<>());
-                        return;
-                    }
-                    
-                    // Filter for services with "module" tag
-                    List<String> moduleServiceNames = serviceList.getList().stream()
-                        .filter(service -> service != null && 
-                                service.getTags() != null && 
-                                service.getTags().contains("module"))
-                        .map(service -> service.getName())
-                        .distinct()
-                        .toList();
-                    
-                    if (moduleServiceNames.isEmpty()) {
-                        LOG.debugf("No services with 'module' tag found");
-                        emitter.complete(new ArrayList<>());
-                        return;
-                    }
-                    
-                    // Collect all services from health checks
-                    List<Service> allServices = new ArrayList<>();
-                    java.util.concurrent.atomic.AtomicInteger remaining = 
-                        new java.util.concurrent.atomic.AtomicInteger(moduleServiceNames.size());
-                    
-                    for (String serviceName : moduleServiceNames) {
-                        client.healthServiceNodes(serviceName, false)
-                            .onComplete(healthResult -> {
-                                if (healthResult.succeeded()) {
-                                    ServiceEntryList entryList = healthResult.result();
-                                    if (entryList != null && entryList.getList() != null) {
-                                        entryList.getList().stream()
-                                            .map(ServiceEntry::getService)
-                                            .filter(service -> service != null)
-                                            .forEach(allServices::add);
-                                    }
-                                } else {
-                                    LOG.debugf("Failed to get health for service %s: %s", 
-                                        serviceName, healthResult.cause());
-                                }
-                                
-                                if (remaining.decrementAndGet() == 0) {
-                                    // All requests completed
-                                    emitter.complete(allServices);
-                                }
-                            });
-                    }
-                });
-        })
-        .onItem().transformToUni(services -> {
-            if (services.isEmpty()) {
-                return Uni.createFrom().item(new LinkedHashSet<>());
-            }
-            
-            // Convert to ModuleRegistration objects
-            List<Uni<ModuleRegistration>> registrationUnis = services.stream()
-                .filter(service -> service.getTags() != null && service.getTags().contains("module"))
-                .map(this::serviceToModuleRegistration)
-                .toList();
-            
-            if (registrationUnis.isEmpty()) {
-                return Uni.createFrom().item(new LinkedHashSet<>());
-            }
-            
-            return Uni.combine().all().unis(registrationUnis)
-                .with(list -> {
-                    // Use LinkedHashSet to maintain order and prevent duplicates
-                    Set<ModuleRegistration> registrations = new LinkedHashSet<>();
-                    list.forEach(obj -> {
-                        if (obj instanceof ModuleRegistration) {
-                            registrations.add((ModuleRegistration) obj);
-                        }
-                    });
-                    return registrations;
-                });
-        })
-        .onFailure().recoverWithUni(throwable -> {
-            LOG.errorf(throwable, "Failed to list registered modules");
-            Set<ModuleRegistration> empty = new LinkedHashSet<>();
-            return (Uni<Set<ModuleRegistration>>) (Uni<?>) Uni.createFrom().item(empty);
-        }));
+        // Instances come from the catalog; the enabled flags from the replicated KV snapshot, so listing costs
+        // 1 + S Consul calls for S module services instead of one more KV read per instance
+        return Uni.combine().all().unis(getConsulClient().flatMap(client -> fetchModuleInstances(client, true)),
+                kvStore.snapshot())
+            .asTuple()
+            .onItem().transform(tuple -> toModuleRegistrations(tuple.getItem1(), tuple.getItem2()))
+            .onItem().invoke(schemaRegistry::sync)
+            .onFailure().recoverWithItem(throwable -> {
+                LOG.errorf(throwable, "Failed to list registered modules");
+                return new LinkedHashSet<>();
+            });
     }
     
     /**
@@ -399,8 +311,6 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
     @Override
     @CacheResult(cacheName = "global-modules")
     public Uni<ModuleRegistration> getModule(@CacheKey String moduleId) {
-        ConsulClient client = getConsulClient();
-        
         // First try to find the service by listing all modules
         return listRegisteredModules()
             .onItem().transform(modules -> {
@@ -525,20 +435,19 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
     @CacheInvalidate(cacheName = "module-health-status")
     @CacheInvalidate(cacheName = "cluster-modules-enabled")
     public Uni<Boolean> deregisterModule(@CacheKey String moduleId) {
-        ConsulClient client = getConsulClient();
-        
         LOG.infof("Deregistering module (hard delete): %s", moduleId);
         
         // First deregister from Consul service registry
-        return Uni.createFrom().completionStage(
+        return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
             client.deregisterService(moduleId).toCompletionStage()
-        )
+        ))
         .onItem().transformToUni(v -> {
             // Then remove from KV store
             String kvKey = kvPrefix + "/modules/registered/" + moduleId;
-            return Uni.createFrom().completionStage(
+            return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
                 client.deleteValue(kvKey).toCompletionStage()
-            );
+            ))
+            .onTermination().invoke(kvStore::invalidate);
         })
         .onItem().transform(v -> {
             LOG.infof("Module %s has been completely deregistered", moduleId);
@@ -556,13 +465,12 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
     @Override
     @CacheInvalidate(cacheName = "cluster-modules-enabled")
     public Uni<Void> enableModuleForCluster(@CacheKey String moduleId, @CacheKey String clusterName) {
-        ConsulClient client = getConsulClient();
         String kvKey = String.format("%s/clusters/%s/enabled-modules/%s", 
                                     kvPrefix, clusterName, moduleId);
         
-        return Uni.createFrom().completionStage(
+        return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
             client.putValue(kvKey, "true").toCompletionStage()
-        )
+        ))
         .onItem().transformToUni(success -> {
             if (success) {
                 LOG.infof("Enabled module %s for cluster %s", moduleId, clusterName);
@@ -582,13 +490,12 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
     @Override
     @CacheInvalidate(cacheName = "cluster-modules-enabled")
     public Uni<Void> disableModuleForCluster(@CacheKey String moduleId, @CacheKey String clusterName) {
-        ConsulClient client = getConsulClient();
         String kvKey = String.format("%s/clusters/%s/enabled-modules/%s", 
                                     kvPrefix, clusterName, moduleId);
         
-        return Uni.createFrom().completionStage(
+        return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
             client.deleteValue(kvKey).toCompletionStage()
-        )
+        ))
         .onItem().transform(v -> {
             LOG.infof("Disabled module %s for cluster %s", moduleId, clusterName);
             return null;
@@ -601,12 +508,11 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
     @Override
     @CacheResult(cacheName = "cluster-modules-enabled")
     public Uni<Set<String>> listEnabledModulesForCluster(@CacheKey String clusterName) {
-        ConsulClient client = getConsulClient();
         String prefix = String.format("%s/clusters/%s/enabled-modules/", kvPrefix, clusterName);
         
-        return Uni.createFrom().completionStage(
+        return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
             client.getKeys(prefix).toCompletionStage()
-        )
+        ))
         .onItem().transform(keyList -> {
             if (keyList == null || keyList.isEmpty()) {
                 return new LinkedHashSet<>();
@@ -621,67 +527,135 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
         });
     }
     
-    private Uni<ModuleRegistration> serviceToModuleRegistration(Service service) {
-        Map<String, String> meta = service.getMeta();
-        ConsulClient client = getConsulClient();
-        String moduleId = service.getId();
-        
-        // First, try to get the enabled state from KV store
-        String kvKey = kvPrefix + "/modules/registered/" + moduleId;
+    /**
+     * Every instance of every service tagged "module", with its health checks: one catalog call for the service
+     * names, then one tag-filtered health call per module service, all in flight at once. Consul has no health
+     * endpoint spanning several services, so this is the fewest calls that return instance metadata and checks.
+     * With {@code skipFailures}, a service whose health call fails is skipped and a failed catalog call gives an
+     * empty result; without, any failed call fails the result, for callers that act on instances being absent.
+     */
+    private Uni<List<ServiceEntry>> fetchModuleInstances(ConsulClient client, boolean skipFailures) {
+        return UniHelper.toUni(client.catalogServices())
+            .onItem().transformToUni(serviceList -> {
+                if (serviceList == null || serviceList.getList() == null) {
+                    LOG.debugf("No services found in catalog");
+                    return Uni.createFrom().item(List.<ServiceEntry>of());
+                }
+                
+                List<String> moduleServiceNames = serviceList.getList().stream()
+                    .filter(service -> service != null && 
+                            service.getTags() != null && 
+                            service.getTags().contains(MODULE_TAG))
+                    .map(Service::getName)
+                    .distinct()
+                    .toList();
+                
+                if (moduleServiceNames.isEmpty()) {
+                    LOG.debugf("No services with 'module' tag found");
+                    return Uni.createFrom().item(List.<ServiceEntry>of());
+                }
+                
+                ServiceQueryOptions moduleInstances = new ServiceQueryOptions().setTag(MODULE_TAG);
+                List<Uni<List<ServiceEntry>>> lookups = moduleServiceNames.stream()
+                    .map(serviceName -> UniHelper.toUni(
+                            client.healthServiceNodesWithOptions(serviceName, false, moduleInstances))
+                        .onItem().transform(entryList -> entryList == null || entryList.getList() == null
+                            ? List.<ServiceEntry>of() : entryList.getList())
+                        .onFailure(t -> skipFailures).recoverWithItem(t -> {
+                            LOG.debugf("Failed to get health for service %s: %s", serviceName, t);
+                            return List.of();
+                        }))
+                    .toList();
+                
+                return Uni.join().all(lookups).andFailFast()
+                    .onItem().transform(lists -> lists.stream()
+                        .flatMap(List::stream)
+                        .filter(entry -> entry.getService() != null)
+                        .toList());
+            })
+            .onFailure(t -> skipFailures).recoverWithItem(t -> {
+                LOG.warnf("Failed to get catalog services: %s", t);
+                return List.of();
+            });
+    }
+    
+    /**
+     * Reads the module registrations ({@code modules/registered/}) from Consul, failing if the read fails.
+     */
+    private Uni<KvSnapshot> readRegistrations(ConsulClient client) {
+        return UniHelper.toUni(client.getValues(kvPrefix + "/modules/registered/"))
+            .onItem().transform(keyValues -> KvSnapshot.of(keyValues.getIndex(), Instant.now(), keyValues.getList()));
+    }
+    
+    /**
+     * Joins catalog instances with their KV registrations in memory, in catalog order and without duplicates.
+     */
+    private Set<ModuleRegistration> toModuleRegistrations(List<ServiceEntry> entries, KvSnapshot snapshot) {
+        Set<ModuleRegistration> registrations = new LinkedHashSet<>();
+        for (ServiceEntry entry : entries) {
+            Service service = entry.getService();
+            if (service.getTags() == null || !service.getTags().contains(MODULE_TAG)) {
+                continue;
+            }
+            String kvKey = kvPrefix + "/modules/registered/" + service.getId();
+            registrations.add(toModuleRegistration(service, isEnabled(service.getId(), snapshot.value(kvKey))));
+        }
+        return registrations;
+    }
+    
+    private boolean isEnabled(String moduleId, Optional<String> kvValue) {
+        boolean enabled = true; // Default to enabled if not found
         
-        return Uni.createFrom().completionStage(
-            client.getValue(kvKey).toCompletionStage()
-        )
-        .onItem().transform(kvValue -> {
-            boolean enabled = true; // Default to enabled if not found
-            
-            if (kvValue != null && kvValue.getValue() != null) {
-                try {
-                    // Parse the JSON to get the enabled field
-                    String json = kvValue.getValue();
-                    if (json.contains("\"enabled\"")) {
-                        enabled = json.contains("\"enabled\": true") || json.contains("\"enabled\":true");
-                    }
-                } catch (Exception e) {
-                    LOG.warnf("Failed to parse enabled state for module %s, defaulting to true", moduleId);
+        if (kvValue.isPresent()) {
+            try {
+                // Parse the JSON to get the enabled field
+                String json = kvValue.get();
+                if (json.contains("\"enabled\"")) {
+                    enabled = json.contains("\"enabled\": true") || json.contains("\"enabled\":true");
                 }
+            } catch (Exception e) {
+                LOG.warnf("Failed to parse enabled state for module %s, defaulting to true", moduleId);
             }
-            
-            // Extract engine connection info if present, otherwise default to service host/port
-            String engineHost = meta.getOrDefault("engineHost", service.getAddress());
-            int enginePort = Integer.parseInt(meta.getOrDefault("enginePort", String.valueOf(service.getPort())));
-            
-            // Get schema if stored in metadata
-            String jsonSchema = meta.get("jsonSchema");
-            
-            // Get container metadata if available
-            String containerId = meta.get("containerId");
-            String containerName = meta.get("containerName");
-            String hostname = meta.get("hostname");
-            
-            return new ModuleRegistration(
-                service.getId(),
-                meta.getOrDefault("moduleName", service.getName()),
-                meta.getOrDefault("implementationId", ""),
-                service.getAddress(),
-                service.getPort(),
-                meta.getOrDefault("serviceType", "PIPELINE"),
-                meta.getOrDefault("version", "1.0.0"),
-                meta,
-                Long.parseLong(meta.getOrDefault("registeredAt", "0")),
-                engineHost,
-                enginePort,
-                jsonSchema,
-                enabled,
-                containerId,
-                containerName,
-                hostname
-            );
-        });
+        }
+        return enabled;
+    }
+    
+    private ModuleRegistration toModuleRegistration(Service service, boolean enabled) {
+        Map<String, String> meta = service.getMeta() != null ? service.getMeta() : Map.of();
+        
+        // Extract engine connection info if present, otherwise default to service host/port
+        String engineHost = meta.getOrDefault("engineHost", service.getAddress());
+        int enginePort = Integer.parseInt(meta.getOrDefault("enginePort", String.valueOf(service.getPort())));
+        
+        // Get schema if stored in metadata
+        String jsonSchema = meta.get("jsonSchema");
+        
+        // Get container metadata if available
+        String containerId = meta.get("containerId");
+        String containerName = meta.get("containerName");
+        String hostname = meta.get("hostname");
+        
+        return new ModuleRegistration(
+            service.getId(),
+            meta.getOrDefault("moduleName", service.getName()),
+            meta.getOrDefault("implementationId", ""),
+            service.getAddress(),
+            service.getPort(),
+            meta.getOrDefault("serviceType", "PIPELINE"),
+            meta.getOrDefault("version", "1.0.0"),
+            meta,
+            Long.parseLong(meta.getOrDefault("registeredAt", "0")),
+            engineHost,
+            enginePort,
+            jsonSchema,
+            enabled,
+            containerId,
+            containerName,
+            hostname
+        );
     }
     
     private Uni<Void> storeModuleMetadata(ModuleRegistration registration) {
-        ConsulClient client = getConsulClient();
         String kvKey = kvPrefix + "/modules/registered/" + registration.moduleId();
         
         LOG.infof("Storing module metadata to KV - prefix: %s, key: %s", kvPrefix, kvKey);
@@ -712,16 +686,20 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
             registration.serviceType(),
             registration.version(),
             registration.registeredAt(),
-            registration.jsonSchema() != null ? "\"" + registration.jsonSchema().replace("\"", "\\\"") + "\"" : "null",
+            // Schemas are read back from here when an engine checks custom configs, so escape them fully
+            registration.jsonSchema() != null
+                ? "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(registration.jsonSchema())) + "\""
+                : "null",
             registration.enabled(),
             registration.containerId() != null ? "\"" + registration.containerId() + "\"" : "null",
             registration.containerName() != null ? "\"" + registration.containerName() + "\"" : "null",
             registration.hostname() != null ? "\"" + registration.hostname() + "\"" : "null"
         );
         
-        return Uni.createFrom().completionStage(
+        return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
             client.putValue(kvKey, jsonValue).toCompletionStage()
-        )
+        ))
+        .onTermination().invoke(kvStore::invalidate)
         .onItem().transformToUni(success -> {
             if (success) {
                 LOG.infof("Successfully stored module metadata in KV: %s (success=%s)", kvKey, success);
@@ -743,10 +721,29 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
         return moduleName + "-" + UUID.randomUUID().toString().substring(0, 8);
     }
     
-    private ConsulClient getConsulClient() {
-        return connectionManager.getClient().orElseThrow(() -> 
-            new WebApplicationException("Consul not connected", 
-                                      Response.Status.SERVICE_UNAVAILABLE)
+    /**
+     * A registration standing in for a module that is only known from the catalog or only from KV, so it can be
+     * reported and cleaned up like a registered one.
+     */
+    private ModuleRegistration placeholderRegistration(String moduleId, String moduleName, String host, int port,
+                                                       Map<String, String> metadata) {
+        return new ModuleRegistration(
+            moduleId,
+            moduleName,
+            "",
+            host,
+            port,
+            "UNKNOWN",
+            "unknown",
+            metadata,
+            0,
+            host,
+            port,
+            null,
+            false,
+            null,
+            null,
+            null
         );
     }
     
@@ -781,13 +778,12 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
     @CacheInvalidate(cacheName = "global-modules")
     @CacheInvalidate(cacheName = "module-health-status")
     public Uni<Boolean> archiveService(String serviceName, String reason) {
-        ConsulClient client = getConsulClient();
         String timestamp = java.time.Instant.now().toString();
         
         // First, try to get the service from Consul's service registry
-        return Uni.createFrom().completionStage(
+        return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
             client.catalogServiceNodes(serviceName).toCompletionStage()
-        )
+        ))
         .onItem().transformToUni(serviceNodes -> {
             if (serviceNodes == null || serviceNodes.getList() == null || serviceNodes.getList().isEmpty()) {
                 LOG.warnf("Service %s not found in Consul registry", serviceName);
@@ -827,9 +823,9 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
             String archiveKey = String.format("%s/services/%s-%s", 
                 kvPrefix + "/archive", serviceName, timestamp.replace(":", "-").replace(".", "-"));
             
-            return Uni.createFrom().completionStage(
+            return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
                 client.putValue(archiveKey, archiveJson).toCompletionStage()
-            )
+            ))
             .onItem().transformToUni(success -> {
                 if (!success) {
                     return Uni.createFrom().failure(
@@ -841,9 +837,9 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
                 String serviceId = serviceNode.getId() != null ? 
                     serviceNode.getId() : serviceName;
                     
-                return Uni.createFrom().completionStage(
+                return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
                     client.deregisterService(serviceId).toCompletionStage()
-                )
+                ))
                 .onItem().transform(v -> {
                     LOG.infof("Successfully archived and deregistered service %s", serviceName);
                     return true;
@@ -862,8 +858,6 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
     }
     
     private Uni<Boolean> archiveServiceSimple(String serviceName, String reason, String timestamp) {
-        ConsulClient client = getConsulClient();
-        
         // Simple archive format without complex JSON serialization
         String archiveJson = String.format("""
             {
@@ -880,9 +874,9 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
         String archiveKey = String.format("%s/services/%s-%s", 
             kvPrefix + "/archive", serviceName, timestamp.replace(":", "-").replace(".", "-"));
         
-        return Uni.createFrom().completionStage(
+        return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
             client.putValue(archiveKey, archiveJson).toCompletionStage()
-        )
+        ))
         .onItem().transform(success -> {
             if (success) {
                 LOG.infof("Service %s archived (simple format)", serviceName);
@@ -891,43 +885,6 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
         });
     }
     
-    /**
-     * Compare two JSON schemas for semantic equivalence.
-     * This handles differences in formatting, property ordering, etc.
-     */
-    private boolean areJsonSchemasEquivalent(String schema1, String schema2) {
-        try {
-            // Parse both schemas as JSON
-            JsonNode schemaNode1 = objectMapper.readTree(schema1);
-            JsonNode schemaNode2 = objectMapper.readTree(schema2);
-            
-            // Use Jackson's equals which does deep comparison ignoring order
-            return schemaNode1.equals(schemaNode2);
-        } catch (Exception e) {
-            LOG.errorf("Failed to compare schemas: %s", e.getMessage());
-            return false;
-        }
-    }
-    
-    /**
-     * Validate that a schema is a valid JSON Schema v7
-     */
-    private boolean isValidJsonSchemaV7(String schemaContent) {
-        if (schemaContent == null || schemaContent.trim().isEmpty()) {
-            return false;
-        }
-        
-        try {
-            JsonNode schemaNode = objectMapper.readTree(schemaContent);
-            // Attempt to create a JsonSchema - this validates it's proper JSON Schema v7
-            JsonSchema schema = schemaFactory.getSchema(schemaNode);
-            return true;
-        } catch (Exception e) {
-            LOG.errorf("Invalid JSON Schema v7: %s", e.getMessage());
-            return false;
-        }
-    }
-    
     /**
      * Clean up zombie instances - modules that are failing health checks or no longer exist
      * This method handles ALL types of zombies and dirty Consul state:
@@ -940,235 +897,143 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
     @Override
     public Uni<ZombieCleanupResult> cleanupZombieInstances() {
         LOG.info("Starting comprehensive zombie instance cleanup");
-        ConsulClient client = getConsulClient();
         
-        // First, get all registered modules from KV store
-        return listRegisteredModules()
-            .onItem().transformToUni(registeredModules -> {
-                // Also get all services from catalog that look like modules
-                return Uni.createFrom().<List<Service>>emitter(emitter -> {
-                    client.catalogServices()
-                        .onComplete(catalogResult -> {
-                            if (catalogResult.failed()) {
-                                LOG.warnf("Failed to get catalog services: %s", catalogResult.cause());
-                                emitter.complete(new ArrayList<>());
-                                return;
-                            }
-                            
-                            ServiceList serviceList = catalogResult.result();
-                            if (serviceList == null || serviceList.getList() == null) {
-                                emitter.complete(new ArrayList<>());
-                                return;
-                            }
-                            
-                            // Filter for services with "module" tag
-                            List<Service> moduleServices = serviceList.getList().stream()
-                                .filter(service -> service != null && 
-                                        service.getTags() != null && 
-                                        service.getTags().contains("module"))
-                                .toList();
-                                
-                            emitter.complete(moduleServices);
-                        });
-                })
-                .onItem().transformToUni(catalogModuleServices -> {
-                    // Now check for all three types of zombies
-                    List<Uni<ServiceHealthStatus>> healthCheckUnis = new ArrayList<>();
-                    Set<String> registeredModuleIds = registeredModules.stream()
-                        .map(ModuleRegistration::moduleId)
-                        .collect(Collectors.toSet());
-                    
-                    // Type 1 & 3: Check health of all registered modules
-                    for (ModuleRegistration module : registeredModules) {
-                        healthCheckUnis.add(checkModuleHealth(client, module));
-                    }
-                    
-                    // Type 2: Check for stale service entries (in catalog but not in KV)
-                    List<Uni<ServiceHealthStatus>> staleServiceUnis = new ArrayList<>();
-                    for (Service catalogService : catalogModuleServices) {
-                        String serviceName = catalogService.getName();
+        // One fetch of the module instances serves the registered modules, the stale-entry check and every
+        // module's health, instead of a further catalog call and health call per service and per module. A failed
+        // call fails the cleanup: with instances missing, their KV registrations would look like zombies.
+        // Registrations are read fresh from Consul rather than from the replicated snapshot, which may still be
+        // the local file or an older copy served after a failed read; a newer registration missing from it would
+        // make a live module look stale.
+        return Uni.combine().all().unis(getConsulClient().flatMap(client -> fetchModuleInstances(client, false)),
+                getConsulClient().flatMap(this::readRegistrations))
+            .asTuple()
+            .onItem().transform(tuple -> {
+                List<ServiceEntry> instances = tuple.getItem1();
+                KvSnapshot snapshot = tuple.getItem2();
+                // A module is registered when it has a KV entry; catalog instances are checked against these IDs
+                Set<String> registeredModuleIds = snapshot.childNames(kvPrefix + "/modules/registered/");
+                Set<String> catalogModuleIds = instances.stream()
+                    .map(entry -> entry.getService().getId())
+                    .collect(Collectors.toSet());
+                Set<ModuleRegistration> registeredModules = toModuleRegistrations(instances, snapshot).stream()
+                    .filter(module -> registeredModuleIds.contains(module.moduleId()))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+                Map<String, List<ServiceEntry>> instancesByService = instances.stream()
+                    .collect(Collectors.groupingBy(entry -> entry.getService().getName()));
+                
+                List<ServiceHealthStatus> healthStatuses = new ArrayList<>();
+                
+                // Type 1 & 3: Check health of all registered modules
+                for (ModuleRegistration module : registeredModules) {
+                    healthStatuses.add(moduleHealth(module,
+                        instancesByService.getOrDefault(module.moduleName(), List.of())));
+                }
+                
+                // Type 2: Check for stale service entries (in catalog but not in KV)
+                for (ServiceEntry entry : instances) {
+                    Service svc = entry.getService();
+                    if (!registeredModuleIds.contains(svc.getId())) {
+                        // This service instance is NOT in our KV store - it's a stale entry!
+                        LOG.infof("Found stale service entry: %s (ID: %s) - not in KV store", 
+                                 svc.getName(), svc.getId());
                         
-                        // Get all instances of this service
-                        Uni<ServiceHealthStatus> staleCheckUni = Uni.createFrom().completionStage(
-                            client.healthServiceNodes(serviceName, false).toCompletionStage()
-                        )
-                        .onItem().transformToUni(serviceEntryList -> {
-                            if (serviceEntryList == null || serviceEntryList.getList() == null) {
-                                return Uni.createFrom().item((ServiceHealthStatus) null);
-                            }
-                            
-                            List<Uni<ServiceHealthStatus>> instanceUnis = new ArrayList<>();
-                            for (ServiceEntry entry : serviceEntryList.getList()) {
-                                Service svc = entry.getService();
-                                if (svc != null && !registeredModuleIds.contains(svc.getId())) {
-                                    // This service instance is NOT in our KV store - it's a stale entry!
-                                    LOG.infof("Found stale service entry: %s (ID: %s) - not in KV store", 
-                                             serviceName, svc.getId());
-                                    
-                                    // Create a dummy ModuleRegistration for cleanup
-                                    ModuleRegistration staleModule = new ModuleRegistration(
-                                        svc.getId(),
-                                        serviceName,
-                                        "",
-                                        svc.getAddress(),
-                                        svc.getPort(),
-                                        "UNKNOWN",
-                                        "unknown",
-                                        svc.getMeta() != null ? svc.getMeta() : Map.of(),
-                                        0,
-                                        svc.getAddress(),
-                                        svc.getPort(),
-                                        null,
-                                        false,
-                                        null,
-                                        null,
-                                        null
-                                    );
-                                    
-                                    // Mark as zombie (stale type 2)
-                                    instanceUnis.add(Uni.createFrom().item(
-                                        new ServiceHealthStatus(staleModule, HealthStatus.CRITICAL, false)
-                                    ));
-                                }
-                            }
-                            
-                            if (instanceUnis.isEmpty()) {
-                                return Uni.createFrom().item((ServiceHealthStatus) null);
-                            }
-                            
-                            return Uni.combine().all().unis(instanceUnis)
-                                .with(list -> {
-                                    @SuppressWarnings("unchecked")
-                                    List<ServiceHealthStatus> statuses = (List<ServiceHealthStatus>) list;
-                                    return statuses.isEmpty() ? null : statuses.get(0);
-                                });
-                        });
+                        // Create a dummy ModuleRegistration for cleanup
+                        ModuleRegistration staleModule = placeholderRegistration(svc.getId(), svc.getName(),
+                            svc.getAddress(), svc.getPort(), svc.getMeta() != null ? svc.getMeta() : Map.of());
                         
-                        staleServiceUnis.add(staleCheckUni);
+                        // Mark as zombie (stale type 2)
+                        healthStatuses.add(new ServiceHealthStatus(staleModule, HealthStatus.CRITICAL, false));
                     }
-                    
-                    // Combine all health checks
-                    List<Uni<ServiceHealthStatus>> allChecks = new ArrayList<>();
-                    allChecks.addAll(healthCheckUnis);
-                    allChecks.addAll(staleServiceUnis);
-                    
-                    if (allChecks.isEmpty()) {
-                        return Uni.createFrom().item(new ZombieCleanupResult(0, 0, List.of()));
+                }
+                
+                // Identify all types of zombies
+                List<ServiceHealthStatus> zombies = new ArrayList<>();
+                
+                // Add Type 1, 2, 3 zombies (unhealthy, stale, partial)
+                zombies.addAll(healthStatuses.stream()
+                    .filter(status -> status.isZombie())
+                    .toList());
+                
+                // Type 4: Check for modules in KV with no corresponding service instances
+                // This catches registrations that exist in KV but have no service catalog entries
+                for (String moduleId : registeredModuleIds) {
+                    if (!catalogModuleIds.contains(moduleId)) {
+                        LOG.infof("Found Type 4 zombie (KV entry with no service instances): %s", moduleId);
+                        ModuleRegistration kvOnlyModule = placeholderRegistration(moduleId, "unknown", "", 0, Map.of());
+                        zombies.add(new ServiceHealthStatus(kvOnlyModule, HealthStatus.CRITICAL, false));
                     }
-                    
-                    return Uni.combine().all().unis(allChecks)
-                        .with(results -> {
-                            @SuppressWarnings("unchecked")
-                            List<ServiceHealthStatus> healthStatuses = ((List<ServiceHealthStatus>) results).stream()
-                                .filter(Objects::nonNull)
-                                .toList();
-                            
-                            // Identify all types of zombies
-                            List<ServiceHealthStatus> zombies = new ArrayList<>();
-                            
-                            // Add Type 1, 2, 3 zombies (unhealthy, stale, partial)
-                            zombies.addAll(healthStatuses.stream()
-                                .filter(status -> status.isZombie())
-                                .toList());
-                            
-                            // Type 4: Check for modules in KV with no corresponding service instances
-                            // This catches registrations that exist in KV but have no service catalog entries
-                            Set<String> servicesWithInstances = new HashSet<>();
-                            for (ServiceHealthStatus status : healthStatuses) {
-                                if (status.exists()) {
-                                    servicesWithInstances.add(status.module().moduleName());
-                                }
-                            }
-                            
-                            // Find modules that are registered but have NO service instances at all
-                            for (ModuleRegistration regModule : registeredModules) {
-                                if (!servicesWithInstances.contains(regModule.moduleName())) {
-                                    // This module is in KV but has no service instances - it's a zombie
-                                    boolean alreadyMarked = zombies.stream()
-                                        .anyMatch(z -> z.module().moduleId().equals(regModule.moduleId()));
-                                    
-                                    if (!alreadyMarked) {
-                                        LOG.infof("Found Type 4 zombie (KV entry with no service instances): %s (%s)", 
-                                                 regModule.moduleId(), regModule.moduleName());
-                                        zombies.add(new ServiceHealthStatus(regModule, HealthStatus.CRITICAL, false));
-                                    }
-                                }
-                            }
-                            
-                            LOG.infof("Zombie detection complete: %d total zombies found", zombies.size());
-                            
-                            // Log zombie types for debugging
-                            for (ServiceHealthStatus zombie : zombies) {
-                                ModuleRegistration module = zombie.module();
-                                if (!zombie.exists()) {
-                                    // Could be Type 2 (stale catalog) or Type 4 (KV only)
-                                    boolean hasKvEntry = registeredModules.stream()
-                                        .anyMatch(r -> r.moduleId().equals(module.moduleId()));
-                                    if (hasKvEntry) {
-                                        LOG.infof("  Type 4 zombie (KV entry with no service instances): %s", module.moduleId());
-                                    } else {
-                                        LOG.infof("  Type 2 zombie (stale catalog entry): %s", module.moduleId());
-                                    }
-                                } else if (zombie.healthStatus() == HealthStatus.CRITICAL) {
-                                    LOG.infof("  Type 1 zombie (unhealthy): %s", module.moduleId());
+                }
+                
+                LOG.infof("Zombie detection complete: %d total zombies found", zombies.size());
+                
+                // Log zombie types for debugging
+                for (ServiceHealthStatus zombie : zombies) {
+                    ModuleRegistration module = zombie.module();
+                    if (!zombie.exists()) {
+                        // Could be Type 2 (stale catalog) or Type 4 (KV only)
+                        if (registeredModuleIds.contains(module.moduleId())) {
+                            LOG.infof("  Type 4 zombie (KV entry with no service instances): %s", module.moduleId());
+                        } else {
+                            LOG.infof("  Type 2 zombie (stale catalog entry): %s", module.moduleId());
+                        }
+                    } else if (zombie.healthStatus() == HealthStatus.CRITICAL) {
+                        LOG.infof("  Type 1 zombie (unhealthy): %s", module.moduleId());
+                    }
+                }
+                
+                return zombies;
+            })
+            .onItem().transformToUni(zombies -> {
+                int zombiesDetected = zombies.size();
+                
+                if (zombiesDetected == 0) {
+                    LOG.info("No zombies detected");
+                    return Uni.createFrom().item(new ZombieCleanupResult(0, 0, List.of()));
+                }
+                
+                // Clean up all zombies
+                List<Uni<Boolean>> cleanupUnis = zombies.stream()
+                    .map(zombie -> {
+                        String moduleId = zombie.module().moduleId();
+                        LOG.infof("Cleaning up zombie: %s", moduleId);
+                        
+                        // Use the full deregisterModule method which handles both service catalog and KV
+                        // This ensures we clean up everything regardless of zombie type
+                        return deregisterModule(moduleId)
+                            .onItem().transform(success -> {
+                                if (success) {
+                                    LOG.infof("Successfully cleaned up zombie: %s", moduleId);
+                                } else {
+                                    LOG.warnf("Partial cleanup of zombie: %s", moduleId);
                                 }
+                                return success;
+                            });
+                    })
+                    .toList();
+                
+                return Uni.combine().all().unis(cleanupUnis)
+                    .with(cleanupResults -> {
+                        @SuppressWarnings("unchecked")
+                        List<Boolean> cleanResults = (List<Boolean>) cleanupResults;
+                        
+                        int zombiesCleaned = (int) cleanResults.stream()
+                            .filter(success -> success)
+                            .count();
+                        
+                        List<String> errors = new ArrayList<>();
+                        for (int i = 0; i < cleanResults.size(); i++) {
+                            if (!cleanResults.get(i)) {
+                                ModuleRegistration zombie = zombies.get(i).module();
+                                errors.add(String.format("Failed to cleanup %s (%s)", 
+                                                        zombie.moduleId(), zombie.moduleName()));
                             }
-                            
-                            return zombies;
-                        })
-                        .onItem().transformToUni(zombies -> {
-                            int zombiesDetected = zombies.size();
-                            
-                            if (zombiesDetected == 0) {
-                                LOG.info("No zombies detected");
-                                return Uni.createFrom().item(new ZombieCleanupResult(0, 0, List.of()));
-                            }
-                            
-                            // Clean up all zombies
-                            List<Uni<Boolean>> cleanupUnis = zombies.stream()
-                                .map(zombie -> {
-                                    String moduleId = zombie.module().moduleId();
-                                    LOG.infof("Cleaning up zombie: %s", moduleId);
-                                    
-                                    // Use the full deregisterModule method which handles both service catalog and KV
-                                    // This ensures we clean up everything regardless of zombie type
-                                    return deregisterModule(moduleId)
-                                        .onItem().transform(success -> {
-                                            if (success) {
-                                                LOG.infof("Successfully cleaned up zombie: %s", moduleId);
-                                            } else {
-                                                LOG.warnf("Partial cleanup of zombie: %s", moduleId);
-                                            }
-                                            return success;
-                                        });
-                                })
-                                .toList();
-                            
-                            return Uni.combine().all().unis(cleanupUnis)
-                                .with(cleanupResults -> {
-                                    @SuppressWarnings("unchecked")
-                                    List<Boolean> cleanResults = (List<Boolean>) cleanupResults;
-                                    
-                                    int zombiesCleaned = (int) cleanResults.stream()
-                                        .filter(success -> success)
-                                        .count();
-                                    
-                                    List<String> errors = new ArrayList<>();
-                                    for (int i = 0; i < cleanResults.size(); i++) {
-                                        if (!cleanResults.get(i)) {
-                                            ModuleRegistration zombie = zombies.get(i).module();
-                                            errors.add(String.format("Failed to cleanup %s (%s)", 
-                                                                    zombie.moduleId(), zombie.moduleName()));
-                                        }
-                                    }
-                                    
-                                    LOG.infof("Zombie cleanup completed: %d detected, %d cleaned, %d errors", 
-                                             zombiesDetected, zombiesCleaned, errors.size());
-                                    
-                                    return new ZombieCleanupResult(zombiesDetected, zombiesCleaned, errors);
-                                });
-                        });
-                });
+                        }
+                        
+                        LOG.infof("Zombie cleanup completed: %d detected, %d cleaned, %d errors", 
+                                 zombiesDetected, zombiesCleaned, errors.size());
+                        
+                        return new ZombieCleanupResult(zombiesDetected, zombiesCleaned, errors);
+                    });
             })
             .onFailure().recoverWithItem(t -> {
                 LOG.errorf(t, "Failed to cleanup zombie instances");
@@ -1189,59 +1054,21 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
                 if (module == null) {
                     return Uni.createFrom().failure(new RuntimeException("Module not found: " + moduleId));
                 }
-                ConsulClient client = getConsulClient();
-                return checkModuleHealth(client, module);
+                return checkModuleHealth(module);
             });
     }
     
     /**
      * Check module health using Consul health checks
      */
-    private Uni<ServiceHealthStatus> checkModuleHealth(ConsulClient client, ModuleRegistration module) {
+    private Uni<ServiceHealthStatus> checkModuleHealth(ModuleRegistration module) {
         String serviceName = module.moduleName();
         
-        return Uni.createFrom().completionStage(
+        return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
             client.healthServiceNodes(serviceName, false).toCompletionStage()
-        )
-        .onItem().transform(serviceEntryList -> {
-            if (serviceEntryList == null || serviceEntryList.getList() == null || serviceEntryList.getList().isEmpty()) {
-                // Service not found in health checks
-                LOG.debugf("Module %s not found in Consul health checks", module.moduleId());
-                return new ServiceHealthStatus(module, HealthStatus.CRITICAL, false);
-            }
-            
-            // Find the specific instance by ID
-            var instanceHealth = serviceEntryList.getList().stream()
-                .filter(entry -> module.moduleId().equals(entry.getService().getId()))
-                .findFirst();
-            
-            if (instanceHealth.isEmpty()) {
-                // Specific instance not found
-                LOG.debugf("Module instance %s not found in health checks", module.moduleId());
-                return new ServiceHealthStatus(module, HealthStatus.CRITICAL, false);
-            }
-            
-            // Get the worst health check status for this instance
-            HealthStatus worstStatus = HealthStatus.PASSING;
-            var checks = instanceHealth.get().getChecks();
-            if (checks != null) {
-                for (var check : checks) {
-                    CheckStatus status = check.getStatus();
-                    if (status == CheckStatus.CRITICAL) {
-                        worstStatus = HealthStatus.CRITICAL;
-                        break;
-                    } else if (status == CheckStatus.WARNING && worstStatus == HealthStatus.PASSING) {
-                        worstStatus = HealthStatus.WARNING;
-                    }
-                }
-            }
-            
-            if (worstStatus == HealthStatus.CRITICAL) {
-                LOG.debugf("Module %s has critical health status", module.moduleId());
-            }
-            
-            return new ServiceHealthStatus(module, worstStatus, true);
-        })
+        ))
+        .onItem().transform(serviceEntryList -> moduleHealth(module,
+            serviceEntryList == null || serviceEntryList.getList() == null ? List.of() : serviceEntryList.getList()))
         .onFailure().recoverWithItem(t -> {
             LOG.warnf("Failed to check health for module %s: %s", module.moduleId(), t.getMessage());
             // On failure, assume module exists but status unknown
@@ -1249,13 +1076,56 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
         });
     }
     
+    /**
+     * Health of a module instance from the health entries of its service: the worst of its checks, or critical
+     * and non-existent if the instance is not among them.
+     */
+    private ServiceHealthStatus moduleHealth(ModuleRegistration module, List<ServiceEntry> serviceEntries) {
+        if (serviceEntries.isEmpty()) {
+            // Service not found in health checks
+            LOG.debugf("Module %s not found in Consul health checks", module.moduleId());
+            return new ServiceHealthStatus(module, HealthStatus.CRITICAL, false);
+        }
+        
+        // Find the specific instance by ID
+        var instanceHealth = serviceEntries.stream()
+            .filter(entry -> entry.getService() != null && module.moduleId().equals(entry.getService().getId()))
+            .findFirst();
+        
+        if (instanceHealth.isEmpty()) {
+            // Specific instance not found
+            LOG.debugf("Module instance %s not found in health checks", module.moduleId());
+            return new ServiceHealthStatus(module, HealthStatus.CRITICAL, false);
+        }
+        
+        // Get the worst health check status for this instance
+        HealthStatus worstStatus = HealthStatus.PASSING;
+        var checks = instanceHealth.get().getChecks();
+        if (checks != null) {
+            for (var check : checks) {
+                CheckStatus status = check.getStatus();
+                if (status == CheckStatus.CRITICAL) {
+                    worstStatus = HealthStatus.CRITICAL;
+                    break;
+                } else if (status == CheckStatus.WARNING && worstStatus == HealthStatus.PASSING) {
+                    worstStatus = HealthStatus.WARNING;
+                }
+            }
+        }
+        
+        if (worstStatus == HealthStatus.CRITICAL) {
+            LOG.debugf("Module %s has critical health status", module.moduleId());
+        }
+        
+        return new ServiceHealthStatus(module, worstStatus, true);
+    }
+    
     /**
      * Clean up stale entries in the whitelist (modules registered but not in Consul)
      */
     @Override
     public Uni<Integer> cleanupStaleWhitelistedModules() {
         LOG.info("Starting stale whitelist cleanup");
-        ConsulClient client = getConsulClient();
         
         return listRegisteredModules()
             .onItem().transformToUni(registeredModules -> {
@@ -1265,9 +1135,9 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
                 }
                 
                 // Get all services from Consul
-                return Uni.createFrom().completionStage(
+                return getConsulClient().flatMap(client -> Uni.createFrom().completionStage(
                     client.localServices().toCompletionStage()
-                )
+                ))
                 .onItem().transformToUni(consulServices -> {
                     // Create a set of service IDs that exist in Consul
                     Set<String> consulServiceIds = consulServices.stream()
@@ -1286,36 +1156,23 @@ public class GlobalModuleRegistryServiceImpl implements GlobalModuleRegistryServ
                     
                     LOG.infof("Found %d stale whitelist entries", staleModules.size());
                     
-                    // Clean up stale entries from KV store
-                    List<Uni<Boolean>> cleanupUnis = staleModules.stream()
-                        .map(module -> {
-                            LOG.infof("Removing stale whitelist entry: %s (%s)", 
-                                     module.moduleId(), module.moduleName());
-                            String kvKey = kvPrefix + "/modules/registered/" + module.moduleId();
-                            return Uni.createFrom().completionStage(
-                                client.deleteValue(kvKey).toCompletionStage()
-                            )
-                            .onItem().transform(v -> {
-                                LOG.debugf("Removed stale KV entry: %s", kvKey);
-                                return true;
-                            })
-                            .onFailure().recoverWithItem(t -> {
-                                LOG.errorf(t, "Failed to remove stale KV entry: %s", kvKey);
-                                return false;
-                            });
-                        })
-                        .toList();
+                    // Clean up stale entries from KV store, up to 64 deletes per transaction
+                    KvWriteBatch batch = new KvWriteBatch();
+                    for (ModuleRegistration module : staleModules) {
+                        LOG.infof("Removing stale whitelist entry: %s (%s)", 
+                                 module.moduleId(), module.moduleName());
+                        batch.delete(kvPrefix + "/modules/registered/" + module.moduleId());
+                    }
                     
-                    return Uni.combine().all().unis(cleanupUnis)
-                        .with(results -> {
-                            @SuppressWarnings("unchecked")
-                            List<Boolean> cleanResults = (List<Boolean>) results;
-                            int cleaned = (int) cleanResults.stream()
-                                .filter(success -> success)
-                                .count();
-                            
-                            LOG.infof("Stale whitelist cleanup completed: %d entries cleaned", cleaned);
-                            return cleaned;
+                    return commitInChunks(batch)
+                        .onTermination().invoke(kvStore::invalidate)
+                        .onItem().transform(result -> {
+                            if (!result.committed()) {
+                                LOG.errorf("Stale whitelist cleanup stopped after %d of %d entries: %s",
+                                          result.applied(), batch.size(), result.errors());
+                            }
+                            LOG.infof("Stale whitelist cleanup completed: %d entries cleaned", result.applied());
+                            return result.applied();
                         });
                 });
             })
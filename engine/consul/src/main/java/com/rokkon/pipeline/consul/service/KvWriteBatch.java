@@ -0,0 +1,88 @@
+package com.rokkon.pipeline.consul.service;
+
+import io.vertx.ext.consul.TxnKVOperation;
+import io.vertx.ext.consul.TxnKVVerb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * KV writes to send to Consul's transaction endpoint ({@code /v1/txn}) together, see
+ * {@link AbstractConsulService#commit(KvWriteBatch)}. The {@code ...IfUnchanged} operations check the key's
+ * {@code ModifyIndex} first, so a batch built from values read earlier fails instead of overwriting a concurrent
+ * change.
+ */
+public final class KvWriteBatch {
+
+    /**
+     * Outcome of committing a batch.
+     *
+     * @param committed Whether every operation was applied
+     * @param applied   Operations applied; less than the batch size only for chunked commits that stopped early
+     * @param errors    Consul's reasons for rolling back, e.g. a failed index check
+     */
+    public record Result(boolean committed, int applied, List<String> errors) {
+    }
+
+    private final List<TxnKVOperation> operations = new ArrayList<>();
+
+    /**
+     * Sets a key.
+     */
+    public KvWriteBatch put(String key, String value) {
+        return add(new TxnKVOperation().setType(TxnKVVerb.SET).setKey(key).setValue(value));
+    }
+
+    /**
+     * Sets a key only if its modify index is still {@code modifyIndex}; index 0 means only if the key is absent.
+     */
+    public KvWriteBatch putIfUnchanged(String key, String value, long modifyIndex) {
+        return add(new TxnKVOperation().setType(TxnKVVerb.CAS).setKey(key).setValue(value).setIndex(modifyIndex));
+    }
+
+    /**
+     * Deletes a key; deleting an absent key succeeds.
+     */
+    public KvWriteBatch delete(String key) {
+        return add(new TxnKVOperation().setType(TxnKVVerb.DELETE).setKey(key));
+    }
+
+    /**
+     * Deletes a key only if its modify index is still {@code modifyIndex}.
+     */
+    public KvWriteBatch deleteIfUnchanged(String key, long modifyIndex) {
+        return add(new TxnKVOperation().setType(TxnKVVerb.DELETE_CAS).setKey(key).setIndex(modifyIndex));
+    }
+
+    /**
+     * Deletes every key starting with {@code prefix}.
+     */
+    public KvWriteBatch deleteTree(String prefix) {
+        return add(new TxnKVOperation().setType(TxnKVVerb.DELETE_TREE).setKey(prefix));
+    }
+
+    /**
+     * Fails the batch unless the key's modify index is still {@code modifyIndex}, without writing it.
+     */
+    public KvWriteBatch requireUnchanged(String key, long modifyIndex) {
+        return add(new TxnKVOperation().setType(TxnKVVerb.CHECK_INDEX).setKey(key).setIndex(modifyIndex));
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    List<TxnKVOperation> operations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    private KvWriteBatch add(TxnKVOperation operation) {
+        operations.add(operation);
+        return this;
+    }
+}
@@ -0,0 +1,328 @@
+package com.rokkon.pipeline.consul.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import com.rokkon.pipeline.commons.model.GlobalModuleRegistryService.ModuleRegistration;
+import com.rokkon.pipeline.config.model.PipelineConfig;
+import com.rokkon.pipeline.config.model.PipelineStepConfig;
+import com.rokkon.pipeline.consul.store.ConsulKvStore;
+import com.rokkon.pipeline.consul.store.KvSnapshot;
+import com.rokkon.pipeline.validation.ValidationResult;
+import com.rokkon.pipeline.validation.ValidationResultFactory;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compiled JSON Schema (v7) of each registered module's custom configuration, by module name. A schema is
+ * parsed and compiled once per module version and reused for every check until the module registers again
+ * with a different version or schema, which replaces it.
+ *
+ * <p>Schemas are learned from module registrations and listings. A module this engine has not seen yet, e.g.
+ * after a restart, has its schema loaded from its registrations in KV ({@code modules/registered/}) by
+ * {@link #checkCustomConfigs(PipelineConfig)} before its steps are checked; only steps of modules registered
+ * without a schema are not checked.
+ */
+@ApplicationScoped
+public class ModuleSchemaRegistry {
+
+    private static final Logger LOG = Logger.getLogger(ModuleSchemaRegistry.class);
+
+    /**
+     * A module's schema, parsed and compiled.
+     *
+     * @param moduleName Module the schema belongs to
+     * @param version    Module version that registered the schema
+     * @param source     Schema text as registered
+     * @param schemaNode Parsed schema, for comparing schemas regardless of formatting
+     * @param schema     Compiled validator
+     */
+    public record CompiledSchema(String moduleName, String version, String source, JsonNode schemaNode,
+                                 JsonSchema schema) {
+
+        boolean matches(String version, String source) {
+            return Objects.equals(this.version, version) && this.source.equals(source);
+        }
+
+        /**
+         * Validates a custom configuration against this schema.
+         *
+         * @return One message per violation, empty if {@code config} is valid
+         */
+        public List<String> validate(JsonNode config) {
+            List<String> violations = new ArrayList<>();
+            for (ValidationMessage message : schema.validate(config)) {
+                violations.add(message.getMessage());
+            }
+            return violations;
+        }
+    }
+
+    /**
+     * Registry effectiveness, for status endpoints and metrics.
+     *
+     * @param hits         Lookups answered by an already compiled schema
+     * @param compilations Schemas parsed and compiled
+     * @param modules      Modules with a compiled schema
+     */
+    public record Stats(long hits, long compilations, int modules) {
+    }
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    ConsulKvStore kvStore;
+
+    private final JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+    private final ConcurrentMap<String, CompiledSchema> schemas = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder compilations = new LongAdder();
+
+    /**
+     * Compiles {@code schemaText} for a module, or returns the module's registered schema if it is the same
+     * version and text. The result is not registered; see {@link #register(CompiledSchema)}.
+     *
+     * @throws IllegalArgumentException if {@code schemaText} is not a valid JSON Schema v7
+     */
+    public CompiledSchema compile(String moduleName, String version, String schemaText) {
+        CompiledSchema registered = schemas.get(moduleName);
+        if (registered != null && registered.matches(version, schemaText)) {
+            hits.increment();
+            return registered;
+        }
+        try {
+            JsonNode schemaNode = objectMapper.readTree(schemaText);
+            JsonSchema schema = schemaFactory.getSchema(schemaNode);
+            // Compile every keyword now rather than on first validation
+            schema.initializeValidators();
+            compilations.increment();
+            return new CompiledSchema(moduleName, version, schemaText, schemaNode, schema);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                String.format("Invalid JSON Schema v7 provided for module '%s': %s", moduleName, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Makes {@code schema} the schema custom configurations of its module are validated against, replacing any
+     * other version.
+     */
+    public void register(CompiledSchema schema) {
+        CompiledSchema previous = schemas.put(schema.moduleName(), schema);
+        if (previous != null && previous != schema) {
+            LOG.infof("Replaced schema of module %s (version %s -> %s)",
+                schema.moduleName(), previous.version(), schema.version());
+        }
+    }
+
+    /**
+     * Registers the schemas of {@code registrations}, compiling only those that changed. Instances of a module
+     * share its schema, so the most recently registered instance with a schema stands for the module; a module
+     * none of whose instances has a schema any more is evicted.
+     */
+    public void sync(Collection<ModuleRegistration> registrations) {
+        Map<String, ModuleRegistration> latest = new HashMap<>();
+        for (ModuleRegistration registration : registrations) {
+            boolean hasSchema = registration.jsonSchema() != null && !registration.jsonSchema().isBlank();
+            latest.merge(registration.moduleName(), registration, (current, candidate) ->
+                hasSchema && (current.jsonSchema() == null || current.jsonSchema().isBlank()
+                    || candidate.registeredAt() > current.registeredAt()) ? candidate : current);
+        }
+        latest.forEach((moduleName, registration) -> {
+            String schemaText = registration.jsonSchema();
+            if (schemaText == null || schemaText.isBlank()) {
+                evict(moduleName);
+                return;
+            }
+            CompiledSchema registered = schemas.get(moduleName);
+            if (registered != null && registered.source().equals(schemaText)) {
+                return;
+            }
+            try {
+                register(compile(moduleName, registration.version(), schemaText));
+            } catch (IllegalArgumentException e) {
+                LOG.warnf("Ignoring schema of module %s: %s", moduleName, e.getMessage());
+                evict(moduleName);
+            }
+        });
+    }
+
+    /**
+     * The registered schema of a module, if it has one.
+     */
+    public Optional<CompiledSchema> schemaFor(String moduleName) {
+        return moduleName == null ? Optional.empty() : Optional.ofNullable(schemas.get(moduleName));
+    }
+
+    /**
+     * Whether {@code schemaText} is the same schema as {@code candidate}, ignoring formatting and property order.
+     */
+    public boolean isEquivalent(String schemaText, CompiledSchema candidate) {
+        if (candidate.source().equals(schemaText)) {
+            return true;
+        }
+        CompiledSchema registered = schemas.get(candidate.moduleName());
+        try {
+            JsonNode schemaNode = registered != null && registered.source().equals(schemaText)
+                ? registered.schemaNode()
+                : objectMapper.readTree(schemaText);
+            return schemaNode.equals(candidate.schemaNode());
+        } catch (Exception e) {
+            LOG.errorf("Failed to compare schemas: %s", e.getMessage());
+            return false;
+        }
+    }
+
+    public void evict(String moduleName) {
+        if (schemas.remove(moduleName) != null) {
+            LOG.infof("Evicted schema of module %s", moduleName);
+        }
+    }
+
+    /**
+     * Validates the custom configuration of every step of {@code config} like
+     * {@link #validateCustomConfigs(PipelineConfig)}, first loading from KV the schemas of the steps' modules that
+     * are not registered here yet. Fails validation if they cannot be loaded rather than leaving the steps
+     * unchecked.
+     */
+    public Uni<ValidationResult> checkCustomConfigs(PipelineConfig config) {
+        Set<String> missing = modulesWithoutSchema(config);
+        if (missing.isEmpty()) {
+            return Uni.createFrom().item(validateCustomConfigs(config));
+        }
+        return kvStore.snapshot()
+            .map(snapshot -> {
+                load(missing, snapshot);
+                return validateCustomConfigs(config);
+            })
+            .onFailure().recoverWithItem(t -> {
+                LOG.errorf("Failed to load the schemas of modules %s: %s", missing, t.getMessage());
+                return ValidationResultFactory.failure(String.format(
+                    "Could not load the schemas of modules %s to check step custom configs: %s", missing, t.getMessage()));
+            });
+    }
+
+    /**
+     * Modules of the steps of {@code config} that have a custom configuration but no registered schema.
+     */
+    private Set<String> modulesWithoutSchema(PipelineConfig config) {
+        Set<String> missing = new LinkedHashSet<>();
+        if (config == null || config.pipelineSteps() == null) {
+            return missing;
+        }
+        config.pipelineSteps().values().forEach(step -> {
+            if (step == null || step.processorInfo() == null || !hasCustomConfig(step)) {
+                return;
+            }
+            String moduleName = step.processorInfo().grpcServiceName();
+            if (moduleName != null && !schemas.containsKey(moduleName)) {
+                missing.add(moduleName);
+            }
+        });
+        return missing;
+    }
+
+    /**
+     * Registers the schemas of {@code moduleNames} found in the module registrations of {@code snapshot}, taking
+     * the most recently registered instance with a schema for each. A schema registered meanwhile is kept.
+     */
+    private void load(Set<String> moduleNames, KvSnapshot snapshot) {
+        Map<String, JsonNode> latest = new HashMap<>();
+        snapshot.values(kvStore.prefix() + "/modules/registered/").forEach((key, value) -> {
+            JsonNode registration;
+            try {
+                registration = objectMapper.readTree(value);
+            } catch (JsonProcessingException e) {
+                LOG.warnf("Ignoring unreadable module registration %s: %s", key, e.getMessage());
+                return;
+            }
+            String moduleName = registration.path("moduleName").asText(null);
+            String schemaText = registration.path("jsonSchema").asText(null);
+            if (!moduleNames.contains(moduleName) || schemaText == null || schemaText.isBlank()) {
+                return;
+            }
+            latest.merge(moduleName, registration, (current, candidate) ->
+                candidate.path("registeredAt").asLong() > current.path("registeredAt").asLong() ? candidate : current);
+        });
+        latest.forEach((moduleName, registration) -> {
+            try {
+                CompiledSchema schema = compile(moduleName, registration.path("version").asText(null),
+                    registration.path("jsonSchema").asText());
+                if (schemas.putIfAbsent(moduleName, schema) == null) {
+                    LOG.infof("Loaded schema of module %s (version %s) from its registration",
+                        moduleName, schema.version());
+                }
+            } catch (IllegalArgumentException e) {
+                LOG.warnf("Ignoring schema of module %s: %s", moduleName, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Validates the custom configuration of every step of {@code config} whose module has a registered schema.
+     * Steps without a configuration are left to the module's defaults and not checked.
+     */
+    public ValidationResult validateCustomConfigs(PipelineConfig config) {
+        if (config == null || config.pipelineSteps() == null) {
+            return ValidationResultFactory.success();
+        }
+        List<String> errors = new ArrayList<>();
+        config.pipelineSteps().forEach((stepId, step) -> {
+            if (step == null || step.processorInfo() == null) {
+                return;
+            }
+            String moduleName = step.processorInfo().grpcServiceName();
+            for (String violation : validateCustomConfig(moduleName, step)) {
+                errors.add(String.format("Step '%s': custom config does not match the schema of module '%s': %s",
+                    stepId, moduleName, violation));
+            }
+        });
+        return errors.isEmpty() ? ValidationResultFactory.success() : ValidationResultFactory.failure(errors);
+    }
+
+    /**
+     * Validates a step's custom configuration against its module's registered schema.
+     *
+     * @return One message per violation; empty if the configuration is valid, absent, or the module has no schema
+     */
+    public List<String> validateCustomConfig(String moduleName, PipelineStepConfig step) {
+        if (!hasCustomConfig(step)) {
+            return List.of();
+        }
+        Optional<CompiledSchema> schema = schemaFor(moduleName);
+        if (schema.isEmpty()) {
+            return List.of();
+        }
+        hits.increment();
+        return schema.get().validate(step.customConfig().jsonConfig());
+    }
+
+    private static boolean hasCustomConfig(PipelineStepConfig step) {
+        JsonNode jsonConfig = step.customConfig() != null ? step.customConfig().jsonConfig() : null;
+        return jsonConfig != null && !jsonConfig.isNull() && !(jsonConfig.isObject() && jsonConfig.isEmpty());
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), compilations.sum(), schemas.size());
+    }
+}
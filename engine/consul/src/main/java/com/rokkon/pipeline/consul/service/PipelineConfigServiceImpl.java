@@ -1,36 +1,33 @@
 package com.rokkon.pipeline.consul.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rokkon.pipeline.config.model.PipelineConfig;
 import com.rokkon.pipeline.config.service.ClusterService;
 import com.rokkon.pipeline.config.service.PipelineConfigService;
+import com.rokkon.pipeline.consul.store.ConfigCache;
+import com.rokkon.pipeline.consul.store.ConfigKey;
+import com.rokkon.pipeline.consul.store.ConsulKvStore;
 import com.rokkon.pipeline.validation.CompositeValidator;
 import com.rokkon.pipeline.validation.ValidationResult;
 import com.rokkon.pipeline.validation.ValidationResultFactory;
-import io.quarkus.cache.CacheInvalidate;
-import io.quarkus.cache.CacheKey;
-import io.quarkus.cache.CacheResult;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.infrastructure.Infrastructure;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
 import java.util.*;
 
 /**
  * Service implementation for managing pipeline configurations in Consul KV store.
- * Provides CRUD operations with validation.
+ * Provides CRUD operations with validation. Reads are served from the {@link ConsulKvStore} snapshot through the
+ * {@link ConfigCache}, which only re-parses a pipeline when its KV entry changed, and writes go through the
+ * non-blocking Vert.x Consul client, so no request holds a worker thread while Consul answers.
  */
 @ApplicationScoped
-public class PipelineConfigServiceImpl implements PipelineConfigService {
+public class PipelineConfigServiceImpl extends AbstractConsulService implements PipelineConfigService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PipelineConfigServiceImpl.class);
     
@@ -46,78 +43,77 @@ public class PipelineConfigServiceImpl implements PipelineConfigService {
     @Inject
     ClusterService clusterService;
 
-    @ConfigProperty(name = "consul.host", defaultValue = "localhost")
-    String consulHost;
+    @Inject
+    ConsulKvStore kvStore;
 
-    @ConfigProperty(name = "consul.port", defaultValue = "8500")
-    String consulPort;
+    @Inject
+    ConfigCache configCache;
 
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+    @Inject
+    ModuleSchemaRegistry schemaRegistry;
 
     /**
      * Creates a new pipeline configuration in Consul.
      */
-    @CacheInvalidate(cacheName = "cluster-pipelines-list")
-    @CacheInvalidate(cacheName = "cluster-pipelines")
-    public Uni<ValidationResult> createPipeline(@CacheKey String clusterName, @CacheKey String pipelineId,
+    public Uni<ValidationResult> createPipeline(String clusterName, String pipelineId,
                                                 PipelineConfig config) {
         LOG.info("Creating pipeline '{}' in cluster '{}'", pipelineId, clusterName);
 
-        // Validate the configuration
+        // Validate the configuration, including step custom configs against their modules' compiled schemas
         ValidationResult validationResult = validator.validate(config);
-        if (!validationResult.valid()) {
-            return Uni.createFrom().item(validationResult);
-        }
+        return schemaRegistry.checkCustomConfigs(config).flatMap(schemaResult -> {
+            ValidationResult combined = validationResult.combine(schemaResult);
+            if (!combined.valid()) {
+                return Uni.createFrom().item(combined);
+            }
 
-        // Check if pipeline already exists
-        return getPipeline(clusterName, pipelineId)
-                .flatMap(existing -> {
-                    if (existing.isPresent()) {
-                        return Uni.createFrom().item(
-                                ValidationResultFactory.failure(
-                                        "Pipeline '" + pipelineId + "' already exists"));
-                    }
+            // Check if pipeline already exists
+            return getPipeline(clusterName, pipelineId)
+                    .flatMap(existing -> {
+                        if (existing.isPresent()) {
+                            return Uni.createFrom().item(
+                                    ValidationResultFactory.failure(
+                                            "Pipeline '" + pipelineId + "' already exists"));
+                        }
 
-                    return storePipelineInConsul(clusterName, pipelineId, config);
-                });
+                        return storePipelineInConsul(clusterName, pipelineId, config, true);
+                    });
+        });
     }
 
     /**
      * Updates an existing pipeline configuration.
      */
-    @CacheInvalidate(cacheName = "cluster-pipelines-list")
-    @CacheInvalidate(cacheName = "cluster-pipelines")
-    public Uni<ValidationResult> updatePipeline(@CacheKey String clusterName, @CacheKey String pipelineId,
+    public Uni<ValidationResult> updatePipeline(String clusterName, String pipelineId,
                                                 PipelineConfig config) {
         LOG.info("Updating pipeline '{}' in cluster '{}'", pipelineId, clusterName);
 
-        // Validate the configuration
+        // Validate the configuration, including step custom configs against their modules' compiled schemas
         ValidationResult validationResult = validator.validate(config);
-        if (!validationResult.valid()) {
-            return Uni.createFrom().item(validationResult);
-        }
+        return schemaRegistry.checkCustomConfigs(config).flatMap(schemaResult -> {
+            ValidationResult combined = validationResult.combine(schemaResult);
+            if (!combined.valid()) {
+                return Uni.createFrom().item(combined);
+            }
 
-        // Check if pipeline exists
-        return getPipeline(clusterName, pipelineId)
-                .flatMap(existing -> {
-                    if (existing.isEmpty()) {
-                        return Uni.createFrom().item(
-                                ValidationResultFactory.failure(
-                                        "Pipeline '" + pipelineId + "' not found"));
-                    }
+            // Check if pipeline exists
+            return getPipeline(clusterName, pipelineId)
+                    .flatMap(existing -> {
+                        if (existing.isEmpty()) {
+                            return Uni.createFrom().item(
+                                    ValidationResultFactory.failure(
+                                            "Pipeline '" + pipelineId + "' not found"));
+                        }
 
-                    return storePipelineInConsul(clusterName, pipelineId, config);
-                });
+                        return storePipelineInConsul(clusterName, pipelineId, config, false);
+                    });
+        });
     }
 
     /**
      * Deletes a pipeline configuration.
      */
-    @CacheInvalidate(cacheName = "cluster-pipelines-list")
-    @CacheInvalidate(cacheName = "cluster-pipelines")
-    public Uni<ValidationResult> deletePipeline(@CacheKey String clusterName, @CacheKey String pipelineId) {
+    public Uni<ValidationResult> deletePipeline(String clusterName, String pipelineId) {
         LOG.info("Deleting pipeline '{}' from cluster '{}'", pipelineId, clusterName);
 
         return getPipeline(clusterName, pipelineId)
@@ -133,160 +129,82 @@ public class PipelineConfigServiceImpl implements PipelineConfigService {
     }
 
     /**
-     * Retrieves a pipeline configuration.
+     * Retrieves a pipeline configuration. Empty only if the pipeline does not exist; fails if Consul cannot be
+     * read (and no snapshot was ever loaded) or the stored configuration cannot be parsed.
      */
-    @CacheResult(cacheName = "cluster-pipelines")
-    public Uni<Optional<PipelineConfig>> getPipeline(@CacheKey String clusterName, @CacheKey String pipelineId) {
-        return Uni.createFrom().<Optional<PipelineConfig>>item(() -> {
-            try {
-                String key = buildPipelineKey(clusterName, pipelineId);
-                String url = getConsulBaseUrl() + "/v1/kv/" + key + "?raw";
-
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .GET()
-                        .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-                if (response.statusCode() == 200) {
-                    PipelineConfig config = objectMapper.readValue(response.body(), PipelineConfig.class);
-                    return Optional.of(config);
-                } else if (response.statusCode() == 404) {
-                    return Optional.empty();
-                } else {
-                    LOG.error("Failed to retrieve pipeline. Status: {}", response.statusCode());
-                    return Optional.empty();
-                }
-            } catch (Exception e) {
-                LOG.error("Error retrieving pipeline '{}': {}", pipelineId, e.getMessage(), e);
-                return Optional.empty();
-            }
-        })
-        .runSubscriptionOn(Infrastructure.getDefaultExecutor());
+    public Uni<Optional<PipelineConfig>> getPipeline(String clusterName, String pipelineId) {
+        return configCache.get(new ConfigKey.ClusterPipeline(clusterName, pipelineId))
+                .onFailure().invoke(error ->
+                        LOG.error("Error retrieving pipeline '{}': {}", pipelineId, error.getMessage()));
     }
 
     /**
-     * Lists all pipelines in a cluster.
+     * Lists all pipelines in a cluster, from one KV snapshot. Pipelines whose configuration cannot be parsed are
+     * logged and left out.
      */
-    @CacheResult(cacheName = "cluster-pipelines-list")
-    public Uni<Map<String, PipelineConfig>> listPipelines(@CacheKey String clusterName) {
-        return Uni.createFrom().item(() -> {
-            try {
-                String prefix = buildClusterPrefix(clusterName) + "pipelines/";
-                String url = getConsulBaseUrl() + "/v1/kv/" + prefix + "?keys";
-
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .GET()
-                        .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-                if (response.statusCode() == 200) {
-                    String[] keys = objectMapper.readValue(response.body(), String[].class);
-                    return keys;
-                } else if (response.statusCode() == 404) {
-                    return new String[0];
-                } else {
-                    LOG.error("Failed to list pipelines. Status: {}", response.statusCode());
-                    return new String[0];
-                }
-            } catch (Exception e) {
-                LOG.error("Error listing pipelines: {}", e.getMessage(), e);
-                return new String[0];
-            }
-        })
-        .runSubscriptionOn(Infrastructure.getDefaultExecutor())
-        .flatMap(keys -> {
-            List<Uni<Map.Entry<String, PipelineConfig>>> unis = new ArrayList<>();
-            
-            for (String key : keys) {
-                String pipelineId = extractPipelineIdFromKey(key);
-                if (pipelineId != null && key.endsWith("/config")) {
-                    unis.add(
-                        getPipeline(clusterName, pipelineId)
-                            .map(configOpt -> configOpt
-                                .map(config -> Map.entry(pipelineId, config))
-                                .orElse(null))
-                    );
-                }
-            }
-            
-            return Uni.combine().all().unis(unis)
-                    .with(list -> {
-                        Map<String, PipelineConfig> pipelines = new HashMap<>();
-                        for (Object entry : list) {
-                            if (entry != null) {
-                                Map.Entry<String, PipelineConfig> e = (Map.Entry<String, PipelineConfig>) entry;
-                                pipelines.put(e.getKey(), e.getValue());
-                            }
+    public Uni<Map<String, PipelineConfig>> listPipelines(String clusterName) {
+        String prefix = buildClusterPrefix(clusterName) + "pipelines/";
+        return kvStore.snapshot()
+                .map(snapshot -> {
+                    Map<String, PipelineConfig> pipelines = new HashMap<>();
+                    for (String pipelineId : snapshot.childNames(prefix)) {
+                        try {
+                            configCache.get(snapshot, new ConfigKey.ClusterPipeline(clusterName, pipelineId))
+                                    .ifPresent(config -> pipelines.put(pipelineId, config));
+                        } catch (IllegalStateException e) {
+                            LOG.error(e.getMessage(), e.getCause());
                         }
-                        return pipelines;
-                    });
-        });
+                    }
+                    return pipelines;
+                })
+                .onFailure().invoke(error -> LOG.error("Error listing pipelines: {}", error.getMessage()));
     }
 
+    /**
+     * Writes the configuration. A create only succeeds if the key is still absent, so of two concurrent creates
+     * one fails instead of silently overwriting the other.
+     */
     private Uni<ValidationResult> storePipelineInConsul(String clusterName, String pipelineId,
-                                                        PipelineConfig config) {
-        return Uni.createFrom().item(() -> {
-            try {
-                String configJson = objectMapper.writeValueAsString(config);
-                String key = buildPipelineKey(clusterName, pipelineId);
-                String url = getConsulBaseUrl() + "/v1/kv/" + key;
-
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .PUT(HttpRequest.BodyPublishers.ofString(configJson))
-                        .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-                if (response.statusCode() == 200) {
-                    LOG.info("Successfully stored pipeline '{}' in Consul", pipelineId);
-                    return ValidationResultFactory.success();
-                } else {
-                    LOG.error("Failed to store pipeline. Status: {}", response.statusCode());
-                    return ValidationResultFactory.failure(
-                            "Failed to store pipeline in Consul");
-                }
-            } catch (Exception e) {
-                LOG.error("Error storing pipeline: {}", e.getMessage(), e);
-                return ValidationResultFactory.failure(
-                        "Error storing pipeline: " + e.getMessage());
-            }
-        })
-        .runSubscriptionOn(Infrastructure.getDefaultExecutor());
+                                                        PipelineConfig config, boolean create) {
+        String configJson;
+        try {
+            configJson = objectMapper.writeValueAsString(config);
+        } catch (JsonProcessingException e) {
+            LOG.error("Error serializing pipeline '{}': {}", pipelineId, e.getMessage(), e);
+            return Uni.createFrom().item(ValidationResultFactory.failure(
+                    "Error storing pipeline: " + e.getMessage()));
+        }
+        String key = buildPipelineKey(clusterName, pipelineId);
+        KvWriteBatch batch = create
+                ? new KvWriteBatch().putIfUnchanged(key, configJson, 0)
+                : new KvWriteBatch().put(key, configJson);
+
+        return commit(batch)
+                .onTermination().invoke(kvStore::invalidate)
+                .map(result -> {
+                    if (result.committed()) {
+                        LOG.info("Successfully stored pipeline '{}' in Consul", pipelineId);
+                        return ValidationResultFactory.success();
+                    }
+                    LOG.warn("Storing pipeline '{}' rolled back: {}", pipelineId, result.errors());
+                    return ValidationResultFactory.failure(create
+                            ? "Pipeline '" + pipelineId + "' already exists"
+                            : "Failed to store pipeline in Consul");
+                });
     }
 
     private Uni<ValidationResult> deletePipelineFromConsul(String clusterName, String pipelineId) {
-        return Uni.createFrom().item(() -> {
-            try {
-                String key = buildPipelineKey(clusterName, pipelineId);
-                String url = getConsulBaseUrl() + "/v1/kv/" + key;
-
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .DELETE()
-                        .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-                if (response.statusCode() == 200) {
-                    LOG.info("Successfully deleted pipeline '{}' from Consul", pipelineId);
-                    return ValidationResultFactory.success();
-                } else {
-                    LOG.error("Failed to delete pipeline. Status: {}", response.statusCode());
-                    return ValidationResultFactory.failure(
-                            "Failed to delete pipeline from Consul");
-                }
-            } catch (Exception e) {
-                LOG.error("Error deleting pipeline: {}", e.getMessage(), e);
-                return ValidationResultFactory.failure(
-                        "Error deleting pipeline: " + e.getMessage());
-            }
-        })
-        .runSubscriptionOn(Infrastructure.getDefaultExecutor());
+        String key = buildPipelineKey(clusterName, pipelineId);
+        return commit(new KvWriteBatch().delete(key))
+                .onTermination().invoke(kvStore::invalidate)
+                .map(result -> {
+                    if (result.committed()) {
+                        LOG.info("Successfully deleted pipeline '{}' from Consul", pipelineId);
+                        return ValidationResultFactory.success();
+                    }
+                    LOG.error("Failed to delete pipeline '{}': {}", pipelineId, result.errors());
+                    return ValidationResultFactory.failure("Failed to delete pipeline from Consul");
+                });
     }
 
     private String buildPipelineKey(String clusterName, String pipelineId) {
@@ -296,17 +214,4 @@ public class PipelineConfigServiceImpl implements PipelineConfigService {
     private String buildClusterPrefix(String clusterName) {
         return kvPrefix + "/clusters/" + clusterName + "/";
     }
-
-    private String extractPipelineIdFromKey(String key) {
-        // Extract from: rokkon-clusters/{cluster}/pipelines/{pipelineId}/config
-        String[] parts = key.split("/");
-        if (parts.length >= 5 && "pipelines".equals(parts[2])) {
-            return parts[3];
-        }
-        return null;
-    }
-
-    private String getConsulBaseUrl() {
-        return "http://" + consulHost + ":" + consulPort;
-    }
 }
@@ -7,7 +7,9 @@ import com.rokkon.pipeline.config.model.PipelineInstance;
 import com.rokkon.pipeline.config.service.PipelineDefinitionService;
 import com.rokkon.pipeline.config.service.PipelineInstanceService;
 import com.rokkon.pipeline.config.model.PipelineDefinitionSummary;
-import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import com.rokkon.pipeline.consul.store.ConfigCache;
+import com.rokkon.pipeline.consul.store.ConfigKey;
+import com.rokkon.pipeline.consul.store.ConsulKvStore;
 import com.rokkon.pipeline.validation.CompositeValidator;
 import com.rokkon.pipeline.validation.ConfigValidator;
 import com.rokkon.pipeline.validation.ValidationResult;
@@ -19,12 +21,9 @@ import io.quarkus.cache.CacheKey;
 import io.quarkus.cache.CacheResult;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.vertx.UniHelper;
-import io.vertx.ext.consul.ConsulClient;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
-import jakarta.ws.rs.WebApplicationException;
-import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,7 +36,7 @@ import java.util.stream.Collectors;
  * Implementation of PipelineDefinitionService for managing global pipeline definitions in Consul.
  */
 @ApplicationScoped
-public class PipelineDefinitionServiceImpl implements PipelineDefinitionService {
+public class PipelineDefinitionServiceImpl extends AbstractConsulService implements PipelineDefinitionService {
     
     private static final Logger LOG = LoggerFactory.getLogger(PipelineDefinitionServiceImpl.class);
     private static final String PIPELINE_METADATA_SUFFIX = "/metadata";
@@ -46,10 +45,13 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
     String kvPrefix;
     
     @Inject
-    ConsulConnectionManager connectionManager;
+    ObjectMapper objectMapper;
     
     @Inject
-    ObjectMapper objectMapper;
+    ConsulKvStore kvStore;
+    
+    @Inject
+    ConfigCache configCache;
     
     @Inject
     CompositeValidator<PipelineConfig> pipelineValidator;
@@ -57,16 +59,13 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
     @Inject
     PipelineInstanceService pipelineInstanceService;
     
-    private ConsulClient getConsulClient() {
-        return connectionManager.getClient().orElseThrow(() -> 
-            new WebApplicationException("Consul not connected", Response.Status.SERVICE_UNAVAILABLE)
-        );
-    }
+    @Inject
+    ModuleSchemaRegistry schemaRegistry;
     
     @Override
     @CacheResult(cacheName = "pipeline-definitions-list")
     public Uni<List<PipelineDefinitionSummary>> listDefinitions() {
-        return UniHelper.toUni(getConsulClient().getKeys(kvPrefix + "/pipelines/definitions/"))
+        return getConsulClient().flatMap(client -> UniHelper.toUni(client.getKeys(kvPrefix + "/pipelines/definitions/")))
             .flatMap(keys -> {
                 
                 if (keys == null || keys.isEmpty()) {
@@ -126,7 +125,7 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
     
     private Uni<Map<String, String>> getMetadata(String pipelineId) {
         String key = kvPrefix + "/pipelines/definitions/" + pipelineId + PIPELINE_METADATA_SUFFIX;
-        return UniHelper.toUni(getConsulClient().getValue(key))
+        return getConsulClient().flatMap(client -> UniHelper.toUni(client.getValue(key)))
             .map(keyValue -> {
                 if (keyValue != null && keyValue.getValue() != null) {
                     try {
@@ -146,21 +145,16 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
     }
     
     @Override
-    @CacheResult(cacheName = "pipeline-definitions")
-    public Uni<PipelineConfig> getDefinition(@CacheKey String pipelineId) {
-        String key = kvPrefix + "/pipelines/definitions/" + pipelineId;
-        return UniHelper.toUni(getConsulClient().getValue(key))
-            .map(keyValue -> {
-                if (keyValue != null && keyValue.getValue() != null) {
-                    try {
-                        String json = keyValue.getValue();
-                        return objectMapper.readValue(json, PipelineConfig.class);
-                    } catch (Exception e) {
-                        LOG.error("Failed to parse pipeline definition '{}'", pipelineId, e);
-                        return null;
-                    }
+    public Uni<PipelineConfig> getDefinition(String pipelineId) {
+        // Served from the KV snapshot; the config cache only re-parses the definition when its KV entry changed
+        return kvStore.snapshot()
+            .map(snapshot -> {
+                try {
+                    return configCache.get(snapshot, new ConfigKey.PipelineDefinition(pipelineId)).orElse(null);
+                } catch (IllegalStateException e) {
+                    LOG.error("Failed to parse pipeline definition '{}'", pipelineId, e);
+                    return null;
                 }
-                return null;
             });
     }
     
@@ -172,18 +166,20 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
     
     @Override
     @CacheInvalidate(cacheName = "pipeline-definitions-list")
-    @CacheInvalidate(cacheName = "pipeline-definitions")
     @CacheInvalidate(cacheName = "pipeline-definitions-exists")
     public Uni<ValidationResult> createDefinition(@CacheKey String pipelineId, PipelineConfig definition, ValidationMode validationMode) {
-        // Check if already exists
-        return definitionExists(pipelineId)
-            .flatMap(exists -> {
-                if (exists) {
+        // Check if already exists, and load the schemas of the steps' modules this engine has not seen yet
+        return Uni.combine().all().unis(definitionExists(pipelineId), schemaRegistry.checkCustomConfigs(definition))
+            .asTuple()
+            .flatMap(checks -> {
+                if (checks.getItem1()) {
                     return Uni.createFrom().item(ValidationResultFactory.failure("Pipeline definition '" + pipelineId + "' already exists"));
                 }
                 
-                // Validate the pipeline configuration with the specified mode
-                ValidationResult validationResult = pipelineValidator.validate(definition, validationMode);
+                // Validate the pipeline configuration with the specified mode, including step custom configs
+                // against their modules' compiled schemas
+                ValidationResult validationResult = pipelineValidator.validate(definition, validationMode)
+                    .combine(checks.getItem2());
                 // Check validation results based on mode
                 if (validationMode == ValidationMode.PRODUCTION && !validationResult.valid()) {
                     // Production mode requires no errors
@@ -198,40 +194,33 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
                     String json = objectMapper.writeValueAsString(definition);
                     String key = kvPrefix + "/pipelines/definitions/" + pipelineId;
                     
-                    return UniHelper.toUni(getConsulClient().putValue(key, json))
-                        .flatMap(success -> {
-                            if (!success) {
-                                return Uni.createFrom().item(ValidationResultFactory.failure("Failed to store pipeline definition in Consul"));
-                            }
-                            
-                            // Store metadata
-                            Map<String, String> metadata = new HashMap<>();
-                            metadata.put("createdAt", Instant.now().toString());
-                            metadata.put("modifiedAt", Instant.now().toString());
-                            metadata.put("createdBy", "system"); // TODO: Add user context
-                            metadata.put("validationMode", validationMode.toString());
-                            metadata.put("hasWarnings", String.valueOf(validationResult.hasWarnings()));
-                            
-                            try {
-                                String metadataKey = kvPrefix + "/pipelines/definitions/" + pipelineId + PIPELINE_METADATA_SUFFIX;
-                                String metadataJson = objectMapper.writeValueAsString(metadata);
-                                
-                                return UniHelper.toUni(getConsulClient().putValue(metadataKey, metadataJson))
-                                    .map(metaSuccess -> {
-                                        if (metaSuccess) {
-                                            LOG.info("Created pipeline definition '{}' in Consul", pipelineId);
-                                            // Preserve warnings from original validation
-                                            return validationResult.hasWarnings() ? 
-                                                ValidationResultFactory.successWithWarnings(validationResult.warnings()) :
-                                                ValidationResultFactory.success();
-                                        } else {
-                                            return ValidationResultFactory.failure("Failed to store metadata");
-                                        }
-                                    });
-                            } catch (JsonProcessingException e) {
-                                LOG.error("Failed to serialize metadata", e);
-                                return Uni.createFrom().item(ValidationResultFactory.failure("Failed to serialize metadata: " + e.getMessage()));
+                    // Store metadata
+                    Map<String, String> metadata = new HashMap<>();
+                    metadata.put("createdAt", Instant.now().toString());
+                    metadata.put("modifiedAt", Instant.now().toString());
+                    metadata.put("createdBy", "system"); // TODO: Add user context
+                    metadata.put("validationMode", validationMode.toString());
+                    metadata.put("hasWarnings", String.valueOf(validationResult.hasWarnings()));
+                    String metadataKey = key + PIPELINE_METADATA_SUFFIX;
+                    String metadataJson = objectMapper.writeValueAsString(metadata);
+                    
+                    // Definition and metadata in one transaction; index 0 makes the create fail if another
+                    // request created the definition since the exists check
+                    KvWriteBatch batch = new KvWriteBatch()
+                        .putIfUnchanged(key, json, 0)
+                        .put(metadataKey, metadataJson);
+                    return commit(batch)
+                        .onTermination().invoke(kvStore::invalidate)
+                        .map(result -> {
+                            if (!result.committed()) {
+                                LOG.warn("Create of pipeline definition '{}' rolled back: {}", pipelineId, result.errors());
+                                return ValidationResultFactory.failure("Pipeline definition '" + pipelineId + "' already exists");
                             }
+                            LOG.info("Created pipeline definition '{}' in Consul", pipelineId);
+                            // Preserve warnings from original validation
+                            return validationResult.hasWarnings() ? 
+                                ValidationResultFactory.successWithWarnings(validationResult.warnings()) :
+                                ValidationResultFactory.success();
                         });
                     
                 } catch (JsonProcessingException e) {
@@ -249,18 +238,20 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
     
     @Override
     @CacheInvalidate(cacheName = "pipeline-definitions-list")
-    @CacheInvalidate(cacheName = "pipeline-definitions")
     @CacheInvalidate(cacheName = "pipeline-metadata")
     public Uni<ValidationResult> updateDefinition(@CacheKey String pipelineId, PipelineConfig definition, ValidationMode validationMode) {
-        // Check if exists
-        return definitionExists(pipelineId)
-            .flatMap(exists -> {
-                if (!exists) {
+        // Check if exists, and load the schemas of the steps' modules this engine has not seen yet
+        return Uni.combine().all().unis(definitionExists(pipelineId), schemaRegistry.checkCustomConfigs(definition))
+            .asTuple()
+            .flatMap(checks -> {
+                if (!checks.getItem1()) {
                     return Uni.createFrom().item(ValidationResultFactory.failure("Pipeline definition '" + pipelineId + "' not found"));
                 }
                 
-                // Validate the pipeline configuration with the specified mode
-                ValidationResult validationResult = pipelineValidator.validate(definition, validationMode);
+                // Validate the pipeline configuration with the specified mode, including step custom configs
+                // against their modules' compiled schemas
+                ValidationResult validationResult = pipelineValidator.validate(definition, validationMode)
+                    .combine(checks.getItem2());
                 // Check validation results based on mode
                 if (validationMode == ValidationMode.PRODUCTION && !validationResult.valid()) {
                     // Production mode requires no errors
@@ -275,10 +266,13 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
                     String json = objectMapper.writeValueAsString(definition);
                     String key = kvPrefix + "/pipelines/definitions/" + pipelineId;
                     
-                    return UniHelper.toUni(getConsulClient().putValue(key, json))
-                        .flatMap(success -> {
-                            if (!success) {
-                                return Uni.createFrom().item(ValidationResultFactory.failure("Failed to update pipeline definition in Consul"));
+                    // Read the stored definition for its modify index, so the write below fails if another update
+                    // lands between this read and the commit. Updates are still last-writer-wins relative to
+                    // whatever the caller read: the API takes no index from the caller.
+                    return getConsulClient().flatMap(client -> UniHelper.toUni(client.getValue(key)))
+                        .flatMap(current -> {
+                            if (current == null || current.getValue() == null) {
+                                return Uni.createFrom().item(ValidationResultFactory.failure("Pipeline definition '" + pipelineId + "' not found"));
                             }
                             
                             // Update metadata reactively
@@ -290,20 +284,24 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
                                     metadata.put("hasWarnings", String.valueOf(validationResult.hasWarnings()));
                                     
                                     try {
-                                        String metadataKey = kvPrefix + "/pipelines/definitions/" + pipelineId + PIPELINE_METADATA_SUFFIX;
+                                        String metadataKey = key + PIPELINE_METADATA_SUFFIX;
                                         String metadataJson = objectMapper.writeValueAsString(metadata);
                                         
-                                        return UniHelper.toUni(getConsulClient().putValue(metadataKey, metadataJson))
-                                            .map(metaSuccess -> {
-                                                if (metaSuccess) {
-                                                    LOG.info("Updated pipeline definition '{}' in Consul", pipelineId);
-                                                    // Preserve warnings from original validation
-                                                    return validationResult.hasWarnings() ? 
-                                                        ValidationResultFactory.successWithWarnings(validationResult.warnings()) :
-                                                        ValidationResultFactory.success();
-                                                } else {
-                                                    return ValidationResultFactory.failure("Failed to update metadata");
+                                        KvWriteBatch batch = new KvWriteBatch()
+                                            .putIfUnchanged(key, json, current.getModifyIndex())
+                                            .put(metadataKey, metadataJson);
+                                        return commit(batch)
+                                            .onTermination().invoke(kvStore::invalidate)
+                                            .map(result -> {
+                                                if (!result.committed()) {
+                                                    LOG.warn("Update of pipeline definition '{}' rolled back: {}", pipelineId, result.errors());
+                                                    return ValidationResultFactory.failure("Pipeline definition '" + pipelineId + "' was modified concurrently, please retry");
                                                 }
+                                                LOG.info("Updated pipeline definition '{}' in Consul", pipelineId);
+                                                // Preserve warnings from original validation
+                                                return validationResult.hasWarnings() ? 
+                                                    ValidationResultFactory.successWithWarnings(validationResult.warnings()) :
+                                                    ValidationResultFactory.success();
                                             });
                                     } catch (JsonProcessingException e) {
                                         LOG.error("Failed to serialize metadata", e);
@@ -320,7 +318,6 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
     
     @Override
     @CacheInvalidate(cacheName = "pipeline-definitions-list")
-    @CacheInvalidate(cacheName = "pipeline-definitions")
     @CacheInvalidate(cacheName = "pipeline-definitions-exists")
     @CacheInvalidate(cacheName = "pipeline-metadata")
     @CacheInvalidate(cacheName = "pipeline-active-instances")
@@ -343,9 +340,12 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
                         String key = kvPrefix + "/pipelines/definitions/" + pipelineId;
                         String metadataKey = kvPrefix + "/pipelines/definitions/" + pipelineId + PIPELINE_METADATA_SUFFIX;
                         
-                        return UniHelper.toUni(getConsulClient().deleteValue(key))
-                            .flatMap(success -> UniHelper.toUni(getConsulClient().deleteValue(metadataKey)))
-                            .map(metaSuccess -> {
+                        return commit(new KvWriteBatch().delete(key).delete(metadataKey))
+                            .onTermination().invoke(kvStore::invalidate)
+                            .map(result -> {
+                                if (!result.committed()) {
+                                    return ValidationResultFactory.failure("Failed to delete pipeline definition: " + result.errors());
+                                }
                                 LOG.info("Deleted pipeline definition '{}' from Consul", pipelineId);
                                 return ValidationResultFactory.success();
                             });
@@ -357,7 +357,7 @@ public class PipelineDefinitionServiceImpl implements PipelineDefinitionService
     @CacheResult(cacheName = "pipeline-definitions-exists")
     public Uni<Boolean> definitionExists(@CacheKey String pipelineId) {
         String key = kvPrefix + "/pipelines/definitions/" + pipelineId;
-        return UniHelper.toUni(getConsulClient().getValue(key))
+        return getConsulClient().flatMap(client -> UniHelper.toUni(client.getValue(key)))
             .map(keyValue -> keyValue != null && keyValue.getValue() != null);
     }
     
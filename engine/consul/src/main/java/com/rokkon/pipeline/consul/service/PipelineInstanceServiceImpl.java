@@ -9,12 +9,13 @@ import com.rokkon.pipeline.config.service.PipelineDefinitionService;
 import com.rokkon.pipeline.config.service.PipelineInstanceService;
 import com.rokkon.pipeline.config.model.CreateInstanceRequest;
 import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import com.rokkon.pipeline.consul.store.ConsulKvStore;
+import com.rokkon.pipeline.consul.store.KvSnapshot;
 import com.rokkon.pipeline.validation.ValidationResult;
 import com.rokkon.pipeline.validation.ValidationResultFactory;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.vertx.UniHelper;
 import io.vertx.ext.consul.ConsulClient;
-import io.vertx.ext.consul.KeyValue;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.WebApplicationException;
@@ -26,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of PipelineInstanceService for managing pipeline instances in Consul.
@@ -47,6 +49,9 @@ public class PipelineInstanceServiceImpl implements PipelineInstanceService {
     @Inject
     PipelineDefinitionService pipelineDefinitionService;
     
+    @Inject
+    ConsulKvStore kvStore;
+    
     private ConsulClient getConsulClient() {
         return connectionManager.getClient().orElseThrow(() -> 
             new WebApplicationException("Consul not connected", Response.Status.SERVICE_UNAVAILABLE)
@@ -56,49 +61,24 @@ public class PipelineInstanceServiceImpl implements PipelineInstanceService {
     @Override
     public Uni<List<PipelineInstance>> listInstances(String clusterName) {
         String prefix = kvPrefix + "/pipelines/instances/" + clusterName + "/";
-        return UniHelper.toUni(getConsulClient().getKeys(prefix))
-            .map(keys -> {
-                
-                if (keys == null || keys.isEmpty()) {
-                    return Collections.emptyList();
-                }
-                
-                List<PipelineInstance> instances = new ArrayList<>();
-                
-                for (String key : keys) {
-                    try {
-                        KeyValue keyValue = UniHelper.toUni(getConsulClient().getValue(key))
-                            .await().indefinitely();
-                        if (keyValue != null && keyValue.getValue() != null) {
-                            String json = keyValue.getValue();
-                            PipelineInstance instance = objectMapper.readValue(json, PipelineInstance.class);
-                            instances.add(instance);
-                        }
-                    } catch (Exception e) {
-                        LOG.warn("Failed to load pipeline instance from key '{}': {}", key, e.getMessage());
-                    }
-                }
-                
-                return instances;
-            });
+        return kvStore.snapshot()
+            .map(snapshot -> parseInstances(snapshot, prefix).toList());
     }
     
     @Override
     public Uni<PipelineInstance> getInstance(String clusterName, String instanceId) {
         String key = kvPrefix + "/pipelines/instances/" + clusterName + "/" + instanceId;
-        return UniHelper.toUni(getConsulClient().getValue(key))
-            .map(keyValue -> {
-                if (keyValue != null && keyValue.getValue() != null) {
+        return kvStore.snapshot()
+            .map(snapshot -> snapshot.value(key)
+                .map(json -> {
                     try {
-                        String json = keyValue.getValue();
                         return objectMapper.readValue(json, PipelineInstance.class);
                     } catch (Exception e) {
                         LOG.error("Failed to parse pipeline instance '{}'", instanceId, e);
                         return null;
                     }
-                }
-                return null;
-            })
+                })
+                .orElse(null))
             .onFailure().recoverWithItem(error -> {
                 LOG.error("Failed to get pipeline instance '{}'", instanceId, error);
                 return null;
@@ -152,6 +132,7 @@ public class PipelineInstanceServiceImpl implements PipelineInstanceService {
                     
                     return UniHelper.toUni(getConsulClient().putValue(key, json))
                         .map(success -> {
+                            kvStore.invalidate();
                             if (success) {
                                 LOG.info("Created pipeline instance '{}' in cluster '{}' from definition '{}'", 
                                     request.instanceId(), clusterName, request.pipelineDefinitionId());
@@ -203,6 +184,7 @@ public class PipelineInstanceServiceImpl implements PipelineInstanceService {
                     
                     return UniHelper.toUni(getConsulClient().putValue(key, json))
                         .map(success -> {
+                            kvStore.invalidate();
                             if (success) {
                                 LOG.info("Updated pipeline instance '{}' in cluster '{}'", instanceId, clusterName);
                                 return ValidationResultFactory.success();
@@ -238,6 +220,7 @@ public class PipelineInstanceServiceImpl implements PipelineInstanceService {
                 
                 return UniHelper.toUni(getConsulClient().deleteValue(key))
                     .map(result -> {
+                        kvStore.invalidate();
                         LOG.info("Deleted pipeline instance '{}' from cluster '{}'", instanceId, clusterName);
                         return ValidationResultFactory.success();
                     })
@@ -286,6 +269,7 @@ public class PipelineInstanceServiceImpl implements PipelineInstanceService {
                     
                     return UniHelper.toUni(getConsulClient().putValue(key, json))
                         .map(success -> {
+                            kvStore.invalidate();
                             if (success) {
                                 LOG.info("Started pipeline instance '{}' in cluster '{}'", instanceId, clusterName);
                                 // TODO: Actually start the pipeline processing
@@ -344,6 +328,7 @@ public class PipelineInstanceServiceImpl implements PipelineInstanceService {
                     
                     return UniHelper.toUni(getConsulClient().putValue(key, json))
                         .map(success -> {
+                            kvStore.invalidate();
                             if (success) {
                                 LOG.info("Stopped pipeline instance '{}' in cluster '{}'", instanceId, clusterName);
                                 // TODO: Actually stop the pipeline processing
@@ -367,8 +352,8 @@ public class PipelineInstanceServiceImpl implements PipelineInstanceService {
     @Override
     public Uni<Boolean> instanceExists(String clusterName, String instanceId) {
         String key = kvPrefix + "/pipelines/instances/" + clusterName + "/" + instanceId;
-        return UniHelper.toUni(getConsulClient().getValue(key))
-            .map(keyValue -> keyValue != null && keyValue.getValue() != null)
+        return kvStore.snapshot()
+            .map(snapshot -> snapshot.value(key).isPresent())
             .onFailure().recoverWithItem(error -> {
                 LOG.error("Failed to check if pipeline instance exists", error);
                 return false;
@@ -377,46 +362,25 @@ public class PipelineInstanceServiceImpl implements PipelineInstanceService {
     
     @Override
     public Uni<List<PipelineInstance>> listInstancesByDefinition(String pipelineDefinitionId) {
-        return UniHelper.toUni(getConsulClient().getKeys(kvPrefix + "/pipelines/instances/"))
-            .map(keys -> {
-                
-                if (keys == null || keys.isEmpty()) {
-                    return Collections.emptyList();
+        return kvStore.snapshot()
+            .map(snapshot -> parseInstances(snapshot, kvPrefix + "/pipelines/instances/")
+                .filter(instance -> pipelineDefinitionId.equals(instance.pipelineDefinitionId()))
+                .collect(Collectors.toList()));
+    }
+    
+    /**
+     * Parses every instance stored under the prefix, skipping values that do not parse.
+     */
+    private Stream<PipelineInstance> parseInstances(KvSnapshot snapshot, String prefix) {
+        return snapshot.values(prefix).entrySet().stream()
+            .map(entry -> {
+                try {
+                    return objectMapper.readValue(entry.getValue(), PipelineInstance.class);
+                } catch (Exception e) {
+                    LOG.warn("Failed to parse pipeline instance from key '{}': {}", entry.getKey(), e.getMessage());
+                    return null;
                 }
-                
-                // Convert list of keys to list of Unis for parallel fetching
-                List<Uni<PipelineInstance>> instanceUnis = keys.stream()
-                    .map(key -> UniHelper.toUni(getConsulClient().getValue(key))
-                        .map(keyValue -> {
-                            if (keyValue != null && keyValue.getValue() != null) {
-                                try {
-                                    String json = keyValue.getValue();
-                                    PipelineInstance instance = objectMapper.readValue(json, PipelineInstance.class);
-                                    // Filter by pipeline definition ID
-                                    if (pipelineDefinitionId.equals(instance.pipelineDefinitionId())) {
-                                        return instance;
-                                    }
-                                } catch (Exception e) {
-                                    LOG.warn("Failed to parse pipeline instance from key '{}': {}", key, e.getMessage());
-                                }
-                            }
-                            return null;
-                        })
-                        .onFailure().recoverWithItem(error -> {
-                            LOG.warn("Failed to load pipeline instance from key '{}': {}", key, error.getMessage());
-                            return null;
-                        })
-                    )
-                    .toList();
-                
-                // Combine all Unis and filter out nulls
-                return Uni.combine().all().unis(instanceUnis)
-                    .with(list -> list.stream()
-                        .filter(Objects::nonNull)
-                        .map(obj -> (PipelineInstance) obj)
-                        .collect(Collectors.toList())
-                    )
-                    .await().indefinitely();
-            });
+            })
+            .filter(Objects::nonNull);
     }
-}
\ No newline at end of file
+}
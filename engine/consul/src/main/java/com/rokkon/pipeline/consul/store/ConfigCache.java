@@ -0,0 +1,142 @@
+package com.rokkon.pipeline.consul.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rokkon.pipeline.events.ConsulConnectionEvent;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parsed configuration objects read from the {@link ConsulKvStore} snapshot, by {@link ConfigKey}. Each entry
+ * remembers the modify index of the KV entry it was parsed from and is only served while the snapshot still has
+ * that index, so a lookup can never return a stale object; what the cache saves is the JSON parsing.
+ *
+ * <p>Entries are kept current by the {@link KvChangeSet}s the store publishes: a changed key that is cached is
+ * re-parsed in place and a removed one dropped, instead of the whole cache being flushed and refetched.
+ */
+@ApplicationScoped
+public class ConfigCache {
+
+    private static final Logger LOG = Logger.getLogger(ConfigCache.class);
+
+    /**
+     * Cache effectiveness and freshness, for status endpoints and metrics.
+     *
+     * @param hits            Lookups served from the cache
+     * @param misses          Lookups that parsed the stored value
+     * @param hitRate         {@code hits / (hits + misses)}, 0 before the first lookup
+     * @param deltaUpdates    Cached entries re-parsed from a change set
+     * @param deltaRemovals   Cached entries dropped because their key was removed
+     * @param entries         Objects currently cached
+     * @param snapshotIndex   Consul index of the KV snapshot lookups are served from
+     * @param stalenessMillis Milliseconds since Consul last confirmed that snapshot current, -1 if none loaded
+     */
+    public record Stats(long hits, long misses, double hitRate, long deltaUpdates, long deltaRemovals,
+                        int entries, long snapshotIndex, long stalenessMillis) {
+    }
+
+    private record Cached(Object value, long modifyIndex) {
+    }
+
+    @Inject
+    ConsulKvStore kvStore;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private final ConcurrentMap<ConfigKey<?>, Cached> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder deltaUpdates = new LongAdder();
+    private final LongAdder deltaRemovals = new LongAdder();
+
+    /**
+     * The object stored under {@code key} in the current snapshot.
+     */
+    public <T> Uni<Optional<T>> get(ConfigKey<T> key) {
+        return kvStore.snapshot().map(snapshot -> get(snapshot, key));
+    }
+
+    /**
+     * The object stored under {@code key} in {@code snapshot}; empty if the key is absent.
+     *
+     * @throws IllegalStateException if the stored value does not parse
+     */
+    public <T> Optional<T> get(KvSnapshot snapshot, ConfigKey<T> key) {
+        KvSnapshot.Entry entry = snapshot.entries().get(kvStore.prefix() + "/" + key.path());
+        if (entry == null || entry.value() == null) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        Cached cached = entries.get(key);
+        if (cached != null && cached.modifyIndex() == entry.modifyIndex()) {
+            hits.increment();
+            return Optional.of(key.type().cast(cached.value()));
+        }
+        misses.increment();
+        T value = parse(key, entry.value());
+        entries.put(key, new Cached(value, entry.modifyIndex()));
+        return Optional.of(value);
+    }
+
+    /**
+     * Applies a change set to the cached entries it touches. Keys nobody looked up are left alone.
+     */
+    void onChanges(@Observes KvChangeSet changeSet) {
+        String prefix = changeSet.prefix() + "/";
+        for (KvSnapshot.Change change : changeSet.changes()) {
+            if (!change.key().startsWith(prefix)) {
+                continue;
+            }
+            ConfigKey.fromPath(change.key().substring(prefix.length()))
+                    .filter(entries::containsKey)
+                    .ifPresent(key -> apply(key, change));
+        }
+    }
+
+    void onConnectionChange(@Observes ConsulConnectionEvent event) {
+        // Modify indexes from another Consul say nothing about the values cached from this one
+        entries.clear();
+    }
+
+    public Stats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        ConsulKvStore.Status status = kvStore.status();
+        return new Stats(hitCount, missCount, lookups == 0 ? 0 : (double) hitCount / lookups,
+                deltaUpdates.sum(), deltaRemovals.sum(), entries.size(), status.index(), status.ageMillis());
+    }
+
+    private void apply(ConfigKey<?> key, KvSnapshot.Change change) {
+        if (change.removed() || change.entry().value() == null) {
+            if (entries.remove(key) != null) {
+                deltaRemovals.increment();
+            }
+            return;
+        }
+        try {
+            entries.put(key, new Cached(parse(key, change.entry().value()), change.entry().modifyIndex()));
+            deltaUpdates.increment();
+        } catch (IllegalStateException e) {
+            // Left for the next lookup to report
+            entries.remove(key);
+            LOG.warnf("Dropped cached %s: %s", key, e.getMessage());
+        }
+    }
+
+    private <T> T parse(ConfigKey<T> key, String json) {
+        try {
+            return objectMapper.readValue(json, key.type());
+        } catch (Exception e) {
+            throw new IllegalStateException("Error parsing " + key.path() + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.rokkon.pipeline.consul.store;
+
+import com.rokkon.pipeline.config.model.PipelineConfig;
+
+import java.util.Optional;
+
+/**
+ * Typed key of a configuration object held in {@link ConfigCache}: which KV path it lives at, relative to the KV
+ * prefix, and which class its JSON value parses to.
+ *
+ * @param <T> Type of the configuration object
+ */
+public sealed interface ConfigKey<T> permits ConfigKey.ClusterPipeline, ConfigKey.PipelineDefinition {
+
+    /**
+     * KV path relative to the prefix, without a leading slash.
+     */
+    String path();
+
+    Class<T> type();
+
+    /**
+     * A pipeline deployed in a cluster: {@code clusters/{clusterName}/pipelines/{pipelineId}/config}.
+     */
+    record ClusterPipeline(String clusterName, String pipelineId) implements ConfigKey<PipelineConfig> {
+
+        @Override
+        public String path() {
+            return "clusters/" + clusterName + "/pipelines/" + pipelineId + "/config";
+        }
+
+        @Override
+        public Class<PipelineConfig> type() {
+            return PipelineConfig.class;
+        }
+    }
+
+    /**
+     * A global pipeline definition: {@code pipelines/definitions/{pipelineId}}.
+     */
+    record PipelineDefinition(String pipelineId) implements ConfigKey<PipelineConfig> {
+
+        @Override
+        public String path() {
+            return "pipelines/definitions/" + pipelineId;
+        }
+
+        @Override
+        public Class<PipelineConfig> type() {
+            return PipelineConfig.class;
+        }
+    }
+
+    /**
+     * The key stored at {@code relativePath}, if that path holds a configuration object of a known type.
+     */
+    static Optional<ConfigKey<?>> fromPath(String relativePath) {
+        String[] parts = relativePath.split("/", -1);
+        if (parts.length == 5 && parts[0].equals("clusters") && parts[2].equals("pipelines")
+                && parts[4].equals("config") && !parts[1].isEmpty() && !parts[3].isEmpty()) {
+            return Optional.of(new ClusterPipeline(parts[1], parts[3]));
+        }
+        if (parts.length == 3 && parts[0].equals("pipelines") && parts[1].equals("definitions")
+                && !parts[2].isEmpty()) {
+            return Optional.of(new PipelineDefinition(parts[2]));
+        }
+        return Optional.empty();
+    }
+}
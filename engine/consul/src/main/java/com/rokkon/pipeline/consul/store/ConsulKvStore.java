@@ -0,0 +1,360 @@
+package com.rokkon.pipeline.consul.store;
+
+import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import com.rokkon.pipeline.events.ConsulConnectionEvent;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.vertx.UniHelper;
+import io.vertx.ext.consul.ConsulClient;
+import io.vertx.ext.consul.KeyValueList;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory replica of the pipeline KV tree. The whole tree under the KV prefix is read with one recursive
+ * request and kept as an immutable {@link KvSnapshot}; {@link com.rokkon.pipeline.consul.watch.ConsulWatcher}
+ * feeds it the results of a blocking watch on the same prefix, so while the watch is healthy reads cost no
+ * Consul calls at all. Without a healthy watch (disabled, failed, or not started yet) every read re-reads the
+ * tree, which is still a single request however many keys a listing touches; concurrent reads share one
+ * request in flight, so a burst of lookups against a stale store costs one Consul call, not one per lookup.
+ *
+ * <p>Services call {@link #invalidate()} after writing so their next read sees the write. When Consul cannot be
+ * reached, reads are served from the last snapshot and the staleness is logged; only a store that never loaded
+ * fails.
+ *
+ * <p>Every new snapshot is also saved to a local file ({@code pipeline.consul.snapshot.path}). On startup the
+ * store loads that file and serves it straight away, reconciling with Consul in the background, so the engine
+ * can route documents before Consul answers and keeps its last known configuration across Consul outages.
+ *
+ * <p>Whenever a snapshot replaces an older one, the keys that differ are published as a {@link KvChangeSet}
+ * event, so caches derived from the tree can apply the delta instead of being flushed.
+ */
+@ApplicationScoped
+public class ConsulKvStore {
+
+    private static final Logger LOG = Logger.getLogger(ConsulKvStore.class);
+
+    /**
+     * What the store holds, for status endpoints.
+     *
+     * @param loaded      Whether a snapshot was ever read
+     * @param index       Consul index of the snapshot
+     * @param keys        Keys in the snapshot
+     * @param syncedAt    When Consul last confirmed the snapshot current
+     * @param watchActive Whether a watch is keeping the snapshot current
+     * @param confirmed   Whether Consul has confirmed the snapshot since startup; false while serving the local file
+     * @param ageMillis   Milliseconds since {@code syncedAt}
+     */
+    public record Status(boolean loaded, long index, int keys, Instant syncedAt, boolean watchActive,
+                         boolean confirmed, long ageMillis) {
+    }
+
+    @Inject
+    ConsulConnectionManager connectionManager;
+
+    @Inject
+    Event<KvChangeSet> changeEvents;
+
+    @ConfigProperty(name = "pipeline.consul.kv-prefix", defaultValue = "pipeline")
+    String kvPrefix;
+
+    @ConfigProperty(name = "pipeline.consul.snapshot.enabled", defaultValue = "true")
+    boolean snapshotFileEnabled;
+
+    @ConfigProperty(name = "pipeline.consul.snapshot.path", defaultValue = "data/consul-kv-snapshot.bin")
+    String snapshotFilePath;
+
+    /**
+     * A read of the tree in flight, joined by refreshes that start before it completes.
+     *
+     * @param writes Value of {@link #writes} when the read started; a refresh after a later write does not join
+     */
+    private record InFlight(long writes, CompletableFuture<KvSnapshot> result) {
+    }
+
+    private final AtomicReference<KvSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicReference<InFlight> inFlight = new AtomicReference<>();
+    private final AtomicLong writes = new AtomicLong();
+    private volatile boolean watchActive = false;
+    private volatile boolean dirty = false;
+    private volatile boolean confirmed = false;
+    private final AtomicBoolean reconciling = new AtomicBoolean(false);
+    private final Object saveLock = new Object();
+    private volatile long savedIndex = -1;
+
+    /**
+     * Installs the snapshot saved by an earlier run, if there is one for this prefix.
+     */
+    @PostConstruct
+    void loadSnapshotFile() {
+        if (!snapshotFileEnabled) {
+            return;
+        }
+        Path file = Path.of(snapshotFilePath);
+        try {
+            KvSnapshotFile.read(file, kvPrefix).ifPresent(loaded -> {
+                if (snapshot.compareAndSet(null, loaded)) {
+                    savedIndex = loaded.index();
+                    LOG.infof("Loaded local KV snapshot of '%s' at index %d (%d keys, synced %s) from %s",
+                            kvPrefix, loaded.index(), loaded.size(), loaded.syncedAt(), file);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            LOG.warnf("Ignoring unreadable local KV snapshot %s: %s", file, e.getMessage());
+        }
+    }
+
+    /**
+     * The KV prefix whose tree the store replicates.
+     */
+    public String prefix() {
+        return kvPrefix;
+    }
+
+    /**
+     * The current snapshot: the cached one while a watch keeps it current, otherwise a fresh read. Until Consul
+     * first answers, a snapshot loaded from the local file is served as is while a background read reconciles it.
+     */
+    public Uni<KvSnapshot> snapshot() {
+        KvSnapshot current = snapshot.get();
+        if (current != null && !dirty) {
+            if (watchActive) {
+                return Uni.createFrom().item(current);
+            }
+            if (!confirmed) {
+                reconcileInBackground();
+                return Uni.createFrom().item(current);
+            }
+        }
+        return refresh();
+    }
+
+    /**
+     * Reads the whole tree from Consul and installs it, unless a newer snapshot arrived meanwhile. Falls back to
+     * the cached snapshot if the read fails. While a read is in flight, refreshes join it instead of sending
+     * another, unless {@link #invalidate()} was called since it started.
+     */
+    public Uni<KvSnapshot> refresh() {
+        while (true) {
+            long generation = writes.get();
+            InFlight running = inFlight.get();
+            if (running != null && running.writes() == generation) {
+                return Uni.createFrom().completionStage(running.result().copy());
+            }
+            InFlight mine = new InFlight(generation, new CompletableFuture<>());
+            if (inFlight.compareAndSet(running, mine)) {
+                read().subscribe().with(
+                        item -> {
+                            inFlight.compareAndSet(mine, null);
+                            mine.result().complete(item);
+                        },
+                        error -> {
+                            inFlight.compareAndSet(mine, null);
+                            mine.result().completeExceptionally(error);
+                        });
+                // A copy, so a subscriber cancelling does not cancel the read for the others
+                return Uni.createFrom().completionStage(mine.result().copy());
+            }
+        }
+    }
+
+    private Uni<KvSnapshot> read() {
+        KvSnapshot base = snapshot.get();
+        // Cleared before reading, so a write finishing during the read marks the store again
+        boolean wasDirty = dirty;
+        dirty = false;
+        ConsulClient client = connectionManager.getClient().orElse(null);
+        if (client == null) {
+            dirty = dirty || wasDirty;
+            return fallback(base, new WebApplicationException("Consul not connected",
+                    Response.Status.SERVICE_UNAVAILABLE));
+        }
+        return UniHelper.toUni(client.getValues(kvPrefix))
+            .map(kvList -> {
+                KvSnapshot next = KvSnapshot.of(kvList.getIndex(), Instant.now(), kvList.getList());
+                confirm(base, next);
+                return install(base, next);
+            })
+            .onFailure().recoverWithUni(error -> {
+                // A write the failed read should have picked up still needs reading
+                dirty = dirty || wasDirty;
+                return fallback(base, error);
+            });
+    }
+
+    /**
+     * Marks the snapshot out of date, so the next read goes to Consul. Called after local writes.
+     */
+    public void invalidate() {
+        writes.incrementAndGet();
+        dirty = true;
+    }
+
+    /**
+     * Applies a result of the recursive watch on {@link #prefix()}.
+     */
+    public void onWatchResult(KeyValueList kvList) {
+        if (kvList == null) {
+            return;
+        }
+        watchActive = true;
+        KvSnapshot current = snapshot.get();
+        if (!confirmed) {
+            confirm(current, KvSnapshot.of(kvList.getIndex(), Instant.now(), kvList.getList()));
+        }
+        if (current != null && kvList.getIndex() == current.index()) {
+            // Blocking query timed out without changes
+            snapshot.compareAndSet(current, current.confirmedAt(Instant.now()));
+            return;
+        }
+        if (current != null && kvList.getIndex() < current.index()) {
+            // Either a refresh already installed newer data, or Consul's index went backwards; re-read to tell
+            LOG.debugf("Watch returned index %d behind snapshot index %d", kvList.getIndex(), current.index());
+            invalidate();
+            return;
+        }
+        KvSnapshot next = KvSnapshot.of(kvList.getIndex(), Instant.now(), kvList.getList());
+        while (!snapshot.compareAndSet(current, next)) {
+            current = snapshot.get();
+            if (current != null && current.index() >= next.index()) {
+                return;
+            }
+        }
+        LOG.debugf("KV snapshot of '%s' updated by watch to index %d (%d keys)", kvPrefix, next.index(), next.size());
+        publishChanges(current, next);
+        saveInBackground();
+    }
+
+    /**
+     * Called when the watch stops or fails; reads go to Consul until it delivers again.
+     */
+    public void onWatchStopped() {
+        watchActive = false;
+    }
+
+    void onConnectionChange(@Observes ConsulConnectionEvent event) {
+        // A new connection may point at another Consul whose tree and indexes differ
+        invalidate();
+    }
+
+    public Status status() {
+        KvSnapshot current = snapshot.get();
+        if (current == null) {
+            return new Status(false, 0, 0, null, watchActive, confirmed, -1);
+        }
+        return new Status(true, current.index(), current.size(), current.syncedAt(), watchActive, confirmed,
+                Duration.between(current.syncedAt(), Instant.now()).toMillis());
+    }
+
+    /**
+     * Records the first answer from Consul, logging how far it moved from a snapshot loaded from the local file.
+     */
+    private void confirm(KvSnapshot base, KvSnapshot fromConsul) {
+        if (confirmed) {
+            return;
+        }
+        confirmed = true;
+        if (base != null && snapshotFileEnabled) {
+            KvSnapshot.Changes changes = base.changesTo(fromConsul);
+            LOG.infof("Reconciled local KV snapshot (index %d) with Consul (index %d): %d added, %d modified, %d removed",
+                    base.index(), fromConsul.index(), changes.added(), changes.modified(), changes.removed());
+        }
+    }
+
+    private void reconcileInBackground() {
+        if (reconciling.compareAndSet(false, true)) {
+            refresh().subscribe().with(
+                    item -> reconciling.set(false),
+                    error -> reconciling.set(false));
+        }
+    }
+
+    private void saveInBackground() {
+        KvSnapshot current = snapshot.get();
+        if (snapshotFileEnabled && current != null && current.index() != savedIndex) {
+            Infrastructure.getDefaultExecutor().execute(this::save);
+        }
+    }
+
+    /**
+     * Writes the current snapshot to the local file unless it is already there.
+     */
+    private void save() {
+        synchronized (saveLock) {
+            KvSnapshot current = snapshot.get();
+            if (current == null || current.index() == savedIndex) {
+                return;
+            }
+            Path file = Path.of(snapshotFilePath);
+            try {
+                KvSnapshotFile.write(file, kvPrefix, current);
+                savedIndex = current.index();
+                LOG.debugf("Saved KV snapshot at index %d to %s", current.index(), file);
+            } catch (IOException e) {
+                LOG.warnf("Failed to save KV snapshot to %s: %s", file, e.getMessage());
+            }
+        }
+    }
+
+    private KvSnapshot install(KvSnapshot base, KvSnapshot next) {
+        // Replace what the read started from even if the index went backwards (Consul restored or replaced);
+        // if the watch installed something meanwhile, keep whichever is newer
+        KvSnapshot current;
+        do {
+            current = snapshot.get();
+            if (current != base && current != null && current.index() >= next.index()) {
+                return current;
+            }
+        } while (!snapshot.compareAndSet(current, next));
+        LOG.debugf("KV snapshot of '%s' loaded at index %d (%d keys)", kvPrefix, next.index(), next.size());
+        publishChanges(current, next);
+        saveInBackground();
+        return next;
+    }
+
+    /**
+     * Fires the keys that differ between a replaced snapshot and its successor. Nothing is fired for the first
+     * snapshot, as nothing can have been derived from the tree before it.
+     */
+    private void publishChanges(KvSnapshot replaced, KvSnapshot next) {
+        if (replaced == null || changeEvents == null) {
+            return;
+        }
+        List<KvSnapshot.Change> changes = replaced.diff(next);
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            changeEvents.fire(new KvChangeSet(kvPrefix, replaced.index(), next.index(), changes));
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "A KV change observer failed for index %d -> %d", replaced.index(), next.index());
+        }
+    }
+
+    private Uni<KvSnapshot> fallback(KvSnapshot base, Throwable error) {
+        if (base == null) {
+            return Uni.createFrom().failure(error);
+        }
+        LOG.warnf("Consul KV read failed (%s); serving snapshot at index %d, last synced %s (%d ms ago)",
+                error.getMessage(), base.index(), base.syncedAt(),
+                Duration.between(base.syncedAt(), Instant.now()).toMillis());
+        return Uni.createFrom().item(base);
+    }
+}
@@ -0,0 +1,18 @@
+package com.rokkon.pipeline.consul.store;
+
+import java.util.List;
+
+/**
+ * CDI event fired by {@link ConsulKvStore} when a new snapshot replaces an older one, with the keys that differ.
+ *
+ * @param prefix    KV prefix of the replicated tree
+ * @param fromIndex Consul index of the replaced snapshot
+ * @param toIndex   Consul index of the new snapshot
+ * @param changes   Added, modified and removed keys, in key order
+ */
+public record KvChangeSet(String prefix, long fromIndex, long toIndex, List<KvSnapshot.Change> changes) {
+
+    public KvChangeSet {
+        changes = List.copyOf(changes);
+    }
+}
@@ -0,0 +1,178 @@
+package com.rokkon.pipeline.consul.store;
+
+import io.vertx.ext.consul.KeyValue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable copy of a Consul KV tree as of one Consul index.
+ *
+ * @param index    Consul index ({@code X-Consul-Index}) the tree was read at
+ * @param syncedAt When the tree was last confirmed current by Consul
+ * @param entries  Every key of the tree, sorted
+ */
+public record KvSnapshot(long index, Instant syncedAt, NavigableMap<String, KvSnapshot.Entry> entries) {
+
+    /**
+     * One key of the tree.
+     *
+     * @param value       Value, or null for keys without one (e.g. folder markers)
+     * @param modifyIndex Consul index of the key's last modification
+     */
+    public record Entry(String value, long modifyIndex) {
+    }
+
+    /**
+     * How a tree changed between two snapshots.
+     */
+    public record Changes(int added, int modified, int removed) {
+
+        public boolean isEmpty() {
+            return added == 0 && modified == 0 && removed == 0;
+        }
+    }
+
+    /**
+     * A key that differs between two snapshots.
+     *
+     * @param key   Full KV key
+     * @param entry The key in the newer snapshot, or null if it was removed
+     */
+    public record Change(String key, Entry entry) {
+
+        public boolean removed() {
+            return entry == null;
+        }
+    }
+
+    public KvSnapshot {
+        entries = Collections.unmodifiableNavigableMap(entries);
+    }
+
+    /**
+     * Builds a snapshot from the result of a recursive KV read.
+     */
+    public static KvSnapshot of(long index, Instant syncedAt, List<KeyValue> keyValues) {
+        NavigableMap<String, Entry> entries = new TreeMap<>();
+        if (keyValues != null) {
+            for (KeyValue kv : keyValues) {
+                entries.put(kv.getKey(), new Entry(kv.getValue(), kv.getModifyIndex()));
+            }
+        }
+        return new KvSnapshot(index, syncedAt, entries);
+    }
+
+    /**
+     * The same tree, confirmed current at a later time.
+     */
+    public KvSnapshot confirmedAt(Instant time) {
+        return new KvSnapshot(index, time, entries);
+    }
+
+    /**
+     * Counts of the keys added, modified (by modify index) and removed going from this snapshot to {@code newer},
+     * see {@link #diff(KvSnapshot)}.
+     */
+    public Changes changesTo(KvSnapshot newer) {
+        int added = 0;
+        int modified = 0;
+        int removed = 0;
+        for (Change change : diff(newer)) {
+            if (change.removed()) {
+                removed++;
+            } else if (entries.containsKey(change.key())) {
+                modified++;
+            } else {
+                added++;
+            }
+        }
+        return new Changes(added, modified, removed);
+    }
+
+    /**
+     * The keys added, modified (by modify index) or removed going from this snapshot to {@code newer}, in key
+     * order. Walks both sorted trees once.
+     */
+    public List<Change> diff(KvSnapshot newer) {
+        List<Change> changes = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> olds = entries.entrySet().iterator();
+        Iterator<Map.Entry<String, Entry>> news = newer.entries().entrySet().iterator();
+        Map.Entry<String, Entry> old = olds.hasNext() ? olds.next() : null;
+        Map.Entry<String, Entry> current = news.hasNext() ? news.next() : null;
+        while (old != null || current != null) {
+            int order = old == null ? 1 : current == null ? -1 : old.getKey().compareTo(current.getKey());
+            if (order < 0) {
+                changes.add(new Change(old.getKey(), null));
+                old = olds.hasNext() ? olds.next() : null;
+            } else if (order > 0) {
+                changes.add(new Change(current.getKey(), current.getValue()));
+                current = news.hasNext() ? news.next() : null;
+            } else {
+                if (old.getValue().modifyIndex() != current.getValue().modifyIndex()) {
+                    changes.add(new Change(current.getKey(), current.getValue()));
+                }
+                old = olds.hasNext() ? olds.next() : null;
+                current = news.hasNext() ? news.next() : null;
+            }
+        }
+        return changes;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * The value of a key; empty if the key is absent or has no value.
+     */
+    public Optional<String> value(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? Optional.empty() : Optional.ofNullable(entry.value());
+    }
+
+    /**
+     * Keys starting with {@code prefix} that have a value, in key order.
+     */
+    public Map<String, String> values(String prefix) {
+        Map<String, String> values = new TreeMap<>();
+        for (Map.Entry<String, Entry> entry : entries.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (entry.getValue().value() != null) {
+                values.put(entry.getKey(), entry.getValue().value());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The distinct first path segments below {@code prefix}, in key order. With prefix {@code "a/"} and keys
+     * {@code a/x/1, a/x/2, a/y}, these are {@code x} and {@code y}.
+     */
+    public Set<String> childNames(String prefix) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String key : entries.tailMap(prefix, true).keySet()) {
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            String relative = key.substring(prefix.length());
+            int slash = relative.indexOf('/');
+            String name = slash < 0 ? relative : relative.substring(0, slash);
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,128 @@
+package com.rokkon.pipeline.consul.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local copy of a {@link KvSnapshot}, so the engine can start from the last known tree before Consul answers.
+ *
+ * <p>The file is gzip-compressed (whose trailer checksum rejects truncated or corrupted files) and holds, in
+ * order: a magic number, the format version, the KV prefix, the snapshot index and sync time, the entry count,
+ * and per entry its key, modify index and value (length -1 for none). Files are written to a temporary sibling
+ * and moved into place, so a crash mid-write leaves the previous file intact.
+ */
+final class KvSnapshotFile {
+
+    private static final int MAGIC = 0x524B5653; // "RKVS"
+    private static final int VERSION = 1;
+
+    private KvSnapshotFile() {
+    }
+
+    /**
+     * Writes the snapshot of the tree under {@code prefix}, replacing the file atomically.
+     */
+    static void write(Path file, String prefix, KvSnapshot snapshot) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream fileOut = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(fileOut)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, prefix);
+                out.writeLong(snapshot.index());
+                out.writeLong(snapshot.syncedAt().toEpochMilli());
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, KvSnapshot.Entry> entry : snapshot.entries().entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeLong(entry.getValue().modifyIndex());
+                    writeString(out, entry.getValue().value());
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads the snapshot stored for {@code prefix}; empty if there is no file or it holds another prefix.
+     *
+     * @throws IOException if the file is unreadable, truncated or corrupted
+     */
+    static Optional<KvSnapshot> read(Path file, String prefix) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (InputStream fileIn = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(fileIn)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a KV snapshot file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported KV snapshot version " + version + " in " + file);
+            }
+            if (!prefix.equals(readString(in))) {
+                return Optional.empty();
+            }
+            long index = in.readLong();
+            Instant syncedAt = Instant.ofEpochMilli(in.readLong());
+            int count = in.readInt();
+            NavigableMap<String, KvSnapshot.Entry> entries = new TreeMap<>();
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                long modifyIndex = in.readLong();
+                entries.put(key, new KvSnapshot.Entry(readString(in), modifyIndex));
+            }
+            // Reading to the end makes the gzip stream verify its checksum
+            if (in.read() != -1) {
+                throw new IOException("Trailing data in KV snapshot file: " + file);
+            }
+            return Optional.of(new KvSnapshot(index, syncedAt, entries));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,10 @@
 package com.rokkon.pipeline.consul.watch;
 
 import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import com.rokkon.pipeline.consul.store.ConfigKey;
+import com.rokkon.pipeline.consul.store.ConsulKvStore;
+import com.rokkon.pipeline.consul.store.KvChangeSet;
+import com.rokkon.pipeline.consul.store.KvSnapshot;
 import com.rokkon.pipeline.events.cache.ConsulPipelineDefinitionChangedEvent;
 import com.rokkon.pipeline.events.cache.ConsulModuleRegistrationChangedEvent;
 import com.rokkon.pipeline.events.cache.ConsulClusterPipelineChangedEvent;
@@ -10,7 +14,6 @@ import io.smallrye.mutiny.Uni;
 import io.vertx.core.Vertx;
 import io.vertx.ext.consul.ConsulClient;
 import io.vertx.ext.consul.ConsulClientOptions;
-import io.vertx.ext.consul.KeyValue;
 import io.vertx.ext.consul.KeyValueList;
 import io.vertx.ext.consul.Watch;
 import io.vertx.ext.consul.WatchResult;
@@ -24,12 +27,12 @@ import org.jboss.logging.Logger;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Watches Consul KV store for changes to pipeline definitions, module registrations,
- * and cluster configurations. Fires CDI events when changes are detected.
+ * and cluster configurations. One recursive watch on the {@link ConsulKvStore} prefix keeps
+ * the replica current; the store diffs each new snapshot against the previous one, and the
+ * resulting {@link KvChangeSet} is turned into CDI events for exactly the keys that changed.
  */
 @ApplicationScoped
 public class ConsulWatcher {
@@ -42,6 +45,9 @@ public class ConsulWatcher {
     @Inject
     Vertx vertx;
     
+    @Inject
+    ConsulKvStore kvStore;
+    
     @Inject
     Event<ConsulPipelineDefinitionChangedEvent> pipelineDefinitionChangedEvent;
     
@@ -54,18 +60,11 @@ public class ConsulWatcher {
     @ConfigProperty(name = "pipeline.consul.watch.enabled", defaultValue = "true")
     boolean watchEnabled;
     
-    @ConfigProperty(name = "consul.kv.prefix", defaultValue = "pipeline")
-    String kvPrefix;
-    
-    @ConfigProperty(name = "pipeline.cluster.name", defaultValue = "default")
-    String clusterName;
-    
     @ConfigProperty(name = "pipeline.consul.watch.interval", defaultValue = "10s")
     Duration watchInterval;
     
     // Track active watches for cleanup
     private final List<Watch<KeyValueList>> activeWatches = new ArrayList<>();
-    private final Map<String, Long> lastModifyIndex = new ConcurrentHashMap<>();
     private volatile boolean running = false;
     
     /**
@@ -112,14 +111,10 @@ public class ConsulWatcher {
         ConsulClient client = connectionManager.getClient().orElseThrow(() -> 
             new IllegalStateException("Consul client not available"));
         
-        // Watch pipeline definitions
-        watchKeyPrefix(client, kvPrefix + "/pipelines/definitions", this::handlePipelineDefinitionChange);
-        
-        // Watch module registrations
-        watchKeyPrefix(client, kvPrefix + "/modules/registered", this::handleModuleRegistrationChange);
-        
-        // Watch cluster pipelines
-        watchKeyPrefix(client, kvPrefix + "/clusters/" + clusterName + "/pipelines", this::handleClusterPipelineChange);
+        // Keep the KV replica current: one recursive watch over the whole tree, whose change sets
+        // drive the pipeline definition, module registration and cluster pipeline events
+        watchKeyPrefix(client, kvStore.prefix(), result -> kvStore.onWatchResult(result.nextResult()),
+            kvStore::onWatchStopped);
         
         LOG.infof("Started %d Consul watches", activeWatches.size());
     }
@@ -137,16 +132,17 @@ public class ConsulWatcher {
         
         activeWatches.forEach(Watch::stop);
         activeWatches.clear();
-        lastModifyIndex.clear();
+        kvStore.onWatchStopped();
         
         LOG.info("Consul watches stopped");
     }
     
     /**
-     * Watch a specific key prefix in Consul
+     * Watch a specific key prefix in Consul, running {@code onFailure} whenever the watch fails
      */
     private void watchKeyPrefix(ConsulClient client, String keyPrefix, 
-                                java.util.function.Consumer<WatchResult<KeyValueList>> handler) {
+                                java.util.function.Consumer<WatchResult<KeyValueList>> handler,
+                                Runnable onFailure) {
         
         // Get the Consul options from the client to ensure we use the correct port
         ConsulClientOptions options = new ConsulClientOptions()
@@ -160,6 +156,7 @@ public class ConsulWatcher {
                 handler.accept(result);
             } else {
                 LOG.warnf(result.cause(), "Watch failed for prefix: %s", keyPrefix);
+                onFailure.run();
                 
                 // Restart watch after failure
                 if (running) {
@@ -169,7 +166,7 @@ public class ConsulWatcher {
                         .subscribe().with(
                             item -> {
                                 if (running) {
-                                    watchKeyPrefix(client, keyPrefix, handler); // Create a new watch
+                                    watchKeyPrefix(client, keyPrefix, handler, onFailure); // Create a new watch
                                 }
                             }
                         );
@@ -183,116 +180,46 @@ public class ConsulWatcher {
     }
     
     /**
-     * Handle changes to pipeline definitions
+     * Fires the change events for the keys of a change set: a pipeline definition (metadata keys excluded), a
+     * module registration or a cluster pipeline that was added, modified or removed. Removed keys carry a null
+     * value.
      */
-    private void handlePipelineDefinitionChange(WatchResult<KeyValueList> result) {
-        KeyValueList kvList = result.nextResult();
-        
-        if (kvList == null || kvList.getList() == null) {
+    void onKvChanges(@Observes KvChangeSet changeSet) {
+        if (!running) {
             return;
         }
         
-        // Check if the data actually changed using modify index
-        Long currentIndex = kvList.getIndex();
-        Long lastIndex = lastModifyIndex.get("pipeline-definitions");
-        
-        if (lastIndex != null && lastIndex.equals(currentIndex)) {
-            return; // No actual change
-        }
-        
-        lastModifyIndex.put("pipeline-definitions", currentIndex);
-        
-        List<KeyValue> changes = kvList.getList();
-        LOG.debugf("Pipeline definitions changed: %d keys affected", changes.size());
+        String prefix = changeSet.prefix() + "/";
+        LOG.debugf("KV changed from index %d to %d: %d keys affected",
+            changeSet.fromIndex(), changeSet.toIndex(), changeSet.changes().size());
         
-        // Fire event for each changed pipeline
-        changes.forEach(kv -> {
-            String key = kv.getKey();
-            // Extract pipeline ID from key: rokkon/pipelines/definitions/{pipelineId}
-            String[] parts = key.split("/");
-            if (parts.length >= 4) {
-                String pipelineId = parts[3];
-                // Skip metadata keys
-                if (!key.endsWith("/metadata")) {
-                    pipelineDefinitionChangedEvent.fire(
-                        new ConsulPipelineDefinitionChangedEvent(pipelineId, kv.getValue())
-                    );
-                }
+        for (KvSnapshot.Change change : changeSet.changes()) {
+            if (!change.key().startsWith(prefix)) {
+                continue;
             }
-        });
-    }
-    
-    /**
-     * Handle changes to module registrations
-     */
-    private void handleModuleRegistrationChange(WatchResult<KeyValueList> result) {
-        KeyValueList kvList = result.nextResult();
-        
-        if (kvList == null || kvList.getList() == null) {
-            return;
-        }
-        
-        // Check if the data actually changed
-        Long currentIndex = kvList.getIndex();
-        Long lastIndex = lastModifyIndex.get("module-registrations");
-        
-        if (lastIndex != null && lastIndex.equals(currentIndex)) {
-            return;
-        }
-        
-        lastModifyIndex.put("module-registrations", currentIndex);
-        
-        List<KeyValue> changes = kvList.getList();
-        LOG.debugf("Module registrations changed: %d keys affected", changes.size());
-        
-        // Fire event for each changed module
-        changes.forEach(kv -> {
-            String key = kv.getKey();
-            // Extract module ID from key: rokkon/modules/registered/{moduleId}
-            String[] parts = key.split("/");
-            if (parts.length >= 4) {
-                String moduleId = parts[3];
+            String path = change.key().substring(prefix.length());
+            String value = change.removed() ? null : change.entry().value();
+            
+            // Module registrations: {prefix}/modules/registered/{moduleId}
+            String[] parts = path.split("/");
+            if (parts.length == 3 && parts[0].equals("modules") && parts[1].equals("registered")) {
                 moduleRegistrationChangedEvent.fire(
-                    new ConsulModuleRegistrationChangedEvent(moduleId, kv.getValue())
+                    new ConsulModuleRegistrationChangedEvent(parts[2], value)
                 );
+                continue;
             }
-        });
-    }
-    
-    /**
-     * Handle changes to cluster pipelines
-     */
-    private void handleClusterPipelineChange(WatchResult<KeyValueList> result) {
-        KeyValueList kvList = result.nextResult();
-        
-        if (kvList == null || kvList.getList() == null) {
-            return;
-        }
-        
-        // Check if the data actually changed
-        Long currentIndex = kvList.getIndex();
-        Long lastIndex = lastModifyIndex.get("cluster-pipelines");
-        
-        if (lastIndex != null && lastIndex.equals(currentIndex)) {
-            return;
+            
+            ConfigKey.fromPath(path).ifPresent(key -> {
+                if (key instanceof ConfigKey.PipelineDefinition definition) {
+                    pipelineDefinitionChangedEvent.fire(
+                        new ConsulPipelineDefinitionChangedEvent(definition.pipelineId(), value)
+                    );
+                } else if (key instanceof ConfigKey.ClusterPipeline pipeline) {
+                    clusterPipelineChangedEvent.fire(
+                        new ConsulClusterPipelineChangedEvent(pipeline.clusterName(), pipeline.pipelineId(), value)
+                    );
+                }
+            });
         }
-        
-        lastModifyIndex.put("cluster-pipelines", currentIndex);
-        
-        List<KeyValue> changes = kvList.getList();
-        LOG.debugf("Cluster pipelines changed: %d keys affected", changes.size());
-        
-        // Fire event for each changed pipeline
-        changes.forEach(kv -> {
-            String key = kv.getKey();
-            // Extract pipeline ID from key: rokkon/clusters/{cluster}/pipelines/{pipelineId}/config
-            String[] parts = key.split("/");
-            if (parts.length >= 6) {
-                String pipelineId = parts[5];
-                clusterPipelineChangedEvent.fire(
-                    new ConsulClusterPipelineChangedEvent(clusterName, pipelineId, kv.getValue())
-                );
-            }
-        });
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.rokkon.pipeline.consul.service;
 
 import com.rokkon.pipeline.config.service.ClusterService;
 import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import com.rokkon.pipeline.consul.store.TestKvStores;
 import com.rokkon.pipeline.consul.test.UnifiedTestProfile;
 import com.rokkon.pipeline.validation.ValidationResultFactory;
 import com.rokkon.pipeline.util.ObjectMapperFactory;
@@ -11,12 +12,14 @@ import io.quarkus.test.junit.TestProfile;
 import io.quarkus.test.InjectMock;
 import io.vertx.ext.consul.ConsulClient;
 import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.BeforeEach;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -40,6 +43,7 @@ class ClusterServiceUnitTest extends ClusterServiceTestBase {
     
     private ConsulClient mockConsulClient;
     private Map<String, String> kvStore = new HashMap<>();
+    private final AtomicLong kvIndex = new AtomicLong();
     private final ObjectMapper objectMapper = ObjectMapperFactory.createConfiguredMapper();
     
     @BeforeEach
@@ -50,6 +54,7 @@ class ClusterServiceUnitTest extends ClusterServiceTestBase {
         // Inject the mocked dependencies
         clusterServiceImpl.connectionManager = connectionManager;
         clusterServiceImpl.objectMapper = objectMapper;
+        clusterServiceImpl.kvStore = TestKvStores.of(connectionManager, "test");
         
         // Configure mock to call real methods
         doCallRealMethod().when(clusterServiceImpl).createCluster(anyString());
@@ -83,12 +88,14 @@ class ClusterServiceUnitTest extends ClusterServiceTestBase {
             String key = invocation.getArgument(0);
             String value = invocation.getArgument(1);
             kvStore.put(key, value);
+            kvIndex.incrementAndGet();
             return io.vertx.core.Future.succeededFuture(true);
         });
         
         when(mockConsulClient.deleteValue(anyString())).thenAnswer(invocation -> {
             String key = invocation.getArgument(0);
             kvStore.remove(key);
+            kvIndex.incrementAndGet();
             return io.vertx.core.Future.succeededFuture();
         });
         
@@ -96,6 +103,7 @@ class ClusterServiceUnitTest extends ClusterServiceTestBase {
             String prefix = invocation.getArgument(0);
             // Remove all keys that start with the prefix
             kvStore.entrySet().removeIf(entry -> entry.getKey().startsWith(prefix));
+            kvIndex.incrementAndGet();
             return io.vertx.core.Future.succeededFuture();
         });
         
@@ -106,6 +114,17 @@ class ClusterServiceUnitTest extends ClusterServiceTestBase {
                 .toList();
             return io.vertx.core.Future.succeededFuture(keys);
         });
+        
+        // Recursive read used by the KV snapshot
+        when(mockConsulClient.getValues(anyString())).thenAnswer(invocation -> {
+            String prefix = invocation.getArgument(0);
+            var values = kvStore.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(prefix))
+                .map(entry -> new KeyValue().setKey(entry.getKey()).setValue(entry.getValue()))
+                .toList();
+            return io.vertx.core.Future.succeededFuture(
+                new KeyValueList().setIndex(kvIndex.get()).setList(values));
+        });
     }
     
     @Override
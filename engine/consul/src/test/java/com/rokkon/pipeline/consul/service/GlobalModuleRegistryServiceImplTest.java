@@ -0,0 +1,224 @@
+package com.rokkon.pipeline.consul.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rokkon.pipeline.commons.model.GlobalModuleRegistryService.ModuleRegistration;
+import com.rokkon.pipeline.commons.model.GlobalModuleRegistryService.ZombieCleanupResult;
+import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import com.rokkon.pipeline.consul.store.TestKvStores;
+import io.vertx.core.Future;
+import io.vertx.ext.consul.Check;
+import io.vertx.ext.consul.CheckStatus;
+import io.vertx.ext.consul.ConsulClient;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+import io.vertx.ext.consul.Service;
+import io.vertx.ext.consul.ServiceEntry;
+import io.vertx.ext.consul.ServiceEntryList;
+import io.vertx.ext.consul.ServiceList;
+import io.vertx.ext.consul.ServiceQueryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for module listing and zombie detection from a single fetch of the module instances.
+ */
+class GlobalModuleRegistryServiceImplTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final String REGISTERED = "pipeline/modules/registered/";
+
+    private ConsulClient client;
+    private GlobalModuleRegistryServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(ConsulClient.class);
+        ConsulConnectionManager connectionManager = mock(ConsulConnectionManager.class);
+        when(connectionManager.getClient()).thenReturn(Optional.of(client));
+
+        service = new GlobalModuleRegistryServiceImpl();
+        service.connectionManager = connectionManager;
+        service.kvPrefix = "pipeline";
+        service.kvStore = TestKvStores.of(connectionManager, "pipeline");
+        service.schemaRegistry = new ModuleSchemaRegistry();
+        service.schemaRegistry.objectMapper = new ObjectMapper();
+        // The watch keeps the replica current, so listing reads module KV entries from memory; zombie cleanup
+        // reads them fresh
+        service.kvStore.onWatchResult(new KeyValueList().setIndex(3).setList(List.of(
+                kv("pipeline/modules/registered/echo-1", "{\"moduleId\": \"echo-1\", \"enabled\": true}"),
+                kv("pipeline/modules/registered/echo-2", "{\"moduleId\": \"echo-2\", \"enabled\": false}"),
+                kv("pipeline/modules/registered/chunker-1", "{\"moduleId\": \"chunker-1\", \"enabled\": true}"))));
+        when(client.getValues(REGISTERED)).thenReturn(Future.succeededFuture(
+                registrations(3, "echo-1", "echo-2", "chunker-1")));
+
+        when(client.catalogServices()).thenReturn(Future.succeededFuture(new ServiceList().setList(List.of(
+                new Service().setName("echo").setTags(List.of("module", "global")),
+                new Service().setName("chunker").setTags(List.of("module", "global")),
+                new Service().setName("consul").setTags(List.of())))));
+        when(client.healthServiceNodesWithOptions(eq("echo"), anyBoolean(), any(ServiceQueryOptions.class)))
+                .thenReturn(Future.succeededFuture(entries(
+                        instance("echo", "echo-1", 9001, CheckStatus.PASSING),
+                        instance("echo", "echo-2", 9002, CheckStatus.PASSING))));
+        when(client.healthServiceNodesWithOptions(eq("chunker"), anyBoolean(), any(ServiceQueryOptions.class)))
+                .thenReturn(Future.succeededFuture(entries(
+                        instance("chunker", "chunker-1", 9003, CheckStatus.CRITICAL))));
+    }
+
+    @Test
+    void listsModulesWithOneHealthCallPerModuleServiceAndNoKvCalls() {
+        Set<ModuleRegistration> modules = service.listRegisteredModules().await().atMost(TIMEOUT);
+
+        assertThat(modules).extracting(ModuleRegistration::moduleId).containsExactly("echo-1", "echo-2", "chunker-1");
+        assertThat(modules).extracting(ModuleRegistration::enabled).containsExactly(true, false, true);
+        assertThat(modules).extracting(ModuleRegistration::moduleName).containsExactly("echo", "echo", "chunker");
+
+        verify(client, times(1)).catalogServices();
+        verify(client, times(2)).healthServiceNodesWithOptions(anyString(), anyBoolean(), any(ServiceQueryOptions.class));
+        verify(client, never()).healthServiceNodesWithOptions(eq("consul"), anyBoolean(), any(ServiceQueryOptions.class));
+        verify(client, never()).getValue(anyString());
+        verify(client, never()).getValues(anyString());
+    }
+
+    @Test
+    void skipsServicesWhoseHealthCallFails() {
+        when(client.healthServiceNodesWithOptions(eq("chunker"), anyBoolean(), any(ServiceQueryOptions.class)))
+                .thenReturn(Future.failedFuture(new RuntimeException("timeout")));
+
+        Set<ModuleRegistration> modules = service.listRegisteredModules().await().atMost(TIMEOUT);
+
+        assertThat(modules).extracting(ModuleRegistration::moduleId).containsExactly("echo-1", "echo-2");
+    }
+
+    @Test
+    void zombieCleanupDetectsFromTheSameFetch() {
+        when(client.deregisterService(anyString())).thenReturn(Future.succeededFuture());
+        when(client.deleteValue(anyString())).thenReturn(Future.succeededFuture());
+
+        ZombieCleanupResult result = service.cleanupZombieInstances().await().atMost(TIMEOUT);
+
+        assertThat(result.zombiesDetected()).isEqualTo(1);
+        assertThat(result.zombiesCleaned()).isEqualTo(1);
+        verify(client).deregisterService("chunker-1");
+        verify(client).deleteValue("pipeline/modules/registered/chunker-1");
+        verify(client, times(1)).catalogServices();
+        verify(client, times(2)).healthServiceNodesWithOptions(anyString(), anyBoolean(), any(ServiceQueryOptions.class));
+        verify(client, never()).healthServiceNodes(anyString(), anyBoolean());
+    }
+
+    @Test
+    void zombieCleanupDetectsCatalogOnlyAndKvOnlyModules() {
+        when(client.deregisterService(anyString())).thenReturn(Future.succeededFuture());
+        when(client.deleteValue(anyString())).thenReturn(Future.succeededFuture());
+        // echo-3 is in the catalog without a KV key; orphan-1 has a KV key but no instance
+        when(client.healthServiceNodesWithOptions(eq("echo"), anyBoolean(), any(ServiceQueryOptions.class)))
+                .thenReturn(Future.succeededFuture(entries(
+                        instance("echo", "echo-1", 9001, CheckStatus.PASSING),
+                        instance("echo", "echo-2", 9002, CheckStatus.PASSING),
+                        instance("echo", "echo-3", 9004, CheckStatus.PASSING))));
+        when(client.getValues(REGISTERED)).thenReturn(Future.succeededFuture(
+                registrations(4, "echo-1", "echo-2", "chunker-1", "orphan-1")));
+
+        ZombieCleanupResult result = service.cleanupZombieInstances().await().atMost(TIMEOUT);
+
+        assertThat(result.zombiesDetected()).isEqualTo(3);
+        assertThat(result.zombiesCleaned()).isEqualTo(3);
+        verify(client).deregisterService("chunker-1");
+        verify(client).deregisterService("echo-3");
+        verify(client).deregisterService("orphan-1");
+        verify(client).deleteValue("pipeline/modules/registered/orphan-1");
+        verify(client, never()).deregisterService("echo-1");
+        verify(client, never()).deregisterService("echo-2");
+    }
+
+    @Test
+    void zombieCleanupChecksRegistrationsNewerThanTheReplica() {
+        when(client.deregisterService(anyString())).thenReturn(Future.succeededFuture());
+        when(client.deleteValue(anyString())).thenReturn(Future.succeededFuture());
+        // echo-3 registered after the replica was taken: only Consul knows its KV key
+        when(client.healthServiceNodesWithOptions(eq("echo"), anyBoolean(), any(ServiceQueryOptions.class)))
+                .thenReturn(Future.succeededFuture(entries(
+                        instance("echo", "echo-1", 9001, CheckStatus.PASSING),
+                        instance("echo", "echo-2", 9002, CheckStatus.PASSING),
+                        instance("echo", "echo-3", 9004, CheckStatus.PASSING))));
+        when(client.getValues(REGISTERED)).thenReturn(Future.succeededFuture(
+                registrations(5, "echo-1", "echo-2", "echo-3", "chunker-1")));
+
+        ZombieCleanupResult result = service.cleanupZombieInstances().await().atMost(TIMEOUT);
+
+        assertThat(result.zombiesDetected()).isEqualTo(1);
+        verify(client).deregisterService("chunker-1");
+        verify(client, never()).deregisterService("echo-3");
+    }
+
+    @Test
+    void zombieCleanupRemovesNothingWhenTheRegistrationReadFails() {
+        when(client.getValues(REGISTERED)).thenReturn(Future.failedFuture(new RuntimeException("timeout")));
+
+        ZombieCleanupResult result = service.cleanupZombieInstances().await().atMost(TIMEOUT);
+
+        assertThat(result.zombiesDetected()).isZero();
+        assertThat(result.errors()).hasSize(1);
+        verify(client, never()).deregisterService(anyString());
+        verify(client, never()).deleteValue(anyString());
+    }
+
+    @Test
+    void zombieCleanupRemovesNothingWhenAnInstanceFetchFails() {
+        when(client.healthServiceNodesWithOptions(eq("chunker"), anyBoolean(), any(ServiceQueryOptions.class)))
+                .thenReturn(Future.failedFuture(new RuntimeException("timeout")));
+
+        ZombieCleanupResult result = service.cleanupZombieInstances().await().atMost(TIMEOUT);
+
+        assertThat(result.zombiesDetected()).isZero();
+        assertThat(result.errors()).hasSize(1);
+        verify(client, never()).deregisterService(anyString());
+        verify(client, never()).deleteValue(anyString());
+    }
+
+    private static ServiceEntryList entries(ServiceEntry... entries) {
+        return new ServiceEntryList().setList(List.of(entries));
+    }
+
+    private static ServiceEntry instance(String name, String id, int port, CheckStatus status) {
+        Service service = new Service()
+                .setName(name)
+                .setId(id)
+                .setAddress("localhost")
+                .setPort(port)
+                .setTags(List.of("module", "global"))
+                .setMeta(Map.of("moduleName", name, "registeredAt", "1"));
+        return new ServiceEntry()
+                .setService(service)
+                .setChecks(List.of(new Check().setId("service:" + id).setStatus(status)));
+    }
+
+    private static KeyValueList registrations(long index, String... moduleIds) {
+        List<KeyValue> keyValues = new ArrayList<>();
+        for (String moduleId : moduleIds) {
+            keyValues.add(kv(REGISTERED + moduleId, "{\"moduleId\": \"" + moduleId + "\", \"enabled\": true}"));
+        }
+        return new KeyValueList().setIndex(index).setList(keyValues);
+    }
+
+    private static KeyValue kv(String key, String value) {
+        return new KeyValue().setKey(key).setValue(value).setModifyIndex(3);
+    }
+}
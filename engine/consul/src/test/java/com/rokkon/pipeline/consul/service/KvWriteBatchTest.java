@@ -0,0 +1,136 @@
+package com.rokkon.pipeline.consul.service;
+
+import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import io.vertx.core.Future;
+import io.vertx.ext.consul.ConsulClient;
+import io.vertx.ext.consul.TxnError;
+import io.vertx.ext.consul.TxnKVOperation;
+import io.vertx.ext.consul.TxnKVVerb;
+import io.vertx.ext.consul.TxnRequest;
+import io.vertx.ext.consul.TxnResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for batched KV writes through Consul transactions, against a mocked Consul client.
+ */
+class KvWriteBatchTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private ConsulClient client;
+    private TestService service;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(ConsulClient.class);
+        ConsulConnectionManager connectionManager = mock(ConsulConnectionManager.class);
+        when(connectionManager.getClient()).thenReturn(Optional.of(client));
+        service = new TestService();
+        service.connectionManager = connectionManager;
+    }
+
+    @Test
+    void sendsTheWholeBatchAsOneTransaction() {
+        when(client.transaction(any())).thenReturn(Future.succeededFuture(new TxnResponse()));
+        KvWriteBatch batch = new KvWriteBatch()
+                .putIfUnchanged("pipeline/a", "v1", 7)
+                .put("pipeline/a/metadata", "{}")
+                .delete("pipeline/b");
+
+        KvWriteBatch.Result result = service.commit(batch).await().atMost(TIMEOUT);
+
+        assertThat(result).isEqualTo(new KvWriteBatch.Result(true, 3, List.of()));
+        ArgumentCaptor<TxnRequest> request = ArgumentCaptor.forClass(TxnRequest.class);
+        verify(client, times(1)).transaction(request.capture());
+        assertThat(request.getValue().getOperationsSize()).isEqualTo(3);
+        TxnKVOperation cas = (TxnKVOperation) request.getValue().getOperations().get(0);
+        assertThat(cas.getType()).isEqualTo(TxnKVVerb.CAS);
+        assertThat(cas.getIndex()).isEqualTo(7);
+    }
+
+    @Test
+    void reportsRolledBackTransactions() {
+        TxnResponse conflict = new TxnResponse()
+                .addError(new TxnError().setOpIndex(1).setWhat("failed to set key: index is stale"));
+        when(client.transaction(any())).thenReturn(Future.succeededFuture(conflict));
+        KvWriteBatch batch = new KvWriteBatch()
+                .put("pipeline/a", "v")
+                .putIfUnchanged("pipeline/b", "v", 3);
+
+        KvWriteBatch.Result result = service.commit(batch).await().atMost(TIMEOUT);
+
+        assertThat(result.committed()).isFalse();
+        assertThat(result.applied()).isZero();
+        assertThat(result.errors()).containsExactly(
+                "Operation 1 on 'pipeline/b' failed: failed to set key: index is stale");
+    }
+
+    @Test
+    void rejectsBatchesLargerThanOneTransaction() {
+        KvWriteBatch batch = batchOf(AbstractConsulService.MAX_TXN_OPERATIONS + 1);
+
+        assertThatThrownBy(() -> service.commit(batch).await().atMost(TIMEOUT))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(client, never()).transaction(any());
+    }
+
+    @Test
+    void emptyBatchesDoNotCallConsul() {
+        assertThat(service.commit(new KvWriteBatch()).await().atMost(TIMEOUT).committed()).isTrue();
+        assertThat(service.commitInChunks(new KvWriteBatch()).await().atMost(TIMEOUT).committed()).isTrue();
+        verify(client, never()).transaction(any());
+    }
+
+    @Test
+    void splitsLargeBatchesIntoTransactions() {
+        when(client.transaction(any())).thenReturn(Future.succeededFuture(new TxnResponse()));
+
+        KvWriteBatch.Result result = service.commitInChunks(batchOf(150)).await().atMost(TIMEOUT);
+
+        assertThat(result).isEqualTo(new KvWriteBatch.Result(true, 150, List.of()));
+        ArgumentCaptor<TxnRequest> requests = ArgumentCaptor.forClass(TxnRequest.class);
+        verify(client, times(3)).transaction(requests.capture());
+        assertThat(requests.getAllValues()).extracting(TxnRequest::getOperationsSize).containsExactly(64, 64, 22);
+    }
+
+    @Test
+    void stopsAtTheFirstFailedChunk() {
+        TxnResponse conflict = new TxnResponse().addError(new TxnError().setOpIndex(2).setWhat("rejected"));
+        when(client.transaction(any()))
+                .thenReturn(Future.succeededFuture(new TxnResponse()))
+                .thenReturn(Future.succeededFuture(conflict));
+
+        KvWriteBatch.Result result = service.commitInChunks(batchOf(200)).await().atMost(TIMEOUT);
+
+        assertThat(result.committed()).isFalse();
+        assertThat(result.applied()).isEqualTo(64);
+        assertThat(result.errors()).containsExactly("Operation 66 on 'pipeline/k66' failed: rejected");
+        verify(client, times(2)).transaction(any());
+    }
+
+    private static KvWriteBatch batchOf(int size) {
+        KvWriteBatch batch = new KvWriteBatch();
+        for (int i = 0; i < size; i++) {
+            batch.delete("pipeline/k" + i);
+        }
+        return batch;
+    }
+
+    private static class TestService extends AbstractConsulService {
+    }
+}
@@ -0,0 +1,197 @@
+package com.rokkon.pipeline.consul.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rokkon.pipeline.commons.model.GlobalModuleRegistryService.ModuleRegistration;
+import com.rokkon.pipeline.config.model.PipelineConfig;
+import com.rokkon.pipeline.config.model.PipelineStepConfig;
+import com.rokkon.pipeline.config.model.StepType;
+import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import com.rokkon.pipeline.consul.store.TestKvStores;
+import com.rokkon.pipeline.validation.ValidationResult;
+import io.vertx.core.Future;
+import io.vertx.ext.consul.ConsulClient;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for compiling module schemas once and validating step custom configs against them.
+ */
+class ModuleSchemaRegistryTest {
+
+    private static final String CHUNKER_SCHEMA = """
+            {"type": "object", "properties": {"chunkSize": {"type": "integer", "minimum": 1}}, "required": ["chunkSize"]}""";
+    private static final String CHUNKER_SCHEMA_V2 = """
+            {"type": "object", "properties": {"chunkSize": {"type": "integer", "maximum": 100}}}""";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ModuleSchemaRegistry registry = new ModuleSchemaRegistry();
+    private ConsulClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(ConsulClient.class);
+        ConsulConnectionManager connectionManager = mock(ConsulConnectionManager.class);
+        when(connectionManager.getClient()).thenReturn(Optional.of(client));
+        registry.objectMapper = objectMapper;
+        registry.kvStore = TestKvStores.of(connectionManager, "pipeline");
+    }
+
+    @Test
+    void compilesEachModuleVersionOnce() {
+        registry.register(registry.compile("chunker", "1.0.0", CHUNKER_SCHEMA));
+
+        // Listings repeat the registration of every instance; none of them compiles again
+        registry.sync(List.of(
+                registration("chunker", "chunker-1", "1.0.0", CHUNKER_SCHEMA, 1),
+                registration("chunker", "chunker-2", "1.0.0", CHUNKER_SCHEMA, 2)));
+        registry.compile("chunker", "1.0.0", CHUNKER_SCHEMA);
+
+        assertThat(registry.stats().compilations()).isEqualTo(1);
+        assertThat(registry.stats().modules()).isEqualTo(1);
+    }
+
+    @Test
+    void replacesTheSchemaWhenTheModuleRegistersAChangedOne() throws Exception {
+        registry.sync(List.of(registration("chunker", "chunker-1", "1.0.0", CHUNKER_SCHEMA, 1)));
+        registry.sync(List.of(registration("chunker", "chunker-3", "2.0.0", CHUNKER_SCHEMA_V2, 3)));
+
+        assertThat(registry.schemaFor("chunker").orElseThrow().version()).isEqualTo("2.0.0");
+        assertThat(registry.stats().compilations()).isEqualTo(2);
+        // chunkSize is no longer required, but now has a maximum
+        assertThat(registry.schemaFor("chunker").get().validate(objectMapper.readTree("{}"))).isEmpty();
+        assertThat(registry.schemaFor("chunker").get().validate(objectMapper.readTree("{\"chunkSize\": 500}")))
+                .hasSize(1);
+    }
+
+    @Test
+    void evictsModulesWhoseInstancesNoLongerHaveASchema() {
+        registry.sync(List.of(registration("chunker", "chunker-1", "1.0.0", CHUNKER_SCHEMA, 1)));
+        registry.sync(List.of(registration("chunker", "chunker-1", "1.0.1", null, 2)));
+
+        assertThat(registry.schemaFor("chunker")).isEmpty();
+    }
+
+    @Test
+    void rejectsSchemasThatAreNotJson() {
+        assertThatThrownBy(() -> registry.compile("broken", "1.0.0", "{not json"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid JSON Schema v7 provided for module 'broken'");
+    }
+
+    @Test
+    void comparesSchemasIgnoringFormatting() {
+        ModuleSchemaRegistry.CompiledSchema compiled = registry.compile("chunker", "1.0.0", CHUNKER_SCHEMA);
+
+        assertThat(registry.isEquivalent(CHUNKER_SCHEMA.replace(" ", ""), compiled)).isTrue();
+        assertThat(registry.isEquivalent(CHUNKER_SCHEMA_V2, compiled)).isFalse();
+    }
+
+    @Test
+    void validatesStepCustomConfigsAgainstTheirModuleSchema() throws Exception {
+        registry.register(registry.compile("chunker", "1.0.0", CHUNKER_SCHEMA));
+        PipelineConfig pipeline = new PipelineConfig("docs", Map.of(
+                "valid", step("chunker", "{\"chunkSize\": 512}"),
+                "invalid", step("chunker", "{\"chunkSize\": \"large\"}"),
+                // No config: the module's defaults apply
+                "defaults", step("chunker", "{}"),
+                // No schema known for the module
+                "unknown", step("parser", "{\"anything\": true}")));
+
+        ValidationResult result = registry.validateCustomConfigs(pipeline);
+
+        assertThat(result.valid()).isFalse();
+        assertThat(result.errors()).hasSize(1);
+        assertThat(result.errors().get(0))
+                .startsWith("Step 'invalid': custom config does not match the schema of module 'chunker'");
+    }
+
+    @Test
+    void loadsTheSchemaOfAModuleNotSeenYetFromItsRegistration() throws Exception {
+        // As after a restart: the module registered with another engine instance, or before this one started
+        when(client.getValues("pipeline")).thenReturn(Future.succeededFuture(new KeyValueList().setIndex(5).setList(List.of(
+                kv("pipeline/modules/registered/chunker-1", registrationJson("chunker", "1.0.0", CHUNKER_SCHEMA_V2, 1)),
+                kv("pipeline/modules/registered/chunker-2", registrationJson("chunker", "2.0.0", CHUNKER_SCHEMA, 2)),
+                kv("pipeline/modules/registered/parser-1", registrationJson("parser", "1.0.0", null, 3))))));
+        PipelineConfig pipeline = new PipelineConfig("docs", Map.of(
+                "invalid", step("chunker", "{\"chunkSize\": \"large\"}"),
+                "unchecked", step("parser", "{\"anything\": true}")));
+
+        ValidationResult result = registry.checkCustomConfigs(pipeline).await().atMost(TIMEOUT);
+
+        // The most recent registration's schema is the one checked against; the parser registered without one
+        assertThat(registry.schemaFor("chunker").orElseThrow().version()).isEqualTo("2.0.0");
+        assertThat(result.errors()).hasSize(1);
+        assertThat(result.errors().get(0))
+                .startsWith("Step 'invalid': custom config does not match the schema of module 'chunker'");
+
+        // Loaded once: the next check uses the registered schema without reading KV
+        registry.checkCustomConfigs(new PipelineConfig("docs", Map.of("valid", step("chunker", "{\"chunkSize\": 5}"))))
+                .await().atMost(TIMEOUT);
+        assertThat(registry.stats().compilations()).isEqualTo(1);
+    }
+
+    @Test
+    void failsTheCheckWhenTheSchemaCannotBeLoaded() throws Exception {
+        when(client.getValues("pipeline")).thenReturn(Future.failedFuture(new RuntimeException("connection refused")));
+        PipelineConfig pipeline = new PipelineConfig("docs", Map.of("chunk", step("chunker", "{\"chunkSize\": 512}")));
+
+        ValidationResult result = registry.checkCustomConfigs(pipeline).await().atMost(TIMEOUT);
+
+        assertThat(result.valid()).isFalse();
+        assertThat(result.errors().get(0)).startsWith("Could not load the schemas of modules [chunker]");
+    }
+
+    @Test
+    void readsNothingWhenEverySchemaIsKnown() throws Exception {
+        registry.register(registry.compile("chunker", "1.0.0", CHUNKER_SCHEMA));
+        PipelineConfig pipeline = new PipelineConfig("docs", Map.of(
+                "chunk", step("chunker", "{\"chunkSize\": 512}"),
+                // No config, so no schema is needed
+                "parse", step("parser", "{}")));
+
+        assertThat(registry.checkCustomConfigs(pipeline).await().atMost(TIMEOUT).valid()).isTrue();
+        verify(client, never()).getValues("pipeline");
+    }
+
+    private PipelineStepConfig step(String module, String jsonConfig) throws Exception {
+        return new PipelineStepConfig(module + "-step", StepType.PIPELINE,
+                new PipelineStepConfig.ProcessorInfo(module, null),
+                new PipelineStepConfig.JsonConfigOptions(objectMapper.readTree(jsonConfig), Map.of()));
+    }
+
+    private String registrationJson(String moduleName, String version, String jsonSchema, long registeredAt) {
+        return objectMapper.createObjectNode()
+                .put("moduleId", moduleName + "-" + registeredAt)
+                .put("moduleName", moduleName)
+                .put("version", version)
+                .put("registeredAt", registeredAt)
+                .put("jsonSchema", jsonSchema)
+                .toString();
+    }
+
+    private static KeyValue kv(String key, String value) {
+        return new KeyValue().setKey(key).setValue(value).setModifyIndex(1);
+    }
+
+    private static ModuleRegistration registration(String moduleName, String moduleId, String version,
+                                                   String jsonSchema, long registeredAt) {
+        return new ModuleRegistration(moduleId, moduleName, moduleName + "-impl", "localhost", 9000, "PIPELINE",
+                version, Map.of(), registeredAt, "localhost", 9000, jsonSchema, true, null, null, null);
+    }
+}
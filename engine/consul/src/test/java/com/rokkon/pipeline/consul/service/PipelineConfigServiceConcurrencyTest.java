@@ -0,0 +1,157 @@
+package com.rokkon.pipeline.consul.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rokkon.pipeline.config.model.PipelineConfig;
+import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import com.rokkon.pipeline.consul.store.TestKvStores;
+import com.rokkon.pipeline.util.ObjectMapperFactory;
+import com.rokkon.pipeline.validation.CompositeValidator;
+import com.rokkon.pipeline.validation.ValidationResult;
+import com.rokkon.pipeline.validation.ValidationResultFactory;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.ext.consul.ConsulClient;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+import io.vertx.ext.consul.TxnError;
+import io.vertx.ext.consul.TxnResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pipeline lookups and writes on the non-blocking Consul client, against a mocked client. Lookups go through the
+ * {@link com.rokkon.pipeline.consul.store.ConfigCache} over a KV store without a watch, so each one reads the
+ * store's snapshot and concurrent reads of a stale store share one Consul call.
+ */
+class PipelineConfigServiceConcurrencyTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final int LOOKUPS = 1_000;
+
+    private final ObjectMapper objectMapper = ObjectMapperFactory.createConfiguredMapper();
+    private ConsulClient client;
+    private PipelineConfigServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        client = mock(ConsulClient.class);
+        ConsulConnectionManager connectionManager = mock(ConsulConnectionManager.class);
+        when(connectionManager.getClient()).thenReturn(Optional.of(client));
+
+        CompositeValidator<PipelineConfig> validator = mock(CompositeValidator.class);
+        when(validator.validate(any())).thenReturn(ValidationResultFactory.success());
+
+        service = new PipelineConfigServiceImpl();
+        service.kvPrefix = "pipeline";
+        service.objectMapper = objectMapper;
+        service.validator = validator;
+        service.connectionManager = connectionManager;
+        service.kvStore = TestKvStores.of(connectionManager, "pipeline");
+        service.configCache = TestKvStores.cacheOver(service.kvStore, objectMapper);
+        service.schemaRegistry = new ModuleSchemaRegistry();
+        service.schemaRegistry.objectMapper = objectMapper;
+        service.schemaRegistry.kvStore = service.kvStore;
+    }
+
+    @Test
+    void concurrentLookupsShareOneConsulCallAndNoWorkerThreads() throws Exception {
+        Promise<KeyValueList> response = Promise.promise();
+        when(client.getValues("pipeline")).thenReturn(response.future());
+
+        Set<String> callbackThreads = ConcurrentHashMap.newKeySet();
+        AtomicInteger found = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            service.getPipeline("default", "p1").subscribe().with(
+                    pipeline -> {
+                        callbackThreads.add(Thread.currentThread().getName());
+                        pipeline.ifPresent(p -> found.incrementAndGet());
+                        done.countDown();
+                    },
+                    error -> done.countDown());
+        }
+        // Every lookup is waiting on the same request
+        verify(client, times(1)).getValues("pipeline");
+
+        Thread consul = new Thread(() -> response.complete(kvList(1,
+                kv("pipeline/clusters/default/pipelines/p1/config", json(new PipelineConfig("p1", Map.of()))))),
+                "consul-response");
+        consul.start();
+
+        assertThat(done.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(found.get()).isEqualTo(LOOKUPS);
+        // All lookups completed on the thread that delivered Consul's answer; none waited on a worker thread
+        assertThat(callbackThreads).containsExactly("consul-response");
+        verify(client, times(1)).getValues("pipeline");
+    }
+
+    @Test
+    void lookupsAfterAWriteDoNotJoinAnOlderRead() {
+        Promise<KeyValueList> before = Promise.promise();
+        when(client.getValues("pipeline")).thenReturn(before.future());
+        service.getPipeline("default", "p1").subscribe().with(pipeline -> { }, error -> { });
+
+        service.kvStore.invalidate();
+        when(client.getValues("pipeline")).thenReturn(Future.succeededFuture(kvList(2,
+                kv("pipeline/clusters/default/pipelines/p1/config", json(new PipelineConfig("p1", Map.of()))))));
+
+        assertThat(service.getPipeline("default", "p1").await().atMost(TIMEOUT)).isPresent();
+        verify(client, times(2)).getValues("pipeline");
+    }
+
+    @Test
+    void lookupFailuresPropagate() {
+        when(client.getValues("pipeline")).thenReturn(Future.failedFuture(new RuntimeException("connection refused")));
+
+        assertThatThrownBy(() -> service.getPipeline("default", "p1").await().atMost(TIMEOUT))
+                .hasMessageContaining("connection refused");
+    }
+
+    @Test
+    void createLosingARaceReportsAlreadyExists() {
+        when(client.getValues("pipeline")).thenReturn(Future.succeededFuture(kvList(1)));
+        when(client.transaction(any())).thenReturn(Future.succeededFuture(new TxnResponse()
+                .addError(new TxnError().setOpIndex(0).setWhat("failed to set key: index is stale"))));
+
+        ValidationResult result = service.createPipeline("default", "p1", new PipelineConfig("p1", Map.of()))
+                .await().atMost(TIMEOUT);
+
+        assertThat(result.valid()).isFalse();
+        assertThat(result.errors()).containsExactly("Pipeline 'p1' already exists");
+    }
+
+    private String json(PipelineConfig config) {
+        try {
+            return objectMapper.writeValueAsString(config);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static KeyValueList kvList(long index, KeyValue... keyValues) {
+        return new KeyValueList().setIndex(index).setList(List.of(keyValues));
+    }
+
+    private static KeyValue kv(String key, String value) {
+        return new KeyValue().setKey(key).setValue(value).setModifyIndex(1);
+    }
+}
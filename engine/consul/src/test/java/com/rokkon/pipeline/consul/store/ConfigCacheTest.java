@@ -0,0 +1,119 @@
+package com.rokkon.pipeline.consul.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rokkon.pipeline.config.model.PipelineConfig;
+import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import com.rokkon.pipeline.util.ObjectMapperFactory;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for the parsed configuration cache over the KV snapshot.
+ */
+class ConfigCacheTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final ConfigKey.ClusterPipeline P1 = new ConfigKey.ClusterPipeline("default", "p1");
+    private static final String P1_KEY = "pipeline/clusters/default/pipelines/p1/config";
+
+    private final ObjectMapper objectMapper = ObjectMapperFactory.createConfiguredMapper();
+    private ConsulKvStore store;
+    private ConfigCache cache;
+
+    @BeforeEach
+    void setUp() {
+        store = TestKvStores.of(mock(ConsulConnectionManager.class), "pipeline");
+        cache = TestKvStores.cacheOver(store, objectMapper);
+    }
+
+    @Test
+    void parsesOncePerModifyIndex() throws Exception {
+        KvSnapshot snapshot = snapshot(3, kv(P1_KEY, json("p1"), 3));
+
+        assertThat(cache.get(snapshot, P1)).map(PipelineConfig::name).contains("p1");
+        PipelineConfig first = cache.get(snapshot, P1).orElseThrow();
+        assertThat(cache.get(snapshot, P1)).containsSame(first);
+
+        // A snapshot with a newer modify index for the key is never answered from the cache
+        KvSnapshot modified = snapshot(4, kv(P1_KEY, json("p1-renamed"), 4));
+        assertThat(cache.get(modified, P1)).map(PipelineConfig::name).contains("p1-renamed");
+
+        ConfigCache.Stats stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(2);
+        assertThat(stats.misses()).isEqualTo(2);
+        assertThat(stats.hitRate()).isEqualTo(0.5);
+        assertThat(stats.entries()).isEqualTo(1);
+    }
+
+    @Test
+    void missingKeysAndUnparseableValues() {
+        KvSnapshot snapshot = snapshot(3, kv(P1_KEY, "{not json", 3));
+
+        assertThat(cache.get(snapshot, new ConfigKey.ClusterPipeline("default", "missing"))).isEmpty();
+        assertThatThrownBy(() -> cache.get(snapshot, P1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("clusters/default/pipelines/p1/config");
+    }
+
+    @Test
+    void appliesChangeSetsToCachedKeysOnly() throws Exception {
+        store.onWatchResult(list(3, kv(P1_KEY, json("p1"), 3)));
+        assertThat(cache.get(P1).await().atMost(TIMEOUT)).isPresent();
+
+        KvSnapshot.Entry updated = new KvSnapshot.Entry(json("p1-renamed"), 5);
+        cache.onChanges(new KvChangeSet("pipeline", 3, 5, List.of(
+                new KvSnapshot.Change(P1_KEY, updated),
+                new KvSnapshot.Change("pipeline/clusters/default/pipelines/p2/config", new KvSnapshot.Entry(json("p2"), 5)),
+                new KvSnapshot.Change("pipeline/clusters/default/metadata", new KvSnapshot.Entry("{}", 5)))));
+
+        assertThat(cache.stats().deltaUpdates()).isEqualTo(1);
+        assertThat(cache.stats().entries()).isEqualTo(1);
+        // The updated entry is served once the snapshot catches up
+        KvSnapshot caughtUp = snapshot(5, kv(P1_KEY, updated.value(), 5));
+        assertThat(cache.get(caughtUp, P1)).map(PipelineConfig::name).contains("p1-renamed");
+        assertThat(cache.stats().misses()).isEqualTo(1);
+
+        cache.onChanges(new KvChangeSet("pipeline", 5, 6, List.of(new KvSnapshot.Change(P1_KEY, null))));
+        assertThat(cache.stats().deltaRemovals()).isEqualTo(1);
+        assertThat(cache.stats().entries()).isZero();
+    }
+
+    @Test
+    void reportsTheSnapshotItServesFrom() {
+        assertThat(cache.stats().stalenessMillis()).isEqualTo(-1);
+
+        store.onWatchResult(list(9, kv(P1_KEY, "{}", 9)));
+
+        assertThat(cache.stats().snapshotIndex()).isEqualTo(9);
+        assertThat(cache.stats().stalenessMillis()).isGreaterThanOrEqualTo(0);
+        assertThat(cache.stats().hitRate()).isZero();
+    }
+
+    private String json(String name) throws Exception {
+        return objectMapper.writeValueAsString(new PipelineConfig(name, Map.of()));
+    }
+
+    private static KvSnapshot snapshot(long index, KeyValue... keyValues) {
+        return KvSnapshot.of(index, Instant.now(), List.of(keyValues));
+    }
+
+    private static KeyValueList list(long index, KeyValue... keyValues) {
+        return new KeyValueList().setIndex(index).setList(List.of(keyValues));
+    }
+
+    private static KeyValue kv(String key, String value, long modifyIndex) {
+        return new KeyValue().setKey(key).setValue(value).setModifyIndex(modifyIndex);
+    }
+}
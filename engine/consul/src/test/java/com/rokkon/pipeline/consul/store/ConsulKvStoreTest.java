@@ -0,0 +1,246 @@
+package com.rokkon.pipeline.consul.store;
+
+import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+import io.vertx.core.Future;
+import io.vertx.ext.consul.ConsulClient;
+import io.vertx.ext.consul.KeyValue;
+import io.vertx.ext.consul.KeyValueList;
+import jakarta.enterprise.event.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the KV replica, against a mocked Consul client.
+ */
+class ConsulKvStoreTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @TempDir
+    Path tempDir;
+
+    private ConsulClient client;
+    private ConsulConnectionManager connectionManager;
+    private ConsulKvStore store;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(ConsulClient.class);
+        connectionManager = mock(ConsulConnectionManager.class);
+        when(connectionManager.getClient()).thenReturn(Optional.of(client));
+        store = TestKvStores.of(connectionManager, "pipeline");
+    }
+
+    @Test
+    void snapshotListsValuesAndChildNames() {
+        KvSnapshot snapshot = KvSnapshot.of(7, Instant.now(), List.of(
+                kv("pipeline/clusters/", null),
+                kv("pipeline/clusters/a/metadata", "{}"),
+                kv("pipeline/clusters/a/pipelines/p1/config", "p1"),
+                kv("pipeline/clusters/b/metadata", "{}"),
+                kv("pipeline/clustersx/c/metadata", "{}")));
+
+        assertThat(snapshot.size()).isEqualTo(5);
+        assertThat(snapshot.childNames("pipeline/clusters/")).containsExactly("a", "b");
+        assertThat(snapshot.childNames("pipeline/clusters/a/pipelines/")).containsExactly("p1");
+        assertThat(snapshot.values("pipeline/clusters/a/")).containsOnlyKeys(
+                "pipeline/clusters/a/metadata", "pipeline/clusters/a/pipelines/p1/config");
+        assertThat(snapshot.value("pipeline/clusters/a/pipelines/p1/config")).contains("p1");
+        assertThat(snapshot.value("pipeline/clusters/")).isEmpty();
+        assertThat(snapshot.value("pipeline/missing")).isEmpty();
+    }
+
+    @Test
+    void readsTheWholeTreeWithOneRequest() {
+        consulHas(3, kv("pipeline/clusters/a/metadata", "{}"), kv("pipeline/clusters/b/metadata", "{}"));
+
+        KvSnapshot snapshot = store.snapshot().await().atMost(TIMEOUT);
+
+        assertThat(snapshot.index()).isEqualTo(3);
+        assertThat(snapshot.childNames("pipeline/clusters/")).containsExactly("a", "b");
+        verify(client, times(1)).getValues("pipeline");
+        assertThat(store.status().loaded()).isTrue();
+        assertThat(store.status().watchActive()).isFalse();
+    }
+
+    @Test
+    void servesFromMemoryWhileTheWatchIsActive() {
+        store.onWatchResult(list(5, kv("pipeline/clusters/a/metadata", "{}")));
+
+        KvSnapshot snapshot = store.snapshot().await().atMost(TIMEOUT);
+
+        assertThat(snapshot.index()).isEqualTo(5);
+        verify(client, times(0)).getValues("pipeline");
+
+        store.onWatchResult(list(9, kv("pipeline/clusters/a/metadata", "{}"), kv("pipeline/clusters/b/metadata", "{}")));
+        assertThat(store.snapshot().await().atMost(TIMEOUT).childNames("pipeline/clusters/")).containsExactly("a", "b");
+        verify(client, times(0)).getValues("pipeline");
+    }
+
+    @Test
+    void readsAgainAfterInvalidateOrWhenTheWatchStops() {
+        store.onWatchResult(list(5, kv("pipeline/k", "old")));
+        consulHas(6, kv("pipeline/k", "new"));
+
+        store.invalidate();
+        assertThat(store.snapshot().await().atMost(TIMEOUT).value("pipeline/k")).contains("new");
+        // Clean again: served from memory
+        store.snapshot().await().atMost(TIMEOUT);
+        verify(client, times(1)).getValues("pipeline");
+
+        store.onWatchStopped();
+        store.snapshot().await().atMost(TIMEOUT);
+        verify(client, times(2)).getValues("pipeline");
+    }
+
+    @Test
+    void ignoresWatchResultsOlderThanTheSnapshot() {
+        store.onWatchResult(list(10, kv("pipeline/k", "new")));
+        store.onWatchResult(list(8, kv("pipeline/k", "old")));
+        consulHas(10, kv("pipeline/k", "new"));
+
+        // The older result is not applied; the store re-reads to find out which side is right
+        assertThat(store.snapshot().await().atMost(TIMEOUT).value("pipeline/k")).contains("new");
+        verify(client, times(1)).getValues("pipeline");
+    }
+
+    @Test
+    void acceptsAnIndexResetOnRefresh() {
+        consulHas(100, kv("pipeline/k", "before"));
+        store.snapshot().await().atMost(TIMEOUT);
+
+        consulHas(2, kv("pipeline/k", "after"));
+        assertThat(store.refresh().await().atMost(TIMEOUT).value("pipeline/k")).contains("after");
+        assertThat(store.status().index()).isEqualTo(2);
+    }
+
+    @Test
+    void servesTheLastSnapshotWhenConsulFails() {
+        consulHas(4, kv("pipeline/k", "v"));
+        store.snapshot().await().atMost(TIMEOUT);
+
+        when(client.getValues("pipeline")).thenReturn(Future.failedFuture(new RuntimeException("connection refused")));
+        KvSnapshot snapshot = store.snapshot().await().atMost(TIMEOUT);
+
+        assertThat(snapshot.index()).isEqualTo(4);
+        assertThat(snapshot.value("pipeline/k")).contains("v");
+    }
+
+    @Test
+    void failsWhenConsulFailsBeforeAnythingLoaded() {
+        when(client.getValues("pipeline")).thenReturn(Future.failedFuture(new RuntimeException("connection refused")));
+
+        assertThatThrownBy(() -> store.snapshot().await().atMost(TIMEOUT))
+                .hasMessageContaining("connection refused");
+        assertThat(store.status().loaded()).isFalse();
+    }
+
+    @Test
+    void startsFromTheLocalFileAndReconcilesWhenConsulAnswers() {
+        Path file = tempDir.resolve("kv.bin");
+        consulHas(5, kv("pipeline/clusters/a/metadata", "{}"));
+        ConsulKvStore first = TestKvStores.persistingTo(connectionManager, "pipeline", file);
+        first.snapshot().await().atMost(TIMEOUT);
+        await().atMost(TIMEOUT).until(() -> Files.exists(file));
+
+        // Restart while Consul is unreachable: the saved tree is served without waiting for Consul
+        when(client.getValues("pipeline")).thenReturn(Future.failedFuture(new RuntimeException("connection refused")));
+        ConsulKvStore restarted = TestKvStores.persistingTo(connectionManager, "pipeline", file);
+        KvSnapshot served = restarted.snapshot().await().atMost(TIMEOUT);
+        assertThat(served.index()).isEqualTo(5);
+        assertThat(served.childNames("pipeline/clusters/")).containsExactly("a");
+        assertThat(restarted.status().confirmed()).isFalse();
+
+        // Consul comes back with a change
+        consulHas(8, kv("pipeline/clusters/a/metadata", "{}"), kv("pipeline/clusters/b/metadata", "{}"));
+        await().atMost(TIMEOUT).untilAsserted(() -> assertThat(
+                restarted.snapshot().await().atMost(TIMEOUT).childNames("pipeline/clusters/")).containsExactly("a", "b"));
+        assertThat(restarted.status().confirmed()).isTrue();
+    }
+
+    @Test
+    void snapshotChangesCountAddedModifiedAndRemovedKeys() {
+        KvSnapshot before = KvSnapshot.of(1, Instant.now(), List.of(
+                kv("k1", "a", 1), kv("k2", "b", 1), kv("k3", "c", 1)));
+        KvSnapshot after = KvSnapshot.of(2, Instant.now(), List.of(
+                kv("k1", "a", 1), kv("k2", "B", 2), kv("k4", "d", 2)));
+
+        assertThat(before.changesTo(after)).isEqualTo(new KvSnapshot.Changes(1, 1, 1));
+        assertThat(after.changesTo(after).isEmpty()).isTrue();
+    }
+
+    @Test
+    void snapshotDiffListsChangedKeysInOrder() {
+        KvSnapshot before = KvSnapshot.of(1, Instant.now(), List.of(
+                kv("k1", "a", 1), kv("k2", "b", 1), kv("k3", "c", 1)));
+        KvSnapshot after = KvSnapshot.of(2, Instant.now(), List.of(
+                kv("k1", "a", 1), kv("k2", "B", 2), kv("k4", "d", 2)));
+
+        assertThat(before.diff(after)).containsExactly(
+                new KvSnapshot.Change("k2", new KvSnapshot.Entry("B", 2)),
+                new KvSnapshot.Change("k3", null),
+                new KvSnapshot.Change("k4", new KvSnapshot.Entry("d", 2)));
+        assertThat(after.diff(after)).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishesOnlyTheKeysThatChanged() {
+        store.changeEvents = mock(Event.class);
+        store.onWatchResult(list(5, kv("pipeline/a", "1", 5), kv("pipeline/b", "2", 5)));
+        // The first snapshot has nothing to diff against
+        verify(store.changeEvents, never()).fire(any());
+
+        store.onWatchResult(list(6, kv("pipeline/a", "1", 5), kv("pipeline/b", "2", 5)));
+        verify(store.changeEvents, never()).fire(any());
+
+        store.onWatchResult(list(7, kv("pipeline/a", "1", 5), kv("pipeline/c", "3", 7)));
+        verify(store.changeEvents).fire(new KvChangeSet("pipeline", 6, 7, List.of(
+                new KvSnapshot.Change("pipeline/b", null),
+                new KvSnapshot.Change("pipeline/c", new KvSnapshot.Entry("3", 7)))));
+    }
+
+    @Test
+    void snapshotEntriesAreImmutable() {
+        KvSnapshot snapshot = new KvSnapshot(1, Instant.now(), new TreeMap<>(Map.of("k", new KvSnapshot.Entry("v", 1))));
+
+        assertThatThrownBy(() -> snapshot.entries().put("x", new KvSnapshot.Entry("y", 2)))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    private void consulHas(long index, KeyValue... keyValues) {
+        when(client.getValues("pipeline")).thenReturn(Future.succeededFuture(list(index, keyValues)));
+    }
+
+    private static KeyValueList list(long index, KeyValue... keyValues) {
+        return new KeyValueList().setIndex(index).setList(List.of(keyValues));
+    }
+
+    private static KeyValue kv(String key, String value) {
+        return new KeyValue().setKey(key).setValue(value);
+    }
+
+    private static KeyValue kv(String key, String value, long modifyIndex) {
+        return kv(key, value).setModifyIndex(modifyIndex);
+    }
+}
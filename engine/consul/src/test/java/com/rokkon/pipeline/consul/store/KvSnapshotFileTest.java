@@ -0,0 +1,59 @@
+package com.rokkon.pipeline.consul.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KvSnapshotFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTripsEntries() throws IOException {
+        TreeMap<String, KvSnapshot.Entry> entries = new TreeMap<>();
+        entries.put("pipeline/clusters/", new KvSnapshot.Entry(null, 3));
+        entries.put("pipeline/clusters/a/metadata", new KvSnapshot.Entry("{\"name\":\"a\"}", 4));
+        entries.put("pipeline/clusters/a/pipelines/p/config", new KvSnapshot.Entry("ü".repeat(70_000), 9));
+        KvSnapshot snapshot = new KvSnapshot(9, Instant.now().truncatedTo(ChronoUnit.MILLIS), entries);
+        Path file = tempDir.resolve("nested/kv.bin");
+
+        KvSnapshotFile.write(file, "pipeline", snapshot);
+
+        KvSnapshot read = KvSnapshotFile.read(file, "pipeline").orElseThrow();
+        assertThat(read).isEqualTo(snapshot);
+        assertThat(KvSnapshotFile.read(file, "other-prefix")).isEmpty();
+        try (var files = Files.list(file.getParent())) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    void missingFileIsEmpty() throws IOException {
+        assertThat(KvSnapshotFile.read(tempDir.resolve("absent.bin"), "pipeline")).isEmpty();
+    }
+
+    @Test
+    void rejectsTruncatedFiles() throws IOException {
+        TreeMap<String, KvSnapshot.Entry> entries = new TreeMap<>();
+        for (int i = 0; i < 1000; i++) {
+            entries.put("pipeline/k" + i, new KvSnapshot.Entry("value-" + i, i));
+        }
+        Path file = tempDir.resolve("kv.bin");
+        KvSnapshotFile.write(file, "pipeline", new KvSnapshot(1000, Instant.now(), entries));
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 6));
+
+        assertThatThrownBy(() -> KvSnapshotFile.read(file, "pipeline")).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,49 @@
+package com.rokkon.pipeline.consul.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rokkon.pipeline.consul.connection.ConsulConnectionManager;
+
+import java.nio.file.Path;
+
+/**
+ * Builds {@link ConsulKvStore}s, and {@link ConfigCache}s over them, outside CDI, for tests that wire services
+ * by hand.
+ */
+public final class TestKvStores {
+
+    private TestKvStores() {
+    }
+
+    /**
+     * A store replicating {@code kvPrefix} without a local snapshot file.
+     */
+    public static ConsulKvStore of(ConsulConnectionManager connectionManager, String kvPrefix) {
+        ConsulKvStore store = new ConsulKvStore();
+        store.connectionManager = connectionManager;
+        store.kvPrefix = kvPrefix;
+        return store;
+    }
+
+    /**
+     * A store replicating {@code kvPrefix} that saves its snapshots to {@code snapshotFile}, started as after a
+     * restart: with the snapshot saved there, if any.
+     */
+    public static ConsulKvStore persistingTo(ConsulConnectionManager connectionManager, String kvPrefix,
+                                             Path snapshotFile) {
+        ConsulKvStore store = of(connectionManager, kvPrefix);
+        store.snapshotFileEnabled = true;
+        store.snapshotFilePath = snapshotFile.toString();
+        store.loadSnapshotFile();
+        return store;
+    }
+
+    /**
+     * A cache of the objects stored in {@code kvStore}.
+     */
+    public static ConfigCache cacheOver(ConsulKvStore kvStore, ObjectMapper objectMapper) {
+        ConfigCache cache = new ConfigCache();
+        cache.kvStore = kvStore;
+        cache.objectMapper = objectMapper;
+        return cache;
+    }
+}
@@ -1,7 +1,11 @@
 package com.rokkon.pipeline.engine.api;
 
+import com.rokkon.pipeline.consul.service.ModuleSchemaRegistry;
+import com.rokkon.pipeline.consul.store.ConfigCache;
+import com.rokkon.pipeline.consul.store.ConsulKvStore;
 import com.rokkon.pipeline.engine.service.ConsulHealthService;
 import com.rokkon.pipeline.engine.service.EngineRegistrationService;
+import com.rokkon.pipeline.engine.service.PipelineConfigVersions;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
@@ -11,6 +15,7 @@ import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Path("/api/consul")
@@ -22,6 +27,18 @@ public class ConsulStatusResource {
     @Inject
     EngineRegistrationService engineRegistrationService;
     
+    @Inject
+    ConsulKvStore kvStore;
+    
+    @Inject
+    ConfigCache configCache;
+    
+    @Inject
+    ModuleSchemaRegistry schemaRegistry;
+    
+    @Inject
+    PipelineConfigVersions configVersions;
+    
     @ConfigProperty(name = "engine.host", defaultValue = "")
     String engineHost;
     
@@ -46,6 +63,46 @@ public class ConsulStatusResource {
         return Response.ok(response).build();
     }
     
+    /**
+     * Index, size and staleness of the in-memory copy of the pipeline KV tree.
+     */
+    @GET
+    @Path("/kv-snapshot")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ConsulKvStore.Status getKvSnapshotStatus() {
+        return kvStore.status();
+    }
+    
+    /**
+     * Hit rate, delta updates and staleness of the parsed pipeline configuration cache.
+     */
+    @GET
+    @Path("/config-cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ConfigCache.Stats getConfigCacheStats() {
+        return configCache.stats();
+    }
+    
+    /**
+     * Compilations and reuse of module custom config schemas.
+     */
+    @GET
+    @Path("/module-schemas")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ModuleSchemaRegistry.Stats getModuleSchemaStats() {
+        return schemaRegistry.stats();
+    }
+    
+    /**
+     * Live versions of each pipeline configuration and the streams still executing on each of them.
+     */
+    @GET
+    @Path("/pipeline-versions")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<PipelineConfigVersions.VersionStats> getPipelineVersions() {
+        return configVersions.stats();
+    }
+    
     @GET
     @Path("/registration")
     @Produces(MediaType.APPLICATION_JSON)
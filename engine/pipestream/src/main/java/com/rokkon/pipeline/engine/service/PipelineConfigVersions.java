@@ -0,0 +1,212 @@
+package com.rokkon.pipeline.engine.service;
+
+import com.rokkon.pipeline.config.model.PipelineConfig;
+import com.rokkon.pipeline.config.service.PipelineConfigService;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Versions of each pipeline's configuration, as seen by streams the engine executes. A stream acquires the
+ * current version when it starts and keeps it until it completes, so a pipeline update only applies to streams
+ * started after it: in-flight streams finish on the configuration they started with, without pausing either.
+ *
+ * <p>{@link PipelineConfig} is immutable, so a version is the configuration instance itself; a new version is
+ * installed when the configuration served by {@link PipelineConfigService} changes. A version that is no longer
+ * current is retired as soon as its last stream completes.
+ */
+@ApplicationScoped
+public class PipelineConfigVersions {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PipelineConfigVersions.class);
+
+    /**
+     * In-flight streams of one version of a pipeline configuration, for status endpoints and metrics.
+     *
+     * @param clusterName  Cluster of the pipeline
+     * @param pipelineName Pipeline name
+     * @param version      Version number, increasing with every change of the pipeline's configuration
+     * @param current      Whether new streams start on this version
+     * @param inFlight     Streams still executing on this version
+     * @param activatedAt  When this version became current
+     */
+    public record VersionStats(String clusterName, String pipelineName, long version, boolean current,
+                               int inFlight, Instant activatedAt) {
+    }
+
+    /**
+     * One version of a pipeline configuration. Obtained from {@link #acquire(String, String)} and handed back to
+     * {@link #release(PipelineVersion)} exactly once, when the stream using it completes.
+     */
+    public static final class PipelineVersion {
+
+        private static final int RETIRED = -1;
+
+        private final String clusterName;
+        private final String pipelineName;
+        private final long version;
+        private final PipelineConfig config;
+        private final Instant activatedAt;
+        // Streams executing on this version, or RETIRED once it can no longer be acquired
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        PipelineVersion(String clusterName, String pipelineName, long version, PipelineConfig config) {
+            this.clusterName = clusterName;
+            this.pipelineName = pipelineName;
+            this.version = version;
+            this.config = config;
+            this.activatedAt = Instant.now();
+        }
+
+        public String pipelineName() {
+            return pipelineName;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public PipelineConfig config() {
+            return config;
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                int count = inFlight.get();
+                if (count == RETIRED) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        int release() {
+            return inFlight.decrementAndGet();
+        }
+
+        boolean tryRetire() {
+            return inFlight.compareAndSet(0, RETIRED);
+        }
+
+        VersionStats stats(boolean current) {
+            return new VersionStats(clusterName, pipelineName, version, current, Math.max(inFlight.get(), 0),
+                activatedAt);
+        }
+    }
+
+    private static final class Versions {
+        final AtomicReference<PipelineVersion> current = new AtomicReference<>();
+        // Not reset by a deletion, so a recreated pipeline does not reuse the numbers of versions still in flight
+        final AtomicLong lastVersion = new AtomicLong();
+        // Versions that are current or still have streams in flight
+        final ConcurrentMap<Long, PipelineVersion> live = new ConcurrentHashMap<>();
+    }
+
+    @Inject
+    PipelineConfigService pipelineConfigService;
+
+    private final ConcurrentMap<String, Versions> pipelines = new ConcurrentHashMap<>();
+
+    /**
+     * Acquires the current version of a pipeline's configuration for a new stream, installing a new version
+     * first if the configuration changed since the last stream started.
+     *
+     * @return The acquired version, or {@code null} if the pipeline does not exist
+     */
+    public Uni<PipelineVersion> acquire(String clusterName, String pipelineName) {
+        return pipelineConfigService.getPipeline(clusterName, pipelineName)
+            .onItem().transform(config -> acquire(clusterName, pipelineName, config.orElse(null)));
+    }
+
+    PipelineVersion acquire(String clusterName, String pipelineName, PipelineConfig config) {
+        Versions versions = pipelines.computeIfAbsent(key(clusterName, pipelineName), k -> new Versions());
+        while (true) {
+            PipelineVersion current = versions.current.get();
+            if (config == null) {
+                // Deleted: streams already running finish on the version they hold
+                if (current != null && versions.current.compareAndSet(current, null)) {
+                    retireIfDrained(versions, current);
+                }
+                return null;
+            }
+            if (current != null && (current.config == config || current.config.equals(config))) {
+                if (current.tryAcquire()) {
+                    return current;
+                }
+                // Retired by a concurrent deletion; start over
+                continue;
+            }
+            PipelineVersion next = new PipelineVersion(clusterName, pipelineName,
+                versions.lastVersion.incrementAndGet(), config);
+            // Counted before it is published, so it cannot be retired before this stream acquires it
+            next.tryAcquire();
+            versions.live.put(next.version, next);
+            if (versions.current.compareAndSet(current, next)) {
+                LOG.info("Pipeline {}/{} is now at version {}; new streams use it", clusterName, pipelineName,
+                    next.version);
+                if (current != null) {
+                    retireIfDrained(versions, current);
+                }
+                return next;
+            }
+            versions.live.remove(next.version, next);
+        }
+    }
+
+    /**
+     * Releases a version acquired for a stream that completed, retiring it if it was the last stream of a version
+     * that is no longer current.
+     */
+    public void release(PipelineVersion version) {
+        if (version == null) {
+            return;
+        }
+        if (version.release() == 0) {
+            Versions versions = pipelines.get(key(version.clusterName, version.pipelineName));
+            if (versions != null && versions.current.get() != version) {
+                retireIfDrained(versions, version);
+            }
+        }
+    }
+
+    private void retireIfDrained(Versions versions, PipelineVersion version) {
+        if (version.tryRetire()) {
+            versions.live.remove(version.version, version);
+            LOG.info("Retired version {} of pipeline {}/{}", version.version, version.clusterName,
+                version.pipelineName);
+        }
+    }
+
+    /**
+     * In-flight streams of every live version, current versions included, by cluster, pipeline and version.
+     */
+    public List<VersionStats> stats() {
+        List<VersionStats> stats = new ArrayList<>();
+        pipelines.values().forEach(versions -> {
+            PipelineVersion current = versions.current.get();
+            versions.live.values().forEach(version -> stats.add(version.stats(version == current)));
+        });
+        stats.sort(Comparator.comparing(VersionStats::clusterName)
+            .thenComparing(VersionStats::pipelineName)
+            .thenComparingLong(VersionStats::version));
+        return stats;
+    }
+
+    private static String key(String clusterName, String pipelineName) {
+        return clusterName + "/" + pipelineName;
+    }
+}
@@ -1,7 +1,7 @@
 package com.rokkon.pipeline.engine.service;
 
 import com.rokkon.pipeline.config.model.*;
-import com.rokkon.pipeline.config.service.PipelineConfigService;
+import com.rokkon.pipeline.consul.service.ModuleSchemaRegistry;
 import com.rokkon.pipeline.engine.util.JsonProtoConverter;
 import com.rokkon.search.engine.ProcessResponse;
 import com.rokkon.search.engine.ProcessStatus;
@@ -19,6 +19,7 @@ import org.slf4j.LoggerFactory;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -40,12 +41,18 @@ public class PipelineExecutorService {
     @ConfigProperty(name = "pipeline.cluster.name", defaultValue = "default-cluster")
     String clusterName;
 
-    @Inject
-    PipelineConfigService pipelineConfigService;
+    @ConfigProperty(name = "pipeline.execution.validate-custom-config", defaultValue = "false")
+    boolean validateCustomConfig;
 
     @Inject
     EventDrivenRouter router;
 
+    @Inject
+    ModuleSchemaRegistry schemaRegistry;
+
+    @Inject
+    PipelineConfigVersions configVersions;
+
     // Track active executions for monitoring
     private final Map<String, PipeStreamExecutionContext> activeExecutions = new ConcurrentHashMap<>();
 
@@ -73,27 +80,31 @@ public class PipelineExecutorService {
 
         PipeStream initialStream = streamBuilder.build();
 
-        // Load pipeline configuration using configured cluster name
-        return pipelineConfigService.getPipeline(clusterName, pipelineName)
-            .onItem().transform(opt -> opt.orElse(null))
+        // Pin the current version of the pipeline configuration; the stream runs on it to completion
+        // even if the pipeline is updated meanwhile
+        return configVersions.acquire(clusterName, pipelineName)
             .onItem().ifNull().failWith(() -> 
                 new IllegalArgumentException("Pipeline not found: " + pipelineName))
-            .flatMap(config -> {
+            .flatMap(version -> {
                     // Find the initial step
-                    String initialStepName = findInitialStep(config);
+                    String initialStepName = findInitialStep(version.config());
                     if (initialStepName == null) {
+                        configVersions.release(version);
                         return Uni.createFrom().failure(
                             new IllegalStateException("No initial step found in pipeline: " + pipelineName));
                     }
 
                     // Create execution context
                     PipeStreamExecutionContext context = new PipeStreamExecutionContext(
-                        streamId, pipelineName, config, initialStream);
+                        streamId, pipelineName, version, initialStream);
                     activeExecutions.put(streamId, context);
 
                     // Start execution
-                    return executeStream(context, initialStepName)
-                            .onTermination().invoke(() -> activeExecutions.remove(streamId));
+                    return Uni.createFrom().deferred(() -> executeStream(context, initialStepName))
+                            .onTermination().invoke(() -> {
+                                activeExecutions.remove(streamId);
+                                configVersions.release(version);
+                            });
                 });
     }
 
@@ -101,7 +112,8 @@ public class PipelineExecutorService {
      * Execute a stream through the pipeline starting from the specified step.
      */
     private Uni<ProcessResponse> executeStream(PipeStreamExecutionContext context, String nextStepName) {
-        LOG.debug("Executing stream {} at step {}", context.streamId, nextStepName);
+        LOG.debug("Executing stream {} at step {} (config version {})",
+                context.streamId, nextStepName, context.configVersion.version());
 
         PipelineStepConfig stepConfig = context.pipelineConfig.pipelineSteps().get(nextStepName);
         if (stepConfig == null) {
@@ -160,6 +172,16 @@ public class PipelineExecutorService {
         }
         String moduleName = processorInfo.grpcServiceName();
 
+        // Optionally reject a custom config the module's schema does not accept, using the schema compiled at registration
+        if (validateCustomConfig) {
+            List<String> violations = schemaRegistry.validateCustomConfig(moduleName, stepConfig);
+            if (!violations.isEmpty()) {
+                return Uni.createFrom().failure(new IllegalArgumentException(
+                    "Custom config of step " + stepConfig.stepName() + " does not match the schema of module "
+                        + moduleName + ": " + String.join("; ", violations)));
+            }
+        }
+
         // Record step start
         long startTime = System.currentTimeMillis();
 
@@ -231,7 +253,8 @@ public class PipelineExecutorService {
                 .setPipelineName(context.pipelineName)
                 .setPipeStepName(stepConfig.stepName())
                 .setStreamId(context.streamId)
-                .setCurrentHopNumber(context.currentStream.getCurrentHopNumber());
+                .setCurrentHopNumber(context.currentStream.getCurrentHopNumber())
+                .setActionType(context.currentStream.getActionType());
 
         // Add execution history
         metadataBuilder.addAllHistory(context.currentStream.getHistoryList());
@@ -406,14 +429,16 @@ public class PipelineExecutorService {
     private static class PipeStreamExecutionContext {
         final String streamId;
         final String pipelineName;
+        final PipelineConfigVersions.PipelineVersion configVersion;
         final PipelineConfig pipelineConfig;
         PipeStream currentStream;
 
         PipeStreamExecutionContext(String streamId, String pipelineName, 
-                                  PipelineConfig pipelineConfig, PipeStream initialStream) {
+                                  PipelineConfigVersions.PipelineVersion configVersion, PipeStream initialStream) {
             this.streamId = streamId;
             this.pipelineName = pipelineName;
-            this.pipelineConfig = pipelineConfig;
+            this.configVersion = configVersion;
+            this.pipelineConfig = configVersion.config();
             this.currentStream = initialStream;
         }
     }
@@ -0,0 +1,168 @@
+package com.rokkon.pipeline.engine.service;
+
+import com.rokkon.pipeline.config.model.PipelineConfig;
+import com.rokkon.pipeline.config.model.PipelineStepConfig;
+import com.rokkon.pipeline.config.model.StepType;
+import com.rokkon.pipeline.config.service.PipelineConfigService;
+import com.rokkon.pipeline.engine.service.PipelineConfigVersions.PipelineVersion;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for switching streams to a new pipeline configuration while streams started earlier finish on the
+ * configuration they started with.
+ */
+class PipelineConfigVersionsTest {
+
+    private static final String CLUSTER = "test-cluster";
+
+    private final AtomicReference<PipelineConfig> served = new AtomicReference<>();
+    private PipelineConfigVersions versions;
+
+    @BeforeEach
+    void setup() {
+        PipelineConfigService configService = Mockito.mock(PipelineConfigService.class);
+        when(configService.getPipeline(CLUSTER, "docs"))
+            .thenAnswer(invocation -> Uni.createFrom().item(Optional.ofNullable(served.get())));
+        versions = new PipelineConfigVersions();
+        versions.pipelineConfigService = configService;
+    }
+
+    @Test
+    void streamsKeepTheVersionTheyStartedOn() {
+        served.set(pipeline("chunker"));
+        PipelineVersion first = acquire();
+
+        served.set(pipeline("embedder"));
+        PipelineVersion second = acquire();
+
+        assertThat(first.version()).isEqualTo(1);
+        assertThat(first.config().pipelineSteps()).containsKey("chunker");
+        assertThat(second.version()).isEqualTo(2);
+        assertThat(second.config().pipelineSteps()).containsKey("embedder");
+        assertThat(live()).containsExactly("1:1", "2:1*");
+    }
+
+    @Test
+    void reusesTheCurrentVersionWhileTheConfigIsUnchanged() {
+        served.set(pipeline("chunker"));
+        PipelineVersion first = acquire();
+        // An equal configuration, e.g. parsed again after an unrelated key changed
+        served.set(pipeline("chunker"));
+        PipelineVersion second = acquire();
+
+        assertThat(second).isSameAs(first);
+        assertThat(live()).containsExactly("1:2*");
+    }
+
+    @Test
+    void retiresAnOldVersionOnceItsLastStreamCompletes() {
+        served.set(pipeline("chunker"));
+        PipelineVersion first = acquire();
+        PipelineVersion alsoFirst = acquire();
+        served.set(pipeline("embedder"));
+        PipelineVersion second = acquire();
+
+        versions.release(first);
+        assertThat(live()).containsExactly("1:1", "2:1*");
+
+        versions.release(alsoFirst);
+        versions.release(second);
+        // The current version stays live without streams in flight
+        assertThat(live()).containsExactly("2:0*");
+    }
+
+    @Test
+    void retiresADrainedVersionAsSoonAsItIsReplaced() {
+        served.set(pipeline("chunker"));
+        versions.release(acquire());
+        served.set(pipeline("embedder"));
+        acquire();
+
+        assertThat(live()).containsExactly("2:1*");
+    }
+
+    @Test
+    void deletedPipelinesFinishInFlightStreams() {
+        served.set(pipeline("chunker"));
+        PipelineVersion first = acquire();
+        served.set(null);
+
+        assertThat(acquire()).isNull();
+        assertThat(live()).containsExactly("1:1");
+
+        versions.release(first);
+        assertThat(live()).isEmpty();
+
+        // Recreated: numbering continues
+        served.set(pipeline("chunker"));
+        assertThat(acquire().version()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentStreamsDuringUpdatesAllCompleteAndDrain() throws Exception {
+        served.set(pipeline("step-0"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> streams = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                streams.add(executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        PipelineVersion version = acquire();
+                        assertThat(version).isNotNull();
+                        assertThat(version.config()).isNotNull();
+                        versions.release(version);
+                    }
+                }));
+            }
+            for (int update = 1; update <= 50; update++) {
+                served.set(pipeline("step-" + update));
+                Thread.sleep(1);
+            }
+            for (Future<?> stream : streams) {
+                stream.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        PipelineVersion last = acquire();
+        versions.release(last);
+        assertThat(last.config().pipelineSteps()).containsKey("step-50");
+        // Every earlier version drained and was retired
+        assertThat(live()).containsExactly(last.version() + ":0*");
+    }
+
+    private PipelineVersion acquire() {
+        return versions.acquire(CLUSTER, "docs").await().indefinitely();
+    }
+
+    /**
+     * Live versions as "version:in-flight", current version marked with a star.
+     */
+    private List<String> live() {
+        return versions.stats().stream()
+            .map(stats -> stats.version() + ":" + stats.inFlight() + (stats.current() ? "*" : ""))
+            .toList();
+    }
+
+    private static PipelineConfig pipeline(String stepName) {
+        return new PipelineConfig("docs", Map.of(stepName, new PipelineStepConfig(stepName, StepType.PIPELINE,
+            new PipelineStepConfig.ProcessorInfo(stepName, null))));
+    }
+}
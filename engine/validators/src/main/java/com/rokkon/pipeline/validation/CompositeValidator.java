@@ -4,10 +4,17 @@ import org.jboss.logging.Logger;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 
 /**
  * A validator that combines multiple validators and runs them in priority order.
+ *
+ * <p>Optionally, results are cached per validator, mode and validated object, so revalidating an unchanged
+ * configuration (for example every pipeline of a cluster when only one changed) runs no validator at all; and
+ * validators that do have to run, which are independent of each other, run in parallel on an executor. Results
+ * are always combined in priority order, so the outcome does not depend on either option.
  * 
  * @param <T> The type of object being validated
  */
@@ -15,19 +22,44 @@ public class CompositeValidator<T extends ConfigValidatable> implements ConfigVa
     
     private static final Logger LOG = Logger.getLogger(CompositeValidator.class);
 
+    /**
+     * Effectiveness of the result cache.
+     *
+     * @param hits    Validator runs answered from the cache
+     * @param misses  Validator runs that had to execute
+     * @param entries Results currently cached
+     */
+    public record CacheStats(long hits, long misses, int entries) {
+    }
+
     private final List<ConfigValidator<T>> validators;
     private final String name;
+    private final ValidationResultCache resultCache;
+    private final Executor executor;
 
     public CompositeValidator(String name) {
         this.name = name;
         this.validators = new ArrayList<>();
+        this.resultCache = null;
+        this.executor = null;
     }
 
     public CompositeValidator(String name, List<ConfigValidator<T>> validators) {
+        this(name, validators, 0, null);
+    }
+
+    /**
+     * @param resultCacheSize Most validator results to cache; 0 disables caching
+     * @param executor        Runs validators in parallel when several have to run; null runs them in turn
+     */
+    public CompositeValidator(String name, List<ConfigValidator<T>> validators, int resultCacheSize,
+                              Executor executor) {
         this.name = name;
         this.validators = new ArrayList<>(validators);
         // Sort by priority
         this.validators.sort(Comparator.comparingInt(ConfigValidator::getPriority));
+        this.resultCache = resultCacheSize > 0 ? new ValidationResultCache(resultCacheSize) : null;
+        this.executor = executor;
     }
 
     /**
@@ -59,46 +91,84 @@ public class CompositeValidator<T extends ConfigValidatable> implements ConfigVa
      */
     public ValidationResult validate(T object, ValidationMode mode) {
         LOG.debugf("CompositeValidator.validate called with %d validators in %s mode", validators.size(), mode);
-        ValidationResult result = ValidationResult.empty();
         
+        List<ConfigValidator<T>> applicable = new ArrayList<>();
         for (ConfigValidator<T> validator : validators) {
             // Check if this validator supports the current mode
             if (!validator.supportedModes().contains(mode)) {
                 LOG.debugf("Skipping validator %s - does not support %s mode", validator.getValidatorName(), mode);
                 continue;
             }
-            
-            try {
-                LOG.debugf("Running validator: %s", validator.getValidatorName());
-                ValidationResult validatorResult;
-                
-                // Check if validator is mode-aware
-                if (validator instanceof ModeAwareValidator) {
-                    validatorResult = ((ModeAwareValidator<T>) validator).validate(object, mode);
-                } else {
-                    validatorResult = validator.validate(object);
-                }
-                
-                LOG.debugf("Validator %s returned: valid=%s, errors=%s, warnings=%s", 
-                    validator.getValidatorName(), validatorResult.valid(), 
-                    validatorResult.errors(), validatorResult.warnings());
-                result = result.combine(validatorResult);
-            } catch (Exception e) {
-                // Log the error and add it to the validation result
-                String errorMessage = String.format(
-                    "Validator '%s' threw an exception: %s",
-                    validator.getValidatorName(),
-                    e.getMessage()
-                );
-                LOG.error("Validator exception", e);
-                result = result.combine(ValidationResultFactory.failure(errorMessage));
+            applicable.add(validator);
+        }
+        
+        // Validators whose result for this very object is cached are not run again
+        ValidationResultCache.Fingerprint fingerprint = resultCache != null
+            && ValidationResultCache.Fingerprint.supports(object) ? ValidationResultCache.Fingerprint.of(object) : null;
+        ValidationResult[] results = new ValidationResult[applicable.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < applicable.size(); i++) {
+            if (fingerprint != null) {
+                results[i] = resultCache.get(applicable.get(i), mode, fingerprint);
+            }
+            if (results[i] == null) {
+                pending.add(i);
             }
         }
         
+        if (executor != null && pending.size() > 1) {
+            CompletableFuture<?>[] runs = pending.stream()
+                .map(i -> CompletableFuture.runAsync(
+                    () -> results[i] = run(applicable.get(i), object, mode, fingerprint), executor))
+                .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(runs).join();
+        } else {
+            for (int i : pending) {
+                results[i] = run(applicable.get(i), object, mode, fingerprint);
+            }
+        }
+        
+        ValidationResult result = ValidationResult.empty();
+        for (ValidationResult validatorResult : results) {
+            result = result.combine(validatorResult);
+        }
+        
         LOG.debugf("CompositeValidator final result: valid=%s, errors=%s, warnings=%s", 
             result.valid(), result.errors(), result.warnings());
         return result;
     }
+    
+    private ValidationResult run(ConfigValidator<T> validator, T object, ValidationMode mode,
+                                 ValidationResultCache.Fingerprint fingerprint) {
+        try {
+            LOG.debugf("Running validator: %s", validator.getValidatorName());
+            ValidationResult validatorResult;
+            
+            // Check if validator is mode-aware
+            if (validator instanceof ModeAwareValidator) {
+                validatorResult = ((ModeAwareValidator<T>) validator).validate(object, mode);
+            } else {
+                validatorResult = validator.validate(object);
+            }
+            
+            LOG.debugf("Validator %s returned: valid=%s, errors=%s, warnings=%s", 
+                validator.getValidatorName(), validatorResult.valid(), 
+                validatorResult.errors(), validatorResult.warnings());
+            if (fingerprint != null) {
+                resultCache.put(validator, mode, fingerprint, validatorResult);
+            }
+            return validatorResult;
+        } catch (Exception e) {
+            // Log the error and add it to the validation result; not cached, the next run may succeed
+            String errorMessage = String.format(
+                "Validator '%s' threw an exception: %s",
+                validator.getValidatorName(),
+                e.getMessage()
+            );
+            LOG.error("Validator exception", e);
+            return ValidationResultFactory.failure(errorMessage);
+        }
+    }
 
     @Override
     public String getValidatorName() {
@@ -118,4 +188,20 @@ public class CompositeValidator<T extends ConfigValidatable> implements ConfigVa
     public List<ConfigValidator<T>> getValidators() {
         return validators;
     }
+
+    /**
+     * Returns how effective the result cache is; all zero if caching is disabled.
+     */
+    public CacheStats getCacheStats() {
+        return resultCache != null ? resultCache.stats() : new CacheStats(0, 0, 0);
+    }
+
+    /**
+     * Drops all cached results, e.g. after a validator's rules changed.
+     */
+    public void clearCache() {
+        if (resultCache != null) {
+            resultCache.clear();
+        }
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.rokkon.pipeline.validation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Builder for creating CompositeValidator instances.
@@ -13,6 +14,8 @@ public class CompositeValidatorBuilder<T extends ConfigValidatable> {
     
     private String name = "CompositeValidator";
     private final List<ConfigValidator<T>> validators = new ArrayList<>();
+    private int resultCacheSize = 0;
+    private Executor executor;
     
     /**
      * Creates a new builder instance.
@@ -55,6 +58,22 @@ public class CompositeValidatorBuilder<T extends ConfigValidatable> {
         return this;
     }
     
+    /**
+     * Caches up to {@code maxEntries} validator results, so unchanged objects are not validated again.
+     */
+    public CompositeValidatorBuilder<T> withResultCache(int maxEntries) {
+        this.resultCacheSize = maxEntries;
+        return this;
+    }
+    
+    /**
+     * Runs the validators that have to run in parallel on the given executor.
+     */
+    public CompositeValidatorBuilder<T> withExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+    
     /**
      * Creates an empty validator that always returns success.
      * Useful for testing when you don't want validation to interfere.
@@ -99,6 +118,6 @@ public class CompositeValidatorBuilder<T extends ConfigValidatable> {
      * Builds the CompositeValidator with the configured validators.
      */
     public CompositeValidator<T> build() {
-        return new CompositeValidator<>(name, validators);
+        return new CompositeValidator<>(name, validators, resultCacheSize, executor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.rokkon.pipeline.validation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, least-recently-used cache of validator results, keyed by validator, validation mode and a
+ * fingerprint of the validated object.
+ *
+ * <p>A fingerprint compares the validated object by value, so it is only taken of records: the configuration
+ * model is made of records whose collections are copied on construction, which makes equal objects validate
+ * equally. Two configurations that differ in any step therefore have different fingerprints.
+ */
+class ValidationResultCache {
+
+    /**
+     * The validated object with its hash code computed once, as deep record hashing is not free.
+     */
+    record Fingerprint(Object value, int hash) {
+
+        static Fingerprint of(Object value) {
+            return new Fingerprint(value, value.hashCode());
+        }
+
+        /**
+         * Whether results for {@code value} can be cached: records, compared by value.
+         */
+        static boolean supports(Object value) {
+            return value != null && value.getClass().isRecord();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Fingerprint other && hash == other.hash
+                    && (value == other.value || value.equals(other.value));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private record Key(ConfigValidator<?> validator, ValidationMode mode, Fingerprint fingerprint) {
+
+        @Override
+        public boolean equals(Object o) {
+            // Validators are compared by identity: a replaced validator must not be answered from its predecessor
+            return o instanceof Key other && validator == other.validator && mode == other.mode
+                    && fingerprint.equals(other.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(validator) + mode.hashCode()) + fingerprint.hashCode();
+        }
+    }
+
+    private final Map<Key, ValidationResult> results;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    ValidationResultCache(int maxEntries) {
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ValidationResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    ValidationResult get(ConfigValidator<?> validator, ValidationMode mode, Fingerprint fingerprint) {
+        ValidationResult result;
+        synchronized (results) {
+            result = results.get(new Key(validator, mode, fingerprint));
+        }
+        if (result != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return result;
+    }
+
+    void put(ConfigValidator<?> validator, ValidationMode mode, Fingerprint fingerprint, ValidationResult result) {
+        synchronized (results) {
+            results.put(new Key(validator, mode, fingerprint), result);
+        }
+    }
+
+    void clear() {
+        synchronized (results) {
+            results.clear();
+        }
+    }
+
+    CompositeValidator.CacheStats stats() {
+        int entries;
+        synchronized (results) {
+            entries = results.size();
+        }
+        return new CompositeValidator.CacheStats(hits.sum(), misses.sum(), entries);
+    }
+}
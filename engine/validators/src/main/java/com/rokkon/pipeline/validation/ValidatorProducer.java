@@ -8,10 +8,12 @@ import jakarta.enterprise.inject.Instance;
 import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * CDI producer for CompositeValidator instances.
@@ -29,6 +31,12 @@ public class ValidatorProducer {
     @Inject
     Instance<ConfigValidator<PipelineClusterConfig>> clusterValidators;
     
+    /**
+     * Validator results cached per composite; 0 disables caching.
+     */
+    @ConfigProperty(name = "pipeline.validation.result-cache-size", defaultValue = "10000")
+    int resultCacheSize;
+    
     /**
      * Produces the default CompositeValidator for PipelineConfig validation.
      * This validator respects the supportedModes() method of each validator.
@@ -49,7 +57,9 @@ public class ValidatorProducer {
         }
         
         LOG.infof("Created CompositeValidator for PipelineConfig with %d validators", validators.size());
-        return new CompositeValidator<>("PipelineConfigComposite", validators);
+        // Validators are CPU-bound and independent of each other
+        return new CompositeValidator<>("PipelineConfigComposite", validators, resultCacheSize,
+            ForkJoinPool.commonPool());
     }
     
     /**
@@ -71,6 +81,7 @@ public class ValidatorProducer {
         }
         
         LOG.infof("Created CompositeValidator for PipelineClusterConfig with %d validators", validators.size());
-        return new CompositeValidator<>("PipelineClusterConfigComposite", validators);
+        return new CompositeValidator<>("PipelineClusterConfigComposite", validators, resultCacheSize,
+            ForkJoinPool.commonPool());
     }
 }
\ No newline at end of file
@@ -1,50 +1,137 @@
 package com.rokkon.pipeline.validation.validators;
 
 import com.rokkon.pipeline.config.model.PipelineClusterConfig;
+import com.rokkon.pipeline.config.model.PipelineConfig;
 import com.rokkon.pipeline.validation.PipelineClusterConfigValidator;
 import com.rokkon.pipeline.validation.PipelineClusterConfigValidatable;
 import com.rokkon.pipeline.validation.ValidationResult;
 import com.rokkon.pipeline.validation.ValidationResultFactory;
+import com.rokkon.pipeline.validation.validators.PipelineRoutingGraph.PipelineRoutes;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Validates that there are no circular dependencies between pipelines.
- * TODO: Implement full inter-pipeline loop detection logic.
+ * Validates the routing of all pipelines of a cluster taken together: documents must not be able to loop
+ * between steps, whether within a pipeline or across pipelines through Kafka topics or engine-to-engine gRPC
+ * hops. Also warns about steps no document can reach and about pipelines whose routes are unusually long.
+ *
+ * <p>The routes of each pipeline are kept between validations and only resolved again for pipelines that
+ * changed, so revalidating a cluster after a config change costs one linear pass over its routing graph.
  */
 @ApplicationScoped
 public class InterPipelineLoopValidator implements PipelineClusterConfigValidator {
-    
+
+    private static final int DEFAULT_MAX_HOPS = 100;
+
+    private final int maxHops;
+    private final Map<String, Map<String, PipelineRoutes>> routesByCluster = new ConcurrentHashMap<>();
+    private final LongAdder routeResolutions = new LongAdder();
+
+    public InterPipelineLoopValidator() {
+        this(DEFAULT_MAX_HOPS);
+    }
+
+    InterPipelineLoopValidator(int maxHops) {
+        this.maxHops = maxHops;
+    }
+
     @Override
     public ValidationResult validate(PipelineClusterConfigValidatable validatable) {
         PipelineClusterConfig clusterConfig = (PipelineClusterConfig) validatable;
-        if (clusterConfig == null || 
-            clusterConfig.pipelineGraphConfig() == null || 
+        if (clusterConfig == null ||
+            clusterConfig.pipelineGraphConfig() == null ||
             clusterConfig.pipelineGraphConfig().pipelines() == null) {
             return ValidationResultFactory.success();
         }
-        
+
         List<String> errors = new ArrayList<>();
         List<String> warnings = new ArrayList<>();
-        
-        // TODO: Implement inter-pipeline loop detection
-        // This would check for circular dependencies between pipelines
-        // through shared Kafka topics or gRPC service calls
-        // For now, just add a warning that this validation is not yet implemented
-        warnings.add("Inter-pipeline loop detection is not yet implemented");
-        
-        return errors.isEmpty() ? ValidationResultFactory.successWithWarnings(warnings) : ValidationResultFactory.failure(errors, warnings);
-    }
-    
+
+        PipelineRoutingGraph.Analysis analysis = PipelineRoutingGraph.analyze(routesOf(clusterConfig));
+
+        for (List<String> loop : analysis.loops()) {
+            errors.add("Routing loop through steps " + loop
+                + ": documents routed by these steps can reach the same step again and never leave");
+        }
+        analysis.unreachableSteps().forEach((pipelineId, steps) -> warnings.add(
+            "Pipeline '" + pipelineId + "': steps " + steps
+                + " are not reachable from any INITIAL_PIPELINE step or external Kafka input"));
+        analysis.longestRoutes().forEach((pipelineId, hops) -> {
+            if (hops > maxHops) {
+                warnings.add("Pipeline '" + pipelineId + "': documents can be routed through " + hops
+                    + " hops, more than the recommended maximum of " + maxHops);
+            }
+        });
+
+        if (!errors.isEmpty()) {
+            return ValidationResultFactory.failure(errors, warnings);
+        } else if (!warnings.isEmpty()) {
+            return ValidationResultFactory.successWithWarnings(warnings);
+        } else {
+            return ValidationResultFactory.success();
+        }
+    }
+
+    /**
+     * Returns the longest route, in hops, a document entering each pipeline of {@code clusterConfig} can take,
+     * including hops into downstream pipelines. A loop counts each of its steps once.
+     */
+    public Map<String, Integer> estimateHops(PipelineClusterConfig clusterConfig) {
+        if (clusterConfig == null || clusterConfig.pipelineGraphConfig() == null
+                || clusterConfig.pipelineGraphConfig().pipelines() == null) {
+            return Map.of();
+        }
+        return PipelineRoutingGraph.analyze(routesOf(clusterConfig)).longestRoutes();
+    }
+
+    /**
+     * Number of times a pipeline's routes were resolved rather than reused from a previous validation.
+     */
+    long routeResolutions() {
+        return routeResolutions.sum();
+    }
+
+    private List<PipelineRoutes> routesOf(PipelineClusterConfig clusterConfig) {
+        String clusterKey = clusterConfig.clusterName() == null ? "" : clusterConfig.clusterName();
+        Map<String, PipelineRoutes> previous = routesByCluster.getOrDefault(clusterKey, Map.of());
+        // Sorted, so that results do not depend on the order of the pipeline map
+        Map<String, PipelineConfig> pipelines = new TreeMap<>();
+        clusterConfig.pipelineGraphConfig().pipelines().forEach((pipelineId, pipeline) -> {
+            if (pipelineId != null && pipeline != null) {
+                pipelines.put(pipelineId, pipeline);
+            }
+        });
+
+        Map<String, PipelineRoutes> current = new HashMap<>();
+        List<PipelineRoutes> routes = new ArrayList<>(pipelines.size());
+        pipelines.forEach((pipelineId, pipeline) -> {
+            PipelineRoutes cached = previous.get(pipelineId);
+            if (cached == null || !cached.isFor(pipeline)) {
+                cached = PipelineRoutes.of(pipelineId, pipeline);
+                routeResolutions.increment();
+            }
+            current.put(pipelineId, cached);
+            routes.add(cached);
+        });
+        // Replaced rather than merged, so routes of deleted pipelines are dropped
+        routesByCluster.put(clusterKey, current);
+        return routes;
+    }
+
     @Override
     public int getPriority() {
         return 100;
     }
-    
+
     @Override
     public String getValidatorName() {
         return "InterPipelineLoopValidator";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,438 @@
+package com.rokkon.pipeline.validation.validators;
+
+import com.rokkon.pipeline.config.model.KafkaInputDefinition;
+import com.rokkon.pipeline.config.model.PipelineConfig;
+import com.rokkon.pipeline.config.model.PipelineStepConfig;
+import com.rokkon.pipeline.config.model.StepType;
+import com.rokkon.pipeline.config.model.TransportType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Routing graph of every step in a cluster. A document can travel from one step to another through:
+ * <ul>
+ *   <li>an output whose target is a step of the same pipeline,</li>
+ *   <li>a Kafka topic published by one step and listened to by a step of any pipeline,</li>
+ *   <li>a gRPC output whose service is another pipeline, which the engine enters at its INITIAL_PIPELINE steps.</li>
+ * </ul>
+ * Steps are numbered and edges kept in flat arrays, so loops (strongly connected components), reachability and
+ * longest routes are each found in one linear pass without recursion.
+ */
+final class PipelineRoutingGraph {
+
+    /**
+     * Outcome of analysing a cluster's routing graph. Steps are named {@code pipelineId/stepId}.
+     *
+     * @param loops steps that can route documents back to themselves, one list per loop
+     * @param unreachableSteps per pipeline, steps not reachable from any INITIAL_PIPELINE step or external Kafka input
+     * @param longestRoutes per pipeline, the most hops a document entering it can make, including downstream pipelines
+     */
+    record Analysis(List<List<String>> loops, Map<String, List<String>> unreachableSteps,
+                    Map<String, Integer> longestRoutes) {
+    }
+
+    /**
+     * Routes of one pipeline, resolved as far as possible without looking at the other pipelines, so that
+     * they can be kept while the pipeline does not change.
+     */
+    static final class PipelineRoutes {
+
+        private static final String[] NONE = new String[0];
+
+        final String pipelineId;
+        final PipelineConfig source;
+        final String[] stepIds;
+        final boolean[] initial;
+        final int[][] localTargets;
+        final String[][] publishedTopics;
+        final String[][] listenedTopics;
+        final String[][] pipelineTargets;
+
+        private PipelineRoutes(String pipelineId, PipelineConfig source, int steps) {
+            this.pipelineId = pipelineId;
+            this.source = source;
+            this.stepIds = new String[steps];
+            this.initial = new boolean[steps];
+            this.localTargets = new int[steps][];
+            this.publishedTopics = new String[steps][];
+            this.listenedTopics = new String[steps][];
+            this.pipelineTargets = new String[steps][];
+        }
+
+        static PipelineRoutes of(String pipelineId, PipelineConfig pipeline) {
+            List<Map.Entry<String, PipelineStepConfig>> steps = new ArrayList<>();
+            if (pipeline.pipelineSteps() != null) {
+                for (var entry : pipeline.pipelineSteps().entrySet()) {
+                    if (entry.getValue() != null) {
+                        steps.add(entry);
+                    }
+                }
+            }
+
+            PipelineRoutes routes = new PipelineRoutes(pipelineId, pipeline, steps.size());
+            // Outputs name their target by step id or, like the engine accepts, by step name
+            Map<String, Integer> stepIndex = new HashMap<>();
+            for (int i = 0; i < steps.size(); i++) {
+                stepIndex.put(steps.get(i).getKey(), i);
+            }
+            for (int i = 0; i < steps.size(); i++) {
+                String stepName = steps.get(i).getValue().stepName();
+                if (stepName != null) {
+                    stepIndex.putIfAbsent(stepName, i);
+                }
+            }
+
+            for (int i = 0; i < steps.size(); i++) {
+                PipelineStepConfig step = steps.get(i).getValue();
+                routes.stepIds[i] = steps.get(i).getKey();
+                routes.initial[i] = step.stepType() == StepType.INITIAL_PIPELINE;
+
+                List<String> listened = new ArrayList<>();
+                if (step.kafkaInputs() != null) {
+                    for (KafkaInputDefinition input : step.kafkaInputs()) {
+                        if (input != null) {
+                            listened.addAll(input.listenTopics());
+                        }
+                    }
+                }
+
+                List<Integer> local = new ArrayList<>();
+                List<String> published = new ArrayList<>();
+                List<String> pipelines = new ArrayList<>();
+                if (step.outputs() != null) {
+                    for (PipelineStepConfig.OutputTarget output : step.outputs().values()) {
+                        if (output == null) {
+                            continue;
+                        }
+                        String topic = output.kafkaTransport() != null ? output.kafkaTransport().topic() : null;
+                        if (output.transportType() == TransportType.KAFKA && topic != null && !topic.isBlank()) {
+                            published.add(topic);
+                            continue;
+                        }
+                        Integer target = stepIndex.get(output.targetStepName());
+                        if (target != null) {
+                            local.add(target);
+                        } else if (output.transportType() == TransportType.GRPC && output.grpcTransport() != null
+                                && output.grpcTransport().serviceName() != null) {
+                            // Leaves the pipeline: possibly another engine's pipeline, resolved against the cluster
+                            pipelines.add(output.grpcTransport().serviceName());
+                        }
+                    }
+                }
+
+                routes.listenedTopics[i] = listened.isEmpty() ? NONE : listened.toArray(NONE);
+                routes.publishedTopics[i] = published.isEmpty() ? NONE : published.toArray(NONE);
+                routes.pipelineTargets[i] = pipelines.isEmpty() ? NONE : pipelines.toArray(NONE);
+                routes.localTargets[i] = local.stream().mapToInt(Integer::intValue).toArray();
+            }
+            return routes;
+        }
+
+        /**
+         * Whether these routes were resolved from {@code pipeline}, or an equal configuration.
+         */
+        boolean isFor(PipelineConfig pipeline) {
+            return source == pipeline || source.equals(pipeline);
+        }
+
+        int size() {
+            return stepIds.length;
+        }
+    }
+
+    private final List<PipelineRoutes> pipelines;
+    private final int[] offsets;
+    private final int nodes;
+    private final boolean[] roots;
+
+    // Edges in compressed form: the targets of node v are edgeTargets[edgeStart[v] .. edgeStart[v + 1])
+    private int[] edgeStart;
+    private int[] edgeTargets;
+
+    private PipelineRoutingGraph(List<PipelineRoutes> pipelines) {
+        this.pipelines = pipelines;
+        this.offsets = new int[pipelines.size() + 1];
+        for (int p = 0; p < pipelines.size(); p++) {
+            offsets[p + 1] = offsets[p] + pipelines.get(p).size();
+        }
+        this.nodes = offsets[pipelines.size()];
+        this.roots = new boolean[nodes];
+    }
+
+    /**
+     * Builds the routing graph of {@code pipelines} and analyses it.
+     */
+    static Analysis analyze(List<PipelineRoutes> pipelines) {
+        PipelineRoutingGraph graph = new PipelineRoutingGraph(pipelines);
+        graph.link();
+        return graph.analyze();
+    }
+
+    private void link() {
+        Map<String, Integer> pipelineIndex = new HashMap<>();
+        Map<String, List<Integer>> listeners = new HashMap<>();
+        Set<String> published = new HashSet<>();
+        for (int p = 0; p < pipelines.size(); p++) {
+            PipelineRoutes routes = pipelines.get(p);
+            pipelineIndex.put(routes.pipelineId, p);
+            for (int i = 0; i < routes.size(); i++) {
+                for (String topic : routes.listenedTopics[i]) {
+                    listeners.computeIfAbsent(topic, t -> new ArrayList<>()).add(offsets[p] + i);
+                }
+                published.addAll(Arrays.asList(routes.publishedTopics[i]));
+            }
+        }
+
+        int[] from = new int[Math.max(16, nodes)];
+        int[] to = new int[from.length];
+        int edges = 0;
+        for (int p = 0; p < pipelines.size(); p++) {
+            PipelineRoutes routes = pipelines.get(p);
+            for (int i = 0; i < routes.size(); i++) {
+                int v = offsets[p] + i;
+                // Entry points: INITIAL_PIPELINE steps, and steps fed by topics no step of the cluster publishes
+                roots[v] = routes.initial[i];
+                for (String topic : routes.listenedTopics[i]) {
+                    roots[v] |= !published.contains(topic);
+                }
+
+                List<Integer> targets = new ArrayList<>();
+                for (int target : routes.localTargets[i]) {
+                    targets.add(offsets[p] + target);
+                }
+                for (String topic : routes.publishedTopics[i]) {
+                    targets.addAll(listeners.getOrDefault(topic, List.of()));
+                }
+                for (String service : routes.pipelineTargets[i]) {
+                    Integer q = pipelineIndex.get(service);
+                    if (q == null) {
+                        continue;
+                    }
+                    PipelineRoutes target = pipelines.get(q);
+                    for (int j = 0; j < target.size(); j++) {
+                        if (target.initial[j]) {
+                            targets.add(offsets[q] + j);
+                        }
+                    }
+                }
+
+                for (int w : targets) {
+                    if (edges == from.length) {
+                        from = Arrays.copyOf(from, edges * 2);
+                        to = Arrays.copyOf(to, edges * 2);
+                    }
+                    from[edges] = v;
+                    to[edges] = w;
+                    edges++;
+                }
+            }
+        }
+
+        edgeStart = new int[nodes + 1];
+        for (int e = 0; e < edges; e++) {
+            edgeStart[from[e] + 1]++;
+        }
+        for (int v = 0; v < nodes; v++) {
+            edgeStart[v + 1] += edgeStart[v];
+        }
+        edgeTargets = new int[edges];
+        int[] next = Arrays.copyOf(edgeStart, nodes);
+        for (int e = 0; e < edges; e++) {
+            edgeTargets[next[from[e]]++] = to[e];
+        }
+    }
+
+    private Analysis analyze() {
+        // Tarjan's algorithm with an explicit call stack; components are numbered in reverse topological order,
+        // so every edge leaving a component leads to a lower-numbered one
+        int[] component = stronglyConnectedComponents();
+        int components = 0;
+        for (int v = 0; v < nodes; v++) {
+            components = Math.max(components, component[v] + 1);
+        }
+
+        int[] componentSize = new int[components];
+        boolean[] selfLoop = new boolean[components];
+        for (int v = 0; v < nodes; v++) {
+            componentSize[component[v]]++;
+            for (int e = edgeStart[v]; e < edgeStart[v + 1]; e++) {
+                selfLoop[component[v]] |= edgeTargets[e] == v;
+            }
+        }
+
+        // Steps of each component, in order of component
+        int[] memberStart = new int[components + 1];
+        for (int c = 0; c < components; c++) {
+            memberStart[c + 1] = memberStart[c] + componentSize[c];
+        }
+        int[] members = new int[nodes];
+        int[] fill = Arrays.copyOf(memberStart, components);
+        for (int v = 0; v < nodes; v++) {
+            members[fill[component[v]]++] = v;
+        }
+
+        List<List<String>> loops = new ArrayList<>();
+        for (int c = 0; c < components; c++) {
+            if (componentSize[c] > 1 || selfLoop[c]) {
+                List<String> loop = new ArrayList<>();
+                for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+                    loop.add(name(members[m]));
+                }
+                loop.sort(null);
+                loops.add(loop);
+            }
+        }
+        loops.sort(Comparator.comparing(loop -> loop.get(0)));
+
+        // Longest route, counted in steps, from each component; a loop counts each of its steps once
+        int[] longest = new int[components];
+        for (int c = 0; c < components; c++) {
+            int downstream = 0;
+            for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+                int v = members[m];
+                for (int e = edgeStart[v]; e < edgeStart[v + 1]; e++) {
+                    int d = component[edgeTargets[e]];
+                    if (d != c) {
+                        downstream = Math.max(downstream, longest[d]);
+                    }
+                }
+            }
+            longest[c] = componentSize[c] + downstream;
+        }
+
+        boolean[] reachable = reachableFromRoots();
+
+        Map<String, List<String>> unreachableSteps = new LinkedHashMap<>();
+        Map<String, Integer> longestRoutes = new LinkedHashMap<>();
+        for (int p = 0; p < pipelines.size(); p++) {
+            PipelineRoutes routes = pipelines.get(p);
+            List<String> unreachable = new ArrayList<>();
+            boolean hasRoots = false;
+            for (int i = 0; i < routes.size(); i++) {
+                hasRoots |= roots[offsets[p] + i];
+                if (!reachable[offsets[p] + i]) {
+                    unreachable.add(routes.stepIds[i]);
+                }
+            }
+            if (!unreachable.isEmpty()) {
+                unreachable.sort(null);
+                unreachableSteps.put(routes.pipelineId, unreachable);
+            }
+
+            // Measured from the pipeline's entry points, or from every step when it has none
+            int steps = 0;
+            for (int i = 0; i < routes.size(); i++) {
+                int v = offsets[p] + i;
+                if (roots[v] || !hasRoots) {
+                    steps = Math.max(steps, longest[component[v]]);
+                }
+            }
+            longestRoutes.put(routes.pipelineId, Math.max(0, steps - 1));
+        }
+
+        return new Analysis(loops, unreachableSteps, longestRoutes);
+    }
+
+    private int[] stronglyConnectedComponents() {
+        int[] index = new int[nodes];
+        int[] low = new int[nodes];
+        int[] component = new int[nodes];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[nodes];
+        int[] stack = new int[nodes];
+        int[] callNode = new int[nodes];
+        int[] callEdge = new int[nodes];
+        int counter = 0;
+        int components = 0;
+        int sp = 0;
+
+        for (int s = 0; s < nodes; s++) {
+            if (index[s] != -1) {
+                continue;
+            }
+            int cp = 0;
+            index[s] = low[s] = counter++;
+            stack[sp++] = s;
+            onStack[s] = true;
+            callNode[cp] = s;
+            callEdge[cp++] = edgeStart[s];
+
+            while (cp > 0) {
+                int v = callNode[cp - 1];
+                if (callEdge[cp - 1] < edgeStart[v + 1]) {
+                    int w = edgeTargets[callEdge[cp - 1]++];
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callNode[cp] = w;
+                        callEdge[cp++] = edgeStart[w];
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                cp--;
+                if (cp > 0) {
+                    int caller = callNode[cp - 1];
+                    low[caller] = Math.min(low[caller], low[v]);
+                }
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        component[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+            }
+        }
+        return component;
+    }
+
+    private boolean[] reachableFromRoots() {
+        boolean[] reached = new boolean[nodes];
+        int[] queue = new int[nodes];
+        int tail = 0;
+        for (int v = 0; v < nodes; v++) {
+            if (roots[v]) {
+                reached[v] = true;
+                queue[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            for (int e = edgeStart[v]; e < edgeStart[v + 1]; e++) {
+                int w = edgeTargets[e];
+                if (!reached[w]) {
+                    reached[w] = true;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return reached;
+    }
+
+    private String name(int v) {
+        int p = Arrays.binarySearch(offsets, v);
+        // With empty pipelines several offsets are equal; the step belongs to the last pipeline starting at v
+        if (p < 0) {
+            p = -p - 2;
+        } else {
+            while (p + 1 < pipelines.size() && offsets[p + 1] == v) {
+                p++;
+            }
+        }
+        return pipelines.get(p).pipelineId + "/" + pipelines.get(p).stepIds[v - offsets[p]];
+    }
+}
@@ -0,0 +1,177 @@
+package com.rokkon.pipeline.validation;
+
+import com.rokkon.pipeline.config.model.PipelineConfig;
+import com.rokkon.pipeline.config.model.PipelineStepConfig;
+import com.rokkon.pipeline.config.model.StepType;
+import com.rokkon.pipeline.validation.validators.IntraPipelineLoopValidator;
+import com.rokkon.pipeline.validation.validators.NamingConventionValidator;
+import com.rokkon.pipeline.validation.validators.ProcessorInfoValidator;
+import com.rokkon.pipeline.validation.validators.RequiredFieldsValidator;
+import com.rokkon.pipeline.validation.validators.StepReferenceValidator;
+import com.rokkon.pipeline.validation.validators.StepTypeValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for result caching and parallel execution in CompositeValidator.
+ */
+class CompositeValidatorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void revalidatesOnlyWhatChanged() {
+        CountingValidator validator = new CountingValidator("Counting", 100, config -> ValidationResultFactory.success());
+        CompositeValidator<PipelineConfig> composite = CompositeValidatorBuilder.<PipelineConfig>create()
+            .addValidator(validator)
+            .withResultCache(100)
+            .build();
+
+        composite.validate(pipeline("p1", "echo"));
+        // An equal configuration, even a different instance, is answered from the cache
+        composite.validate(pipeline("p1", "echo"));
+        assertThat(validator.runs.get()).isEqualTo(1);
+
+        // A changed step, or another mode, is validated again
+        composite.validate(pipeline("p1", "chunker"));
+        composite.validate(pipeline("p1", "echo"), ValidationMode.DESIGN);
+        assertThat(validator.runs.get()).isEqualTo(3);
+
+        assertThat(composite.getCacheStats()).isEqualTo(new CompositeValidator.CacheStats(1, 3, 3));
+    }
+
+    @Test
+    void revalidatingAClusterRunsOnlyTheChangedPipeline() {
+        // As whitelisting a module does: every pipeline of the cluster again, one of them changed
+        List<ConfigValidator<PipelineConfigValidatable>> validators = List.of(
+            new RequiredFieldsValidator(), new NamingConventionValidator(), new StepReferenceValidator(),
+            new ProcessorInfoValidator(), new IntraPipelineLoopValidator(), new StepTypeValidator());
+        CompositeValidator<PipelineConfigValidatable> composite = new CompositeValidator<>("cluster", validators,
+            1000, executor);
+        List<PipelineConfig> cluster = new ArrayList<>();
+        for (int p = 0; p < 20; p++) {
+            cluster.add(clusterPipeline("pipeline-" + p, "echo"));
+        }
+        cluster.forEach(composite::validate);
+
+        cluster.set(10, clusterPipeline("pipeline-10", "chunker"));
+        CompositeValidator.CacheStats before = composite.getCacheStats();
+        cluster.forEach(composite::validate);
+        CompositeValidator.CacheStats after = composite.getCacheStats();
+
+        assertThat(after.misses() - before.misses()).isEqualTo(validators.size());
+        assertThat(after.hits() - before.hits()).isEqualTo(19L * validators.size());
+    }
+
+    @Test
+    void doesNotCacheValidatorExceptions() {
+        AtomicInteger calls = new AtomicInteger();
+        CountingValidator flaky = new CountingValidator("Flaky", 100, config -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("not ready");
+            }
+            return ValidationResultFactory.success();
+        });
+        CompositeValidator<PipelineConfig> composite = CompositeValidatorBuilder.<PipelineConfig>create()
+            .addValidator(flaky)
+            .withResultCache(100)
+            .build();
+
+        assertThat(composite.validate(pipeline("p1", "echo")).errors())
+            .containsExactly("Validator 'Flaky' threw an exception: not ready");
+        assertThat(composite.validate(pipeline("p1", "echo")).valid()).isTrue();
+        assertThat(composite.validate(pipeline("p1", "echo")).valid()).isTrue();
+        assertThat(flaky.runs.get()).isEqualTo(2);
+    }
+
+    @Test
+    void runsValidatorsInParallelAndCombinesInPriorityOrder() {
+        // Each validator waits until all three are running, which only succeeds if they run concurrently
+        CountDownLatch allRunning = new CountDownLatch(3);
+        Function<String, Function<PipelineConfig, ValidationResult>> awaitingOthers = error -> config -> {
+            allRunning.countDown();
+            try {
+                if (!allRunning.await(5, TimeUnit.SECONDS)) {
+                    return ValidationResultFactory.failure("ran alone");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ValidationResultFactory.failure(error);
+        };
+        CompositeValidator<PipelineConfig> composite = CompositeValidatorBuilder.<PipelineConfig>create()
+            .addValidator(new CountingValidator("Third", 300, awaitingOthers.apply("third")))
+            .addValidator(new CountingValidator("First", 100, awaitingOthers.apply("first")))
+            .addValidator(new CountingValidator("Second", 200, awaitingOthers.apply("second")))
+            .withExecutor(executor)
+            .build();
+
+        ValidationResult result = composite.validate(pipeline("p1", "echo"));
+
+        assertThat(result.errors()).containsExactly("first", "second", "third");
+    }
+
+    private static PipelineConfig pipeline(String name, String service) {
+        PipelineStepConfig step = new PipelineStepConfig("step-1", StepType.INITIAL_PIPELINE,
+            new PipelineStepConfig.ProcessorInfo(service, null));
+        return new PipelineConfig(name, Map.of("step-1", step));
+    }
+
+    private static PipelineConfig clusterPipeline(String name, String lastService) {
+        Map<String, PipelineStepConfig> steps = new LinkedHashMap<>();
+        for (int s = 0; s < 5; s++) {
+            StepType type = s == 0 ? StepType.INITIAL_PIPELINE : s == 4 ? StepType.SINK : StepType.PIPELINE;
+            steps.put(name + "-step-" + s, new PipelineStepConfig(name + "-step-" + s, type,
+                new PipelineStepConfig.ProcessorInfo(s == 4 ? lastService : "service-" + s, null)));
+        }
+        return new PipelineConfig(name, steps);
+    }
+
+    private static class CountingValidator implements ConfigValidator<PipelineConfig> {
+
+        final AtomicInteger runs = new AtomicInteger();
+        private final String name;
+        private final int priority;
+        private final Function<PipelineConfig, ValidationResult> rule;
+
+        CountingValidator(String name, int priority, Function<PipelineConfig, ValidationResult> rule) {
+            this.name = name;
+            this.priority = priority;
+            this.rule = rule;
+        }
+
+        @Override
+        public ValidationResult validate(PipelineConfig config) {
+            runs.incrementAndGet();
+            return rule.apply(config);
+        }
+
+        @Override
+        public String getValidatorName() {
+            return name;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+    }
+}
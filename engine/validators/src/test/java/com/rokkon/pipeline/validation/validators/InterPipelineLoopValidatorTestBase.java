@@ -1,11 +1,19 @@
 package com.rokkon.pipeline.validation.validators;
 
+import com.rokkon.pipeline.config.model.GrpcTransportConfig;
+import com.rokkon.pipeline.config.model.KafkaInputDefinition;
+import com.rokkon.pipeline.config.model.KafkaTransportConfig;
 import com.rokkon.pipeline.config.model.PipelineClusterConfig;
 import com.rokkon.pipeline.config.model.PipelineGraphConfig;
 import com.rokkon.pipeline.config.model.PipelineConfig;
+import com.rokkon.pipeline.config.model.PipelineStepConfig;
+import com.rokkon.pipeline.config.model.StepType;
+import com.rokkon.pipeline.config.model.TransportType;
 import com.rokkon.pipeline.validation.ValidationResult;
 import org.junit.jupiter.api.Test;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Collections;
 
@@ -65,8 +73,7 @@ public abstract class InterPipelineLoopValidatorTestBase {
         ValidationResult result = getValidator().validate(config);
         assertThat(result.valid()).isTrue();
         assertThat(result.errors()).isEmpty();
-        assertThat(result.warnings()).hasSize(1);
-        assertThat(result.warnings().get(0)).contains("Inter-pipeline loop detection is not yet implemented");
+        assertThat(result.warnings()).isEmpty();
     }
     
     @Test
@@ -92,8 +99,7 @@ public abstract class InterPipelineLoopValidatorTestBase {
         ValidationResult result = getValidator().validate(config);
         assertThat(result.valid()).isTrue();
         assertThat(result.errors()).isEmpty();
-        assertThat(result.warnings()).hasSize(1);
-        assertThat(result.warnings().get(0)).contains("Inter-pipeline loop detection is not yet implemented");
+        assertThat(result.warnings()).isEmpty();
     }
     
     @Test
@@ -133,11 +139,215 @@ public abstract class InterPipelineLoopValidatorTestBase {
         ValidationResult result = getValidator().validate(config);
         assertThat(result.valid()).isTrue();
         assertThat(result.errors()).isEmpty();
-        assertThat(result.warnings()).hasSize(1);
-        assertThat(result.warnings().get(0)).contains("Inter-pipeline loop detection is not yet implemented");
+        assertThat(result.warnings()).isEmpty();
     }
     
-    // TODO: Add more tests when loop detection is implemented
-    // For now, these tests just verify the validator doesn't crash
-    // and returns the expected warning about incomplete implementation
+    @Test
+    void testPipelinesChainedThroughKafkaAreValid() {
+        PipelineConfig ingest = pipeline("ingest",
+            step("parse", StepType.INITIAL_PIPELINE, List.of(), Map.of("next", internal("chunk"))),
+            step("chunk", StepType.PIPELINE, List.of(), Map.of("next", kafka("embed", "ingest.chunks"))));
+        PipelineConfig embed = pipeline("embed",
+            step("embed", StepType.PIPELINE, List.of("ingest.chunks"), Map.of("next", internal("index"))),
+            step("index", StepType.SINK, List.of(), Map.of()));
+
+        InterPipelineLoopValidator validator = getValidator();
+        PipelineClusterConfig config = cluster(Map.of("ingest", ingest, "embed", embed));
+        ValidationResult result = validator.validate(config);
+
+        assertThat(result.valid()).isTrue();
+        assertThat(result.errors()).isEmpty();
+        assertThat(result.warnings()).isEmpty();
+        // parse -> chunk -> embed -> index
+        assertThat(validator.estimateHops(config)).containsEntry("ingest", 3).containsEntry("embed", 1);
+    }
+
+    @Test
+    void testLoopThroughKafkaTopicsAcrossPipelines() {
+        PipelineConfig first = pipeline("first",
+            step("start", StepType.INITIAL_PIPELINE, List.of(), Map.of("next", internal("forward"))),
+            step("forward", StepType.PIPELINE, List.of("second.out"), Map.of("next", kafka("relay", "first.out"))));
+        PipelineConfig second = pipeline("second",
+            step("relay", StepType.PIPELINE, List.of("first.out"), Map.of("next", kafka("forward", "second.out"))));
+
+        ValidationResult result = getValidator().validate(cluster(Map.of("first", first, "second", second)));
+
+        assertThat(result.valid()).isFalse();
+        assertThat(result.errors()).hasSize(1);
+        assertThat(result.errors().get(0)).contains("Routing loop through steps [first/forward, second/relay]");
+    }
+
+    @Test
+    void testLoopThroughEngineToEngineGrpcHops() {
+        // Each pipeline's last step calls the other pipeline's engine, which enters it at its initial step
+        PipelineConfig first = pipeline("first",
+            step("start", StepType.INITIAL_PIPELINE, List.of(), Map.of("next", grpc("second-entry", "second"))));
+        PipelineConfig second = pipeline("second",
+            step("entry", StepType.INITIAL_PIPELINE, List.of(), Map.of("next", grpc("first-entry", "first"))));
+
+        ValidationResult result = getValidator().validate(cluster(Map.of("first", first, "second", second)));
+
+        assertThat(result.valid()).isFalse();
+        assertThat(result.errors()).hasSize(1);
+        assertThat(result.errors().get(0)).contains("Routing loop through steps [first/start, second/entry]");
+    }
+
+    @Test
+    void testStepRoutingToItselfIsALoop() {
+        PipelineConfig pipeline = pipeline("retrying",
+            step("start", StepType.INITIAL_PIPELINE, List.of(), Map.of("next", internal("again"))),
+            step("again", StepType.PIPELINE, List.of(), Map.of("self", internal("again"))));
+
+        ValidationResult result = getValidator().validate(cluster(Map.of("retrying", pipeline)));
+
+        assertThat(result.valid()).isFalse();
+        assertThat(result.errors()).hasSize(1);
+        assertThat(result.errors().get(0)).contains("[retrying/again]");
+    }
+
+    @Test
+    void testUnreachableStepsAreReportedPerPipeline() {
+        PipelineConfig pipeline = pipeline("orphans",
+            step("start", StepType.INITIAL_PIPELINE, List.of(), Map.of("next", internal("sink"))),
+            step("sink", StepType.SINK, List.of(), Map.of()),
+            step("forgotten", StepType.PIPELINE, List.of(), Map.of("next", internal("also-forgotten"))),
+            step("also-forgotten", StepType.SINK, List.of(), Map.of()),
+            // Fed by a topic nothing in the cluster publishes, so from outside: an entry point
+            step("external", StepType.SINK, List.of("upstream.documents"), Map.of()));
+
+        ValidationResult result = getValidator().validate(cluster(Map.of("orphans", pipeline)));
+
+        assertThat(result.valid()).isTrue();
+        assertThat(result.warnings()).containsExactly(
+            "Pipeline 'orphans': steps [also-forgotten, forgotten] are not reachable from any INITIAL_PIPELINE step "
+                + "or external Kafka input");
+    }
+
+    @Test
+    void testLongRoutesAreReported() {
+        InterPipelineLoopValidator validator = new InterPipelineLoopValidator(3);
+        PipelineStepConfig[] steps = new PipelineStepConfig[5];
+        for (int i = 0; i < steps.length; i++) {
+            StepType type = i == 0 ? StepType.INITIAL_PIPELINE : i == steps.length - 1 ? StepType.SINK : StepType.PIPELINE;
+            steps[i] = step("step-" + i, type, List.of(),
+                i == steps.length - 1 ? Map.of() : Map.of("next", internal("step-" + (i + 1))));
+        }
+
+        ValidationResult result = validator.validate(cluster(Map.of("long", pipeline("long", steps))));
+
+        assertThat(result.valid()).isTrue();
+        assertThat(result.warnings()).containsExactly(
+            "Pipeline 'long': documents can be routed through 4 hops, more than the recommended maximum of 3");
+    }
+
+    @Test
+    void testOnlyChangedPipelinesAreResolvedAgain() {
+        InterPipelineLoopValidator validator = new InterPipelineLoopValidator();
+        PipelineConfig unchanged = pipeline("unchanged",
+            step("start", StepType.INITIAL_PIPELINE, List.of(), Map.of("next", internal("end"))),
+            step("end", StepType.SINK, List.of(), Map.of()));
+        PipelineConfig changing = pipeline("changing",
+            step("start", StepType.INITIAL_PIPELINE, List.of(), Map.of()));
+
+        validator.validate(cluster(Map.of("unchanged", unchanged, "changing", changing)));
+        assertThat(validator.routeResolutions()).isEqualTo(2);
+
+        PipelineConfig changed = pipeline("changing",
+            step("start", StepType.INITIAL_PIPELINE, List.of(), Map.of("self", internal("start"))));
+        ValidationResult result = validator.validate(cluster(Map.of("unchanged", unchanged, "changing", changed)));
+
+        assertThat(validator.routeResolutions()).isEqualTo(3);
+        assertThat(result.errors()).hasSize(1);
+        assertThat(result.errors().get(0)).contains("[changing/start]");
+    }
+
+    @Test
+    void testLoopClosedAcrossAChainOfPipelines() {
+        InterPipelineLoopValidator validator = new InterPipelineLoopValidator();
+        Map<String, PipelineConfig> pipelines = new LinkedHashMap<>();
+        for (int p = 0; p < 5; p++) {
+            pipelines.put("pipeline-" + p, chained(p, p < 4 ? "pipeline-" + (p + 1) + ".input" : null));
+        }
+
+        ValidationResult first = validator.validate(cluster(pipelines));
+
+        assertThat(first.valid()).isTrue();
+        assertThat(first.warnings()).isEmpty();
+        // A document entering the first pipeline passes through every step of the cluster
+        assertThat(validator.estimateHops(cluster(pipelines))).containsEntry("pipeline-0", 14);
+
+        // The last pipeline now feeds the second one, which closes a loop through four pipelines
+        pipelines.put("pipeline-4", chained(4, "pipeline-1.input"));
+        ValidationResult changed = validator.validate(cluster(pipelines));
+
+        assertThat(changed.valid()).isFalse();
+        assertThat(changed.errors()).hasSize(1);
+        assertThat(changed.errors().get(0)).contains("pipeline-1/step-0", "pipeline-4/step-2");
+        // Only the changed pipeline was resolved again
+        assertThat(validator.routeResolutions()).isEqualTo(6);
+    }
+
+    /**
+     * Pipeline {@code p} of a chain: three steps, the first fed by the previous pipeline's topic and the last
+     * publishing to {@code nextTopic}.
+     */
+    private static PipelineConfig chained(int p, String nextTopic) {
+        return pipeline("pipeline-" + p,
+            step("step-0", p == 0 ? StepType.INITIAL_PIPELINE : StepType.PIPELINE,
+                p == 0 ? List.of() : List.of("pipeline-" + p + ".input"), Map.of("next", internal("step-1"))),
+            step("step-1", StepType.PIPELINE, List.of(), Map.of("next", internal("step-2"))),
+            nextTopic == null
+                ? step("step-2", StepType.SINK, List.of(), Map.of())
+                : step("step-2", StepType.PIPELINE, List.of(), Map.of("next", kafka("step-0", nextTopic))));
+    }
+
+    private static PipelineClusterConfig cluster(Map<String, PipelineConfig> pipelines) {
+        return new PipelineClusterConfig(
+            "test-cluster",
+            new PipelineGraphConfig(pipelines),
+            null,
+            null,
+            Collections.emptySet(),
+            Collections.emptySet()
+        );
+    }
+
+    private static PipelineConfig pipeline(String name, PipelineStepConfig... steps) {
+        Map<String, PipelineStepConfig> stepMap = new LinkedHashMap<>();
+        for (PipelineStepConfig step : steps) {
+            stepMap.put(step.stepName(), step);
+        }
+        return new PipelineConfig(name, stepMap);
+    }
+
+    private static PipelineStepConfig step(String name, StepType type, List<String> listenTopics,
+                                           Map<String, PipelineStepConfig.OutputTarget> outputs) {
+        List<KafkaInputDefinition> inputs = listenTopics.isEmpty()
+            ? List.of()
+            : List.of(new KafkaInputDefinition(listenTopics, name + "-group", Map.of()));
+        return new PipelineStepConfig(
+            name,
+            type,
+            "Step " + name,
+            null, null,
+            inputs,
+            outputs,
+            null, null, null, null, null,
+            new PipelineStepConfig.ProcessorInfo(name + "-service", null)
+        );
+    }
+
+    private static PipelineStepConfig.OutputTarget internal(String target) {
+        return new PipelineStepConfig.OutputTarget(target, TransportType.INTERNAL, null, null);
+    }
+
+    private static PipelineStepConfig.OutputTarget kafka(String target, String topic) {
+        return new PipelineStepConfig.OutputTarget(target, TransportType.KAFKA, null,
+            new KafkaTransportConfig(topic, null, null, null, null, null));
+    }
+
+    private static PipelineStepConfig.OutputTarget grpc(String target, String serviceName) {
+        return new PipelineStepConfig.OutputTarget(target, TransportType.GRPC,
+            new GrpcTransportConfig(serviceName, null), null);
+    }
 }
\ No newline at end of file
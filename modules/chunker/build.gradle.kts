@@ -10,6 +10,7 @@ dependencies {
 
     // Module-specific dependencies only
     implementation("org.apache.opennlp:opennlp-tools:2.3.0")
+    implementation("ai.djl.huggingface:tokenizers:0.33.0") // Same tokenizer library as the embedder, for token-budget chunking
     
     // Module-specific test dependencies
     testImplementation(project(":testing:util"))
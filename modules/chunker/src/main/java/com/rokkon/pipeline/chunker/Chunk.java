@@ -7,13 +7,24 @@ package com.rokkon.pipeline.chunker;
  * @param text The actual text content of the chunk
  * @param originalIndexStart The starting character index in the original document
  * @param originalIndexEnd The ending character index in the original document
+ * @param tokenCount The number of model tokens in the chunk, or -1 if it was not measured
  */
 public record Chunk(
     String id,
     String text,
     int originalIndexStart,
-    int originalIndexEnd
+    int originalIndexEnd,
+    int tokenCount
 ) {
+    public static final int UNKNOWN_TOKEN_COUNT = -1;
+
+    /**
+     * Creates a chunk whose model token count was not measured.
+     */
+    public Chunk(String id, String text, int originalIndexStart, int originalIndexEnd) {
+        this(id, text, originalIndexStart, originalIndexEnd, UNKNOWN_TOKEN_COUNT);
+    }
+
     // Compact constructor for validation
     public Chunk {
         if (id == null || id.trim().isEmpty()) {
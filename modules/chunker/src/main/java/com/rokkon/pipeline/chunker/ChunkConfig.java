@@ -0,0 +1,24 @@
+package com.rokkon.pipeline.chunker;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One entry of {@link ChunkerOptions#chunkConfigs()}: a field to chunk and how to chunk it. Unset
+ * values fall back to the top-level options, so a list of configs only needs to state what differs.
+ *
+ * @param sourceField Field path to chunk (e.g. "body", "custom_data.abstract", "metadata.summary")
+ * @param strategy Chunking strategy name
+ * @param chunkSize Target chunk size
+ * @param chunkOverlap Overlap between consecutive chunks
+ * @param chunkConfigId Identifier of this config; generated from the other values when not set
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ChunkConfig(
+        @JsonProperty("source_field") String sourceField,
+        @JsonProperty("strategy") String strategy,
+        @JsonProperty("chunk_size") Integer chunkSize,
+        @JsonProperty("chunk_overlap") Integer chunkOverlap,
+        @JsonProperty("chunk_config_id") String chunkConfigId
+) {
+}
@@ -10,7 +10,12 @@ import org.apache.commons.lang3.StringUtils;
 import org.jboss.logging.Logger;
 
 import java.text.DecimalFormat;
-import java.util.*;
+import java.text.DecimalFormatSymbols;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -21,7 +26,11 @@ import java.util.regex.Pattern;
 public class ChunkMetadataExtractor {
 
     private static final Logger LOG = Logger.getLogger(ChunkMetadataExtractor.class);
-    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#.####");
+    private static final double ROUNDING_SCALE = 10_000d;
+    private static final double ROUNDING_TIE_TOLERANCE = 1e-6;
+    // Locale-independent, so the formatted value always parses back; DecimalFormat is not thread-safe
+    private static final ThreadLocal<DecimalFormat> TIE_FORMAT = ThreadLocal.withInitial(
+            () -> new DecimalFormat("#.####", DecimalFormatSymbols.getInstance(Locale.ROOT)));
     private static final Pattern LIST_ITEM_PATTERN = Pattern.compile("^\\s*([*\\-+•]|[0-9]+[.)])\\s+.*");
 
     private final SentenceDetector sentenceDetector;
@@ -43,74 +52,99 @@ public class ChunkMetadataExtractor {
      * @return A map of metadata key-value pairs
      */
     public Map<String, Value> extractAllMetadata(String chunkText, int chunkNumber, int totalChunksInDocument, boolean containsUrlPlaceholder) {
+        return extractMetadata(chunkText, chunkNumber, totalChunksInDocument, containsUrlPlaceholder, ChunkMetadataGroup.ALL);
+    }
+
+    /**
+     * Extracts the selected groups of metadata from a text chunk.
+     * All character-level statistics are gathered in a single pass over the text, and sentence
+     * detection and tokenization only run when a selected group needs them.
+     *
+     * @param chunkText The text content of the chunk
+     * @param chunkNumber The position of this chunk in the sequence (0-based)
+     * @param totalChunksInDocument Total number of chunks in the document
+     * @param containsUrlPlaceholder Whether the chunk contains URL placeholders
+     * @param groups The metadata groups to compute
+     * @return A map of metadata key-value pairs
+     */
+    public Map<String, Value> extractMetadata(String chunkText, int chunkNumber, int totalChunksInDocument,
+                                              boolean containsUrlPlaceholder, Set<ChunkMetadataGroup> groups) {
         Map<String, Value> metadataMap = new HashMap<>();
+        boolean textStatistics = groups.contains(ChunkMetadataGroup.TEXT_STATISTICS);
+        boolean structure = groups.contains(ChunkMetadataGroup.STRUCTURE);
 
         if (StringUtils.isBlank(chunkText)) {
-            metadataMap.put("word_count", Value.newBuilder().setNumberValue(0).build());
-            metadataMap.put("character_count", Value.newBuilder().setNumberValue(0).build());
-            metadataMap.put("sentence_count", Value.newBuilder().setNumberValue(0).build());
+            if (textStatistics) {
+                metadataMap.put("word_count", numberValue(0));
+                metadataMap.put("character_count", numberValue(0));
+                metadataMap.put("sentence_count", numberValue(0));
+            }
             return metadataMap;
         }
 
         int characterCount = chunkText.length();
-        metadataMap.put("character_count", Value.newBuilder().setNumberValue(characterCount).build());
+        CharacterStats stats = groups.contains(ChunkMetadataGroup.CHARACTER_CLASSES)
+                || groups.contains(ChunkMetadataGroup.PUNCTUATION) || structure
+                ? CharacterStats.scan(chunkText) : null;
 
-        String[] sentences = sentenceDetector.sentDetect(chunkText);
-        int sentenceCount = sentences.length;
-        metadataMap.put("sentence_count", Value.newBuilder().setNumberValue(sentenceCount).build());
+        int sentenceCount = 0;
+        String[] tokens = null;
+        TokenStats tokenStats = null;
+        if (textStatistics || structure) {
+            sentenceCount = sentenceDetector.sentPosDetect(chunkText).length;
+            tokens = tokenizer.tokenize(chunkText);
+            tokenStats = TokenStats.scan(tokens, textStatistics);
+        }
 
-        String[] tokens = tokenizer.tokenize(chunkText);
-        int wordCount = tokens.length;
-        metadataMap.put("word_count", Value.newBuilder().setNumberValue(wordCount).build());
+        if (textStatistics) {
+            int wordCount = tokens.length;
+            metadataMap.put("character_count", numberValue(characterCount));
+            metadataMap.put("sentence_count", numberValue(sentenceCount));
+            metadataMap.put("word_count", numberValue(wordCount));
 
-        double avgWordLength = wordCount > 0 ? (double) Arrays.stream(tokens).mapToInt(String::length).sum() / wordCount : 0;
-        metadataMap.put("average_word_length", Value.newBuilder().setNumberValue(Double.parseDouble(DECIMAL_FORMAT.format(avgWordLength))).build());
+            double avgWordLength = wordCount > 0 ? (double) tokenStats.totalTokenLength / wordCount : 0;
+            metadataMap.put("average_word_length", numberValue(round(avgWordLength)));
 
-        double avgSentenceLength = sentenceCount > 0 ? (double) wordCount / sentenceCount : 0;
-        metadataMap.put("average_sentence_length", Value.newBuilder().setNumberValue(Double.parseDouble(DECIMAL_FORMAT.format(avgSentenceLength))).build());
+            double avgSentenceLength = sentenceCount > 0 ? (double) wordCount / sentenceCount : 0;
+            metadataMap.put("average_sentence_length", numberValue(round(avgSentenceLength)));
 
-        if (wordCount > 0) {
-            Set<String> uniqueTokens = new HashSet<>(Arrays.asList(tokens));
-            double ttr = (double) uniqueTokens.size() / wordCount;
-            metadataMap.put("vocabulary_density", Value.newBuilder().setNumberValue(Double.parseDouble(DECIMAL_FORMAT.format(ttr))).build());
-        } else {
-            metadataMap.put("vocabulary_density", Value.newBuilder().setNumberValue(0).build());
+            double ttr = wordCount > 0 ? (double) tokenStats.uniqueTokenCount / wordCount : 0;
+            metadataMap.put("vocabulary_density", numberValue(round(ttr)));
         }
 
-        long whitespaceChars = chunkText.chars().filter(Character::isWhitespace).count();
-        long alphanumericChars = chunkText.chars().filter(Character::isLetterOrDigit).count();
-        long digitChars = chunkText.chars().filter(Character::isDigit).count();
-        long uppercaseChars = chunkText.chars().filter(Character::isUpperCase).count();
-
-        metadataMap.put("whitespace_percentage", Value.newBuilder().setNumberValue(characterCount > 0 ? Double.parseDouble(DECIMAL_FORMAT.format((double) whitespaceChars / characterCount)) : 0).build());
-        metadataMap.put("alphanumeric_percentage", Value.newBuilder().setNumberValue(characterCount > 0 ? Double.parseDouble(DECIMAL_FORMAT.format((double) alphanumericChars / characterCount)) : 0).build());
-        metadataMap.put("digit_percentage", Value.newBuilder().setNumberValue(characterCount > 0 ? Double.parseDouble(DECIMAL_FORMAT.format((double) digitChars / characterCount)) : 0).build());
-        metadataMap.put("uppercase_percentage", Value.newBuilder().setNumberValue(characterCount > 0 ? Double.parseDouble(DECIMAL_FORMAT.format((double) uppercaseChars / characterCount)) : 0).build());
-
-        Struct.Builder punctuationStruct = Struct.newBuilder();
-        Map<Character, Integer> puncCounts = new HashMap<>();
-        for (char c : chunkText.toCharArray()) {
-            if (StringUtils.isAsciiPrintable(String.valueOf(c)) && !Character.isLetterOrDigit(c) && !Character.isWhitespace(c)) {
-                puncCounts.put(c, puncCounts.getOrDefault(c, 0) + 1);
-            }
+        if (groups.contains(ChunkMetadataGroup.CHARACTER_CLASSES)) {
+            metadataMap.put("whitespace_percentage", numberValue(round((double) stats.whitespace / characterCount)));
+            metadataMap.put("alphanumeric_percentage", numberValue(round((double) stats.alphanumeric / characterCount)));
+            metadataMap.put("digit_percentage", numberValue(round((double) stats.digits / characterCount)));
+            metadataMap.put("uppercase_percentage", numberValue(round((double) stats.uppercase / characterCount)));
         }
-        for (Map.Entry<Character, Integer> entry : puncCounts.entrySet()) {
-            punctuationStruct.putFields(String.valueOf(entry.getKey()), Value.newBuilder().setNumberValue(entry.getValue()).build());
+
+        if (groups.contains(ChunkMetadataGroup.PUNCTUATION)) {
+            Struct.Builder punctuationStruct = Struct.newBuilder();
+            for (int c = 0; c < stats.punctuation.length; c++) {
+                if (stats.punctuation[c] > 0) {
+                    punctuationStruct.putFields(String.valueOf((char) c), numberValue(stats.punctuation[c]));
+                }
+            }
+            metadataMap.put("punctuation_counts", Value.newBuilder().setStructValue(punctuationStruct).build());
         }
-        metadataMap.put("punctuation_counts", Value.newBuilder().setStructValue(punctuationStruct).build());
-
-        metadataMap.put("is_first_chunk", Value.newBuilder().setBoolValue(chunkNumber == 0).build());
-        metadataMap.put("is_last_chunk", Value.newBuilder().setBoolValue(chunkNumber == totalChunksInDocument - 1).build());
-        if (totalChunksInDocument > 0) {
-            double relativePosition = (totalChunksInDocument == 1) ? 0.0 : (double) chunkNumber / (totalChunksInDocument - 1);
-            metadataMap.put("relative_position", Value.newBuilder().setNumberValue(Double.parseDouble(DECIMAL_FORMAT.format(relativePosition))).build());
-        } else {
-            metadataMap.put("relative_position", Value.newBuilder().setNumberValue(0).build());
+
+        if (groups.contains(ChunkMetadataGroup.POSITION)) {
+            metadataMap.put("is_first_chunk", Value.newBuilder().setBoolValue(chunkNumber == 0).build());
+            metadataMap.put("is_last_chunk", Value.newBuilder().setBoolValue(chunkNumber == totalChunksInDocument - 1).build());
+            if (totalChunksInDocument > 0) {
+                double relativePosition = (totalChunksInDocument == 1) ? 0.0 : (double) chunkNumber / (totalChunksInDocument - 1);
+                metadataMap.put("relative_position", numberValue(round(relativePosition)));
+            } else {
+                metadataMap.put("relative_position", numberValue(0));
+            }
         }
 
-        metadataMap.put("contains_urlplaceholder", Value.newBuilder().setBoolValue(containsUrlPlaceholder).build());
-        metadataMap.put("list_item_indicator", Value.newBuilder().setBoolValue(LIST_ITEM_PATTERN.matcher(chunkText).matches()).build());
-        metadataMap.put("potential_heading_score", Value.newBuilder().setNumberValue(calculatePotentialHeadingScore(chunkText, tokens, sentenceCount)).build());
+        if (structure) {
+            metadataMap.put("contains_urlplaceholder", Value.newBuilder().setBoolValue(containsUrlPlaceholder).build());
+            metadataMap.put("list_item_indicator", Value.newBuilder().setBoolValue(LIST_ITEM_PATTERN.matcher(chunkText).matches()).build());
+            metadataMap.put("potential_heading_score", numberValue(calculatePotentialHeadingScore(chunkText, tokens, tokenStats, sentenceCount, stats)));
+        }
 
         return metadataMap;
     }
@@ -121,10 +155,13 @@ public class ChunkMetadataExtractor {
      *
      * @param chunkText The text content of the chunk
      * @param tokens The tokens in the chunk
+     * @param tokenStats Statistics gathered from the tokens
      * @param sentenceCount The number of sentences in the chunk
+     * @param stats Character statistics gathered from the chunk text
      * @return A score between 0.0 and 1.0
      */
-    private double calculatePotentialHeadingScore(String chunkText, String[] tokens, int sentenceCount) {
+    private double calculatePotentialHeadingScore(String chunkText, String[] tokens, TokenStats tokenStats,
+                                                  int sentenceCount, CharacterStats stats) {
         double score = 0.0;
         if (tokens.length == 0) return 0.0;
 
@@ -139,15 +176,99 @@ public class ChunkMetadataExtractor {
             }
         }
 
-        long uppercaseWords = Arrays.stream(tokens)
-                .filter(token -> token.length() > 0 && Character.isUpperCase(token.charAt(0)))
-                .count();
-        if (tokens.length > 0 && (double) uppercaseWords / tokens.length > 0.7) {
+        if ((double) tokenStats.uppercaseInitialTokens / tokens.length > 0.7) {
             score += 0.2;
         }
-        if (StringUtils.isAllUpperCase(chunkText.replaceAll("\\s+", ""))) {
+        if (stats.allUpperCaseIgnoringWhitespace()) {
             score += 0.2;
         }
-        return Math.min(1.0, Double.parseDouble(DECIMAL_FORMAT.format(score)));
+        return Math.min(1.0, round(score));
+    }
+
+    /**
+     * Rounds to four decimal places with the same result as formatting with "#.####" and parsing
+     * back. DecimalFormat rounds the exact binary value of {@code value}, so {@code Math.rint} on the
+     * scaled value only agrees with it away from ties; values whose fourth-decimal remainder is near
+     * one half still go through the format.
+     */
+    static double round(double value) {
+        double scaled = value * ROUNDING_SCALE;
+        if (Math.abs(scaled - Math.floor(scaled) - 0.5) > ROUNDING_TIE_TOLERANCE) {
+            return Math.rint(scaled) / ROUNDING_SCALE;
+        }
+        return Double.parseDouble(TIE_FORMAT.get().format(value));
+    }
+
+    private static Value numberValue(double value) {
+        return Value.newBuilder().setNumberValue(value).build();
+    }
+
+    /**
+     * Character-level counters gathered in one pass over the chunk text.
+     */
+    static final class CharacterStats {
+        int whitespace;
+        int alphanumeric;
+        int digits;
+        int uppercase;
+        /** Counts of printable ASCII punctuation/symbol characters, indexed by character */
+        final int[] punctuation = new int[128];
+        /** Characters other than regex whitespace ([ \t\n\x0B\f\r]) */
+        int nonRegexWhitespace;
+        /** Whether every character other than regex whitespace is upper case */
+        boolean allUpperIgnoringRegexWhitespace = true;
+
+        static CharacterStats scan(String text) {
+            CharacterStats stats = new CharacterStats();
+            for (int i = 0, length = text.length(); i < length; i++) {
+                char c = text.charAt(i);
+                boolean isWhitespace = Character.isWhitespace(c);
+                boolean isLetterOrDigit = Character.isLetterOrDigit(c);
+                boolean isUpperCase = Character.isUpperCase(c);
+                if (isWhitespace) stats.whitespace++;
+                if (isLetterOrDigit) stats.alphanumeric++;
+                if (Character.isDigit(c)) stats.digits++;
+                if (isUpperCase) stats.uppercase++;
+                if (c > 32 && c < 127 && !isLetterOrDigit) {
+                    stats.punctuation[c]++;
+                }
+                if (c != ' ' && c != '\t' && c != '\n' && c != 0x0B && c != '\f' && c != '\r') {
+                    stats.nonRegexWhitespace++;
+                    if (!isUpperCase) {
+                        stats.allUpperIgnoringRegexWhitespace = false;
+                    }
+                }
+            }
+            return stats;
+        }
+
+        boolean allUpperCaseIgnoringWhitespace() {
+            return nonRegexWhitespace > 0 && allUpperIgnoringRegexWhitespace;
+        }
+    }
+
+    /**
+     * Token-level counters gathered in one pass over the token array.
+     */
+    static final class TokenStats {
+        long totalTokenLength;
+        int uniqueTokenCount;
+        int uppercaseInitialTokens;
+
+        static TokenStats scan(String[] tokens, boolean countUnique) {
+            TokenStats stats = new TokenStats();
+            Set<String> uniqueTokens = countUnique ? new HashSet<>(Math.max(16, tokens.length * 2)) : null;
+            for (String token : tokens) {
+                stats.totalTokenLength += token.length();
+                if (!token.isEmpty() && Character.isUpperCase(token.charAt(0))) {
+                    stats.uppercaseInitialTokens++;
+                }
+                if (uniqueTokens != null) {
+                    uniqueTokens.add(token);
+                }
+            }
+            stats.uniqueTokenCount = uniqueTokens != null ? uniqueTokens.size() : 0;
+            return stats;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.rokkon.pipeline.chunker;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Groups of chunk metadata that can be selected independently via {@link ChunkerOptions#metadataGroups()}.
+ * Skipping a group skips the work needed to compute it, e.g. leaving out both {@link #TEXT_STATISTICS}
+ * and {@link #STRUCTURE} avoids sentence detection and tokenization entirely.
+ */
+public enum ChunkMetadataGroup {
+
+    /** character_count, word_count, sentence_count, average_word_length, average_sentence_length, vocabulary_density */
+    TEXT_STATISTICS,
+
+    /** whitespace_percentage, alphanumeric_percentage, digit_percentage, uppercase_percentage */
+    CHARACTER_CLASSES,
+
+    /** punctuation_counts */
+    PUNCTUATION,
+
+    /** is_first_chunk, is_last_chunk, relative_position */
+    POSITION,
+
+    /** contains_urlplaceholder, list_item_indicator, potential_heading_score */
+    STRUCTURE;
+
+    public static final Set<ChunkMetadataGroup> ALL = EnumSet.allOf(ChunkMetadataGroup.class);
+
+    /**
+     * Parses configured group names (case-insensitive). A null or empty collection selects all groups.
+     *
+     * @param names Group names from the chunker configuration
+     * @return The selected groups
+     * @throws IllegalArgumentException if a name does not match any group
+     */
+    public static Set<ChunkMetadataGroup> parse(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return ALL;
+        }
+        EnumSet<ChunkMetadataGroup> groups = EnumSet.noneOf(ChunkMetadataGroup.class);
+        for (String name : names) {
+            try {
+                groups.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown metadata group '" + name + "'. Valid groups: " + ALL);
+            }
+        }
+        return groups;
+    }
+}
@@ -3,6 +3,11 @@ package com.rokkon.pipeline.chunker;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
 @JsonIgnoreProperties(ignoreUnknown = true)
 public record ChunkerOptions(
         @JsonProperty("source_field") String sourceField,
@@ -12,7 +17,15 @@ public record ChunkerOptions(
         @JsonProperty("chunk_config_id") String chunkConfigId,
         @JsonProperty("result_set_name_template") String resultSetNameTemplate,
         @JsonProperty("log_prefix") String logPrefix,
-        @JsonProperty("preserve_urls") Boolean preserveUrls
+        @JsonProperty("preserve_urls") Boolean preserveUrls,
+        @JsonProperty("parallel") Boolean parallel,
+        @JsonProperty("metadata_groups") List<String> metadataGroups,
+        @JsonProperty("chunk_unit") String chunkUnit,
+        @JsonProperty("tokenizer") String tokenizer,
+        @JsonProperty("strategy") String strategy,
+        @JsonProperty("chunk_configs") List<ChunkConfig> chunkConfigs,
+        @JsonProperty("near_duplicates") String nearDuplicates,
+        @JsonProperty("near_duplicate_threshold") Double nearDuplicateThreshold
 ) {
     public static final String DEFAULT_SOURCE_FIELD = "body";
     public static final int DEFAULT_CHUNK_SIZE = 500;
@@ -22,6 +35,19 @@ public record ChunkerOptions(
     public static final String DEFAULT_RESULT_SET_NAME_TEMPLATE = "%s_chunks_%s";
     public static final String DEFAULT_LOG_PREFIX = "";
     public static final boolean DEFAULT_PRESERVE_URLS = false;
+    public static final boolean DEFAULT_PARALLEL = false;
+    public static final List<String> DEFAULT_METADATA_GROUPS = Arrays.stream(ChunkMetadataGroup.values())
+            .map(group -> group.name().toLowerCase(Locale.ROOT))
+            .toList();
+    public static final String CHUNK_UNIT_CHARACTERS = "characters";
+    public static final String CHUNK_UNIT_TOKENS = "tokens";
+    public static final String DEFAULT_CHUNK_UNIT = CHUNK_UNIT_CHARACTERS;
+    public static final String DEFAULT_STRATEGY = OverlapChunker.STRATEGY_NAME;
+    public static final String NEAR_DUPLICATES_OFF = "off";
+    public static final String NEAR_DUPLICATES_MARK = "mark";
+    public static final String NEAR_DUPLICATES_DROP = "drop";
+    public static final String DEFAULT_NEAR_DUPLICATES = NEAR_DUPLICATES_OFF;
+    public static final double DEFAULT_NEAR_DUPLICATE_THRESHOLD = 0.8;
 
     public ChunkerOptions(
             String sourceField,
@@ -31,7 +57,15 @@ public record ChunkerOptions(
             String chunkConfigId,
             String resultSetNameTemplate,
             String logPrefix,
-            Boolean preserveUrls
+            Boolean preserveUrls,
+            Boolean parallel,
+            List<String> metadataGroups,
+            String chunkUnit,
+            String tokenizer,
+            String strategy,
+            List<ChunkConfig> chunkConfigs,
+            String nearDuplicates,
+            Double nearDuplicateThreshold
     ) {
         this.sourceField = sourceField != null ? sourceField : DEFAULT_SOURCE_FIELD;
         this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
@@ -41,6 +75,14 @@ public record ChunkerOptions(
         this.resultSetNameTemplate = resultSetNameTemplate != null ? resultSetNameTemplate : DEFAULT_RESULT_SET_NAME_TEMPLATE;
         this.logPrefix = logPrefix != null ? logPrefix : DEFAULT_LOG_PREFIX;
         this.preserveUrls = preserveUrls != null ? preserveUrls : DEFAULT_PRESERVE_URLS;
+        this.parallel = parallel != null ? parallel : DEFAULT_PARALLEL;
+        this.metadataGroups = metadataGroups != null && !metadataGroups.isEmpty() ? List.copyOf(metadataGroups) : DEFAULT_METADATA_GROUPS;
+        this.chunkUnit = chunkUnit != null ? chunkUnit.toLowerCase(Locale.ROOT) : DEFAULT_CHUNK_UNIT;
+        this.tokenizer = tokenizer;
+        this.strategy = strategy != null ? strategy.toLowerCase(Locale.ROOT) : DEFAULT_STRATEGY;
+        this.chunkConfigs = chunkConfigs != null ? List.copyOf(chunkConfigs) : List.of();
+        this.nearDuplicates = nearDuplicates != null ? nearDuplicates.toLowerCase(Locale.ROOT) : DEFAULT_NEAR_DUPLICATES;
+        this.nearDuplicateThreshold = nearDuplicateThreshold != null ? nearDuplicateThreshold : DEFAULT_NEAR_DUPLICATE_THRESHOLD;
     }
 
     public ChunkerOptions() {
@@ -51,7 +93,58 @@ public record ChunkerOptions(
                 DEFAULT_CHUNK_CONFIG_ID,
                 DEFAULT_RESULT_SET_NAME_TEMPLATE,
                 DEFAULT_LOG_PREFIX,
-                DEFAULT_PRESERVE_URLS);
+                DEFAULT_PRESERVE_URLS,
+                DEFAULT_PARALLEL,
+                DEFAULT_METADATA_GROUPS,
+                DEFAULT_CHUNK_UNIT,
+                null,
+                DEFAULT_STRATEGY,
+                List.of(),
+                DEFAULT_NEAR_DUPLICATES,
+                DEFAULT_NEAR_DUPLICATE_THRESHOLD);
+    }
+
+    /**
+     * @return true if chunk_size and chunk_overlap are measured in model tokens rather than characters
+     */
+    public boolean isTokenBased() {
+        return CHUNK_UNIT_TOKENS.equals(chunkUnit);
+    }
+
+    /**
+     * @return true if chunks are checked against the near-duplicate index
+     */
+    public boolean detectsNearDuplicates() {
+        return NEAR_DUPLICATES_MARK.equals(nearDuplicates) || NEAR_DUPLICATES_DROP.equals(nearDuplicates);
+    }
+
+    /**
+     * Expands chunk_configs into one set of options per config, filling unset values from these options.
+     * Without chunk_configs the result is just these options. Generated chunk_config_ids are built from the
+     * field, strategy, unit, size and overlap, and chunk IDs are prefixed with the chunk_config_id so that
+     * chunks from different configs of the same document never share an ID.
+     *
+     * @return The options for each chunking to run, in config order
+     */
+    public List<ChunkerOptions> resolveChunkConfigs() {
+        if (chunkConfigs.isEmpty()) {
+            return List.of(this);
+        }
+        List<ChunkerOptions> resolved = new ArrayList<>(chunkConfigs.size());
+        for (ChunkConfig config : chunkConfigs) {
+            String field = config.sourceField() != null ? config.sourceField() : sourceField;
+            String configStrategy = config.strategy() != null ? config.strategy().toLowerCase(Locale.ROOT) : strategy;
+            int size = config.chunkSize() != null ? config.chunkSize() : chunkSize;
+            int overlap = config.chunkOverlap() != null ? config.chunkOverlap() : chunkOverlap;
+            String configId = config.chunkConfigId() != null ? config.chunkConfigId()
+                    : String.format("%s_%s_%s_%d_%d", field, configStrategy, isTokenBased() ? "token" : "char", size, overlap)
+                            .replaceAll("[^a-zA-Z0-9_\\-]", "_");
+            String idTemplate = configId.replace("%", "%%") + "_" + chunkIdTemplate;
+            resolved.add(new ChunkerOptions(field, size, overlap, idTemplate, configId, resultSetNameTemplate, logPrefix,
+                    preserveUrls, parallel, metadataGroups, chunkUnit, tokenizer, configStrategy, List.of(),
+                    nearDuplicates, nearDuplicateThreshold));
+        }
+        return resolved;
     }
 
     public static String getJsonV7Schema() {
@@ -63,7 +156,7 @@ public record ChunkerOptions(
                   "type": "object",
                   "properties": {
                     "source_field": {
-                      "description": "The field in the source data (e.g., PipeDoc) that contains the text to be chunked. Example: 'body' or 'extracted_text'.",
+                      "description": "The field in the source data (e.g., PipeDoc) that contains the text to be chunked. Dot paths reach into nested fields. Example: 'body', 'custom_data.abstract' or 'metadata.summary'.",
                       "type": "string",
                       "default": "%s"
                     },
@@ -103,6 +196,68 @@ public record ChunkerOptions(
                       "description": "Whether to attempt to preserve URLs as whole units during chunking. If true, URLs might be treated as atomic tokens or replaced with placeholders before chunking and restored after.",
                       "type": "boolean",
                       "default": %b
+                    },
+                    "parallel": {
+                      "description": "Whether large documents may be tokenized, chunked and analyzed on the chunker's parallel pool. Output (chunk IDs, numbering, offsets and metadata) is identical to serial processing.",
+                      "type": "boolean",
+                      "default": %b
+                    },
+                    "metadata_groups": {
+                      "description": "Which groups of per-chunk metadata to compute. Omitting groups skips their work (e.g. without text_statistics and structure no sentence detection or tokenization is done).",
+                      "type": "array",
+                      "items": {
+                        "type": "string",
+                        "enum": ["text_statistics", "character_classes", "punctuation", "position", "structure"]
+                      },
+                      "uniqueItems": true,
+                      "default": ["text_statistics", "character_classes", "punctuation", "position", "structure"]
+                    },
+                    "chunk_unit": {
+                      "description": "Unit for chunk_size and chunk_overlap. 'tokens' packs chunks to a budget of model tokens counted with 'tokenizer' (use the embedding model's tokenizer and leave room for its special tokens).",
+                      "type": "string",
+                      "enum": ["characters", "tokens"],
+                      "default": "%s"
+                    },
+                    "tokenizer": {
+                      "description": "Local HuggingFace tokenizer used for token-based chunking and for the token_count chunk metadata: a path to a tokenizer.json file or a name resolved under the chunker's tokenizer directory (e.g. 'sentence-transformers/all-MiniLM-L6-v2').",
+                      "type": "string"
+                    },
+                    "strategy": {
+                      "description": "Chunking strategy. 'overlap' cuts on token positions with overlap; 'sentence' packs whole sentences up to chunk_size and overlaps by whole sentences; 'paragraph' packs paragraphs within heading-delimited sections, splitting oversized paragraphs by sentence.",
+                      "type": "string",
+                      "enum": ["overlap", "sentence", "paragraph"],
+                      "default": "%s"
+                    },
+                    "chunk_configs": {
+                      "description": "Several chunkings in one step, each producing its own semantic result. Unset values fall back to the top-level options. Configs on the same source_field share one tokenization. source_field accepts dot paths such as 'custom_data.abstract' or 'metadata.summary'.",
+                      "type": "array",
+                      "items": {
+                        "type": "object",
+                        "properties": {
+                          "source_field": { "type": "string" },
+                          "strategy": { "type": "string", "enum": ["overlap", "sentence", "paragraph"] },
+                          "chunk_size": { "type": "integer", "minimum": 1 },
+                          "chunk_overlap": { "type": "integer", "minimum": 0 },
+                          "chunk_config_id": {
+                            "description": "Identifier of this config. Defaults to <source_field>_<strategy>_<char|token>_<chunk_size>_<chunk_overlap>.",
+                            "type": "string"
+                          }
+                        }
+                      },
+                      "default": []
+                    },
+                    "near_duplicates": {
+                      "description": "Near-duplicate chunk handling. Chunks are fingerprinted (MinHash over word shingles) and compared with chunks of the same chunk_config_id seen in earlier documents. 'mark' adds near_duplicate_of (the canonical chunk ID) and near_duplicate_similarity metadata, and the embedder skips marked chunks; 'drop' leaves near-duplicates out of the result.",
+                      "type": "string",
+                      "enum": ["off", "mark", "drop"],
+                      "default": "%s"
+                    },
+                    "near_duplicate_threshold": {
+                      "description": "Minimum estimated Jaccard similarity of word shingles for a chunk to count as a near-duplicate. Values below about 0.6 may miss some pairs.",
+                      "type": "number",
+                      "exclusiveMinimum": 0,
+                      "maximum": 1,
+                      "default": %s
                     }
                   },
                   "required": [
@@ -123,7 +278,12 @@ public record ChunkerOptions(
                 DEFAULT_CHUNK_CONFIG_ID,
                 DEFAULT_RESULT_SET_NAME_TEMPLATE.replace("%", "%%"),
                 DEFAULT_LOG_PREFIX,
-                DEFAULT_PRESERVE_URLS
+                DEFAULT_PRESERVE_URLS,
+                DEFAULT_PARALLEL,
+                DEFAULT_CHUNK_UNIT,
+                DEFAULT_STRATEGY,
+                DEFAULT_NEAR_DUPLICATES,
+                DEFAULT_NEAR_DUPLICATE_THRESHOLD
         );
     }
 }
\ No newline at end of file
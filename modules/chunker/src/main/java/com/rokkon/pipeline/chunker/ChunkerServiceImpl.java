@@ -5,6 +5,7 @@ import com.google.protobuf.Empty;
 import com.google.protobuf.Struct;
 import com.google.protobuf.util.JsonFormat;
 import com.rokkon.search.model.*;
+import com.rokkon.pipeline.util.ChunkMetadataKeys;
 import com.rokkon.pipeline.util.ProcessingBuffer;
 import com.rokkon.search.sdk.*;
 import com.rokkon.search.sdk.RegistrationRequest;
@@ -15,9 +16,15 @@ import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.jboss.logging.Logger;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.IntConsumer;
 
 /**
  * Chunker gRPC service implementation using Quarkus reactive patterns with Mutiny.
@@ -34,7 +41,7 @@ public class ChunkerServiceImpl implements PipeStepProcessor {
     ObjectMapper objectMapper;
 
     @Inject
-    OverlapChunker overlapChunker;
+    ChunkingStrategies chunkingStrategies;
 
     @Inject
     ChunkMetadataExtractor metadataExtractor;
@@ -42,6 +49,15 @@ public class ChunkerServiceImpl implements PipeStepProcessor {
     @Inject
     ProcessingBuffer<PipeDoc> outputBuffer;
 
+    @Inject
+    ParallelChunkingExecutor parallelExecutor;
+
+    @Inject
+    ModelTokenizerRegistry tokenizerRegistry;
+
+    @Inject
+    NearDuplicateIndex nearDuplicateIndex;
+
     @Override
     public Uni<ProcessResponse> processData(ProcessRequest request) {
         if (request == null) {
@@ -162,72 +178,52 @@ public class ChunkerServiceImpl implements PipeStepProcessor {
                     chunkerOptions = new ChunkerOptions();
                 }
 
-                if (chunkerOptions.sourceField() == null || chunkerOptions.sourceField().isEmpty()) {
-                    return createErrorResponse("Missing 'source_field' in ChunkerOptions", null);
-                }
-
-                // Create chunks
-                ChunkingResult chunkingResult = overlapChunker.createChunks(inputDoc, chunkerOptions, streamId, pipeStepName);
-                List<Chunk> chunkRecords = chunkingResult.chunks();
-
-                if (!chunkRecords.isEmpty()) {
-                    Map<String, String> placeholderToUrlMap = chunkingResult.placeholderToUrlMap();
-                    SemanticProcessingResult.Builder newSemanticResultBuilder = SemanticProcessingResult.newBuilder()
-                            .setResultId(UUID.randomUUID().toString())
-                            .setSourceFieldName(chunkerOptions.sourceField())
-                            .setChunkConfigId(chunkerOptions.chunkConfigId());
-
-                    String resultSetName = String.format(
-                            chunkerOptions.resultSetNameTemplate(),
-                            pipeStepName,
-                            chunkerOptions.chunkConfigId()
-                    ).replaceAll("[^a-zA-Z0-9_\\-]", "_");
-                    newSemanticResultBuilder.setResultSetName(resultSetName);
-
-                    int currentChunkNumber = 0;
-                    for (Chunk chunkRecord : chunkRecords) {
-                        // Sanitize the chunk text to ensure valid UTF-8
-                        String sanitizedText = UnicodeSanitizer.sanitizeInvalidUnicode(chunkRecord.text());
-
-                        ChunkEmbedding.Builder chunkEmbeddingBuilder = ChunkEmbedding.newBuilder()
-                                .setTextContent(sanitizedText)
-                                .setChunkId(chunkRecord.id())
-                                .setOriginalCharStartOffset(chunkRecord.originalIndexStart())
-                                .setOriginalCharEndOffset(chunkRecord.originalIndexEnd())
-                                .setChunkConfigId(chunkerOptions.chunkConfigId());
-
-                        boolean containsUrlPlaceholder = (chunkerOptions.preserveUrls() != null && chunkerOptions.preserveUrls()) &&
-                                !placeholderToUrlMap.isEmpty() &&
-                                placeholderToUrlMap.keySet().stream().anyMatch(ph -> chunkRecord.text().contains(ph));
-
-                        Map<String, com.google.protobuf.Value> extractedMetadata = metadataExtractor.extractAllMetadata(
-                                sanitizedText,
-                                currentChunkNumber,
-                                chunkRecords.size(),
-                                containsUrlPlaceholder
-                        );
-
-                        SemanticChunk.Builder semanticChunkBuilder = SemanticChunk.newBuilder()
-                                .setChunkId(chunkRecord.id())
-                                .setChunkNumber(currentChunkNumber)
-                                .setEmbeddingInfo(chunkEmbeddingBuilder.build())
-                                .putAllMetadata(extractedMetadata);
-
-                        newSemanticResultBuilder.addChunks(semanticChunkBuilder.build());
-                        currentChunkNumber++;
+                List<ChunkerOptions> chunkConfigs = chunkerOptions.resolveChunkConfigs();
+                Set<String> chunkConfigIds = new HashSet<>();
+                for (ChunkerOptions configOptions : chunkConfigs) {
+                    if (configOptions.sourceField() == null || configOptions.sourceField().isEmpty()) {
+                        return createErrorResponse("Missing 'source_field' in ChunkerOptions", null);
+                    }
+                    if (configOptions.isTokenBased() && (configOptions.tokenizer() == null || configOptions.tokenizer().isBlank())) {
+                        return createErrorResponse("Missing 'tokenizer' in ChunkerOptions; it is required when 'chunk_unit' is 'tokens'", null);
                     }
-                    outputDocBuilder.addSemanticResults(newSemanticResultBuilder.build());
+                    if (!chunkingStrategies.names().contains(configOptions.strategy())) {
+                        return createErrorResponse("Unknown 'strategy' in ChunkerOptions: " + configOptions.strategy()
+                                + ". Available strategies: " + chunkingStrategies.names(), null);
+                    }
+                    if (!chunkConfigIds.add(configOptions.chunkConfigId())) {
+                        return createErrorResponse("Duplicate 'chunk_config_id' in ChunkerOptions: " + configOptions.chunkConfigId(), null);
+                    }
+                    if (!configOptions.detectsNearDuplicates()
+                            && !ChunkerOptions.NEAR_DUPLICATES_OFF.equals(configOptions.nearDuplicates())) {
+                        return createErrorResponse("Unknown 'near_duplicates' in ChunkerOptions: " + configOptions.nearDuplicates()
+                                + ". Expected off, mark or drop", null);
+                    }
+                    if (!(configOptions.nearDuplicateThreshold() > 0 && configOptions.nearDuplicateThreshold() <= 1)) {
+                        return createErrorResponse("Invalid 'near_duplicate_threshold' in ChunkerOptions: "
+                                + configOptions.nearDuplicateThreshold() + ". Expected a value in (0, 1]", null);
+                    }
+                }
 
-                    String successMessage = isTest ? 
-                        String.format("%s%sSuccessfully created and added metadata to %d chunks for testing. Chunker service validated successfully.",
-                            logPrefix, chunkerOptions.logPrefix(), chunkRecords.size()) :
-                        String.format("%s%sSuccessfully created and added metadata to %d chunks from source field '%s' into result set '%s'. Chunker service successfully processed document.",
-                            logPrefix, chunkerOptions.logPrefix(), chunkRecords.size(), chunkerOptions.sourceField(), resultSetName);
+                // A re-processed or revised document must not be matched against its own earlier chunks
+                if (!isTest && chunkConfigs.stream().anyMatch(ChunkerOptions::detectsNearDuplicates)) {
+                    nearDuplicateIndex.forgetDocument(inputDoc.getId());
+                }
 
-                    responseBuilder.addProcessorLogs(successMessage);
-                } else {
-                    responseBuilder.addProcessorLogs(String.format("%s%sNo content in '%s' to chunk for document ID: %s",
-                            logPrefix, chunkerOptions.logPrefix(), chunkerOptions.sourceField(), inputDoc.getId()));
+                // Each source field is extracted once and its tokenization is shared by every config chunking it
+                Map<String, Optional<String>> textByField = new HashMap<>();
+                Map<String, TextAnalysisCache> analysisByField = new HashMap<>();
+                for (ChunkerOptions configOptions : chunkConfigs) {
+                    String sourceField = configOptions.sourceField();
+                    Optional<String> text = textByField.computeIfAbsent(sourceField,
+                            field -> SourceTextExtractor.prepareText(inputDoc, field, streamId, pipeStepName));
+                    ChunkingResult chunkingResult = text.isEmpty()
+                            ? new ChunkingResult(List.of(), Map.of())
+                            : chunkingStrategies.chunkText(text.get(), configOptions, new ChunkingContext(
+                                    streamId, inputDoc.getId(), pipeStepName, sourceField,
+                                    analysisByField.computeIfAbsent(sourceField, field -> new TextAnalysisCache())));
+                    responseBuilder.addProcessorLogs(addSemanticResult(outputDocBuilder, inputDoc, chunkingResult,
+                            configOptions, pipeStepName, logPrefix, isTest));
                 }
 
                 responseBuilder.setSuccess(true);
@@ -249,6 +245,150 @@ public class ChunkerServiceImpl implements PipeStepProcessor {
         });
     }
 
+    /**
+     * Adds the semantic result for one chunking config to the output document.
+     *
+     * @return The processor log line for this config
+     */
+    private String addSemanticResult(PipeDoc.Builder outputDocBuilder, PipeDoc inputDoc, ChunkingResult chunkingResult,
+                                     ChunkerOptions chunkerOptions, String pipeStepName, String logPrefix, boolean isTest) {
+        List<Chunk> chunkRecords = chunkingResult.chunks();
+        if (chunkRecords.isEmpty()) {
+            return String.format("%s%sNo content in '%s' to chunk for document ID: %s",
+                    logPrefix, chunkerOptions.logPrefix(), chunkerOptions.sourceField(), inputDoc.getId());
+        }
+
+        Map<String, String> placeholderToUrlMap = chunkingResult.placeholderToUrlMap();
+        SemanticProcessingResult.Builder newSemanticResultBuilder = SemanticProcessingResult.newBuilder()
+                .setResultId(UUID.randomUUID().toString())
+                .setSourceFieldName(chunkerOptions.sourceField())
+                .setChunkConfigId(chunkerOptions.chunkConfigId());
+
+        String resultSetName = String.format(
+                chunkerOptions.resultSetNameTemplate(),
+                pipeStepName,
+                chunkerOptions.chunkConfigId()
+        ).replaceAll("[^a-zA-Z0-9_\\-]", "_");
+        newSemanticResultBuilder.setResultSetName(resultSetName);
+
+        Set<ChunkMetadataGroup> metadataGroups = ChunkMetadataGroup.parse(chunkerOptions.metadataGroups());
+        SemanticChunk[] semanticChunks = new SemanticChunk[chunkRecords.size()];
+        int[][] signatures = chunkerOptions.detectsNearDuplicates() ? new int[semanticChunks.length][] : null;
+        IntConsumer chunkBuilder = chunkNumber -> {
+            semanticChunks[chunkNumber] = buildSemanticChunk(chunkRecords.get(chunkNumber), chunkNumber,
+                    chunkRecords.size(), chunkerOptions, placeholderToUrlMap, metadataGroups);
+            if (signatures != null) {
+                signatures[chunkNumber] = nearDuplicateIndex.signature(
+                        semanticChunks[chunkNumber].getEmbeddingInfo().getTextContent());
+            }
+        };
+        if (chunkerOptions.parallel() && parallelExecutor.shouldProcessChunksInParallel(semanticChunks.length)) {
+            // Each chunk's metadata is independent; results land at their own index so order is preserved
+            parallelExecutor.forEachIndex(semanticChunks.length, chunkBuilder);
+        } else {
+            for (int i = 0; i < semanticChunks.length; i++) {
+                chunkBuilder.accept(i);
+            }
+        }
+        int nearDuplicates = 0;
+        if (signatures != null) {
+            nearDuplicates = addUniqueChunks(newSemanticResultBuilder, semanticChunks, signatures, inputDoc.getId(),
+                    chunkerOptions, isTest);
+        } else {
+            newSemanticResultBuilder.addAllChunks(Arrays.asList(semanticChunks));
+        }
+        outputDocBuilder.addSemanticResults(newSemanticResultBuilder.build());
+
+        String nearDuplicateNote = nearDuplicates == 0 ? "" : String.format(" %d near-duplicate chunks were %s.",
+                nearDuplicates, ChunkerOptions.NEAR_DUPLICATES_DROP.equals(chunkerOptions.nearDuplicates()) ? "dropped" : "marked");
+        return (isTest ?
+            String.format("%s%sSuccessfully created and added metadata to %d chunks for testing. Chunker service validated successfully.",
+                logPrefix, chunkerOptions.logPrefix(), chunkRecords.size()) :
+            String.format("%s%sSuccessfully created and added metadata to %d chunks from source field '%s' into result set '%s'. Chunker service successfully processed document.",
+                logPrefix, chunkerOptions.logPrefix(), chunkRecords.size(), chunkerOptions.sourceField(), resultSetName))
+            + nearDuplicateNote;
+    }
+
+    /**
+     * Checks each chunk, in order, against the near-duplicate index and adds it to the result: unchanged if
+     * unique, with near_duplicate_of / near_duplicate_similarity metadata in mark mode, or not at all in
+     * drop mode. Unique chunks become canonical for later ones, except in test mode, which leaves the
+     * index untouched.
+     *
+     * @return The number of near-duplicate chunks found
+     */
+    private int addUniqueChunks(SemanticProcessingResult.Builder resultBuilder, SemanticChunk[] semanticChunks,
+                                int[][] signatures, String documentId, ChunkerOptions chunkerOptions, boolean isTest) {
+        boolean drop = ChunkerOptions.NEAR_DUPLICATES_DROP.equals(chunkerOptions.nearDuplicates());
+        int nearDuplicates = 0;
+        for (int i = 0; i < semanticChunks.length; i++) {
+            NearDuplicateIndex.Match match = nearDuplicateIndex.findOrAdd(documentId, chunkerOptions.chunkConfigId(),
+                    semanticChunks[i].getChunkId(), signatures[i], chunkerOptions.nearDuplicateThreshold(), !isTest);
+            if (match == null) {
+                resultBuilder.addChunks(semanticChunks[i]);
+                continue;
+            }
+            nearDuplicates++;
+            if (!drop) {
+                resultBuilder.addChunks(semanticChunks[i].toBuilder()
+                        .putMetadata(ChunkMetadataKeys.NEAR_DUPLICATE_OF,
+                                com.google.protobuf.Value.newBuilder().setStringValue(match.canonicalChunkId()).build())
+                        .putMetadata(ChunkMetadataKeys.NEAR_DUPLICATE_SIMILARITY,
+                                com.google.protobuf.Value.newBuilder().setNumberValue(match.similarity()).build())
+                        .build());
+            }
+        }
+        if (nearDuplicates > 0) {
+            LOG.debugf("%d of %d chunks of document %s (config %s) are near-duplicates", nearDuplicates,
+                    semanticChunks.length, documentId, chunkerOptions.chunkConfigId());
+        }
+        return nearDuplicates;
+    }
+
+    private SemanticChunk buildSemanticChunk(Chunk chunkRecord, int chunkNumber, int totalChunks,
+                                             ChunkerOptions chunkerOptions, Map<String, String> placeholderToUrlMap,
+                                             Set<ChunkMetadataGroup> metadataGroups) {
+        // Sanitize the chunk text to ensure valid UTF-8
+        String sanitizedText = UnicodeSanitizer.sanitizeInvalidUnicode(chunkRecord.text());
+
+        ChunkEmbedding.Builder chunkEmbeddingBuilder = ChunkEmbedding.newBuilder()
+                .setTextContent(sanitizedText)
+                .setChunkId(chunkRecord.id())
+                .setOriginalCharStartOffset(chunkRecord.originalIndexStart())
+                .setOriginalCharEndOffset(chunkRecord.originalIndexEnd())
+                .setChunkConfigId(chunkerOptions.chunkConfigId());
+
+        boolean containsUrlPlaceholder = (chunkerOptions.preserveUrls() != null && chunkerOptions.preserveUrls()) &&
+                !placeholderToUrlMap.isEmpty() &&
+                placeholderToUrlMap.keySet().stream().anyMatch(ph -> chunkRecord.text().contains(ph));
+
+        Map<String, com.google.protobuf.Value> extractedMetadata = metadataExtractor.extractMetadata(
+                sanitizedText,
+                chunkNumber,
+                totalChunks,
+                containsUrlPlaceholder,
+                metadataGroups
+        );
+
+        SemanticChunk.Builder semanticChunkBuilder = SemanticChunk.newBuilder()
+                .setChunkId(chunkRecord.id())
+                .setChunkNumber(chunkNumber)
+                .setEmbeddingInfo(chunkEmbeddingBuilder.build())
+                .putAllMetadata(extractedMetadata);
+
+        // Report model token counts so downstream embedders can see how full each chunk is
+        int tokenCount = chunkRecord.tokenCount();
+        if (tokenCount == Chunk.UNKNOWN_TOKEN_COUNT && chunkerOptions.tokenizer() != null) {
+            tokenCount = tokenizerRegistry.countTokens(chunkerOptions.tokenizer(), sanitizedText);
+        }
+        if (tokenCount != Chunk.UNKNOWN_TOKEN_COUNT) {
+            semanticChunkBuilder.putMetadata("token_count",
+                    com.google.protobuf.Value.newBuilder().setNumberValue(tokenCount).build());
+        }
+
+        return semanticChunkBuilder.build();
+    }
+
     private ProcessResponse createErrorResponse(String errorMessage, Exception e) {
         ProcessResponse.Builder responseBuilder = ProcessResponse.newBuilder();
         responseBuilder.setSuccess(false);
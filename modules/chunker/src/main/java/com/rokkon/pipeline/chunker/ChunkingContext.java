@@ -0,0 +1,26 @@
+package com.rokkon.pipeline.chunker;
+
+/**
+ * Record describing where the text being chunked came from, used for chunk ID generation and logging.
+ *
+ * @param streamId Stream ID for logging and chunk ID generation
+ * @param documentId ID of the document the text belongs to
+ * @param pipeStepName Pipeline step name for logging
+ * @param sourceField Field path the text was extracted from
+ * @param analysis Tokenization and sentence detection shared by all configs chunking this field
+ */
+public record ChunkingContext(
+    String streamId,
+    String documentId,
+    String pipeStepName,
+    String sourceField,
+    TextAnalysisCache analysis
+) {
+
+    /**
+     * Creates a context with its own, unshared analysis cache.
+     */
+    public ChunkingContext(String streamId, String documentId, String pipeStepName, String sourceField) {
+        this(streamId, documentId, pipeStepName, sourceField, new TextAnalysisCache());
+    }
+}
@@ -0,0 +1,80 @@
+package com.rokkon.pipeline.chunker;
+
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.jboss.logging.Logger;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Registry of the available {@link ChunkingStrategy} beans, keyed by name. Strategies are
+ * discovered through CDI, so adding a new strategy only requires a new bean.
+ */
+@Singleton
+public class ChunkingStrategies {
+
+    private static final Logger LOG = Logger.getLogger(ChunkingStrategies.class);
+
+    private final Map<String, ChunkingStrategy> strategies;
+
+    @Inject
+    public ChunkingStrategies(Instance<ChunkingStrategy> strategyInstances) {
+        this.strategies = index(strategyInstances);
+    }
+
+    ChunkingStrategies(List<ChunkingStrategy> strategyList) {
+        this.strategies = index(strategyList);
+    }
+
+    private static Map<String, ChunkingStrategy> index(Iterable<ChunkingStrategy> strategyList) {
+        Map<String, ChunkingStrategy> byName = new TreeMap<>();
+        for (ChunkingStrategy strategy : strategyList) {
+            ChunkingStrategy previous = byName.put(strategy.getName(), strategy);
+            if (previous != null) {
+                throw new IllegalStateException("Duplicate chunking strategy name: " + strategy.getName());
+            }
+        }
+        LOG.infof("Registered chunking strategies: %s", byName.keySet());
+        return Collections.unmodifiableMap(byName);
+    }
+
+    /**
+     * @return The names of all registered strategies
+     */
+    public Set<String> names() {
+        return strategies.keySet();
+    }
+
+    /**
+     * Gets a strategy by name.
+     *
+     * @param name Strategy name, e.g. "overlap"
+     * @return The strategy
+     * @throws IllegalArgumentException if no strategy has that name
+     */
+    public ChunkingStrategy get(String name) {
+        ChunkingStrategy strategy = strategies.get(name);
+        if (strategy == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Unknown chunking strategy '%s'. Available strategies: %s", name, strategies.keySet()));
+        }
+        return strategy;
+    }
+
+    /**
+     * Chunks already extracted text with the strategy selected in the options.
+     *
+     * @param text The text to chunk
+     * @param options Chunking options, including the strategy name
+     * @param context Where the text came from, and the analysis shared with other configs on the same field
+     * @return The chunking result
+     */
+    public ChunkingResult chunkText(String text, ChunkerOptions options, ChunkingContext context) {
+        return get(options.strategy()).chunkText(text, options, context);
+    }
+}
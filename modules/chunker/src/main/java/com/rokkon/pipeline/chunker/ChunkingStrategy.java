@@ -0,0 +1,27 @@
+package com.rokkon.pipeline.chunker;
+
+/**
+ * A way of splitting text into chunks. Implementations are CDI beans discovered by
+ * {@link ChunkingStrategies} and selected per request through {@link ChunkerOptions#strategy()}.
+ * The text passed in has already been extracted from the document, sanitized and size-limited.
+ */
+public interface ChunkingStrategy {
+
+    /**
+     * Gets the name used to select this strategy in the chunker configuration.
+     *
+     * @return the strategy name
+     */
+    String getName();
+
+    /**
+     * Splits the text into chunks. Chunk offsets are relative to the given text and chunk IDs
+     * are generated from {@link ChunkerOptions#chunkIdTemplate()} with a 0-based index.
+     *
+     * @param text The text to chunk
+     * @param options Chunking configuration options
+     * @param context Where the text came from
+     * @return ChunkingResult containing the created chunks
+     */
+    ChunkingResult chunkText(String text, ChunkerOptions options, ChunkingContext context);
+}
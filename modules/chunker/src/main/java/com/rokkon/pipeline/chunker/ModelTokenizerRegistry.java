@@ -0,0 +1,122 @@
+package com.rokkon.pipeline.chunker;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads and caches HuggingFace tokenizers from local {@code tokenizer.json} files so chunk sizes can be
+ * measured in the same tokens the embedding model sees. Tokenizers are never downloaded; a tokenizer
+ * name is resolved, in order, as:
+ * <ol>
+ *   <li>an existing file path (e.g. {@code /models/minilm/tokenizer.json})</li>
+ *   <li>{@code <chunker.tokenizers.directory>/<name>/tokenizer.json}</li>
+ *   <li>{@code <chunker.tokenizers.directory>/<name>.json}</li>
+ * </ol>
+ */
+@Singleton
+public class ModelTokenizerRegistry {
+
+    private static final Logger LOG = Logger.getLogger(ModelTokenizerRegistry.class);
+    private static final String TOKENIZER_FILE_NAME = "tokenizer.json";
+
+    private final Path tokenizerDirectory;
+    private final Map<String, HuggingFaceTokenizer> tokenizers = new ConcurrentHashMap<>();
+
+    @Inject
+    public ModelTokenizerRegistry(
+            @ConfigProperty(name = "chunker.tokenizers.directory", defaultValue = "models/tokenizers") String tokenizerDirectory) {
+        this.tokenizerDirectory = Paths.get(tokenizerDirectory);
+    }
+
+    /**
+     * Tokenizes the text without special tokens, truncation or padding.
+     *
+     * @param tokenizerName Tokenizer name or path
+     * @param text Text to tokenize
+     * @return The encoding, including the character span of each token
+     * @throws IllegalArgumentException if the tokenizer cannot be found locally
+     */
+    public Encoding encode(String tokenizerName, String text) {
+        return getTokenizer(tokenizerName).encode(text);
+    }
+
+    /**
+     * Counts the model tokens in the text, excluding special tokens.
+     *
+     * @param tokenizerName Tokenizer name or path
+     * @param text Text to measure
+     * @return The number of tokens
+     */
+    public int countTokens(String tokenizerName, String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encode(tokenizerName, text).getIds().length;
+    }
+
+    /**
+     * Gets (loading on first use) the tokenizer for the given name.
+     *
+     * @param tokenizerName Tokenizer name or path
+     * @return The loaded tokenizer
+     * @throws IllegalArgumentException if the tokenizer cannot be found locally
+     */
+    public HuggingFaceTokenizer getTokenizer(String tokenizerName) {
+        if (tokenizerName == null || tokenizerName.isBlank()) {
+            throw new IllegalArgumentException("A tokenizer name is required for token-based chunking");
+        }
+        return tokenizers.computeIfAbsent(tokenizerName, this::loadTokenizer);
+    }
+
+    private HuggingFaceTokenizer loadTokenizer(String tokenizerName) {
+        Path tokenizerPath = resolveTokenizerPath(tokenizerName);
+        try {
+            HuggingFaceTokenizer tokenizer = HuggingFaceTokenizer.builder()
+                    .optTokenizerPath(tokenizerPath)
+                    .optAddSpecialTokens(false)
+                    .optTruncation(false)
+                    .optPadding(false)
+                    .build();
+            LOG.infof("Loaded tokenizer '%s' from %s", tokenizerName, tokenizerPath);
+            return tokenizer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load tokenizer '" + tokenizerName + "' from " + tokenizerPath, e);
+        }
+    }
+
+    private Path resolveTokenizerPath(String tokenizerName) {
+        Path direct = Paths.get(tokenizerName);
+        if (Files.isRegularFile(direct)) {
+            return direct;
+        }
+        Path inDirectory = tokenizerDirectory.resolve(tokenizerName).resolve(TOKENIZER_FILE_NAME);
+        if (Files.isRegularFile(inDirectory)) {
+            return inDirectory;
+        }
+        Path namedFile = tokenizerDirectory.resolve(tokenizerName + ".json");
+        if (Files.isRegularFile(namedFile)) {
+            return namedFile;
+        }
+        throw new IllegalArgumentException(String.format(
+                "Tokenizer '%s' not found. Looked for %s, %s and %s", tokenizerName, direct, inDirectory, namedFile));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        tokenizers.values().forEach(HuggingFaceTokenizer::close);
+        tokenizers.clear();
+    }
+}
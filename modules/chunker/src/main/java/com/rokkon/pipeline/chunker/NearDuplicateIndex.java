@@ -0,0 +1,277 @@
+package com.rokkon.pipeline.chunker;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded MinHash/LSH index of chunk fingerprints, shared by all requests, used to find chunks that are
+ * near-duplicates of chunks already seen (mirrored pages, revisions, boilerplate).
+ *
+ * <p>A chunk is fingerprinted by MinHash over its word shingles ({@link #signature(String)}); the estimated
+ * Jaccard similarity of two chunks is the fraction of equal signature slots. The signature is split into
+ * {@value #BANDS} bands of {@value #ROWS} rows and each band is hashed into a bucket, so only chunks sharing
+ * at least one bucket are compared. With these parameters chunks of similarity 0.6 or more are candidates
+ * with high probability; the similarity threshold itself is checked on the full signature.
+ *
+ * <p>Chunks are only compared within the same chunk config, since different chunkings of one text overlap
+ * by design. When a document is seen again its previous chunks are forgotten first, so a re-processed or
+ * revised document never duplicates its own earlier version. The index holds at most {@code maxEntries}
+ * chunks; the least recently matched or added ones are evicted first.
+ */
+@Singleton
+public class NearDuplicateIndex {
+
+    private static final Logger LOG = Logger.getLogger(NearDuplicateIndex.class);
+
+    static final int NUM_HASHES = 128;
+    static final int BANDS = 32;
+    static final int ROWS = NUM_HASHES / BANDS;
+
+    private static final long[] SEEDS = new long[NUM_HASHES];
+
+    static {
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            SEEDS[i] = seed;
+        }
+    }
+
+    /**
+     * A chunk already in the index that a new chunk nearly duplicates.
+     *
+     * @param canonicalChunkId ID of the first-seen chunk
+     * @param similarity Estimated Jaccard similarity of the two chunks' shingle sets
+     */
+    public record Match(String canonicalChunkId, double similarity) {
+    }
+
+    private final int maxEntries;
+    private final int shingleSize;
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, List<Entry>> buckets = new HashMap<>();
+    private final Map<String, List<Entry>> entriesByDocument = new HashMap<>();
+
+    @Inject
+    public NearDuplicateIndex(
+            @ConfigProperty(name = "chunker.dedup.max-entries", defaultValue = "100000") int maxEntries,
+            @ConfigProperty(name = "chunker.dedup.shingle-size", defaultValue = "3") int shingleSize) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.shingleSize = Math.max(1, shingleSize);
+        LOG.infof("Near-duplicate index created with up to %d entries, %d-word shingles, %d bands of %d rows",
+                this.maxEntries, this.shingleSize, BANDS, ROWS);
+    }
+
+    /**
+     * Computes the MinHash signature of a text over its lower-cased word shingles. Thread-safe and
+     * independent of the index state, so callers may compute signatures in parallel.
+     *
+     * @return The signature, or null if the text has no words
+     */
+    public int[] signature(String text) {
+        long[] words = new long[16];
+        int wordCount = 0;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (wordCount == words.length) {
+                    words = Arrays.copyOf(words, wordCount * 2);
+                }
+                words[wordCount++] = wordHash(text, start, i);
+                start = -1;
+            }
+        }
+        if (wordCount == 0) {
+            return null;
+        }
+
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int shingles = Math.max(1, wordCount - shingleSize + 1);
+        for (int s = 0; s < shingles; s++) {
+            long shingle = 0;
+            for (int w = s; w < Math.min(wordCount, s + shingleSize); w++) {
+                shingle = mix(shingle * 31 + words[w]);
+            }
+            for (int h = 0; h < NUM_HASHES; h++) {
+                // Compare as unsigned by dropping the sign bit
+                int value = (int) (mix(shingle ^ SEEDS[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Drops all chunks previously indexed for a document.
+     */
+    public synchronized void forgetDocument(String documentId) {
+        List<Entry> documentEntries = entriesByDocument.remove(documentId);
+        if (documentEntries != null) {
+            for (Entry entry : documentEntries) {
+                entries.remove(entry.chunkId);
+                removeFromBuckets(entry);
+            }
+        }
+    }
+
+    /**
+     * Looks for an indexed chunk of the same chunk config that the given chunk nearly duplicates.
+     * A chunk that is not a duplicate becomes a candidate canonical chunk if {@code register} is set.
+     *
+     * @param documentId Document the chunk belongs to
+     * @param chunkConfigId Chunk config that produced the chunk
+     * @param chunkId ID of the chunk
+     * @param signature Signature from {@link #signature(String)}; null never matches
+     * @param threshold Minimum estimated similarity, in (0, 1]
+     * @param register Whether to add a unique chunk to the index
+     * @return The best matching canonical chunk, or null if the chunk is unique
+     */
+    public synchronized Match findOrAdd(String documentId, String chunkConfigId, String chunkId, int[] signature,
+                                        double threshold, boolean register) {
+        if (signature == null) {
+            return null;
+        }
+        long[] bandKeys = bandKeys(chunkConfigId, signature);
+        Entry best = null;
+        int bestEqual = -1;
+        for (long bandKey : bandKeys) {
+            List<Entry> bucket = buckets.get(bandKey);
+            if (bucket == null) {
+                continue;
+            }
+            for (Entry candidate : bucket) {
+                if (candidate == best || candidate.chunkId.equals(chunkId)) {
+                    continue;
+                }
+                int equal = equalSlots(signature, candidate.signature);
+                if (equal > bestEqual) {
+                    best = candidate;
+                    bestEqual = equal;
+                }
+            }
+        }
+        if (best != null) {
+            double similarity = (double) bestEqual / NUM_HASHES;
+            if (similarity >= threshold) {
+                // Keep frequently matched canonical chunks from being evicted
+                entries.get(best.chunkId);
+                return new Match(best.chunkId, similarity);
+            }
+        }
+        if (register && !entries.containsKey(chunkId)) {
+            add(new Entry(chunkId, documentId, signature, bandKeys));
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of chunks in the index
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void add(Entry entry) {
+        entries.put(entry.chunkId, entry);
+        entriesByDocument.computeIfAbsent(entry.documentId, id -> new ArrayList<>()).add(entry);
+        for (long bandKey : entry.bandKeys) {
+            buckets.computeIfAbsent(bandKey, key -> new ArrayList<>(1)).add(entry);
+        }
+        if (entries.size() > maxEntries) {
+            Iterator<Entry> eldest = entries.values().iterator();
+            Entry evicted = eldest.next();
+            eldest.remove();
+            removeFromBuckets(evicted);
+            List<Entry> documentEntries = entriesByDocument.get(evicted.documentId);
+            if (documentEntries != null) {
+                documentEntries.remove(evicted);
+                if (documentEntries.isEmpty()) {
+                    entriesByDocument.remove(evicted.documentId);
+                }
+            }
+        }
+    }
+
+    private void removeFromBuckets(Entry entry) {
+        for (long bandKey : entry.bandKeys) {
+            List<Entry> bucket = buckets.get(bandKey);
+            if (bucket != null) {
+                bucket.remove(entry);
+                if (bucket.isEmpty()) {
+                    buckets.remove(bandKey);
+                }
+            }
+        }
+    }
+
+    private static long[] bandKeys(String chunkConfigId, int[] signature) {
+        long configHash = mix(chunkConfigId != null ? chunkConfigId.hashCode() : 0);
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = mix(configHash + band);
+            for (int row = 0; row < ROWS; row++) {
+                key = mix(key * 31 + signature[band * ROWS + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    private static int equalSlots(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return equal;
+    }
+
+    private static long wordHash(String text, int start, int end) {
+        long hash = 1125899906842597L;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        return mix(hash);
+    }
+
+    /**
+     * SplitMix64 finalizer: a cheap, well-distributed 64-bit hash.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Entry {
+        final String chunkId;
+        final String documentId;
+        final int[] signature;
+        final long[] bandKeys;
+
+        Entry(String chunkId, String documentId, int[] signature, long[] bandKeys) {
+            this.chunkId = chunkId;
+            this.documentId = documentId;
+            this.signature = signature;
+            this.bandKeys = bandKeys;
+        }
+    }
+}
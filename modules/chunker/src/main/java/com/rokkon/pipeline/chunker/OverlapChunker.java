@@ -8,8 +8,8 @@ import opennlp.tools.tokenize.Tokenizer;
 import opennlp.tools.util.Span;
 import org.jboss.logging.Logger;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -17,6 +17,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.IntConsumer;
 
 /**
  * Core chunking implementation that breaks text into overlapping chunks.
@@ -24,22 +25,37 @@ import java.util.Map;
  * Supports URL preservation during chunking.
  */
 @Singleton
-public class OverlapChunker {
+public class OverlapChunker implements ChunkingStrategy {
 
     private static final Logger LOG = Logger.getLogger(OverlapChunker.class);
-    private static final long MAX_TEXT_BYTES = 100 * 1024 * 1024; // 100MB limit
+    public static final String STRATEGY_NAME = "overlap";
     private static final int MAX_CHUNKS_PER_DOCUMENT = 1000; // Limit chunks to prevent gRPC message size issues
     private final Tokenizer tokenizer;
+    private final ParallelChunkingExecutor parallelExecutor;
+    private final ModelTokenizerRegistry tokenizerRegistry;
 
     private static final Pattern URL_PATTERN = Pattern.compile(
             "\\b(?:https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]",
             Pattern.CASE_INSENSITIVE);
     private static final String URL_PLACEHOLDER_PREFIX = "__URL_PLACEHOLDER_";
     private static final String URL_PLACEHOLDER_SUFFIX = "__";
+    private static final int WORD_BOUNDARY_LOOKBACK = 16; // Max tokens to back off when looking for a word boundary
 
-    @Inject
+    /**
+     * Creates a chunker that always processes documents serially.
+     *
+     * @param tokenizer Tokenizer used to split the text
+     */
     public OverlapChunker(Tokenizer tokenizer) {
+        this(tokenizer, null, null);
+    }
+
+    @Inject
+    public OverlapChunker(Tokenizer tokenizer, ParallelChunkingExecutor parallelExecutor,
+                          ModelTokenizerRegistry tokenizerRegistry) {
         this.tokenizer = tokenizer;
+        this.parallelExecutor = parallelExecutor;
+        this.tokenizerRegistry = tokenizerRegistry;
     }
 
     /**
@@ -114,183 +130,109 @@ public class OverlapChunker {
     }
 
     /**
-     * Extracts text from a specific field in a PipeDoc.
-     * 
-     * @param document The PipeDoc to extract from
-     * @param fieldPath Path to the field (e.g., "body", "title")
-     * @return Optional containing the extracted text, or empty if not found
+     * Tokenizes the text in independent segments on the parallel pool and stitches the spans back
+     * together with their absolute offsets. Segments are cut at whitespace, which the tokenizer
+     * never includes in a token, so the result is identical to tokenizing the whole text at once.
+     *
+     * @param text Text to tokenize
+     * @return Token spans relative to the start of the text
      */
-    private Optional<String> extractTextFromPipeDoc(PipeDoc document, String fieldPath) {
-        if (document == null || fieldPath == null || fieldPath.isEmpty()) {
-            return Optional.empty();
+    private Span[] tokenizeInSegments(String text) {
+        List<int[]> segments = new ArrayList<>();
+        int segmentStart = 0;
+        while (segmentStart < text.length()) {
+            int segmentEnd = Math.min(text.length(), segmentStart + parallelExecutor.segmentSize());
+            while (segmentEnd < text.length() && !Character.isWhitespace(text.charAt(segmentEnd))) {
+                segmentEnd++;
+            }
+            segments.add(new int[]{segmentStart, segmentEnd});
+            segmentStart = segmentEnd;
         }
 
-        try {
-            // For now, only support the commonly used fields directly
-            switch (fieldPath.toLowerCase()) {
-                case "body":
-                    return document.hasBody() ? Optional.of(document.getBody()) : Optional.empty();
-                case "title":
-                    return document.hasTitle() ? Optional.of(document.getTitle()) : Optional.empty();
-                case "id":
-                    return Optional.of(document.getId());
-                default:
-                    LOG.warnf("Field '%s' is not supported. Only 'body', 'title', and 'id' are currently supported.", fieldPath);
-                    return Optional.empty();
+        Span[][] segmentSpans = new Span[segments.size()][];
+        parallelExecutor.forEachIndex(segments.size(), i -> {
+            int[] segment = segments.get(i);
+            Span[] localSpans = tokenizer.tokenizePos(text.substring(segment[0], segment[1]));
+            for (int j = 0; j < localSpans.length; j++) {
+                localSpans[j] = new Span(localSpans[j], segment[0]);
             }
+            segmentSpans[i] = localSpans;
+        });
+
+        int totalSpans = 0;
+        for (Span[] spans : segmentSpans) {
+            totalSpans += spans.length;
+        }
+        Span[] result = new Span[totalSpans];
+        int position = 0;
+        for (Span[] spans : segmentSpans) {
+            System.arraycopy(spans, 0, result, position, spans.length);
+            position += spans.length;
+        }
+        LOG.debugf("Tokenized %d characters in %d parallel segments into %d tokens", text.length(), segments.size(), totalSpans);
+        return result;
+    }
 
-        } catch (Exception e) {
-            LOG.errorf("Error extracting field '%s': %s", fieldPath, e.getMessage(), e);
-            return Optional.empty();
+    private String[] spansToStrings(Span[] tokenSpans, String text, boolean parallel) {
+        if (!parallel || !parallelExecutor.shouldProcessChunksInParallel(tokenSpans.length)) {
+            return Span.spansToStrings(tokenSpans, text);
         }
+        String[] tokens = new String[tokenSpans.length];
+        parallelExecutor.forEachIndex(tokenSpans.length, i -> tokens[i] = tokenSpans[i].getCoveredText(text).toString());
+        return tokens;
     }
 
     /**
-     * Main method to create chunks from a document.
-     * 
-     * @param document The PipeDoc to chunk
+     * Computes the [startToken, endToken) range of every chunk. This mirrors the length accounting
+     * of {@link #buildChunkText} exactly, so the ranges are the same ones the text builder would
+     * have stopped at.
+     *
+     * @param tokens Token strings of the processed text
+     * @param tokenSpans Character spans of the tokens in the processed text
      * @param options Chunking configuration options
-     * @param streamId Stream ID for logging and chunk ID generation
-     * @param pipeStepName Pipeline step name for logging
-     * @return ChunkingResult containing the created chunks and URL placeholder mappings
+     * @param placeholderToUrlMap Map of URL placeholders to their original URLs
+     * @return Ordered list of token ranges, one per chunk
      */
-    public ChunkingResult createChunks(PipeDoc document, ChunkerOptions options, String streamId, String pipeStepName) {
-        if (document == null) {
-            LOG.warnf("Input document is null. Cannot create chunks. streamId: %s, pipeStepName: %s", streamId, pipeStepName);
-            return new ChunkingResult(Collections.emptyList(), Collections.emptyMap()); // Return empty result
-        }
-        String documentId = document.getId();
-        String textFieldPath = options.sourceField();
-
-        Optional<String> textOptional = extractTextFromPipeDoc(document, textFieldPath);
-        if (textOptional.isEmpty() || textOptional.get().trim().isEmpty()) {
-            LOG.warnf("No text found or text is empty at path '%s'. No chunks will be created. streamId: %s, pipeStepName: %s", 
-                    textFieldPath, streamId, pipeStepName);
-            return new ChunkingResult(Collections.emptyList(), Collections.emptyMap()); // Return empty result
-        }
-        String originalText = textOptional.get();
-        
-        // Sanitize the text to ensure valid UTF-8 encoding before processing
-        originalText = UnicodeSanitizer.sanitizeInvalidUnicode(originalText);
-
-        // Handle MAX_TEXT_BYTES before URL processing to avoid issues with placeholder lengths
-        byte[] originalTextBytes = originalText.getBytes(StandardCharsets.UTF_8);
-        if (originalTextBytes.length > MAX_TEXT_BYTES) {
-            LOG.warnf("Original text from field '%s' exceeds MAX_TEXT_BYTES (%d bytes). Truncating. streamId: %s, pipeStepName: %s",
-                    textFieldPath, MAX_TEXT_BYTES, streamId, pipeStepName);
-            originalText = new String(originalTextBytes, 0, (int) MAX_TEXT_BYTES, StandardCharsets.UTF_8);
-        }
-
-        Map<String, String> placeholderToUrlMap = new HashMap<>();
-        List<Span> originalUrlSpans = new ArrayList<>(); // To store original URL positions
-        String textToProcess = originalText;
-
-        if (options.preserveUrls() != null && options.preserveUrls()) {
-            textToProcess = transformURLsToPlaceholders(originalText, placeholderToUrlMap, originalUrlSpans);
-            LOG.debugf("Text after URL placeholder replacement: %s", textToProcess);
-        }
-
-        Span[] tokenSpans = tokenizer.tokenizePos(textToProcess); // Get tokens with their character spans
-        String[] tokens = Span.spansToStrings(tokenSpans, textToProcess);
-
-        if (tokens.length == 0) {
-            LOG.infof("No tokens found after tokenization for document part from field '%s'. streamId: %s, pipeStepName: %s", 
-                    textFieldPath, streamId, pipeStepName);
-            return new ChunkingResult(Collections.emptyList(), placeholderToUrlMap); // Return empty chunks but include map
-        }
-
-        LOG.infof("Creating chunks with target character size: %d, character overlap: %d, for document ID: %s, streamId: %s, pipeStepName: %s",
-                options.chunkSize(), options.chunkOverlap(), documentId, streamId, pipeStepName);
-
-        List<Chunk> chunks = new ArrayList<>();
-        int chunkIndex = 0;
+    private List<int[]> computeChunkBoundaries(String[] tokens, Span[] tokenSpans, ChunkerOptions options,
+                                               Map<String, String> placeholderToUrlMap) {
+        boolean preserveUrls = options.preserveUrls() != null && options.preserveUrls();
+        List<int[]> boundaries = new ArrayList<>();
         int currentTokenStartIndex = 0;
 
         while (currentTokenStartIndex < tokens.length) {
             int currentTokenEndIndex = currentTokenStartIndex;
-            StringBuilder currentChunkTextBuilder = new StringBuilder();
-
-            // Determine the actual start character offset of the first token in this chunk
-            int chunkStartCharOffsetInProcessedText = tokenSpans[currentTokenStartIndex].getStart();
-
+            int currentLength = 0;
+            char lastChar = 0;
             boolean firstTokenInChunk = true; // Flag to avoid leading space
 
             while (currentTokenEndIndex < tokens.length) {
                 String tokenText = tokens[currentTokenEndIndex];
                 int tokenCharLength = tokenText.length();
                 boolean isPlaceholder = tokenText.startsWith(URL_PLACEHOLDER_PREFIX) && tokenText.endsWith(URL_PLACEHOLDER_SUFFIX);
-
-                int potentialLength = currentChunkTextBuilder.length() + (currentChunkTextBuilder.length() > 0 ? 1 : 0) + tokenCharLength;
-                if (isPlaceholder && (options.preserveUrls() != null && options.preserveUrls())) {
+                if (isPlaceholder && preserveUrls) {
                     String originalUrl = placeholderToUrlMap.get(tokenText);
                     if (originalUrl != null) {
-                        potentialLength = currentChunkTextBuilder.length() + (currentChunkTextBuilder.length() > 0 ? 1 : 0) + originalUrl.length();
+                        tokenCharLength = originalUrl.length();
                     }
                 }
 
+                int potentialLength = currentLength + (currentLength > 0 ? 1 : 0) + tokenCharLength;
                 if (!firstTokenInChunk && potentialLength > options.chunkSize()) { // Check length before adding if not the first token
                     break;
                 }
 
-                if (!firstTokenInChunk) {
-                    // Smart spacing: Don't add a space if the current token is punctuation
-                    // that typically doesn't have a preceding space, or if the previous token
-                    // was an opening bracket, etc.
-                    if (!(tokenText.length() == 1 && ".?!,:;)]}".contains(tokenText))) {
-                        // Also, don't add a space if the previous token ended with something like an opening quote or bracket
-                        if (currentChunkTextBuilder.length() > 0) {
-                            char lastCharOfPrevious = currentChunkTextBuilder.charAt(currentChunkTextBuilder.length() - 1);
-                            if (!"([{".contains(String.valueOf(lastCharOfPrevious))) {
-                                currentChunkTextBuilder.append(" ");
-                            }
-                        } else {
-                            currentChunkTextBuilder.append(" "); // Should not happen if firstTokenInChunk is true
-                        }
-                    }
+                if (!firstTokenInChunk && needsSpaceBefore(tokenText, lastChar)) {
+                    currentLength++;
+                }
+                currentLength += tokenText.length();
+                if (!tokenText.isEmpty()) {
+                    lastChar = tokenText.charAt(tokenText.length() - 1);
                 }
-                currentChunkTextBuilder.append(tokenText);
                 firstTokenInChunk = false; // No longer the first token after one is appended
                 currentTokenEndIndex++;
             }
 
-            if (currentChunkTextBuilder.length() == 0 && currentTokenEndIndex < tokens.length) {
-                // Handle cases where a single token might be larger than chunk_size
-                // or if we are at the very end with a small remaining token.
-                // For now, we'll just take the single token if the builder is empty.
-                currentChunkTextBuilder.append(tokens[currentTokenStartIndex]);
-                currentTokenEndIndex = currentTokenStartIndex + 1;
-            }
-
-            String chunkTextWithPlaceholders = currentChunkTextBuilder.toString().trim();
-            if (chunkTextWithPlaceholders.isEmpty()) {
-                if (currentTokenEndIndex >= tokens.length) break; // No more tokens to process
-                currentTokenStartIndex = currentTokenEndIndex; // Skip empty formation and advance
-                continue;
-            }
-
-            // Determine the actual end character offset of the last token in this chunk
-            int chunkEndCharOffsetInProcessedText = tokenSpans[currentTokenEndIndex - 1].getEnd();
-
-            String finalChunkText = chunkTextWithPlaceholders;
-            if (options.preserveUrls() != null && options.preserveUrls()) {
-                finalChunkText = restorePlaceholdersInChunk(chunkTextWithPlaceholders, placeholderToUrlMap);
-            }
-
-            // Calculate Original Offsets
-            int originalStartOffset = chunkStartCharOffsetInProcessedText;
-            int originalEndOffset = chunkEndCharOffsetInProcessedText - 1; // Span.getEnd() is exclusive
-
-            if (options.preserveUrls() != null && options.preserveUrls() && !placeholderToUrlMap.isEmpty()) {
-                // Placeholder for accurate offset recalculation logic
-                // This would involve iterating through originalUrlSpans and adjusting offsets
-                // based on whether the chunk's span in processedText overlaps with placeholder spans.
-                // For now, we'll use the processed text offsets, which will be inaccurate if URLs were replaced.
-                LOG.warnf("URL preservation is active, original character offsets for chunks might be approximate " +
-                         "due to placeholder substitutions. StreamID: %s, DocID: %s", streamId, documentId);
-            }
-
-            String chunkId = String.format(options.chunkIdTemplate(), streamId, documentId, chunkIndex++);
-            chunks.add(new Chunk(chunkId, finalChunkText, originalStartOffset, originalEndOffset));
+            boundaries.add(new int[]{currentTokenStartIndex, currentTokenEndIndex});
 
             // Determine next starting token for overlap
             if (currentTokenEndIndex >= tokens.length) {
@@ -298,11 +240,13 @@ public class OverlapChunker {
             }
 
             // Calculate overlap in terms of characters and find a suitable token to start next chunk
+            int chunkStartCharOffset = tokenSpans[currentTokenStartIndex].getStart();
+            int chunkEndCharOffset = tokenSpans[currentTokenEndIndex - 1].getEnd();
             int desiredOverlapChars = options.chunkOverlap();
-            int currentChunkLengthChars = chunkEndCharOffsetInProcessedText - chunkStartCharOffsetInProcessedText;
+            int currentChunkLengthChars = chunkEndCharOffset - chunkStartCharOffset;
             int stepBackChars = Math.max(0, currentChunkLengthChars - desiredOverlapChars);
 
-            int nextTokenStartCharTarget = chunkStartCharOffsetInProcessedText + stepBackChars;
+            int nextTokenStartCharTarget = chunkStartCharOffset + stepBackChars;
 
             int nextTokenCandidate = currentTokenStartIndex; // Start searching from the beginning of the current chunk
             for (int i = currentTokenStartIndex; i < currentTokenEndIndex; i++) {
@@ -318,10 +262,232 @@ public class OverlapChunker {
             // we must advance at least one token.
             currentTokenStartIndex = Math.max(currentTokenStartIndex + 1, nextTokenCandidate);
         }
+        return boundaries;
+    }
+
+    /**
+     * Smart spacing: Don't add a space if the current token is punctuation that typically
+     * doesn't have a preceding space, or if the previous token ended with an opening bracket.
+     */
+    private static boolean needsSpaceBefore(String tokenText, char lastCharOfPrevious) {
+        if (tokenText.length() == 1 && ".?!,:;)]}".indexOf(tokenText.charAt(0)) >= 0) {
+            return false;
+        }
+        return "([{".indexOf(lastCharOfPrevious) < 0;
+    }
+
+    /**
+     * Joins the tokens in [startToken, endToken) using the smart spacing rules.
+     */
+    private static String buildChunkText(String[] tokens, int startToken, int endToken) {
+        StringBuilder currentChunkTextBuilder = new StringBuilder();
+        for (int i = startToken; i < endToken; i++) {
+            String tokenText = tokens[i];
+            if (i > startToken && currentChunkTextBuilder.length() > 0
+                    && needsSpaceBefore(tokenText, currentChunkTextBuilder.charAt(currentChunkTextBuilder.length() - 1))) {
+                currentChunkTextBuilder.append(" ");
+            }
+            currentChunkTextBuilder.append(tokenText);
+        }
+        return currentChunkTextBuilder.toString().trim();
+    }
+
+    private Chunk materializeChunk(String[] tokens, Span[] tokenSpans, int startToken, int endToken, int chunkIndex,
+                                   ChunkerOptions options, Map<String, String> placeholderToUrlMap,
+                                   String streamId, String documentId) {
+        String finalChunkText = buildChunkText(tokens, startToken, endToken);
+        if (options.preserveUrls() != null && options.preserveUrls()) {
+            finalChunkText = restorePlaceholdersInChunk(finalChunkText, placeholderToUrlMap);
+        }
+
+        // Calculate Original Offsets
+        int originalStartOffset = tokenSpans[startToken].getStart();
+        int originalEndOffset = tokenSpans[endToken - 1].getEnd() - 1; // Span.getEnd() is exclusive
+
+        String chunkId = String.format(options.chunkIdTemplate(), streamId, documentId, chunkIndex);
+        return new Chunk(chunkId, finalChunkText, originalStartOffset, originalEndOffset);
+    }
+
+    /**
+     * Creates chunks whose size and overlap are measured in model tokens using the configured
+     * HuggingFace tokenizer. Each chunk holds at most chunk_size tokens; chunk ends (and overlap
+     * starts) are moved back to a word boundary when one exists within the last few tokens so that
+     * sub-word pieces are not split across chunks. Chunk text is the exact original text covered by
+     * the chunk's tokens. URL placeholders are not used in this mode because they would distort the
+     * token counts.
+     *
+     * @return ChunkingResult with chunks carrying their token counts
+     */
+    private ChunkingResult createTokenBudgetChunks(String text, ChunkerOptions options, ChunkingContext context) {
+        if (tokenizerRegistry == null) {
+            throw new IllegalStateException("Token-based chunking requires a ModelTokenizerRegistry");
+        }
+        String streamId = context.streamId();
+        String documentId = context.documentId();
+        String pipeStepName = context.pipeStepName();
+        String textFieldPath = context.sourceField();
+
+        TextAnalysisCache.TokenOffsets offsets = context.analysis().tokenOffsets(tokenizerRegistry, options.tokenizer(), text);
+        int[] starts = offsets.starts();
+        int[] ends = offsets.ends();
+        int tokenCount = offsets.size();
+
+        if (tokenCount == 0) {
+            LOG.infof("No model tokens found for document part from field '%s'. streamId: %s, pipeStepName: %s",
+                    textFieldPath, streamId, pipeStepName);
+            return new ChunkingResult(Collections.emptyList(), Collections.emptyMap());
+        }
+
+        int budget = options.chunkSize();
+        int overlap = Math.min(options.chunkOverlap(), budget - 1);
+        LOG.infof("Creating chunks with target token budget: %d, token overlap: %d, tokenizer: %s, for document ID: %s, streamId: %s, pipeStepName: %s",
+                budget, overlap, options.tokenizer(), documentId, streamId, pipeStepName);
+
+        List<Chunk> chunks = new ArrayList<>();
+        int chunkIndex = 0;
+        int startToken = 0;
+        while (startToken < tokenCount) {
+            int endToken = Math.min(tokenCount, startToken + budget);
+            if (endToken < tokenCount) {
+                endToken = findWordBoundary(starts, ends, startToken + 1, endToken);
+            }
+
+            String chunkId = String.format(options.chunkIdTemplate(), streamId, documentId, chunkIndex++);
+            chunks.add(new Chunk(chunkId, text.substring(starts[startToken], ends[endToken - 1]),
+                    starts[startToken], ends[endToken - 1] - 1, endToken - startToken));
+
+            if (endToken >= tokenCount) {
+                break;
+            }
+            int nextStart = overlap > 0 ? findWordBoundary(starts, ends, startToken + 1, endToken - overlap) : endToken;
+            // Ensure progress
+            startToken = Math.max(startToken + 1, Math.min(nextStart, endToken));
+        }
+
+        LOG.infof("Created %d token-budget chunks for document part from field '%s'. streamId: %s, pipeStepName: %s",
+                chunks.size(), textFieldPath, streamId, pipeStepName);
+        return new ChunkingResult(chunks, Collections.emptyMap());
+    }
+
+    /**
+     * Finds the largest token index in [lowest, candidate] that starts a new word (i.e. has a gap
+     * before it), looking back at most {@link #WORD_BOUNDARY_LOOKBACK} tokens. Falls back to the
+     * candidate itself when no boundary is found.
+     */
+    private static int findWordBoundary(int[] starts, int[] ends, int lowest, int candidate) {
+        int limit = Math.max(lowest, candidate - WORD_BOUNDARY_LOOKBACK);
+        for (int i = candidate; i >= limit; i--) {
+            if (i > 0 && starts[i] > ends[i - 1]) {
+                return i;
+            }
+        }
+        return candidate;
+    }
+
+    @Override
+    public String getName() {
+        return STRATEGY_NAME;
+    }
+
+    /**
+     * Main method to create chunks from a document.
+     * 
+     * @param document The PipeDoc to chunk
+     * @param options Chunking configuration options
+     * @param streamId Stream ID for logging and chunk ID generation
+     * @param pipeStepName Pipeline step name for logging
+     * @return ChunkingResult containing the created chunks and URL placeholder mappings
+     */
+    public ChunkingResult createChunks(PipeDoc document, ChunkerOptions options, String streamId, String pipeStepName) {
+        if (document == null) {
+            LOG.warnf("Input document is null. Cannot create chunks. streamId: %s, pipeStepName: %s", streamId, pipeStepName);
+            return new ChunkingResult(Collections.emptyList(), Collections.emptyMap()); // Return empty result
+        }
+        Optional<String> text = SourceTextExtractor.prepareText(document, options.sourceField(), streamId, pipeStepName);
+        if (text.isEmpty()) {
+            return new ChunkingResult(Collections.emptyList(), Collections.emptyMap()); // Return empty result
+        }
+        return chunkText(text.get(), options,
+                new ChunkingContext(streamId, document.getId(), pipeStepName, options.sourceField()));
+    }
+
+    @Override
+    public ChunkingResult chunkText(String originalText, ChunkerOptions options, ChunkingContext context) {
+        String streamId = context.streamId();
+        String documentId = context.documentId();
+        String pipeStepName = context.pipeStepName();
+        String textFieldPath = context.sourceField();
+
+        if (options.isTokenBased()) {
+            return createTokenBudgetChunks(originalText, options, context);
+        }
+
+        Map<String, String> placeholderToUrlMap = new HashMap<>();
+        List<Span> originalUrlSpans = new ArrayList<>(); // To store original URL positions
+        String textToProcess = originalText;
+
+        if (options.preserveUrls() != null && options.preserveUrls()) {
+            textToProcess = transformURLsToPlaceholders(originalText, placeholderToUrlMap, originalUrlSpans);
+            LOG.debugf("Text after URL placeholder replacement: %s", textToProcess);
+        }
+
+        boolean parallel = options.parallel() != null && options.parallel() && parallelExecutor != null;
+        // Configs chunking the same field share one tokenization (placeholders are deterministic, so
+        // URL-preserving configs share theirs too)
+        TokenizedText tokenized = context.analysis().computeIfAbsent("opennlp-tokens", textToProcess, t -> {
+            Span[] spans = parallel && parallelExecutor.shouldSplitText(t.length())
+                    ? tokenizeInSegments(t)
+                    : tokenizer.tokenizePos(t); // Get tokens with their character spans
+            return new TokenizedText(spans, spansToStrings(spans, t, parallel));
+        });
+        Span[] tokenSpans = tokenized.spans();
+        String[] tokens = tokenized.tokens();
+
+        if (tokens.length == 0) {
+            LOG.infof("No tokens found after tokenization for document part from field '%s'. streamId: %s, pipeStepName: %s", 
+                    textFieldPath, streamId, pipeStepName);
+            return new ChunkingResult(Collections.emptyList(), placeholderToUrlMap); // Return empty chunks but include map
+        }
+
+        LOG.infof("Creating chunks with target character size: %d, character overlap: %d, for document ID: %s, streamId: %s, pipeStepName: %s",
+                options.chunkSize(), options.chunkOverlap(), documentId, streamId, pipeStepName);
+
+        if (options.preserveUrls() != null && options.preserveUrls() && !placeholderToUrlMap.isEmpty()) {
+            // Placeholder for accurate offset recalculation logic
+            // This would involve iterating through originalUrlSpans and adjusting offsets
+            // based on whether the chunk's span in processedText overlaps with placeholder spans.
+            // For now, we'll use the processed text offsets, which will be inaccurate if URLs were replaced.
+            LOG.warnf("URL preservation is active, original character offsets for chunks might be approximate " +
+                     "due to placeholder substitutions. StreamID: %s, DocID: %s", streamId, documentId);
+        }
+
+        // Boundaries are computed serially (cheap arithmetic over spans); chunk text is then
+        // materialized per boundary, which is the part that runs on the pool in parallel mode.
+        List<int[]> boundaries = computeChunkBoundaries(tokens, tokenSpans, options, placeholderToUrlMap);
+        Chunk[] chunkArray = new Chunk[boundaries.size()];
+        IntConsumer materializer = chunkIndex -> {
+            int[] boundary = boundaries.get(chunkIndex);
+            chunkArray[chunkIndex] = materializeChunk(tokens, tokenSpans, boundary[0], boundary[1], chunkIndex,
+                    options, placeholderToUrlMap, streamId, documentId);
+        };
+        if (parallel && parallelExecutor.shouldProcessChunksInParallel(chunkArray.length)) {
+            parallelExecutor.forEachIndex(chunkArray.length, materializer);
+        } else {
+            for (int i = 0; i < chunkArray.length; i++) {
+                materializer.accept(i);
+            }
+        }
+        List<Chunk> chunks = Arrays.asList(chunkArray);
 
         LOG.infof("Created %d token-based chunks for document part from field '%s'. streamId: %s, pipeStepName: %s",
                 chunks.size(), textFieldPath, streamId, pipeStepName);
         // Return the chunks and the map
         return new ChunkingResult(chunks, placeholderToUrlMap);
     }
-}
\ No newline at end of file
+
+    /**
+     * Word tokens of a text with their character spans.
+     */
+    private record TokenizedText(Span[] spans, String[] tokens) {
+    }
+}
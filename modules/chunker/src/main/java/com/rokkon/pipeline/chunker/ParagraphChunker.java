@@ -0,0 +1,186 @@
+package com.rokkon.pipeline.chunker;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Chunking strategy that follows document structure. Text is split into paragraphs (separated by
+ * blank lines) and headings (markdown "#" headings, setext underlined headings, or short standalone
+ * lines without closing punctuation). Each heading starts a new section; paragraphs are packed into
+ * chunks of up to chunk_size characters (or model tokens) without crossing a section boundary, so a
+ * heading always leads the content it introduces. Paragraphs larger than chunk_size are split by
+ * {@link SentenceChunker}. Paragraph chunks do not overlap since they already end on natural breaks.
+ */
+@Singleton
+public class ParagraphChunker implements ChunkingStrategy {
+
+    private static final Logger LOG = Logger.getLogger(ParagraphChunker.class);
+    public static final String STRATEGY_NAME = "paragraph";
+
+    private static final Pattern ATX_HEADING = Pattern.compile("^\\s{0,3}#{1,6}\\s+\\S.*");
+    private static final Pattern SETEXT_UNDERLINE = Pattern.compile("^\\s{0,3}(=+|-+)\\s*$");
+    private static final int MAX_STANDALONE_HEADING_LENGTH = 80;
+    private static final String CLOSING_PUNCTUATION = ".!?,;:";
+
+    private final SentenceChunker sentenceChunker;
+    private final ModelTokenizerRegistry tokenizerRegistry;
+
+    @Inject
+    public ParagraphChunker(SentenceChunker sentenceChunker, ModelTokenizerRegistry tokenizerRegistry) {
+        this.sentenceChunker = sentenceChunker;
+        this.tokenizerRegistry = tokenizerRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return STRATEGY_NAME;
+    }
+
+    @Override
+    public ChunkingResult chunkText(String text, ChunkerOptions options, ChunkingContext context) {
+        List<Block> blocks = splitIntoBlocks(text);
+        List<TextSegment> segments = new ArrayList<>();
+
+        int budget = options.chunkSize();
+        int chunkStart = -1; // index of the first block in the current chunk
+        int chunkSize = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            int blockSize = measure(text, block, options, context);
+
+            boolean startsSection = block.heading() && chunkStart >= 0;
+            int combinedSize = chunkStart < 0 ? blockSize : combinedSize(blocks, chunkStart, i, chunkSize, blockSize, options);
+            if (chunkStart >= 0 && (startsSection || combinedSize > budget)) {
+                segments.add(segmentOf(text, blocks, chunkStart, i, chunkSize, options));
+                chunkStart = -1;
+            }
+
+            if (blockSize > budget) {
+                // Oversized paragraph: split by sentences (which falls back to token windows)
+                segments.addAll(sentenceChunker.segment(text, block.start(), block.end(), options, context));
+                continue;
+            }
+            if (chunkStart < 0) {
+                chunkStart = i;
+                chunkSize = blockSize;
+            } else {
+                chunkSize = combinedSize;
+            }
+        }
+        if (chunkStart >= 0) {
+            segments.add(segmentOf(text, blocks, chunkStart, blocks.size(), chunkSize, options));
+        }
+
+        List<Chunk> chunks = TextSegment.toChunks(segments, options, context);
+        LOG.infof("Created %d paragraph chunks from %d blocks for document part from field '%s'. streamId: %s, pipeStepName: %s",
+                chunks.size(), blocks.size(), context.sourceField(), context.streamId(), context.pipeStepName());
+        return new ChunkingResult(chunks, Collections.emptyMap());
+    }
+
+    /**
+     * Splits text into paragraph and heading blocks with trimmed offsets.
+     */
+    List<Block> splitIntoBlocks(String text) {
+        List<int[]> lines = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || text.charAt(i) == '\n') {
+                lines.add(new int[]{lineStart, i});
+                lineStart = i + 1;
+            }
+        }
+
+        List<Block> blocks = new ArrayList<>();
+        int paragraphStart = -1;
+        int paragraphEnd = -1;
+        for (int i = 0; i < lines.size(); i++) {
+            int[] line = lines.get(i);
+            String lineText = text.substring(line[0], line[1]);
+            boolean blank = lineText.isBlank();
+            boolean nextIsUnderline = i + 1 < lines.size()
+                    && SETEXT_UNDERLINE.matcher(text.substring(lines.get(i + 1)[0], lines.get(i + 1)[1])).matches();
+
+            boolean heading = !blank && paragraphStart < 0
+                    && (ATX_HEADING.matcher(lineText).matches()
+                        || nextIsUnderline
+                        || isStandaloneHeading(text, lines, i, lineText));
+
+            if (blank || heading) {
+                if (paragraphStart >= 0) {
+                    addBlock(blocks, text, paragraphStart, paragraphEnd, false);
+                    paragraphStart = -1;
+                }
+                if (heading) {
+                    int headingEnd = nextIsUnderline ? lines.get(++i)[1] : line[1];
+                    addBlock(blocks, text, line[0], headingEnd, true);
+                }
+                continue;
+            }
+            if (paragraphStart < 0) {
+                paragraphStart = line[0];
+            }
+            paragraphEnd = line[1];
+        }
+        if (paragraphStart >= 0) {
+            addBlock(blocks, text, paragraphStart, paragraphEnd, false);
+        }
+        return blocks;
+    }
+
+    /**
+     * A short line that stands alone (blank line or start of text before it, blank line after it)
+     * and does not end with closing punctuation is treated as a heading.
+     */
+    private static boolean isStandaloneHeading(String text, List<int[]> lines, int index, String lineText) {
+        String trimmed = lineText.strip();
+        if (trimmed.length() > MAX_STANDALONE_HEADING_LENGTH
+                || CLOSING_PUNCTUATION.indexOf(trimmed.charAt(trimmed.length() - 1)) >= 0) {
+            return false;
+        }
+        boolean blankBefore = index == 0 || text.substring(lines.get(index - 1)[0], lines.get(index - 1)[1]).isBlank();
+        boolean blankAfter = index + 1 < lines.size()
+                && text.substring(lines.get(index + 1)[0], lines.get(index + 1)[1]).isBlank();
+        return blankBefore && blankAfter;
+    }
+
+    private static void addBlock(List<Block> blocks, String text, int start, int end, boolean heading) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+        if (start < end) {
+            blocks.add(new Block(start, end, heading));
+        }
+    }
+
+    private int combinedSize(List<Block> blocks, int first, int next, int currentSize, int nextSize, ChunkerOptions options) {
+        if (options.isTokenBased()) {
+            return currentSize + nextSize;
+        }
+        return blocks.get(next).end() - blocks.get(first).start();
+    }
+
+    private TextSegment segmentOf(String text, List<Block> blocks, int from, int to, int size, ChunkerOptions options) {
+        int start = blocks.get(from).start();
+        int end = blocks.get(to - 1).end();
+        return new TextSegment(text.substring(start, end), start, end,
+                options.isTokenBased() ? size : Chunk.UNKNOWN_TOKEN_COUNT);
+    }
+
+    private int measure(String text, Block block, ChunkerOptions options, ChunkingContext context) {
+        if (options.isTokenBased()) {
+            return context.analysis().countTokens(tokenizerRegistry, options.tokenizer(), text, block.start(), block.end());
+        }
+        return block.end() - block.start();
+    }
+
+    /**
+     * A paragraph or heading, as [start, end) character offsets into the chunked text.
+     */
+    record Block(int start, int end, boolean heading) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.rokkon.pipeline.chunker;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Owns the ForkJoin pool used for parallel chunking of large documents.
+ * Work is always expressed as "compute the result for index i and store it at position i",
+ * so callers get deterministic, order-preserving output regardless of scheduling.
+ */
+@Singleton
+public class ParallelChunkingExecutor {
+
+    private static final Logger LOG = Logger.getLogger(ParallelChunkingExecutor.class);
+
+    private final ForkJoinPool pool;
+    private final int minTextLength;
+    private final int segmentSize;
+    private final int minChunks;
+
+    @Inject
+    public ParallelChunkingExecutor(
+            @ConfigProperty(name = "chunker.parallel.threads", defaultValue = "0") int threads,
+            @ConfigProperty(name = "chunker.parallel.min-text-length", defaultValue = "1000000") int minTextLength,
+            @ConfigProperty(name = "chunker.parallel.segment-size", defaultValue = "262144") int segmentSize,
+            @ConfigProperty(name = "chunker.parallel.min-chunks", defaultValue = "16") int minChunks) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism);
+        this.minTextLength = minTextLength;
+        this.segmentSize = Math.max(1, segmentSize);
+        this.minChunks = Math.max(1, minChunks);
+        LOG.infof("Parallel chunking pool created with parallelism %d (min text length: %d, segment size: %d, min chunks: %d)",
+                parallelism, minTextLength, this.segmentSize, this.minChunks);
+    }
+
+    /**
+     * @return true if a text of the given length is worth splitting into parallel segments
+     */
+    public boolean shouldSplitText(int textLength) {
+        return textLength >= minTextLength && textLength > segmentSize;
+    }
+
+    /**
+     * @return true if per-chunk work over the given number of chunks is worth running in parallel
+     */
+    public boolean shouldProcessChunksInParallel(int chunkCount) {
+        return chunkCount >= minChunks;
+    }
+
+    /**
+     * @return the target number of characters per text segment
+     */
+    public int segmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * @return the parallelism of the underlying pool
+     */
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Runs the action for every index in [0, count) on the pool and waits for completion.
+     * The action must only write to state owned by its index.
+     *
+     * @param count Number of indices to process
+     * @param action Action to run for each index
+     */
+    public void forEachIndex(int count, IntConsumer action) {
+        if (count <= 0) {
+            return;
+        }
+        int grain = Math.max(1, count / (pool.getParallelism() * 4));
+        pool.invoke(new IndexRangeAction(0, count, grain, action));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    private static final class IndexRangeAction extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntConsumer action;
+
+        IndexRangeAction(int from, int to, int grain, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new IndexRangeAction(from, mid, grain, action),
+                    new IndexRangeAction(mid, to, grain, action));
+        }
+    }
+}
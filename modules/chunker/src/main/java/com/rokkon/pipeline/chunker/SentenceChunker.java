@@ -0,0 +1,157 @@
+package com.rokkon.pipeline.chunker;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import opennlp.tools.sentdetect.SentenceDetector;
+import opennlp.tools.util.Span;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Chunking strategy that packs whole sentences into chunks of up to chunk_size characters
+ * (or model tokens when chunk_unit is "tokens"). Overlap is made of whole trailing sentences
+ * whose combined size fits in chunk_overlap, so context is carried over without cutting
+ * sentences in half. A single sentence larger than chunk_size is split with {@link OverlapChunker}.
+ */
+@Singleton
+public class SentenceChunker implements ChunkingStrategy {
+
+    private static final Logger LOG = Logger.getLogger(SentenceChunker.class);
+    public static final String STRATEGY_NAME = "sentence";
+
+    private final SentenceDetector sentenceDetector;
+    private final OverlapChunker overlapChunker;
+    private final ModelTokenizerRegistry tokenizerRegistry;
+
+    @Inject
+    public SentenceChunker(SentenceDetector sentenceDetector, OverlapChunker overlapChunker,
+                           ModelTokenizerRegistry tokenizerRegistry) {
+        this.sentenceDetector = sentenceDetector;
+        this.overlapChunker = overlapChunker;
+        this.tokenizerRegistry = tokenizerRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return STRATEGY_NAME;
+    }
+
+    @Override
+    public ChunkingResult chunkText(String text, ChunkerOptions options, ChunkingContext context) {
+        List<TextSegment> segments = segment(text, 0, text.length(), options, context);
+        List<Chunk> chunks = TextSegment.toChunks(segments, options, context);
+        LOG.infof("Created %d sentence-packed chunks for document part from field '%s'. streamId: %s, pipeStepName: %s",
+                chunks.size(), context.sourceField(), context.streamId(), context.pipeStepName());
+        return new ChunkingResult(chunks, Collections.emptyMap());
+    }
+
+    /**
+     * Splits text[from, to) into sentence-packed segments with offsets relative to the full text.
+     * Used directly by this strategy and by {@link ParagraphChunker} for oversized paragraphs.
+     */
+    List<TextSegment> segment(String text, int from, int to, ChunkerOptions options, ChunkingContext context) {
+        String region = from == 0 && to == text.length() ? text : text.substring(from, to);
+        Span[] sentenceSpans = context.analysis().computeIfAbsent("sentences", region, sentenceDetector::sentPosDetect);
+
+        // Trim each sentence and measure it once
+        List<int[]> sentences = new ArrayList<>(sentenceSpans.length);
+        List<Integer> sizes = new ArrayList<>(sentenceSpans.length);
+        for (Span span : sentenceSpans) {
+            int start = from + span.getStart();
+            int end = from + span.getEnd();
+            while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+            if (start < end) {
+                sentences.add(new int[]{start, end});
+                sizes.add(measure(text, start, end, options, context));
+            }
+        }
+
+        int budget = options.chunkSize();
+        List<TextSegment> segments = new ArrayList<>();
+        int first = 0; // first sentence of the current chunk
+        int index = 0;
+        while (index < sentences.size()) {
+            if (sizes.get(index) > budget) {
+                // Flush what we have, then hard-split the oversized sentence
+                if (first < index) {
+                    segments.add(segmentOf(text, sentences, sizes, first, index, options));
+                }
+                int[] sentence = sentences.get(index);
+                segments.addAll(splitOversized(text, sentence[0], sentence[1], options, context));
+                index++;
+                first = index;
+                continue;
+            }
+            if (first < index && sizeOf(sentences, sizes, first, index + 1, options) > budget) {
+                segments.add(segmentOf(text, sentences, sizes, first, index, options));
+                first = overlapStart(sentences, sizes, first, index, options);
+            }
+            index++;
+        }
+        if (first < sentences.size()) {
+            segments.add(segmentOf(text, sentences, sizes, first, sentences.size(), options));
+        }
+        return segments;
+    }
+
+    /**
+     * Picks the first sentence of the next chunk: the longest run of trailing sentences of the
+     * chunk [first, end) that fits in chunk_overlap, but never the whole chunk so we always progress.
+     */
+    private int overlapStart(List<int[]> sentences, List<Integer> sizes, int first, int end, ChunkerOptions options) {
+        int start = end;
+        while (start - 1 > first && sizeOf(sentences, sizes, start - 1, end, options) <= options.chunkOverlap()) {
+            start--;
+        }
+        // The next chunk must also leave room for the sentence that did not fit
+        while (start < end && sizeOf(sentences, sizes, start, end + 1, options) > options.chunkSize()) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Size of sentences [from, to): the covered character span, or the sum of token counts.
+     */
+    private static int sizeOf(List<int[]> sentences, List<Integer> sizes, int from, int to, ChunkerOptions options) {
+        if (from >= to) {
+            return 0;
+        }
+        if (!options.isTokenBased()) {
+            return sentences.get(to - 1)[1] - sentences.get(from)[0];
+        }
+        int total = 0;
+        for (int i = from; i < to; i++) {
+            total += sizes.get(i);
+        }
+        return total;
+    }
+
+    private static TextSegment segmentOf(String text, List<int[]> sentences, List<Integer> sizes, int from, int to,
+                                         ChunkerOptions options) {
+        int start = sentences.get(from)[0];
+        int end = sentences.get(to - 1)[1];
+        int tokenCount = options.isTokenBased() ? sizeOf(sentences, sizes, from, to, options) : Chunk.UNKNOWN_TOKEN_COUNT;
+        return new TextSegment(text.substring(start, end), start, end, tokenCount);
+    }
+
+    private List<TextSegment> splitOversized(String text, int start, int end, ChunkerOptions options, ChunkingContext context) {
+        ChunkingResult pieces = overlapChunker.chunkText(text.substring(start, end), options, context);
+        List<TextSegment> segments = new ArrayList<>(pieces.chunks().size());
+        for (Chunk piece : pieces.chunks()) {
+            segments.add(new TextSegment(piece.text(), start + piece.originalIndexStart(),
+                    start + piece.originalIndexEnd() + 1, piece.tokenCount()));
+        }
+        return segments;
+    }
+
+    private int measure(String text, int start, int end, ChunkerOptions options, ChunkingContext context) {
+        return options.isTokenBased()
+                ? context.analysis().countTokens(tokenizerRegistry, options.tokenizer(), text, start, end)
+                : end - start;
+    }
+}
@@ -3,14 +3,18 @@ package com.rokkon.pipeline.chunker;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Singleton;
-import opennlp.tools.sentdetect.SentenceDetectorME;
 import opennlp.tools.sentdetect.SentenceDetector;
 import opennlp.tools.sentdetect.SentenceModel;
+import opennlp.tools.sentdetect.ThreadSafeSentenceDetectorME;
 import opennlp.tools.util.Span;
 import org.jboss.logging.Logger;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Provider for OpenNLP SentenceDetector.
@@ -21,35 +25,46 @@ public class SentenceDetectorProvider {
 
     private static final Logger LOG = Logger.getLogger(SentenceDetectorProvider.class);
     private static final String MODEL_PATH = "/models/en-sent.bin";
+    private static final Pattern FALLBACK_SENTENCE_BREAK = Pattern.compile("(?<=[.!?])\\s+");
 
     /**
-     * Creates a simple fallback sentence detector when the model is not available.
+     * Creates a simple fallback sentence detector when the model is not available. A sentence ends at a
+     * period, question mark or exclamation mark followed by whitespace.
      * 
      * @return A basic SentenceDetector implementation
      */
-    private SentenceDetector createFallbackDetector() {
+    SentenceDetector createFallbackDetector() {
         return new SentenceDetector() {
             @Override
             public String[] sentDetect(CharSequence text) {
-                return text.toString().split("(?<=\\.)\\s+");
+                return Span.spansToStrings(sentPosDetect(text), text);
             }
 
             @Override
             public Span[] sentPosDetect(CharSequence text) {
-                String[] sentences = sentDetect(text);
-                Span[] spans = new Span[sentences.length];
+                // Spans follow the actual separators so offsets stay exact even with
+                // newlines or runs of whitespace between sentences
+                List<Span> spans = new ArrayList<>();
+                Matcher matcher = FALLBACK_SENTENCE_BREAK.matcher(text);
                 int start = 0;
-                for (int i = 0; i < sentences.length; i++) {
-                    spans[i] = new Span(start, start + sentences[i].length());
-                    start += sentences[i].length() + 1; // +1 for the space
+                while (matcher.find()) {
+                    if (matcher.start() > start) {
+                        spans.add(new Span(start, matcher.start()));
+                    }
+                    start = matcher.end();
                 }
-                return spans;
+                if (start < text.length()) {
+                    spans.add(new Span(start, text.length()));
+                }
+                return spans.toArray(new Span[0]);
             }
         };
     }
 
     /**
      * Produces a singleton instance of the OpenNLP SentenceDetector.
+     * The thread-safe variant is used because chunk metadata may be extracted concurrently,
+     * both across requests and within one request when parallel chunking is enabled.
      * 
      * @return A SentenceDetector instance
      */
@@ -63,7 +78,7 @@ public class SentenceDetectorProvider {
             }
 
             SentenceModel model = new SentenceModel(modelIn);
-            return new SentenceDetectorME(model);
+            return new ThreadSafeSentenceDetectorME(model);
         } catch (IOException e) {
             LOG.error("Error loading sentence detector model", e);
             return createFallbackDetector();
@@ -0,0 +1,115 @@
+package com.rokkon.pipeline.chunker;
+
+import com.rokkon.pipeline.util.ProtoFieldMapper;
+import com.rokkon.search.model.PipeDoc;
+import org.jboss.logging.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+/**
+ * Utility class for getting the text to chunk out of a PipeDoc: field extraction, UTF-8
+ * sanitization and the MAX_TEXT_BYTES limit shared by all chunking strategies.
+ */
+public final class SourceTextExtractor {
+
+    private static final Logger LOG = Logger.getLogger(SourceTextExtractor.class);
+    static final long MAX_TEXT_BYTES = 100 * 1024 * 1024; // 100MB limit
+    private static final ProtoFieldMapper FIELD_MAPPER = new ProtoFieldMapper();
+
+    private SourceTextExtractor() {
+    }
+
+    /**
+     * Extracts text from a specific field in a PipeDoc. Besides the top-level fields, any path understood
+     * by {@link ProtoFieldMapper} can be used, e.g. "custom_data.summary" or "metadata.description".
+     * Repeated values (e.g. "keywords") are joined with newlines and numbers/booleans are converted to text.
+     * 
+     * @param document The PipeDoc to extract from
+     * @param fieldPath Path to the field (e.g., "body", "title", "custom_data.abstract")
+     * @return Optional containing the extracted text, or empty if not found
+     */
+    public static Optional<String> extractTextFromPipeDoc(PipeDoc document, String fieldPath) {
+        if (document == null || fieldPath == null || fieldPath.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            // Fast path for the commonly used fields
+            switch (fieldPath.toLowerCase()) {
+                case "body":
+                    return document.hasBody() ? Optional.of(document.getBody()) : Optional.empty();
+                case "title":
+                    return document.hasTitle() ? Optional.of(document.getTitle()) : Optional.empty();
+                case "id":
+                    return Optional.of(document.getId());
+                default:
+                    return toText(FIELD_MAPPER.getValue(document, fieldPath), fieldPath);
+            }
+
+        } catch (ProtoFieldMapper.MappingException e) {
+            LOG.warnf("Field path '%s' could not be resolved: %s", fieldPath, e.getMessage());
+            return Optional.empty();
+        } catch (Exception e) {
+            LOG.errorf("Error extracting field '%s': %s", fieldPath, e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<String> toText(Object value, String fieldPath) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        if (value instanceof String text) {
+            return Optional.of(text);
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return Optional.of(String.valueOf(value));
+        }
+        if (value instanceof List<?> values) {
+            StringJoiner joiner = new StringJoiner("\n");
+            for (Object item : values) {
+                if (item instanceof String || item instanceof Number || item instanceof Boolean) {
+                    joiner.add(String.valueOf(item));
+                }
+            }
+            return joiner.length() > 0 ? Optional.of(joiner.toString()) : Optional.empty();
+        }
+        LOG.warnf("Field '%s' holds a %s, not text. Point source_field at a text value inside it.",
+                fieldPath, value.getClass().getSimpleName());
+        return Optional.empty();
+    }
+
+    /**
+     * Extracts the text to chunk from the document, sanitized and truncated to MAX_TEXT_BYTES.
+     *
+     * @param document The PipeDoc to extract from
+     * @param fieldPath Path to the field
+     * @param streamId Stream ID for logging
+     * @param pipeStepName Pipeline step name for logging
+     * @return Optional containing the prepared text, or empty if the field is missing or blank
+     */
+    public static Optional<String> prepareText(PipeDoc document, String fieldPath, String streamId, String pipeStepName) {
+        Optional<String> textOptional = extractTextFromPipeDoc(document, fieldPath);
+        if (textOptional.isEmpty() || textOptional.get().trim().isEmpty()) {
+            LOG.warnf("No text found or text is empty at path '%s'. No chunks will be created. streamId: %s, pipeStepName: %s", 
+                    fieldPath, streamId, pipeStepName);
+            return Optional.empty();
+        }
+        String originalText = textOptional.get();
+        
+        // Sanitize the text to ensure valid UTF-8 encoding before processing
+        originalText = UnicodeSanitizer.sanitizeInvalidUnicode(originalText);
+
+        // Handle MAX_TEXT_BYTES before URL processing to avoid issues with placeholder lengths
+        byte[] originalTextBytes = originalText.getBytes(StandardCharsets.UTF_8);
+        if (originalTextBytes.length > MAX_TEXT_BYTES) {
+            LOG.warnf("Original text from field '%s' exceeds MAX_TEXT_BYTES (%d bytes). Truncating. streamId: %s, pipeStepName: %s",
+                    fieldPath, MAX_TEXT_BYTES, streamId, pipeStepName);
+            originalText = new String(originalTextBytes, 0, (int) MAX_TEXT_BYTES, StandardCharsets.UTF_8);
+        }
+        return Optional.of(originalText);
+    }
+}
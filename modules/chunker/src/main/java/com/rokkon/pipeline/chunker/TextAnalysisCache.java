@@ -0,0 +1,159 @@
+package com.rokkon.pipeline.chunker;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.jni.CharSpan;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Per-request cache of text analysis (word tokenization, model tokenization, sentence detection) shared
+ * by every chunking config that reads the same source field, so a document chunked at several sizes or
+ * with several strategies is only tokenized once per field. Entries are keyed by the kind of analysis and
+ * the analyzed text. Lookups hash and compare the text, but a String caches its hash after the first lookup
+ * and equals returns at once for the same instance, which the configs reading one field normally share; an
+ * equal copy costs one full comparison.
+ */
+public class TextAnalysisCache {
+
+    private final Map<Key, Object> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cached analysis of the given kind for the text, computing it on first use.
+     * The compute function must not use this cache.
+     *
+     * @param kind Analysis kind, e.g. "opennlp-tokens"
+     * @param text The analyzed text
+     * @param compute Computes the analysis from the text
+     * @return The cached or newly computed analysis
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T computeIfAbsent(String kind, String text, Function<String, T> compute) {
+        return (T) entries.computeIfAbsent(new Key(kind, text), key -> compute.apply(key.text()));
+    }
+
+    /**
+     * Gets the model token offsets of the text, tokenizing it once per tokenizer.
+     *
+     * @param registry Registry the tokenizer is loaded from
+     * @param tokenizerName Tokenizer name or path
+     * @param text The text to tokenize
+     * @return String offsets of the tokens that map back to the text
+     */
+    public TokenOffsets tokenOffsets(ModelTokenizerRegistry registry, String tokenizerName, String text) {
+        return computeIfAbsent("model-tokens:" + tokenizerName, text,
+                t -> TokenOffsets.of(registry.encode(tokenizerName, t), t));
+    }
+
+    /**
+     * Counts the model tokens that start within text[start, end), using the shared tokenization of the
+     * whole text. For ranges that begin and end at whitespace (sentences, paragraphs) this equals
+     * tokenizing the range on its own.
+     */
+    public int countTokens(ModelTokenizerRegistry registry, String tokenizerName, String text, int start, int end) {
+        return tokenOffsets(registry, tokenizerName, text).countStartingIn(start, end);
+    }
+
+    private record Key(String kind, String text) {
+    }
+
+    /**
+     * String (UTF-16) offsets of model tokens, in text order.
+     *
+     * @param starts Start offset (inclusive) of each token
+     * @param ends End offset (exclusive) of each token
+     */
+    public record TokenOffsets(int[] starts, int[] ends) {
+
+        /**
+         * Builds offsets from an encoding of {@code text}, dropping tokens that do not map back to text
+         * (e.g. special tokens). The tokenizer reports offsets in code points; they are converted to
+         * String (UTF-16) indices, which differ once the text contains supplementary characters. Several
+         * tokens may share a start offset (e.g. byte-fallback pieces of one character); tokens reported out
+         * of text order are put back in order.
+         */
+        static TokenOffsets of(Encoding encoding, String text) {
+            CharSpan[] spans = encoding.getCharTokenSpans();
+            int[] starts = new int[spans.length];
+            int[] ends = new int[spans.length];
+            int count = 0;
+            for (CharSpan span : spans) {
+                if (span != null && span.getEnd() > span.getStart()) {
+                    starts[count] = span.getStart();
+                    ends[count] = span.getEnd();
+                    count++;
+                }
+            }
+            return fromCodePoints(text, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count)).inTextOrder();
+        }
+
+        /**
+         * These offsets ordered by start, stably, so that tokens sharing a start keep their order.
+         */
+        TokenOffsets inTextOrder() {
+            for (int i = 1; i < starts.length; i++) {
+                if (starts[i] < starts[i - 1]) {
+                    Integer[] order = new Integer[starts.length];
+                    Arrays.setAll(order, j -> j);
+                    Arrays.sort(order, (a, b) -> Integer.compare(starts[a], starts[b]));
+                    int[] sortedStarts = new int[starts.length];
+                    int[] sortedEnds = new int[ends.length];
+                    for (int j = 0; j < order.length; j++) {
+                        sortedStarts[j] = starts[order[j]];
+                        sortedEnds[j] = ends[order[j]];
+                    }
+                    return new TokenOffsets(sortedStarts, sortedEnds);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Converts code point offsets into {@code text} to String indices, in place.
+         */
+        static TokenOffsets fromCodePoints(String text, int[] starts, int[] ends) {
+            int codePoints = text.codePointCount(0, text.length());
+            if (codePoints != text.length()) {
+                // Index of each code point, and of the end of the text
+                int[] indices = new int[codePoints + 1];
+                for (int i = 0, index = 0; i < codePoints; i++) {
+                    indices[i] = index;
+                    index += Character.charCount(text.codePointAt(index));
+                }
+                indices[codePoints] = text.length();
+                for (int i = 0; i < starts.length; i++) {
+                    starts[i] = indices[Math.min(starts[i], codePoints)];
+                    ends[i] = indices[Math.min(ends[i], codePoints)];
+                }
+            }
+            return new TokenOffsets(starts, ends);
+        }
+
+        public int size() {
+            return starts.length;
+        }
+
+        int countStartingIn(int start, int end) {
+            return Math.max(0, lowerBound(end) - lowerBound(start));
+        }
+
+        /**
+         * Index of the first token starting at or after {@code offset}; starts are ordered but may repeat.
+         */
+        private int lowerBound(int offset) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < offset) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
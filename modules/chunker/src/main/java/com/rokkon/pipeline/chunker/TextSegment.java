@@ -0,0 +1,34 @@
+package com.rokkon.pipeline.chunker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Record representing a chunk-to-be produced by a chunking strategy before chunk IDs are assigned.
+ * Strategies that compose other strategies collect segments first and number them once at the end.
+ *
+ * @param text The chunk text
+ * @param start The starting character index in the chunked text (inclusive)
+ * @param end The ending character index in the chunked text (exclusive)
+ * @param tokenCount The number of model tokens, or {@link Chunk#UNKNOWN_TOKEN_COUNT}
+ */
+record TextSegment(
+    String text,
+    int start,
+    int end,
+    int tokenCount
+) {
+
+    /**
+     * Converts ordered segments into chunks, generating IDs from the chunk ID template.
+     */
+    static List<Chunk> toChunks(List<TextSegment> segments, ChunkerOptions options, ChunkingContext context) {
+        List<Chunk> chunks = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            TextSegment segment = segments.get(i);
+            String chunkId = String.format(options.chunkIdTemplate(), context.streamId(), context.documentId(), i);
+            chunks.add(new Chunk(chunkId, segment.text(), segment.start(), segment.end() - 1, segment.tokenCount()));
+        }
+        return chunks;
+    }
+}
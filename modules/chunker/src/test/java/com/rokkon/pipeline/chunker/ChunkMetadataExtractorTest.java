@@ -0,0 +1,93 @@
+package com.rokkon.pipeline.chunker;
+
+import com.google.protobuf.Value;
+import opennlp.tools.tokenize.SimpleTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the single-pass {@link ChunkMetadataExtractor}: rounding parity with the "#.####" format it replaced,
+ * and the values and groups it returns.
+ */
+class ChunkMetadataExtractorTest {
+
+    private static final DecimalFormat FORMAT = new DecimalFormat("#.####", DecimalFormatSymbols.getInstance(Locale.ROOT));
+
+    private final ChunkMetadataExtractor extractor = new ChunkMetadataExtractor(
+            new SentenceDetectorProvider().createSentenceDetector(), SimpleTokenizer.INSTANCE);
+
+    @Test
+    void roundingMatchesTheFormatOnTies() {
+        // Ties in decimal whose binary value lies just above or below the half, and one DecimalFormat rounds down
+        // even though its binary value lies above
+        for (double value : new double[]{0.00025, 0.00035, 0.00045, 0.00005, 0.12345, 1.00005, 2.5, 0.5, 0}) {
+            assertThat(ChunkMetadataExtractor.round(value)).as("%s", value).isEqualTo(formatted(value));
+        }
+        assertThat(ChunkMetadataExtractor.round(0.00025)).isEqualTo(0.0003);
+        assertThat(ChunkMetadataExtractor.round(0.00035)).isEqualTo(0.0003);
+
+        for (int k = 0; k < 200_000; k++) {
+            double value = (k + 0.5) / 10_000;
+            assertThat(ChunkMetadataExtractor.round(value)).as("%s", value).isEqualTo(formatted(value));
+        }
+    }
+
+    @Test
+    void roundingMatchesTheFormatOnRatios() {
+        // The values metadata is made of: ratios of counts, and averages
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            int denominator = 1 + random.nextInt(5_000);
+            double value = i % 2 == 0
+                    ? (double) random.nextInt(denominator + 1) / denominator
+                    : (double) random.nextInt(100_000) / (1 + random.nextInt(1_000));
+            assertThat(ChunkMetadataExtractor.round(value)).as("%s", value).isEqualTo(formatted(value));
+        }
+    }
+
+    @Test
+    void extractsCharacterAndPositionStatistics() {
+        Map<String, Value> metadata = extractor.extractAllMetadata("ALL CAPS HEADING", 1, 3, false);
+
+        assertThat(metadata.get("character_count").getNumberValue()).isEqualTo(16);
+        assertThat(metadata.get("word_count").getNumberValue()).isEqualTo(3);
+        assertThat(metadata.get("whitespace_percentage").getNumberValue()).isEqualTo(0.125);
+        assertThat(metadata.get("uppercase_percentage").getNumberValue()).isEqualTo(0.875);
+        assertThat(metadata.get("relative_position").getNumberValue()).isEqualTo(0.5);
+        assertThat(metadata.get("is_first_chunk").getBoolValue()).isFalse();
+        assertThat(metadata.get("potential_heading_score").getNumberValue()).isEqualTo(1.0);
+    }
+
+    @Test
+    void onlySelectedGroupsAreReturned() {
+        Map<String, Value> metadata = extractor.extractMetadata("Some text, with 2 digits.", 0, 1, false,
+                EnumSet.of(ChunkMetadataGroup.CHARACTER_CLASSES, ChunkMetadataGroup.POSITION));
+
+        assertThat(metadata).containsOnlyKeys("whitespace_percentage", "alphanumeric_percentage", "digit_percentage",
+                "uppercase_percentage", "is_first_chunk", "is_last_chunk", "relative_position");
+    }
+
+    @Test
+    void everyChunkGetsTheSameKeysWithAllGroups() {
+        String[] chunks = {"One.", "Two sentences here. And (one) more!", "digits 42 and-hyphens/slashes",
+                "line one\nline two\n\n\"quoted\"", "x"};
+        Map<String, Value> first = extractor.extractAllMetadata(chunks[0], 0, chunks.length, false);
+
+        for (int i = 1; i < chunks.length; i++) {
+            assertThat(extractor.extractMetadata(chunks[i], i, chunks.length, false, ChunkMetadataGroup.ALL))
+                    .as(chunks[i]).containsOnlyKeys(first.keySet());
+        }
+    }
+
+    private static double formatted(double value) {
+        return Double.parseDouble(FORMAT.format(value));
+    }
+}
@@ -238,6 +238,111 @@ public abstract class ChunkerServiceTestBase {
         assertThat(response.getProcessorLogsList()).anyMatch(log -> log.contains("Successfully created"));
     }
 
+    @Test
+    void testProcessDataWithMultipleChunkConfigs() {
+        String body = "The engine routes documents between modules. Each module registers with Consul. " +
+                "Chunkers split text and embedders turn chunks into vectors. Sinks write the vectors to an index. " +
+                "All of this is configured per pipeline step and can be changed while the pipeline is running.";
+        PipeDoc testDoc = PipeDoc.newBuilder()
+                .setId(UUID.randomUUID().toString())
+                .setBody(body)
+                .setTitle("Multi Config Test")
+                .setCustomData(Struct.newBuilder()
+                        .putFields("abstract", Value.newBuilder().setStringValue("A short abstract about pipelines.").build()))
+                .putMetadata("summary", "Modules, chunks and vectors.")
+                .build();
+
+        ServiceMetadata metadata = ServiceMetadata.newBuilder()
+                .setPipelineName("test-pipeline")
+                .setPipeStepName("chunker-step")
+                .setStreamId(UUID.randomUUID().toString())
+                .build();
+
+        // Two chunkings of body plus custom_data and metadata fields, in a single request
+        ProcessConfiguration config = ProcessConfiguration.newBuilder()
+                .setCustomJsonConfig(Struct.newBuilder()
+                        .putFields("chunk_overlap", Value.newBuilder().setNumberValue(10).build())
+                        .putFields("chunk_configs", Value.newBuilder().setListValue(com.google.protobuf.ListValue.newBuilder()
+                                .addValues(chunkConfig("body", "overlap", 80))
+                                .addValues(chunkConfig("body", "sentence", 160))
+                                .addValues(chunkConfig("custom_data.abstract", "overlap", 500))
+                                .addValues(chunkConfig("metadata.summary", "overlap", 500))).build())
+                        .build())
+                .build();
+
+        ProcessRequest request = ProcessRequest.newBuilder()
+                .setDocument(testDoc)
+                .setMetadata(metadata)
+                .setConfig(config)
+                .build();
+
+        var response = getChunkerService().processData(request)
+                .subscribe().withSubscriber(UniAssertSubscriber.create())
+                .awaitItem()
+                .getItem();
+
+        assertThat(response.getSuccess()).isTrue();
+        PipeDoc outputDoc = response.getOutputDoc();
+        assertThat(outputDoc.getSemanticResultsList())
+                .extracting(SemanticProcessingResult::getChunkConfigId)
+                .containsExactly("body_overlap_char_80_10", "body_sentence_char_160_10",
+                        "custom_data_abstract_overlap_char_500_10", "metadata_summary_overlap_char_500_10");
+        assertThat(outputDoc.getSemanticResults(0).getChunksCount()).isGreaterThan(1);
+        assertThat(outputDoc.getSemanticResults(2).getChunks(0).getEmbeddingInfo().getTextContent())
+                .contains("short abstract");
+        assertThat(outputDoc.getSemanticResults(3).getChunks(0).getEmbeddingInfo().getTextContent())
+                .contains("vectors");
+
+        // Chunk IDs stay unique across configs
+        assertThat(outputDoc.getSemanticResultsList().stream()
+                .flatMap(result -> result.getChunksList().stream())
+                .map(SemanticChunk::getChunkId))
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void testOutOfRangeNearDuplicateThresholdIsRejected() {
+        PipeDoc testDoc = PipeDoc.newBuilder()
+                .setId(UUID.randomUUID().toString())
+                .setBody("A body that is never chunked.")
+                .build();
+
+        for (double threshold : new double[]{0, -0.5, 1.5}) {
+            ProcessRequest request = ProcessRequest.newBuilder()
+                    .setDocument(testDoc)
+                    .setMetadata(ServiceMetadata.newBuilder()
+                            .setPipelineName("test-pipeline")
+                            .setPipeStepName("chunker-step")
+                            .setStreamId(UUID.randomUUID().toString())
+                            .build())
+                    .setConfig(ProcessConfiguration.newBuilder()
+                            .setCustomJsonConfig(Struct.newBuilder()
+                                    .putFields("near_duplicates", Value.newBuilder().setStringValue("mark").build())
+                                    .putFields("near_duplicate_threshold", Value.newBuilder().setNumberValue(threshold).build())
+                                    .build())
+                            .build())
+                    .build();
+
+            var response = getChunkerService().processData(request)
+                    .subscribe().withSubscriber(UniAssertSubscriber.create())
+                    .awaitItem()
+                    .getItem();
+
+            // Rejected like an unknown near_duplicates mode, not replaced with the default
+            assertThat(response.getSuccess()).isFalse();
+            assertThat(response.getProcessorLogsList())
+                    .anyMatch(log -> log.contains("Invalid 'near_duplicate_threshold'"));
+        }
+    }
+
+    private static Value chunkConfig(String sourceField, String strategy, int chunkSize) {
+        return Value.newBuilder().setStructValue(Struct.newBuilder()
+                .putFields("source_field", Value.newBuilder().setStringValue(sourceField).build())
+                .putFields("strategy", Value.newBuilder().setStringValue(strategy).build())
+                .putFields("chunk_size", Value.newBuilder().setNumberValue(chunkSize).build()))
+                .build();
+    }
+
     @Test
     void testNullRequest() {
         // The service should handle null requests gracefully
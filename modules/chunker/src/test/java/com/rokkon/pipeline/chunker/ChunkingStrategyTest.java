@@ -0,0 +1,200 @@
+package com.rokkon.pipeline.chunker;
+
+import com.rokkon.search.model.PipeDoc;
+import opennlp.tools.tokenize.SimpleTokenizer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Compares the overlap, sentence and paragraph strategies on generated structured documents
+ * (chunks per document and throughput) and checks the boundary guarantees of each strategy.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChunkingStrategyTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChunkingStrategyTest.class);
+    private static final String TOKENIZER = "test-wordlevel";
+    private static final int DOCUMENT_COUNT = 50;
+    private static final int ITERATIONS = 3;
+
+    private static final String[] WORDS = {
+            "the", "pipeline", "chunk", "vector", "document", "search", "index", "model", "quickly", "reliably",
+            "every", "module", "stream", "config", "engine", "returns", "stores", "reads", "embedding", "field"
+    };
+
+    private ModelTokenizerRegistry registry;
+    private ChunkingStrategies strategies;
+
+    @BeforeAll
+    void setUp() throws URISyntaxException {
+        Path tokenizerDirectory = Paths.get(getClass().getResource("/tokenizers").toURI());
+        registry = new ModelTokenizerRegistry(tokenizerDirectory.toString());
+        OverlapChunker overlapChunker = new OverlapChunker(SimpleTokenizer.INSTANCE, null, registry);
+        SentenceChunker sentenceChunker = new SentenceChunker(
+                new SentenceDetectorProvider().createSentenceDetector(), overlapChunker, registry);
+        ParagraphChunker paragraphChunker = new ParagraphChunker(sentenceChunker, registry);
+        strategies = new ChunkingStrategies(List.of(overlapChunker, sentenceChunker, paragraphChunker));
+    }
+
+    @AfterAll
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void compareStrategiesOnStructuredDocuments() {
+        List<PipeDoc> docs = new ArrayList<>();
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            docs.add(PipeDoc.newBuilder().setId("doc-" + i).setBody(generateDocument(new Random(i))).build());
+        }
+
+        for (String name : List.of(OverlapChunker.STRATEGY_NAME, SentenceChunker.STRATEGY_NAME, ParagraphChunker.STRATEGY_NAME)) {
+            ChunkerOptions options = options(name, 500, 100, null);
+            long totalChunks = 0;
+            long totalChars = 0;
+            long best = Long.MAX_VALUE;
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                long start = System.nanoTime();
+                totalChunks = 0;
+                totalChars = 0;
+                for (PipeDoc doc : docs) {
+                    List<Chunk> chunks = chunk(doc, options).chunks();
+                    totalChunks += chunks.size();
+                    for (Chunk chunk : chunks) {
+                        totalChars += chunk.text().length();
+                    }
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            LOG.info("Strategy '{}': {} chunks/doc, avg chunk {} chars, best of {}: {} ms for {} docs",
+                    name, String.format("%.1f", (double) totalChunks / DOCUMENT_COUNT),
+                    totalChunks == 0 ? 0 : totalChars / totalChunks, ITERATIONS, best / 1_000_000, DOCUMENT_COUNT);
+            assertThat(totalChunks).isGreaterThan(DOCUMENT_COUNT);
+        }
+    }
+
+    @Test
+    void sentenceChunksAreExactSubstringsEndingOnSentences() {
+        String body = generateDocument(new Random(42));
+        PipeDoc doc = PipeDoc.newBuilder().setId("doc-s").setBody(body).build();
+
+        List<Chunk> chunks = chunk(doc, options(SentenceChunker.STRATEGY_NAME, 300, 80, null)).chunks();
+
+        assertThat(chunks).hasSizeGreaterThan(5);
+        for (Chunk chunk : chunks) {
+            assertThat(chunk.text()).isEqualTo(body.substring(chunk.originalIndexStart(), chunk.originalIndexEnd() + 1));
+            assertThat(chunk.text().length()).isLessThanOrEqualTo(300);
+            assertThat(chunk.text()).matches("(?s).*[.!?]");
+        }
+        for (int i = 1; i < chunks.size(); i++) {
+            assertThat(chunks.get(i).originalIndexStart()).isGreaterThan(chunks.get(i - 1).originalIndexStart());
+        }
+    }
+
+    @Test
+    void paragraphChunksNeverCrossHeadings() {
+        String body = generateDocument(new Random(7));
+        PipeDoc doc = PipeDoc.newBuilder().setId("doc-p").setBody(body).build();
+
+        List<Chunk> chunks = chunk(doc, options(ParagraphChunker.STRATEGY_NAME, 600, 0, null)).chunks();
+
+        assertThat(chunks).hasSizeGreaterThan(5);
+        for (Chunk chunk : chunks) {
+            assertThat(chunk.text()).isEqualTo(body.substring(chunk.originalIndexStart(), chunk.originalIndexEnd() + 1));
+            assertThat(chunk.text().length()).isLessThanOrEqualTo(600);
+            // A heading may only open a chunk
+            assertThat(chunk.text().indexOf("\n# ")).isEqualTo(-1);
+        }
+        assertThat(chunks.get(0).text()).startsWith("# Section 0");
+    }
+
+    @Test
+    void paragraphDetectsSetextAndStandaloneHeadings() {
+        String body = "Overview\n========\n\nFirst paragraph here.\n\nDetails\n\nSecond paragraph. It has two sentences.";
+        PipeDoc doc = PipeDoc.newBuilder().setId("doc-h").setBody(body).build();
+
+        List<Chunk> chunks = chunk(doc, options(ParagraphChunker.STRATEGY_NAME, 1000, 0, null)).chunks();
+
+        assertThat(chunks).extracting(Chunk::text).containsExactly(
+                "Overview\n========\n\nFirst paragraph here.",
+                "Details\n\nSecond paragraph. It has two sentences.");
+    }
+
+    @Test
+    void tokenBudgetIsRespectedBySentenceAndParagraphStrategies() {
+        String body = generateDocument(new Random(3));
+        PipeDoc doc = PipeDoc.newBuilder().setId("doc-t").setBody(body).build();
+
+        for (String name : List.of(SentenceChunker.STRATEGY_NAME, ParagraphChunker.STRATEGY_NAME)) {
+            List<Chunk> chunks = chunk(doc, options(name, 40, 10, TOKENIZER)).chunks();
+            assertThat(chunks).isNotEmpty();
+            for (Chunk chunk : chunks) {
+                assertThat(chunk.tokenCount()).as(name).isEqualTo(registry.countTokens(TOKENIZER, chunk.text()));
+                assertThat(chunk.tokenCount()).as(name).isLessThanOrEqualTo(40);
+            }
+        }
+    }
+
+    @Test
+    void unknownStrategyIsRejected() {
+        PipeDoc doc = PipeDoc.newBuilder().setId("doc-u").setBody("text").build();
+        assertThatThrownBy(() -> chunk(doc, options("semantic", 100, 0, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("semantic");
+    }
+
+    /**
+     * Chunks the source field of {@code doc} as the service does: extract the text, then apply the strategy.
+     */
+    private ChunkingResult chunk(PipeDoc doc, ChunkerOptions options) {
+        String text = SourceTextExtractor.prepareText(doc, options.sourceField(), "stream", "step").orElseThrow();
+        return strategies.chunkText(text, options,
+                new ChunkingContext("stream", doc.getId(), "step", options.sourceField()));
+    }
+
+    private static ChunkerOptions options(String strategy, int size, int overlap, String tokenizer) {
+        return new ChunkerOptions("body", size, overlap, null, null, null, null, false, false, null,
+                tokenizer == null ? null : ChunkerOptions.CHUNK_UNIT_TOKENS, tokenizer, strategy, null, null, null);
+    }
+
+    /**
+     * Builds a markdown-style document: sections with a heading followed by a few paragraphs of short sentences.
+     */
+    private static String generateDocument(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int sections = 4 + random.nextInt(4);
+        for (int s = 0; s < sections; s++) {
+            sb.append("# Section ").append(s).append("\n\n");
+            int paragraphs = 1 + random.nextInt(4);
+            for (int p = 0; p < paragraphs; p++) {
+                int sentences = 2 + random.nextInt(6);
+                for (int n = 0; n < sentences; n++) {
+                    int words = 4 + random.nextInt(10);
+                    for (int w = 0; w < words; w++) {
+                        String word = WORDS[random.nextInt(WORDS.length)];
+                        sb.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+                        sb.append(w == words - 1 ? "" : " ");
+                    }
+                    sb.append(random.nextInt(5) == 0 ? "? " : ". ");
+                }
+                sb.setLength(sb.length() - 1);
+                sb.append("\n\n");
+            }
+        }
+        return sb.toString();
+    }
+}
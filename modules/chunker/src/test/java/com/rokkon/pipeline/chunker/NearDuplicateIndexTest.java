@@ -0,0 +1,141 @@
+package com.rokkon.pipeline.chunker;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests MinHash fingerprinting and the bounded LSH index behind near-duplicate chunk suppression.
+ */
+class NearDuplicateIndexTest {
+
+    private static final Logger LOG = Logger.getLogger(NearDuplicateIndexTest.class);
+    private static final String CONFIG = "body_overlap_char_500_50";
+    private static final String[] WORDS = {"pipeline", "vector", "search", "document", "embedding", "model", "index",
+            "query", "relevance", "ranking", "semantic", "token", "crawler", "mirror", "revision", "page", "content",
+            "chunk", "shingle", "signature", "bucket", "band", "similar", "unique"};
+
+    @Test
+    void findsNearDuplicatesAcrossDocuments() {
+        NearDuplicateIndex index = new NearDuplicateIndex(1000, 3);
+        String original = text(new Random(1), 80);
+        // A revision: one word changed, one appended
+        String revision = original.replaceFirst("pipeline", "workflow") + " updated";
+
+        assertThat(add(index, "doc-1", "doc-1_chunk_0", original)).isNull();
+        NearDuplicateIndex.Match match = add(index, "doc-2", "doc-2_chunk_0", revision);
+
+        assertThat(match).isNotNull();
+        assertThat(match.canonicalChunkId()).isEqualTo("doc-1_chunk_0");
+        assertThat(match.similarity()).isGreaterThan(0.8);
+        // The duplicate is not indexed itself
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void unrelatedTextsAreUnique() {
+        NearDuplicateIndex index = new NearDuplicateIndex(1000, 3);
+        Random random = new Random(2);
+        for (int i = 0; i < 200; i++) {
+            assertThat(add(index, "doc-" + i, "doc-" + i + "_chunk_0", text(random, 80))).isNull();
+        }
+        assertThat(index.size()).isEqualTo(200);
+    }
+
+    @Test
+    void comparesOnlyWithinTheSameChunkConfig() {
+        NearDuplicateIndex index = new NearDuplicateIndex(1000, 3);
+        String text = text(new Random(3), 60);
+        index.findOrAdd("doc-1", "config-a", "a_chunk_0", index.signature(text), 0.8, true);
+
+        assertThat(index.findOrAdd("doc-2", "config-b", "b_chunk_0", index.signature(text), 0.8, true)).isNull();
+        assertThat(index.findOrAdd("doc-2", "config-a", "a2_chunk_0", index.signature(text), 0.8, true)).isNotNull();
+    }
+
+    @Test
+    void reprocessedDocumentDoesNotMatchItsEarlierVersion() {
+        NearDuplicateIndex index = new NearDuplicateIndex(1000, 3);
+        String text = text(new Random(4), 60);
+        add(index, "doc-1", "stream-1_doc-1_chunk_0", text);
+
+        index.forgetDocument("doc-1");
+
+        assertThat(index.size()).isZero();
+        assertThat(add(index, "doc-1", "stream-2_doc-1_chunk_0", text)).isNull();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesBeyondTheBound() {
+        NearDuplicateIndex index = new NearDuplicateIndex(2, 3);
+        Random random = new Random(5);
+        String first = text(random, 40);
+        String second = text(random, 40);
+        String third = text(random, 40);
+        add(index, "doc-1", "c1", first);
+        add(index, "doc-2", "c2", second);
+        // Matching keeps c1 recently used, so c2 is evicted when c3 arrives
+        assertThat(add(index, "doc-4", "c4", first)).isNotNull();
+        add(index, "doc-3", "c3", third);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(add(index, "doc-5", "c5", first)).isNotNull();
+        assertThat(add(index, "doc-6", "c6", second)).isNull();
+    }
+
+    @Test
+    void testModeDoesNotRegisterChunks() {
+        NearDuplicateIndex index = new NearDuplicateIndex(1000, 3);
+        String text = text(new Random(6), 40);
+
+        assertThat(index.findOrAdd("doc-1", CONFIG, "c1", index.signature(text), 0.8, false)).isNull();
+        assertThat(index.size()).isZero();
+        assertThat(index.signature(" ... ")).isNull();
+    }
+
+    @Test
+    void benchmarkMirroredCorpus() {
+        // Half of the chunks are light edits of earlier chunks, as in a crawl with mirrors and revisions
+        NearDuplicateIndex index = new NearDuplicateIndex(100_000, 3);
+        Random random = new Random(7);
+        List<String> originals = new ArrayList<>();
+        int chunks = 10_000;
+        int expectedDuplicates = 0;
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < chunks; i++) {
+            String text;
+            if (!originals.isEmpty() && random.nextBoolean()) {
+                text = originals.get(random.nextInt(originals.size())) + " " + WORDS[random.nextInt(WORDS.length)];
+                expectedDuplicates++;
+            } else {
+                text = text(random, 100);
+                originals.add(text);
+            }
+            if (add(index, "doc-" + i, "doc-" + i + "_chunk_0", text) != null) {
+                found++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOG.infof("Near-duplicate index: %d chunks in %.2f s (%.0f chunks/s), %d of %d near-duplicates found, %d indexed",
+                chunks, seconds, chunks / seconds, found, expectedDuplicates, index.size());
+
+        assertThat(found).isBetween((int) (expectedDuplicates * 0.99), expectedDuplicates);
+    }
+
+    private static NearDuplicateIndex.Match add(NearDuplicateIndex index, String documentId, String chunkId, String text) {
+        return index.findOrAdd(documentId, CONFIG, chunkId, index.signature(text), 0.8, true);
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(w % 12 == 11 ? ". " : " ");
+        }
+        return text.toString().strip();
+    }
+}
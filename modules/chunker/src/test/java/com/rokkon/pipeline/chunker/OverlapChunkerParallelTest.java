@@ -0,0 +1,97 @@
+package com.rokkon.pipeline.chunker;
+
+import com.rokkon.search.model.PipeDoc;
+import opennlp.tools.tokenize.SimpleTokenizer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that parallel chunking produces exactly the same chunks as the serial path.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OverlapChunkerParallelTest {
+
+    private static final String[] WORDS = {
+            "the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "Pipeline", "chunk",
+            "(embedded)", "value,", "end.", "question?", "https://example.com/a/b?c=d", "[note]", "42", "x"
+    };
+
+    private ParallelChunkingExecutor executor;
+    private OverlapChunker serialChunker;
+    private OverlapChunker parallelChunker;
+
+    @BeforeAll
+    void setUp() {
+        // Small thresholds so the parallel path is exercised with modest test data
+        executor = new ParallelChunkingExecutor(4, 1_000, 997, 2);
+        serialChunker = new OverlapChunker(SimpleTokenizer.INSTANCE);
+        parallelChunker = new OverlapChunker(SimpleTokenizer.INSTANCE, executor, null);
+    }
+
+    @AfterAll
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void parallelChunksMatchSerialChunks() {
+        PipeDoc doc = PipeDoc.newBuilder()
+                .setId("doc-1")
+                .setBody(generateText(200_000, 7L))
+                .build();
+
+        ChunkingResult serial = serialChunker.createChunks(doc, options(500, 50, false, false), "stream", "step");
+        ChunkingResult parallel = parallelChunker.createChunks(doc, options(500, 50, false, true), "stream", "step");
+
+        assertThat(serial.chunks()).hasSizeGreaterThan(100);
+        assertThat(parallel.chunks()).containsExactlyElementsOf(serial.chunks());
+    }
+
+    @Test
+    void parallelChunksMatchSerialChunksWithUrlPreservation() {
+        PipeDoc doc = PipeDoc.newBuilder()
+                .setId("doc-2")
+                .setBody(generateText(50_000, 11L))
+                .build();
+
+        ChunkingResult serial = serialChunker.createChunks(doc, options(200, 80, true, false), "stream", "step");
+        ChunkingResult parallel = parallelChunker.createChunks(doc, options(200, 80, true, true), "stream", "step");
+
+        assertThat(parallel.chunks()).containsExactlyElementsOf(serial.chunks());
+        assertThat(parallel.placeholderToUrlMap()).isEqualTo(serial.placeholderToUrlMap());
+    }
+
+    @Test
+    void smallDocumentsStaySerialAndStillMatch() {
+        PipeDoc doc = PipeDoc.newBuilder()
+                .setId("doc-3")
+                .setBody("A short body. It is below every parallel threshold.")
+                .build();
+
+        ChunkingResult serial = serialChunker.createChunks(doc, options(20, 5, false, false), "stream", "step");
+        ChunkingResult parallel = parallelChunker.createChunks(doc, options(20, 5, false, true), "stream", "step");
+
+        assertThat(parallel.chunks()).containsExactlyElementsOf(serial.chunks());
+    }
+
+    private static ChunkerOptions options(int size, int overlap, boolean preserveUrls, boolean parallel) {
+        return new ChunkerOptions("body", size, overlap, null, null, null, null, preserveUrls, parallel, null, null, null, null, null, null, null);
+    }
+
+    private static String generateText(int approximateLength, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(approximateLength + 64);
+        while (sb.length() < approximateLength) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            int separator = random.nextInt(20);
+            sb.append(separator == 0 ? "\n\n" : separator == 1 ? "\t" : " ");
+        }
+        return sb.toString();
+    }
+}
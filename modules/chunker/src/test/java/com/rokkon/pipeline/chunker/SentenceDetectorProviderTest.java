@@ -0,0 +1,42 @@
+package com.rokkon.pipeline.chunker;
+
+import opennlp.tools.sentdetect.SentenceDetector;
+import opennlp.tools.util.Span;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the regex sentence detector used when the OpenNLP model is not packaged.
+ */
+class SentenceDetectorProviderTest {
+
+    private final SentenceDetector detector = new SentenceDetectorProvider().createFallbackDetector();
+
+    @Test
+    void breaksAfterQuestionAndExclamationMarksToo() {
+        String text = "Is it ready? Yes! Ship it. Then rest";
+
+        // The previous fallback only broke after periods
+        assertThat(text.split("(?<=\\.)\\s+")).containsExactly("Is it ready? Yes! Ship it.", "Then rest");
+        assertThat(detector.sentDetect(text)).containsExactly("Is it ready?", "Yes!", "Ship it.", "Then rest");
+    }
+
+    @Test
+    void spansMatchTheTextAcrossNewlinesAndRunsOfWhitespace() {
+        String text = "First one.\n\nSecond  one?   Third one.\n";
+
+        Span[] spans = detector.sentPosDetect(text);
+
+        assertThat(spans).hasSize(3);
+        assertThat(spans[0].getCoveredText(text)).isEqualTo("First one.");
+        assertThat(spans[1].getCoveredText(text)).isEqualTo("Second  one?");
+        assertThat(spans[2].getCoveredText(text)).isEqualTo("Third one.");
+    }
+
+    @Test
+    void doesNotBreakWithoutFollowingWhitespace() {
+        // No whitespace after the mark, so no break: decimals, versions, URLs
+        assertThat(detector.sentDetect("Version 2.5 is out!Really.")).containsExactly("Version 2.5 is out!Really.");
+    }
+}
@@ -0,0 +1,122 @@
+package com.rokkon.pipeline.chunker;
+
+import com.rokkon.search.model.PipeDoc;
+import opennlp.tools.tokenize.SimpleTokenizer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests token-budget chunking against a small word-level tokenizer stored in test resources.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TokenBudgetChunkingTest {
+
+    private static final String TOKENIZER = "test-wordlevel";
+
+    private ModelTokenizerRegistry registry;
+    private OverlapChunker chunker;
+
+    @BeforeAll
+    void setUp() throws URISyntaxException {
+        Path tokenizerDirectory = Paths.get(getClass().getResource("/tokenizers").toURI());
+        registry = new ModelTokenizerRegistry(tokenizerDirectory.toString());
+        chunker = new OverlapChunker(SimpleTokenizer.INSTANCE, null, registry);
+    }
+
+    @AfterAll
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void chunksRespectTokenBudgetAndReportTokenCounts() {
+        String body = "The quick brown fox jumps over the lazy dog. ".repeat(40);
+        PipeDoc doc = PipeDoc.newBuilder().setId("doc-1").setBody(body).build();
+
+        List<Chunk> chunks = chunker.createChunks(doc, tokenOptions(25, 5), "stream", "step").chunks();
+
+        assertThat(chunks).hasSizeGreaterThan(1);
+        for (Chunk chunk : chunks) {
+            assertThat(chunk.tokenCount()).isBetween(1, 25);
+            assertThat(registry.countTokens(TOKENIZER, chunk.text())).isEqualTo(chunk.tokenCount());
+            // Chunk text is the exact original text between its offsets
+            assertThat(body.substring(chunk.originalIndexStart(), chunk.originalIndexEnd() + 1)).isEqualTo(chunk.text());
+        }
+        assertThat(chunks.get(0).originalIndexStart()).isZero();
+        assertThat(chunks.get(chunks.size() - 1).originalIndexEnd()).isEqualTo(body.stripTrailing().length() - 1);
+    }
+
+    @Test
+    void consecutiveChunksOverlapByTokenCount() {
+        String body = "pipeline chunk tokens are counted by model embedding ".repeat(20);
+        PipeDoc doc = PipeDoc.newBuilder().setId("doc-2").setBody(body).build();
+
+        List<Chunk> chunks = chunker.createChunks(doc, tokenOptions(20, 4), "stream", "step").chunks();
+
+        for (int i = 1; i < chunks.size(); i++) {
+            Chunk previous = chunks.get(i - 1);
+            Chunk current = chunks.get(i);
+            assertThat(current.originalIndexStart()).isLessThan(previous.originalIndexEnd());
+            String overlap = body.substring(current.originalIndexStart(), previous.originalIndexEnd() + 1);
+            assertThat(registry.countTokens(TOKENIZER, overlap)).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void offsetsAreStringIndicesWhenTextHasSupplementaryCharacters() {
+        // The emoji is one code point but two chars, which shifts every later token
+        String body = "\uD83D\uDE00 a b c";
+        PipeDoc doc = PipeDoc.newBuilder().setId("doc-4").setBody(body).build();
+
+        List<Chunk> chunks = chunker.createChunks(doc, tokenOptions(2, 0), "stream", "step").chunks();
+
+        assertThat(chunks).extracting(Chunk::text).containsExactly("\uD83D\uDE00 a", "b c");
+        for (Chunk chunk : chunks) {
+            assertThat(body.substring(chunk.originalIndexStart(), chunk.originalIndexEnd() + 1)).isEqualTo(chunk.text());
+        }
+        TextAnalysisCache.TokenOffsets offsets = new TextAnalysisCache().tokenOffsets(registry, TOKENIZER, body);
+        assertThat(offsets.starts()).containsExactly(0, 3, 5, 7);
+        assertThat(offsets.ends()).containsExactly(2, 4, 6, 8);
+        assertThat(offsets.countStartingIn(3, body.length())).isEqualTo(3);
+    }
+
+    @Test
+    void countsTokensSharingAStartOrReportedOutOfOrder() {
+        // Three byte-fallback pieces of one character at 4, and a token reported after a later one
+        TextAnalysisCache.TokenOffsets offsets = new TextAnalysisCache.TokenOffsets(
+                new int[]{0, 4, 4, 4, 2, 9}, new int[]{1, 5, 5, 5, 3, 10}).inTextOrder();
+
+        assertThat(offsets.starts()).containsExactly(0, 2, 4, 4, 4, 9);
+        assertThat(offsets.ends()).containsExactly(1, 3, 5, 5, 5, 10);
+        assertThat(offsets.countStartingIn(0, 4)).isEqualTo(2);
+        assertThat(offsets.countStartingIn(4, 9)).isEqualTo(3);
+        assertThat(offsets.countStartingIn(5, 9)).isZero();
+        assertThat(offsets.countStartingIn(4, 10)).isEqualTo(4);
+    }
+
+    @Test
+    void missingTokenizerFailsWithoutDownloading() {
+        PipeDoc doc = PipeDoc.newBuilder().setId("doc-3").setBody("some text").build();
+        ChunkerOptions options = new ChunkerOptions("body", 10, 0, null, null, null, null, false, false, null,
+                ChunkerOptions.CHUNK_UNIT_TOKENS, "does-not-exist", null, null, null, null);
+
+        assertThatThrownBy(() -> chunker.createChunks(doc, options, "stream", "step"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("does-not-exist");
+    }
+
+    private static ChunkerOptions tokenOptions(int size, int overlap) {
+        return new ChunkerOptions("body", size, overlap, null, null, null, null, false, false, null,
+                ChunkerOptions.CHUNK_UNIT_TOKENS, TOKENIZER, null, null, null, null);
+    }
+}
@@ -18,6 +18,9 @@ dependencies {
     implementation("ai.djl.pytorch:pytorch-model-zoo:0.33.0")
     implementation("ai.djl.pytorch:pytorch-jni:2.5.1-0.33.0")
 
+    // ONNX Runtime CPU backend (embedder.models.backend=onnx)
+    implementation("com.microsoft.onnxruntime:onnxruntime:1.20.0")
+
     // CUDA support for GPU acceleration (if on amd64 architecture)
     if (System.getProperty("os.arch") == "amd64") {
         implementation("ai.djl.pytorch:pytorch-native-cu124:2.5.1")
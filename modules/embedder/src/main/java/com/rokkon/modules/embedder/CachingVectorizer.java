@@ -0,0 +1,303 @@
+package com.rokkon.modules.embedder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Vectorizer decorator that serves repeated texts (headers, footers, license text, navigation) from a
+ * persistent {@link EmbeddingStore} keyed by (cache namespace, normalized text hash). Only cache misses reach
+ * the wrapped vectorizer, and identical texts within one batch are embedded once.
+ *
+ * <p>The namespace names the store file and is part of every key. It must identify everything that changes
+ * the vectors, not just the model: the same model run by another backend or at another quantization produces
+ * different vectors, so it needs its own namespace (see {@link ModelRegistryProducer#cacheNamespace}).
+ *
+ * <p>Texts are normalized (Unicode NFC, whitespace collapsed and trimmed) before hashing, so formatting
+ * differences that do not change the model input still hit the cache. The store is opened lazily once
+ * the vector dimension is known, or at startup when a store file from a previous run exists.
+ *
+ * <p>Metrics (tagged with the model id): {@code embedder.cache.hits}, {@code embedder.cache.misses},
+ * {@code embedder.cache.evictions}, {@code embedder.cache.entries} and {@code embedder.cache.hit.ratio}.
+ */
+public class CachingVectorizer implements Vectorizer, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingVectorizer.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Vectorizer delegate;
+    private final String namespace;
+    private final Path storeFile;
+    private final long maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+    private final MeterRegistry registry;
+    // Meters that read this instance; removed on close so a reloaded model registers fresh ones
+    private final List<Meter> instanceMeters;
+    private volatile EmbeddingStore store;
+
+    /**
+     * Caches under the delegate's model id, for vectorizers whose model id alone determines their vectors.
+     */
+    public CachingVectorizer(Vectorizer delegate, Path directory, long maxEntries, MeterRegistry registry) {
+        this(delegate, delegate.getModelId(), directory, maxEntries, registry);
+    }
+
+    /**
+     * @param delegate Vectorizer that computes cache misses
+     * @param namespace Identifies the vectors the delegate produces, e.g. model, backend and quantization
+     * @param directory Directory holding one store file per namespace
+     * @param maxEntries Maximum number of cached vectors per namespace
+     * @param registry Registry for the cache metrics
+     */
+    public CachingVectorizer(Vectorizer delegate, String namespace, Path directory, long maxEntries,
+                             MeterRegistry registry) {
+        this.delegate = delegate;
+        this.namespace = namespace;
+        this.storeFile = storeFile(directory, namespace);
+        this.maxEntries = maxEntries;
+        this.registry = registry;
+
+        String modelId = delegate.getModelId();
+        this.hits = Counter.builder("embedder.cache.hits")
+                .description("Embeddings served from the embedding cache")
+                .tag("model", modelId)
+                .register(registry);
+        this.misses = Counter.builder("embedder.cache.misses")
+                .description("Embeddings computed because they were not in the embedding cache")
+                .tag("model", modelId)
+                .register(registry);
+        this.instanceMeters = List.of(
+                FunctionCounter.builder("embedder.cache.evictions", this, cache -> cache.store != null ? cache.store.evictions() : 0)
+                        .description("Entries replaced to stay within the embedding cache capacity")
+                        .tag("model", modelId)
+                        .register(registry),
+                Gauge.builder("embedder.cache.entries", this, cache -> cache.store != null ? cache.store.size() : 0)
+                        .description("Vectors in the embedding cache")
+                        .tag("model", modelId)
+                        .register(registry),
+                Gauge.builder("embedder.cache.hit.ratio", this, CachingVectorizer::hitRatio)
+                        .description("Fraction of embedding lookups served from the cache")
+                        .tag("model", modelId)
+                        .register(registry));
+
+        int existingDimension = EmbeddingStore.readDimension(storeFile);
+        if (existingDimension > 0) {
+            this.store = openStore(existingDimension);
+        }
+    }
+
+    @Override
+    public Uni<float[]> embeddings(String text) {
+        if (text == null || text.isBlank()) {
+            return delegate.embeddings(text);
+        }
+        long[] key = key(namespace, text);
+        float[] cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return Uni.createFrom().item(cached);
+        }
+        misses.increment();
+        return delegate.embeddings(text).invoke(vector -> save(key, vector));
+    }
+
+    @Override
+    public Uni<List<float[]>> batchEmbeddings(List<String> texts) {
+        if (texts == null || texts.isEmpty()) {
+            return delegate.batchEmbeddings(texts);
+        }
+
+        float[][] results = new float[texts.size()][];
+        // Distinct missing texts, in first-seen order, with every position they fill
+        Map<Key, List<Integer>> missingPositions = new LinkedHashMap<>();
+        List<String> missingTexts = new ArrayList<>();
+        List<Key> missingKeys = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            long[] key = key(namespace, text == null ? "" : text);
+            float[] cached = text == null || text.isBlank() ? null : lookup(key);
+            if (cached != null) {
+                hits.increment();
+                results[i] = cached;
+                continue;
+            }
+            misses.increment();
+            Key missingKey = new Key(key[0], key[1]);
+            List<Integer> positions = missingPositions.get(missingKey);
+            if (positions == null) {
+                positions = new ArrayList<>(1);
+                missingPositions.put(missingKey, positions);
+                missingTexts.add(text);
+                missingKeys.add(missingKey);
+            }
+            positions.add(i);
+        }
+
+        if (missingTexts.isEmpty()) {
+            return Uni.createFrom().item(Arrays.asList(results));
+        }
+        log.debug("Embedding cache: {} of {} texts missing ({} distinct)",
+                texts.size() - countFilled(results), texts.size(), missingTexts.size());
+
+        return delegate.batchEmbeddings(missingTexts).map(vectors -> {
+            for (int j = 0; j < missingKeys.size(); j++) {
+                Key missingKey = missingKeys.get(j);
+                float[] vector = vectors.get(j);
+                save(new long[]{missingKey.high(), missingKey.low()}, vector);
+                for (int position : missingPositions.get(missingKey)) {
+                    results[position] = vector;
+                }
+            }
+            return Arrays.asList(results);
+        });
+    }
+
+    @Override
+    public String getModelId() {
+        return delegate.getModelId();
+    }
+
+    @Override
+    public EmbeddingModel getModel() {
+        return delegate.getModel();
+    }
+
+    @Override
+    public boolean isUsingGpu() {
+        return delegate.isUsingGpu();
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return delegate.getMaxBatchSize();
+    }
+
+    /**
+     * @return The wrapped vectorizer
+     */
+    public Vectorizer getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Fraction of lookups served from the cache since startup.
+     */
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    /**
+     * Flushes and closes the store so it is reused on the next start, then closes the wrapped vectorizer.
+     */
+    @Override
+    public void close() {
+        instanceMeters.forEach(registry::remove);
+        EmbeddingStore current = store;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.warn("Failed to close embedding store {}: {}", storeFile, e.getMessage());
+            }
+        }
+        if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close vectorizer for model {}: {}", getModelId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Store file of a namespace in {@code directory}.
+     */
+    static Path storeFile(Path directory, String namespace) {
+        return directory.resolve(namespace.replaceAll("[^a-zA-Z0-9_\\-]", "_") + ".embcache");
+    }
+
+    /**
+     * Builds the 128-bit cache key: the first 16 bytes of SHA-256 over the namespace and the normalized text.
+     */
+    static long[] key(String namespace, String text) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").strip();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(namespace.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+            return new long[]{hash.getLong(), hash.getLong()};
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private float[] lookup(long[] key) {
+        EmbeddingStore current = store;
+        return current != null ? current.get(key[0], key[1]) : null;
+    }
+
+    private void save(long[] key, float[] vector) {
+        if (vector == null || vector.length == 0) {
+            return;
+        }
+        EmbeddingStore current = store;
+        if (current == null) {
+            synchronized (this) {
+                if (store == null) {
+                    store = openStore(vector.length);
+                }
+                current = store;
+            }
+        }
+        if (current.dimension() != vector.length) {
+            log.warn("Not caching embedding of dimension {} in store of dimension {} for model {}",
+                    vector.length, current.dimension(), getModelId());
+            return;
+        }
+        current.put(key[0], key[1], vector);
+    }
+
+    private EmbeddingStore openStore(int dimension) {
+        try {
+            return EmbeddingStore.open(storeFile, dimension, maxEntries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open embedding store " + storeFile, e);
+        }
+    }
+
+    private static int countFilled(float[][] results) {
+        int filled = 0;
+        for (float[] result : results) {
+            if (result != null) {
+                filled++;
+            }
+        }
+        return filled;
+    }
+
+    private record Key(long high, long low) {
+    }
+}
@@ -0,0 +1,287 @@
+package com.rokkon.modules.embedder;
+
+import io.smallrye.mutiny.Uni;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Batches embedding requests across concurrent callers. Pending texts are queued by length bucket
+ * (powers of two of the estimated token count), so a batch never pads a short text to the length of a
+ * much longer one: within a bucket the longest text is at most twice the shortest.
+ *
+ * <p>A bucket is flushed as soon as it holds {@code maxBatchSize} texts, or once its oldest text has
+ * waited {@code maxDelay}. At most {@code maxConcurrentBatches} batches run at a time (one per predictor);
+ * while they are busy, new texts keep accumulating into fuller batches, and every completed batch
+ * immediately drains the queue again. Each caller's {@link Uni} completes when its own texts are done.
+ */
+public class DynamicBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(DynamicBatcher.class);
+
+    /** Buckets cover estimated lengths 1, 2, 4, ... 2^(BUCKETS-1) and above. */
+    static final int BUCKETS = 11;
+
+    private final Function<List<String>, List<float[]>> batchPredictor;
+    private final ToIntFunction<String> lengthEstimator;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Executor executor;
+    private final Semaphore batchPermits;
+    private final ScheduledExecutorService timer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Pending>[] buckets = new ArrayDeque[BUCKETS];
+    private ScheduledFuture<?> scheduledDrain;
+    private long scheduledDrainAt = Long.MAX_VALUE;
+    private boolean shutdown;
+
+    /**
+     * @param batchPredictor Blocking function embedding a batch, returning vectors in input order
+     * @param lengthEstimator Estimated model length (tokens) of a text, used for bucketing
+     * @param maxBatchSize Largest batch passed to the predictor
+     * @param maxDelayMillis Longest time a text waits for its batch to fill
+     * @param maxConcurrentBatches Batches allowed to run at once (the predictor pool size)
+     * @param executor Executor running the batch predictor
+     */
+    public DynamicBatcher(Function<List<String>, List<float[]>> batchPredictor, ToIntFunction<String> lengthEstimator,
+                          int maxBatchSize, long maxDelayMillis, int maxConcurrentBatches, Executor executor) {
+        this.batchPredictor = batchPredictor;
+        this.lengthEstimator = lengthEstimator;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.executor = executor;
+        this.batchPermits = new Semaphore(maxConcurrentBatches);
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("embedding-batcher-timer")
+                .daemon(true)
+                .factory());
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Rough token count of a text (about four characters per token) for bucketing when the model's
+     * tokenizer is not at hand. Only the power-of-two bucket matters, so the estimate can be coarse.
+     */
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + 3) / 4;
+    }
+
+    /**
+     * Queues one text and completes with its vector.
+     */
+    public Uni<float[]> submit(String text) {
+        return Uni.createFrom().completionStage(() -> enqueue(List.of(text)).get(0));
+    }
+
+    /**
+     * Queues all texts (they may end up in different batches) and completes with their vectors in input order.
+     */
+    public Uni<List<float[]>> submitAll(List<String> texts) {
+        return Uni.createFrom().completionStage(() -> {
+            List<CompletableFuture<float[]>> futures = enqueue(texts);
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .thenApply(ignored -> {
+                        List<float[]> vectors = new ArrayList<>(futures.size());
+                        for (CompletableFuture<float[]> future : futures) {
+                            vectors.add(future.join());
+                        }
+                        return vectors;
+                    });
+        });
+    }
+
+    /**
+     * @return Number of texts waiting for a batch
+     */
+    public int pendingCount() {
+        lock.lock();
+        try {
+            int pending = 0;
+            for (ArrayDeque<Pending> bucket : buckets) {
+                pending += bucket.size();
+            }
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fails all pending texts and stops the deadline timer.
+     */
+    public void shutdown() {
+        List<Pending> abandoned = new ArrayList<>();
+        lock.lock();
+        try {
+            shutdown = true;
+            for (ArrayDeque<Pending> bucket : buckets) {
+                abandoned.addAll(bucket);
+                bucket.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+        IllegalStateException failure = new IllegalStateException("Vectorizer has been shut down");
+        abandoned.forEach(pending -> pending.result().completeExceptionally(failure));
+        timer.shutdownNow();
+    }
+
+    static int bucketOf(int estimatedLength) {
+        if (estimatedLength <= 1) {
+            return 0;
+        }
+        int bucket = 32 - Integer.numberOfLeadingZeros(estimatedLength - 1); // ceil(log2(length))
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private List<CompletableFuture<float[]>> enqueue(List<String> texts) {
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new IllegalStateException("Vectorizer has been shut down");
+            }
+            for (String text : texts) {
+                CompletableFuture<float[]> future = new CompletableFuture<>();
+                buckets[bucketOf(lengthEstimator.applyAsInt(text))].addLast(new Pending(text, future, now));
+                futures.add(future);
+            }
+        } finally {
+            lock.unlock();
+        }
+        drain();
+        return futures;
+    }
+
+    /**
+     * Dispatches every ready batch a permit is available for, then arms the timer for the next deadline.
+     */
+    private void drain() {
+        while (true) {
+            List<Pending> batch;
+            lock.lock();
+            try {
+                if (shutdown) {
+                    return;
+                }
+                int bucket = readyBucket(System.nanoTime());
+                if (bucket < 0) {
+                    scheduleNextDeadline();
+                    return;
+                }
+                if (!batchPermits.tryAcquire()) {
+                    // A running batch calls drain() when it completes
+                    return;
+                }
+                batch = take(buckets[bucket]);
+            } finally {
+                lock.unlock();
+            }
+            dispatch(batch);
+        }
+    }
+
+    /**
+     * A full bucket first (the fullest), otherwise the bucket whose oldest text has waited longest past
+     * its deadline; -1 when no bucket is ready.
+     */
+    private int readyBucket(long now) {
+        int fullest = -1;
+        int oldest = -1;
+        long oldestEnqueued = Long.MAX_VALUE;
+        for (int i = 0; i < BUCKETS; i++) {
+            ArrayDeque<Pending> bucket = buckets[i];
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            if (bucket.size() >= maxBatchSize && (fullest < 0 || bucket.size() > buckets[fullest].size())) {
+                fullest = i;
+            }
+            long enqueued = bucket.peekFirst().enqueuedNanos();
+            if (now - enqueued >= maxDelayNanos && enqueued < oldestEnqueued) {
+                oldestEnqueued = enqueued;
+                oldest = i;
+            }
+        }
+        return fullest >= 0 ? fullest : oldest;
+    }
+
+    private List<Pending> take(ArrayDeque<Pending> bucket) {
+        int size = Math.min(maxBatchSize, bucket.size());
+        List<Pending> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(bucket.pollFirst());
+        }
+        return batch;
+    }
+
+    private void scheduleNextDeadline() {
+        long earliest = Long.MAX_VALUE;
+        for (ArrayDeque<Pending> bucket : buckets) {
+            if (!bucket.isEmpty()) {
+                earliest = Math.min(earliest, bucket.peekFirst().enqueuedNanos() + maxDelayNanos);
+            }
+        }
+        if (earliest == Long.MAX_VALUE || (scheduledDrain != null && !scheduledDrain.isDone() && scheduledDrainAt <= earliest)) {
+            return;
+        }
+        if (scheduledDrain != null) {
+            scheduledDrain.cancel(false);
+        }
+        scheduledDrainAt = earliest;
+        scheduledDrain = timer.schedule(this::drain, Math.max(0, earliest - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    private void dispatch(List<Pending> batch) {
+        try {
+            executor.execute(() -> runBatch(batch));
+        } catch (RuntimeException e) {
+            batchPermits.release();
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private void runBatch(List<Pending> batch) {
+        try {
+            List<String> texts = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                texts.add(pending.text());
+            }
+            List<float[]> vectors = batchPredictor.apply(texts);
+            if (vectors.size() != batch.size()) {
+                throw new IllegalStateException(String.format(
+                        "Batch predictor returned %d vectors for %d texts", vectors.size(), batch.size()));
+            }
+            log.debug("Embedded batch of {} texts", batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(vectors.get(i));
+            }
+        } catch (Throwable t) {
+            batch.forEach(pending -> pending.result().completeExceptionally(t));
+        } finally {
+            batchPermits.release();
+            drain();
+        }
+    }
+
+    private record Pending(String text, CompletableFuture<float[]> result, long enqueuedNanos) {
+    }
+}
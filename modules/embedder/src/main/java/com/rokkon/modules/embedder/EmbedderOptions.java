@@ -23,6 +23,8 @@ public class EmbedderOptions {
     public static final String DEFAULT_RESULT_SET_NAME_TEMPLATE = "%s_embeddings_%s";
     public static final int DEFAULT_MAX_BATCH_SIZE = 32;
     public static final String DEFAULT_BACKPRESSURE_STRATEGY = "DROP_OLDEST";
+    public static final String VECTOR_ENCODING_FLOAT = "float";
+    public static final String DEFAULT_VECTOR_ENCODING = VECTOR_ENCODING_FLOAT;
 
     private final List<EmbeddingModel> embeddingModels;
     private final Boolean checkChunks;
@@ -36,6 +38,7 @@ public class EmbedderOptions {
     private final String resultSetNameTemplate;
     private final Integer maxBatchSize;
     private final String backpressureStrategy;
+    private final String vectorEncoding;
 
     /**
      * Constructor with all parameters.
@@ -52,7 +55,8 @@ public class EmbedderOptions {
             @JsonProperty("log_prefix") String logPrefix,
             @JsonProperty("result_set_name_template") String resultSetNameTemplate,
             @JsonProperty("max_batch_size") Integer maxBatchSize,
-            @JsonProperty("backpressure_strategy") String backpressureStrategy) {
+            @JsonProperty("backpressure_strategy") String backpressureStrategy,
+            @JsonProperty("vector_encoding") String vectorEncoding) {
         this.embeddingModels = embeddingModels;
         this.checkChunks = checkChunks;
         this.checkDocumentFields = checkDocumentFields;
@@ -65,6 +69,7 @@ public class EmbedderOptions {
         this.resultSetNameTemplate = resultSetNameTemplate;
         this.maxBatchSize = maxBatchSize;
         this.backpressureStrategy = backpressureStrategy;
+        this.vectorEncoding = vectorEncoding;
     }
 
     /**
@@ -82,7 +87,8 @@ public class EmbedderOptions {
                 DEFAULT_LOG_PREFIX,
                 DEFAULT_RESULT_SET_NAME_TEMPLATE,
                 DEFAULT_MAX_BATCH_SIZE,
-                DEFAULT_BACKPRESSURE_STRATEGY);
+                DEFAULT_BACKPRESSURE_STRATEGY,
+                DEFAULT_VECTOR_ENCODING);
     }
 
     // Getters
@@ -134,6 +140,10 @@ public class EmbedderOptions {
         return backpressureStrategy;
     }
 
+    public String vectorEncoding() {
+        return vectorEncoding;
+    }
+
     /**
      * Returns a JSON schema for the EmbedderOptions.
      *
@@ -226,6 +236,12 @@ public class EmbedderOptions {
                       "enum": ["DROP_OLDEST", "DROP_LATEST", "BUFFER", "ERROR"],
                       "default": "DROP_OLDEST"
                     },
+                    "vector_encoding": {
+                      "description": "How vectors are written: 'float' uses the repeated float field; 'fp32', 'fp16' and 'int8' write the compact packed_vector field instead (fp16 halves and int8 quarters the payload at a small precision cost).",
+                      "type": "string",
+                      "enum": ["float", "fp32", "fp16", "int8"],
+                      "default": "float"
+                    },
                     "log_prefix": {
                       "description": "Prefix to add to log messages.",
                       "type": "string",
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.Struct;
 import com.google.protobuf.Value;
 import com.google.protobuf.util.JsonFormat;
+import com.rokkon.pipeline.util.ChunkMetadataKeys;
+import com.rokkon.pipeline.util.PackedVectors;
 import com.rokkon.search.model.*;
 import com.rokkon.search.sdk.*;
 import io.quarkus.grpc.GrpcService;
@@ -28,11 +30,13 @@ public class EmbedderService implements PipeStepProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(EmbedderService.class);
 
+    private static final int SKIPPED = -1;
+
     @Inject
     ObjectMapper objectMapper;
 
     @Inject
-    ReactiveVectorizer vectorizer; // Single vectorizer for now, can be extended to multiple
+    ModelRegistry modelRegistry;
 
     @RunOnVirtualThread
     @Override
@@ -64,35 +68,36 @@ public class EmbedderService implements PipeStepProcessor {
         String pipeStepName = metadata.getPipeStepName();
 
         log.info("Processing document ID: {} for step: {} in stream: {} using GPU: {}", 
-                inputDoc.getId(), pipeStepName, streamId, vectorizer.isUsingGpu());
+                inputDoc.getId(), pipeStepName, streamId, modelRegistry.isUsingGpu());
 
         return parseConfiguration(config, streamId, pipeStepName)
                 .chain(embedderOptions -> {
                     ProcessResponse.Builder responseBuilder = ProcessResponse.newBuilder();
                     PipeDoc.Builder outputDocBuilder = inputDoc.toBuilder();
+                    List<EmbeddingModel> models = requestedModels(embedderOptions);
 
                     // Process chunks if available and enabled
                     if (embedderOptions.checkChunks() && inputDoc.getSemanticResultsCount() > 0) {
-                        return processChunksReactive(inputDoc, outputDocBuilder, embedderOptions, pipeStepName)
+                        return processChunksReactive(inputDoc, outputDocBuilder, embedderOptions, pipeStepName, models)
                                 .map(chunksProcessed -> {
                                     if (chunksProcessed) {
                                         responseBuilder.addProcessorLogs(String.format(
                                                 "%sSuccessfully processed chunks for document ID: %s using model: %s (GPU: %s)",
                                                 embedderOptions.logPrefix() != null ? embedderOptions.logPrefix() : "", 
-                                                inputDoc.getId(), vectorizer.getModelId(), vectorizer.isUsingGpu()));
+                                                inputDoc.getId(), modelNames(models), modelRegistry.isUsingGpu()));
                                     }
                                     return buildSuccessResponse(responseBuilder, outputDocBuilder);
                                 });
                     } 
                     // Process document fields if chunks were not processed
                     else if (embedderOptions.checkDocumentFields()) {
-                        return processDocumentFieldsReactive(inputDoc, outputDocBuilder, embedderOptions, pipeStepName)
+                        return processDocumentFieldsReactive(inputDoc, outputDocBuilder, embedderOptions, models)
                                 .map(fieldsProcessed -> {
                                     if (fieldsProcessed) {
                                         responseBuilder.addProcessorLogs(String.format(
                                                 "%sSuccessfully processed document fields for document ID: %s using model: %s (GPU: %s)",
                                                 embedderOptions.logPrefix() != null ? embedderOptions.logPrefix() : "", 
-                                                inputDoc.getId(), vectorizer.getModelId(), vectorizer.isUsingGpu()));
+                                                inputDoc.getId(), modelNames(models), modelRegistry.isUsingGpu()));
                                     }
                                     return buildSuccessResponse(responseBuilder, outputDocBuilder);
                                 });
@@ -143,94 +148,172 @@ public class EmbedderService implements PipeStepProcessor {
                 options.logPrefix() != null ? options.logPrefix() : EmbedderOptions.DEFAULT_LOG_PREFIX,
                 options.resultSetNameTemplate() != null ? options.resultSetNameTemplate() : EmbedderOptions.DEFAULT_RESULT_SET_NAME_TEMPLATE,
                 options.maxBatchSize() != null ? options.maxBatchSize() : EmbedderOptions.DEFAULT_MAX_BATCH_SIZE,
-                options.backpressureStrategy() != null ? options.backpressureStrategy() : EmbedderOptions.DEFAULT_BACKPRESSURE_STRATEGY
+                options.backpressureStrategy() != null ? options.backpressureStrategy() : EmbedderOptions.DEFAULT_BACKPRESSURE_STRATEGY,
+                options.vectorEncoding() != null ? options.vectorEncoding() : EmbedderOptions.DEFAULT_VECTOR_ENCODING
         );
     }
 
-    private Uni<Boolean> processChunksReactive(PipeDoc inputDoc, PipeDoc.Builder outputDocBuilder, 
-                                               EmbedderOptions options, String pipeStepName) {
-        log.debug("Processing {} semantic results for chunks", inputDoc.getSemanticResultsCount());
+    /**
+     * The distinct models requested by the options, in order; the default model when none are listed.
+     */
+    private List<EmbeddingModel> requestedModels(EmbedderOptions options) {
+        if (options.embeddingModels() == null || options.embeddingModels().isEmpty()) {
+            return EmbedderOptions.DEFAULT_EMBEDDING_MODELS;
+        }
+        return options.embeddingModels().stream().filter(Objects::nonNull).distinct().toList();
+    }
 
-        boolean chunksProcessed = false;
+    /**
+     * The packed encoding requested by the options, or null to write the repeated float field.
+     */
+    private static PackedVector.Encoding packedEncoding(EmbedderOptions options) {
+        String encoding = options.vectorEncoding();
+        if (encoding == null || encoding.isBlank()
+                || EmbedderOptions.VECTOR_ENCODING_FLOAT.equalsIgnoreCase(encoding.trim())) {
+            return null;
+        }
+        return PackedVectors.encodingOf(encoding);
+    }
 
-        // Process each semantic result
-        for (int i = 0; i < inputDoc.getSemanticResultsCount(); i++) {
-            SemanticProcessingResult result = inputDoc.getSemanticResults(i);
+    /**
+     * Packs each distinct vector once; the same text may fill several chunks.
+     */
+    private static List<PackedVector> packAll(List<float[]> vectors, PackedVector.Encoding encoding) {
+        List<PackedVector> packed = new ArrayList<>(vectors.size());
+        for (float[] vector : vectors) {
+            packed.add(PackedVectors.pack(vector, encoding));
+        }
+        return packed;
+    }
+
+    private static String modelNames(List<EmbeddingModel> models) {
+        return models.stream().map(EmbeddingModel::name).collect(Collectors.joining(", "));
+    }
 
+    /**
+     * Runs every model over the same text batch, concurrently. Each model is loaded on first use.
+     */
+    private Uni<List<ModelVectors>> embedWithModels(List<EmbeddingModel> models, List<String> texts) {
+        List<Uni<ModelVectors>> perModel = new ArrayList<>(models.size());
+        for (EmbeddingModel model : models) {
+            perModel.add(modelRegistry.withModel(model, vectorizer -> vectorizer.batchEmbeddings(texts)
+                    .map(vectors -> new ModelVectors(vectorizer.getModelId(), vectors))));
+        }
+        if (perModel.size() == 1) {
+            return perModel.get(0).map(List::of);
+        }
+        return Uni.combine().all().unis(perModel)
+                .with(results -> {
+                    List<ModelVectors> modelVectors = new ArrayList<>(results.size());
+                    for (Object result : results) {
+                        modelVectors.add((ModelVectors) result);
+                    }
+                    return modelVectors;
+                });
+    }
+
+    /**
+     * Embeds the chunks of every semantic result with one vectorizer call per model: all chunk texts of
+     * the document are gathered (identical texts once), embedded as one batch by each requested model,
+     * and the vectors scattered back into one new result set per model and input result, without blocking.
+     */
+    private Uni<Boolean> processChunksReactive(PipeDoc inputDoc, PipeDoc.Builder outputDocBuilder, 
+                                               EmbedderOptions options, String pipeStepName,
+                                               List<EmbeddingModel> models) {
+        log.debug("Processing {} semantic results for chunks", inputDoc.getSemanticResultsCount());
+
+        List<SemanticProcessingResult> results = new ArrayList<>();
+        List<int[]> textSlots = new ArrayList<>();
+        TextBatch batch = new TextBatch();
+        for (SemanticProcessingResult result : inputDoc.getSemanticResultsList()) {
             // Skip if no chunks
             if (result.getChunksCount() == 0) {
                 continue;
             }
-
-            // Extract chunk texts for batch processing
-            List<String> chunkTexts = new ArrayList<>();
-            for (int j = 0; j < result.getChunksCount(); j++) {
+            int[] slots = new int[result.getChunksCount()];
+            for (int j = 0; j < slots.length; j++) {
                 SemanticChunk chunk = result.getChunks(j);
-                chunkTexts.add(chunk.getEmbeddingInfo().getTextContent());
+                // Near-duplicates marked by the chunker point at their canonical chunk and are not embedded again
+                slots[j] = chunk.containsMetadata(ChunkMetadataKeys.NEAR_DUPLICATE_OF)
+                        ? SKIPPED : batch.add(chunk.getEmbeddingInfo().getTextContent());
             }
+            results.add(result);
+            textSlots.add(slots);
+        }
 
-            log.info("Processing {} chunks in batch for semantic result {}", chunkTexts.size(), i);
-
-            // Generate embeddings in batch (blocking for now, can be made async later)
-            List<float[]> embeddings = vectorizer.batchEmbeddings(chunkTexts).await().indefinitely();
-
-            // Create a new semantic result with the same properties but with embeddings
-            SemanticProcessingResult.Builder newResultBuilder = result.toBuilder()
-                    .setEmbeddingConfigId(vectorizer.getModelId());
+        if (results.isEmpty() || batch.size() == 0) {
+            return Uni.createFrom().item(false);
+        }
 
-            // Format the result set name
-            String template = options.resultSetNameTemplate() != null ? 
-                options.resultSetNameTemplate() : "%s_embeddings_%s";
-            String resultSetName = String.format(
-                    template,
-                    pipeStepName != null ? pipeStepName : "embedder",
-                    vectorizer.getModelId()
-            ).replaceAll("[^a-zA-Z0-9_\\-]", "_");
-            newResultBuilder.setResultSetName(resultSetName);
+        log.info("Embedding {} chunks ({} distinct texts) from {} semantic results in one batch with models {}",
+                batch.size(), batch.texts().size(), results.size(), modelNames(models));
+
+        String template = options.resultSetNameTemplate() != null ? 
+            options.resultSetNameTemplate() : "%s_embeddings_%s";
+        PackedVector.Encoding encoding = packedEncoding(options);
+
+        return embedWithModels(models, batch.texts()).map(modelVectors -> {
+            for (ModelVectors embeddings : modelVectors) {
+                List<PackedVector> packed = encoding != null ? packAll(embeddings.vectors(), encoding) : null;
+                // Format the result set name
+                String resultSetName = String.format(
+                        template,
+                        pipeStepName != null ? pipeStepName : "embedder",
+                        embeddings.modelId()
+                ).replaceAll("[^a-zA-Z0-9_\\-]", "_");
+
+                for (int i = 0; i < results.size(); i++) {
+                    SemanticProcessingResult result = results.get(i);
+                    int[] slots = textSlots.get(i);
+
+                    // Create a new semantic result with the same properties but with embeddings
+                    SemanticProcessingResult.Builder newResultBuilder = result.toBuilder()
+                            .setEmbeddingConfigId(embeddings.modelId())
+                            .setResultSetName(resultSetName);
+
+                    // Update chunks with embeddings
+                    for (int j = 0; j < slots.length; j++) {
+                        if (slots[j] == SKIPPED) {
+                            continue;
+                        }
+                        ChunkEmbedding.Builder embeddingInfo = newResultBuilder.getChunksBuilder(j)
+                                .getEmbeddingInfoBuilder()
+                                .clearVector()
+                                .clearPackedVector();
+                        if (packed != null) {
+                            embeddingInfo.setPackedVector(packed.get(slots[j]));
+                        } else {
+                            embeddingInfo.addAllVector(FloatVectors.asList(embeddings.vectors().get(slots[j])));
+                        }
+                    }
 
-            // Update chunks with embeddings
-            for (int j = 0; j < result.getChunksCount(); j++) {
-                SemanticChunk chunk = result.getChunks(j);
-                float[] embedding = embeddings.get(j);
+                    // Add the new result to the output document
+                    outputDocBuilder.addSemanticResults(newResultBuilder);
 
-                ChunkEmbedding.Builder embeddingInfoBuilder = chunk.getEmbeddingInfo().toBuilder();
-                embeddingInfoBuilder.clearVector();
-                for (float value : embedding) {
-                    embeddingInfoBuilder.addVector(value);
+                    log.info("{}Added embeddings to {} chunks using model {} for document ID: {}", 
+                            options.logPrefix() != null ? options.logPrefix() : "", 
+                            result.getChunksCount(), embeddings.modelId(), inputDoc.getId());
                 }
-
-                SemanticChunk.Builder chunkBuilder = chunk.toBuilder()
-                        .setEmbeddingInfo(embeddingInfoBuilder);
-
-                newResultBuilder.setChunks(j, chunkBuilder.build());
             }
-
-            // Add the new result to the output document
-            SemanticProcessingResult newResult = newResultBuilder.build();
-            outputDocBuilder.addSemanticResults(newResult);
-            chunksProcessed = true;
-
-            log.info("{}Added embeddings to {} chunks using model {} for document ID: {}", 
-                    options.logPrefix() != null ? options.logPrefix() : "", 
-                    result.getChunksCount(), vectorizer.getModelId(), inputDoc.getId());
-        }
-
-        return Uni.createFrom().item(chunksProcessed);
+            return true;
+        });
     }
 
 
+    /**
+     * Embeds the configured document fields with one vectorizer call per model.
+     */
     private Uni<Boolean> processDocumentFieldsReactive(PipeDoc inputDoc, PipeDoc.Builder outputDocBuilder,
-                                                        EmbedderOptions options, String pipeStepName) {
+                                                        EmbedderOptions options, List<EmbeddingModel> models) {
 
         // If no document fields to process, return false immediately
         if (options.documentFields() == null || options.documentFields().isEmpty()) {
             return Uni.createFrom().item(false);
         }
 
-        // Create a list to hold all the field processing Uni tasks
-        List<Uni<Boolean>> fieldProcessingTasks = new ArrayList<>();
-
-        // Process each field reactively
+        List<String> fieldNames = new ArrayList<>();
+        List<Integer> textSlots = new ArrayList<>();
+        TextBatch batch = new TextBatch();
         for (String fieldName : options.documentFields()) {
             String fieldText = extractFieldText(inputDoc, fieldName);
 
@@ -238,47 +321,41 @@ public class EmbedderService implements PipeStepProcessor {
             if (StringUtils.isBlank(fieldText)) {
                 continue;
             }
+            fieldNames.add(fieldName);
+            textSlots.add(batch.add(fieldText));
+        }
+
+        // If no field has text, nothing was processed
+        if (fieldNames.isEmpty()) {
+            return Uni.createFrom().item(false);
+        }
+
+        PackedVector.Encoding encoding = packedEncoding(options);
 
-            // Create a reactive task for this field
-            Uni<Boolean> fieldTask = vectorizer.embeddings(fieldText)
-                .map(embedding -> {
-                    // Create embedding object
-                    Embedding.Builder embeddingBuilder = Embedding.newBuilder()
-                            .setModelId(vectorizer.getModelId());
-                    for (float value : embedding) {
-                        embeddingBuilder.addVector(value);
+        return embedWithModels(models, batch.texts()).map(modelVectors -> {
+            for (ModelVectors embeddings : modelVectors) {
+                for (int i = 0; i < fieldNames.size(); i++) {
+                    String fieldName = fieldNames.get(i);
+                    float[] vector = embeddings.vectors().get(textSlots.get(i));
+                    Embedding.Builder embeddingBuilder = Embedding.newBuilder().setModelId(embeddings.modelId());
+                    if (encoding != null) {
+                        embeddingBuilder.setPackedVector(PackedVectors.pack(vector, encoding));
+                    } else {
+                        embeddingBuilder.addAllVector(FloatVectors.asList(vector));
                     }
+                    Embedding embedding = embeddingBuilder.build();
 
                     // Add embedding to the document
-                    String embeddingName = fieldName + "_" + vectorizer.getModelId().toLowerCase();
-                    outputDocBuilder.putNamedEmbeddings(embeddingName, embeddingBuilder.build());
+                    String embeddingName = fieldName + "_" + embeddings.modelId().toLowerCase();
+                    outputDocBuilder.putNamedEmbeddings(embeddingName, embedding);
 
                     log.info("{}Added embedding for field {} using model {} for document ID: {}", 
                             options.logPrefix() != null ? options.logPrefix() : "", 
-                            fieldName, vectorizer.getModelId(), inputDoc.getId());
-
-                    return true;
-                });
-
-            fieldProcessingTasks.add(fieldTask);
-        }
-
-        // If no tasks were created, return false
-        if (fieldProcessingTasks.isEmpty()) {
-            return Uni.createFrom().item(false);
-        }
-
-        // Combine all field processing tasks and return true if any field was processed
-        return Uni.combine().all().unis(fieldProcessingTasks)
-            .with(results -> {
-                // Check if any field was processed successfully
-                for (Object result : results) {
-                    if ((Boolean) result) {
-                        return true;
-                    }
+                            fieldName, embeddings.modelId(), inputDoc.getId());
                 }
-                return false;
-            });
+            }
+            return true;
+        });
     }
 
     private String extractFieldText(PipeDoc document, String fieldName) {
@@ -320,8 +397,8 @@ public class EmbedderService implements PipeStepProcessor {
                             .setHealthCheckPassed(true)
                             .setHealthCheckMessage(String.format(
                                 "Embedder module is healthy - using model: %s (GPU: %s)", 
-                                vectorizer.getModelId(), 
-                                vectorizer.isUsingGpu()));
+                                modelNames(modelRegistry.loadedModels().stream().sorted().toList()), 
+                                modelRegistry.isUsingGpu()));
                     } else {
                         responseBuilder
                             .setHealthCheckPassed(false)
@@ -343,7 +420,7 @@ public class EmbedderService implements PipeStepProcessor {
                 .setHealthCheckPassed(true)
                 .setHealthCheckMessage(String.format(
                     "No health check performed - module assumed healthy (GPU: %s)", 
-                    vectorizer.isUsingGpu()));
+                    modelRegistry.isUsingGpu()));
             return Uni.createFrom().item(responseBuilder.build());
         }
     }
@@ -370,4 +447,41 @@ public class EmbedderService implements PipeStepProcessor {
         responseBuilder.setErrorDetails(errorDetailsBuilder.build());
         return responseBuilder.build();
     }
+
+    /**
+     * Vectors produced by one model for a request's text batch.
+     */
+    private record ModelVectors(String modelId, List<float[]> vectors) {
+    }
+
+    /**
+     * Distinct texts of one request in first-seen order, so repeated texts are embedded once.
+     */
+    private static final class TextBatch {
+        private final List<String> texts = new ArrayList<>();
+        private final Map<String, Integer> slots = new HashMap<>();
+        private int size;
+
+        /**
+         * @return Index of the text's vector in the batch result
+         */
+        int add(String text) {
+            size++;
+            return slots.computeIfAbsent(text, key -> {
+                texts.add(key);
+                return texts.size() - 1;
+            });
+        }
+
+        List<String> texts() {
+            return texts;
+        }
+
+        /**
+         * @return Number of texts added, including repeats
+         */
+        int size() {
+            return size;
+        }
+    }
 }
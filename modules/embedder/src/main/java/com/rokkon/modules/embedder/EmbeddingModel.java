@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonValue;
 
 /**
  * Enumeration of supported embedding models.
- * Each model includes its DJL URI and a description.
+ * Each model includes its DJL URI, a description and its approximate memory footprint.
  */
 public enum EmbeddingModel {
     
@@ -13,56 +13,58 @@ public enum EmbeddingModel {
      * Lightweight and fast, great for general-purpose sentence embeddings.
      */
     ALL_MINILM_L6_V2("djl://ai.djl.huggingface.pytorch/sentence-transformers/all-MiniLM-L6-v2", 
-            "Lightweight and fast, great for general-purpose sentence embeddings."),
+            "Lightweight and fast, great for general-purpose sentence embeddings.", 90),
     
     /**
      * Higher accuracy than MiniLM, though a bit larger and slower.
      */
     ALL_MPNET_BASE_V2("djl://ai.djl.huggingface.pytorch/sentence-transformers/all-mpnet-base-v2", 
-            "Higher accuracy than MiniLM, though a bit larger and slower."),
+            "Higher accuracy than MiniLM, though a bit larger and slower.", 420),
     
     /**
      * Based on DistilRoBERTa; good balance between performance and speed.
      */
     ALL_DISTILROBERTA_V1("djl://ai.djl.huggingface.pytorch/sentence-transformers/all-distilroberta-v1", 
-            "Based on DistilRoBERTa; good balance between performance and speed."),
+            "Based on DistilRoBERTa; good balance between performance and speed.", 330),
     
     /**
      * Even smaller and faster than L6 or L12 versions; ideal for low-latency scenarios.
      */
     PARAPHRASE_MINILM_L3_V2("djl://ai.djl.huggingface.pytorch/sentence-transformers/paraphrase-MiniLM-L3-v2", 
-            "Even smaller and faster than L6 or L12 versions; ideal for low-latency scenarios."),
+            "Even smaller and faster than L6 or L12 versions; ideal for low-latency scenarios.", 70),
     
     /**
      * Multilingual support (50+ languages) + small model size.
      */
     PARAPHRASE_MULTILINGUAL_MINILM_L12_V2("djl://ai.djl.huggingface.pytorch/sentence-transformers/paraphrase-multilingual-MiniLM-L12-v2", 
-            "Multilingual support (50+ languages) + small model size."),
+            "Multilingual support (50+ languages) + small model size.", 470),
     
     /**
      * Smaller sibling of e5-base-v2, good for retrieval tasks, especially with query-document use cases.
      */
     E5_SMALL_V2("djl://ai.djl.huggingface.pytorch/sentence-transformers/e5-small-v2", 
-            "Smaller sibling of e5-base-v2, good for retrieval tasks, especially with query-document use cases."),
+            "Smaller sibling of e5-base-v2, good for retrieval tasks, especially with query-document use cases.", 130),
     
     /**
      * Larger and more accurate than e5-base-v2, better embeddings at the cost of speed/memory.
      */
     E5_LARGE_V2("djl://ai.djl.huggingface.pytorch/sentence-transformers/e5-large-v2", 
-            "Larger and more accurate than e5-base-v2, better embeddings at the cost of speed/memory."),
+            "Larger and more accurate than e5-base-v2, better embeddings at the cost of speed/memory.", 1340),
     
     /**
      * Fine-tuned for semantic search and QA.
      */
     MULTI_QA_MINILM_L6_COS_V1("djl://ai.djl.huggingface.pytorch/sentence-transformers/multi-qa-MiniLM-L6-cos-v1", 
-            "Fine-tuned for semantic search and QA.");
+            "Fine-tuned for semantic search and QA.", 90);
     
     private final String uri;
     private final String description;
+    private final int approximateMemoryMb;
     
-    EmbeddingModel(String uri, String description) {
+    EmbeddingModel(String uri, String description, int approximateMemoryMb) {
         this.uri = uri;
         this.description = description;
+        this.approximateMemoryMb = approximateMemoryMb;
     }
     
     /**
@@ -83,6 +85,15 @@ public enum EmbeddingModel {
         return description;
     }
     
+    /**
+     * Gets the approximate memory used by the loaded model (fp32 weights), for model memory budgeting.
+     * 
+     * @return the approximate size in megabytes
+     */
+    public int getApproximateMemoryMb() {
+        return approximateMemoryMb;
+    }
+    
     /**
      * Returns the enum value as a string for JSON serialization.
      * 
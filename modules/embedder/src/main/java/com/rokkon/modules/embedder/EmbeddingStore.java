@@ -0,0 +1,356 @@
+package com.rokkon.modules.embedder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Memory-mapped, fixed-capacity store of fixed-width float vectors keyed by 128-bit hashes.
+ * Vectors live in the page cache rather than on the Java heap, so tens of millions of entries add
+ * no GC pressure, and the file survives restarts.
+ *
+ * <p>The store is set-associative: a key maps to one set of {@link #WAYS} slots and, when the set is
+ * full, the least recently used slot of that set is replaced. This bounds the store to its configured
+ * capacity with LRU behaviour per set and constant-time lookups.
+ *
+ * <p>File layout: a {@link #HEADER_BYTES}-byte header followed by the sets. Each slot holds the two key
+ * longs, a last-access stamp and the vector. The header records whether the file was closed cleanly; a
+ * file that was not (e.g. after a crash) is cleared on open rather than trusted.
+ */
+public class EmbeddingStore implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingStore.class);
+
+    static final int HEADER_BYTES = 64;
+    static final int WAYS = 8;
+
+    private static final int MAGIC = 0x524B4543; // "RKEC"
+    private static final int VERSION = 1;
+    private static final int SLOT_HEADER_BYTES = 24; // key high, key low, last access
+    private static final int LOCK_STRIPES = 1024;
+
+    // Header field offsets
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int DIMENSION_OFFSET = 8;
+    private static final int WAYS_OFFSET = 12;
+    private static final int SETS_OFFSET = 16;
+    private static final int CLOCK_OFFSET = 24;
+    private static final int SIZE_OFFSET = 32;
+    private static final int CLEAN_OFFSET = 40;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final int dimension;
+    private final int slotBytes;
+    private final int setBytes;
+    private final long setsPerSegment;
+    private final long sets;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final AtomicLong clock;
+    private final AtomicLong size;
+    private final LongAdder evictions = new LongAdder();
+
+    private EmbeddingStore(Path file, FileChannel channel, int dimension, long sets, boolean reuse) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.dimension = dimension;
+        this.sets = sets;
+        this.slotBytes = SLOT_HEADER_BYTES + dimension * Float.BYTES;
+        this.setBytes = slotBytes * WAYS;
+        this.setsPerSegment = Integer.MAX_VALUE / setBytes;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        int segmentCount = (int) ((sets + setsPerSegment - 1) / setsPerSegment);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long firstSet = i * setsPerSegment;
+            long segmentSets = Math.min(setsPerSegment, sets - firstSet);
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + firstSet * setBytes, segmentSets * setBytes);
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (reuse) {
+            this.clock = new AtomicLong(header.getLong(CLOCK_OFFSET));
+            this.size = new AtomicLong(header.getLong(SIZE_OFFSET));
+        } else {
+            this.clock = new AtomicLong();
+            this.size = new AtomicLong();
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.putInt(VERSION_OFFSET, VERSION);
+            header.putInt(DIMENSION_OFFSET, dimension);
+            header.putInt(WAYS_OFFSET, WAYS);
+            header.putLong(SETS_OFFSET, sets);
+        }
+        // Marked clean again only by close(), so a crash leaves the file marked dirty
+        header.putInt(CLEAN_OFFSET, 0);
+        header.force();
+    }
+
+    /**
+     * Opens the store at the given path, reusing its contents when the file was closed cleanly with the
+     * same dimension and capacity, and creating (or clearing) it otherwise.
+     *
+     * @param file Store file
+     * @param dimension Vector dimension
+     * @param maxEntries Maximum number of vectors; rounded up to a multiple of {@link #WAYS}
+     * @return The open store
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static EmbeddingStore open(Path file, int dimension, long maxEntries) throws IOException {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Vector dimension must be positive: " + dimension);
+        }
+        long sets = Math.max(1, (maxEntries + WAYS - 1) / WAYS);
+        long fileSize = HEADER_BYTES + sets * (long) WAYS * (SLOT_HEADER_BYTES + (long) dimension * Float.BYTES);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        boolean reuse = isReusable(file, dimension, sets, fileSize);
+        if (!reuse) {
+            // Truncating first turns the file into zeros (sparse on most file systems), i.e. all slots empty
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(0);
+                raf.setLength(fileSize);
+            }
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            EmbeddingStore store = new EmbeddingStore(file, channel, dimension, sets, reuse);
+            log.info("{} embedding store {} (dimension: {}, capacity: {}, entries: {})",
+                    reuse ? "Reopened" : "Created", file, dimension, store.capacity(), store.size());
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the vector dimension of an existing, cleanly closed store file.
+     *
+     * @param file Store file
+     * @return The dimension, or -1 if the file does not exist or is not a usable store
+     */
+    public static int readDimension(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(headerBuffer, 0) < HEADER_BYTES
+                    || headerBuffer.getInt(MAGIC_OFFSET) != MAGIC
+                    || headerBuffer.getInt(VERSION_OFFSET) != VERSION
+                    || headerBuffer.getInt(CLEAN_OFFSET) != 1) {
+                return -1;
+            }
+            return headerBuffer.getInt(DIMENSION_OFFSET);
+        } catch (IOException e) {
+            log.warn("Could not read embedding store header from {}: {}", file, e.getMessage());
+            return -1;
+        }
+    }
+
+    private static boolean isReusable(Path file, int dimension, long sets, long fileSize) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != fileSize) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(headerBuffer, 0);
+            boolean matches = headerBuffer.getInt(MAGIC_OFFSET) == MAGIC
+                    && headerBuffer.getInt(VERSION_OFFSET) == VERSION
+                    && headerBuffer.getInt(DIMENSION_OFFSET) == dimension
+                    && headerBuffer.getInt(WAYS_OFFSET) == WAYS
+                    && headerBuffer.getLong(SETS_OFFSET) == sets;
+            if (matches && headerBuffer.getInt(CLEAN_OFFSET) != 1) {
+                log.warn("Embedding store {} was not closed cleanly; clearing it", file);
+                return false;
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Looks up a vector and marks it as recently used.
+     *
+     * @param keyHigh High 64 bits of the key
+     * @param keyLow Low 64 bits of the key
+     * @return A copy of the stored vector, or null if absent
+     */
+    public float[] get(long keyHigh, long keyLow) {
+        keyLow = nonEmptyKey(keyLow);
+        long set = setOf(keyHigh, keyLow);
+        MappedByteBuffer segment = segments[(int) (set / setsPerSegment)];
+        int setOffset = (int) ((set % setsPerSegment) * setBytes);
+        ReentrantLock lock = lockFor(set);
+        lock.lock();
+        try {
+            for (int way = 0; way < WAYS; way++) {
+                int slot = setOffset + way * slotBytes;
+                if (segment.getLong(slot) == keyHigh && segment.getLong(slot + 8) == keyLow) {
+                    segment.putLong(slot + 16, clock.incrementAndGet());
+                    float[] vector = new float[dimension];
+                    segment.slice(slot + SLOT_HEADER_BYTES, dimension * Float.BYTES)
+                            .order(ByteOrder.LITTLE_ENDIAN)
+                            .asFloatBuffer()
+                            .get(vector);
+                    return vector;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a vector, replacing the least recently used entry of its set when the set is full.
+     *
+     * @param keyHigh High 64 bits of the key
+     * @param keyLow Low 64 bits of the key
+     * @param vector Vector of exactly {@link #dimension()} floats
+     */
+    public void put(long keyHigh, long keyLow, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(String.format(
+                    "Vector dimension %d does not match store dimension %d", vector.length, dimension));
+        }
+        keyLow = nonEmptyKey(keyLow);
+        long set = setOf(keyHigh, keyLow);
+        MappedByteBuffer segment = segments[(int) (set / setsPerSegment)];
+        int setOffset = (int) ((set % setsPerSegment) * setBytes);
+        ReentrantLock lock = lockFor(set);
+        lock.lock();
+        try {
+            int target = -1;
+            int empty = -1;
+            int oldest = -1;
+            long oldestStamp = Long.MAX_VALUE;
+            for (int way = 0; way < WAYS; way++) {
+                int slot = setOffset + way * slotBytes;
+                long high = segment.getLong(slot);
+                long low = segment.getLong(slot + 8);
+                if (high == keyHigh && low == keyLow) {
+                    target = slot;
+                    break;
+                }
+                if (high == 0 && low == 0) {
+                    if (empty < 0) {
+                        empty = slot;
+                    }
+                } else {
+                    long stamp = segment.getLong(slot + 16);
+                    if (stamp < oldestStamp) {
+                        oldestStamp = stamp;
+                        oldest = slot;
+                    }
+                }
+            }
+            if (target < 0) {
+                if (empty >= 0) {
+                    target = empty;
+                    size.incrementAndGet();
+                } else {
+                    target = oldest;
+                    evictions.increment();
+                }
+            }
+
+            segment.slice(target + SLOT_HEADER_BYTES, dimension * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer()
+                    .put(vector);
+            segment.putLong(target + 16, clock.incrementAndGet());
+            segment.putLong(target + 8, keyLow);
+            segment.putLong(target, keyHigh);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the header and flushes all mapped pages to disk.
+     */
+    public void flush() {
+        header.putLong(CLOCK_OFFSET, clock.get());
+        header.putLong(SIZE_OFFSET, size.get());
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+    /**
+     * Flushes the store and marks it clean so it is reused on the next open.
+     */
+    @Override
+    public void close() throws IOException {
+        // Take every lock so no write is in flight while the file is marked clean
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            flush();
+            header.putInt(CLEAN_OFFSET, 1);
+            header.force();
+            channel.close();
+            log.info("Closed embedding store {} with {} entries", file, size.get());
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public long capacity() {
+        return sets * WAYS;
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private long setOf(long keyHigh, long keyLow) {
+        return Long.remainderUnsigned(keyHigh ^ Long.rotateLeft(keyLow, 32), sets);
+    }
+
+    private ReentrantLock lockFor(long set) {
+        return locks[(int) (set % LOCK_STRIPES)];
+    }
+
+    /**
+     * An all-zero key marks an empty slot, so real keys always have the lowest bit set.
+     */
+    private static long nonEmptyKey(long keyLow) {
+        return keyLow | 1L;
+    }
+}
@@ -0,0 +1,42 @@
+package com.rokkon.modules.embedder;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Helpers for handing model output to protobuf builders.
+ */
+final class FloatVectors {
+
+    private FloatVectors() {
+    }
+
+    /**
+     * Fixed-size list view over a vector, for bulk {@code addAllVector} calls. Protobuf sizes the repeated
+     * field once from the collection size instead of growing it float by float, but every element is still
+     * boxed by {@code get} and unboxed by protobuf; its non-boxing copy only applies to its own internal
+     * list type. The packed vector encodings are the path that avoids per-float boxing.
+     */
+    static List<Float> asList(float[] vector) {
+        return new FloatArrayView(vector);
+    }
+
+    private static final class FloatArrayView extends AbstractList<Float> implements RandomAccess {
+        private final float[] values;
+
+        FloatArrayView(float[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Float get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.rokkon.modules.embedder;
+
+import io.smallrye.mutiny.Uni;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stand-in {@link Vectorizer} for load tests that cannot download models. Vectors are deterministic and
+ * need no model files: each word of the text adds a pseudo-random direction derived from a hash of the word
+ * and the model, and the sum is L2-normalized. Texts sharing words therefore get similar vectors, which
+ * keeps downstream similarity search and deduplication meaningful.
+ *
+ * <p>Requests go through the same {@link DynamicBatcher} and bounded pool as the real backends, and each
+ * batch busy-spins for a configurable time that grows with batch size times the longest text, like padded
+ * transformer inference. Batching, pooling and serialization are exercised as in production, at a cost
+ * that can be tuned to the model being stood in for.
+ */
+public class HashingVectorizer implements Vectorizer, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HashingVectorizer.class);
+
+    /**
+     * @param dimension Length of the produced vectors
+     * @param batchOverheadMicros Simulated cost of every batch
+     * @param nanosPerPaddedToken Simulated cost per token of batch size times the longest text's
+     *                            {@linkplain DynamicBatcher#estimateTokens estimated length}
+     * @param concurrentBatches Batches computed at once (the simulated predictor pool)
+     * @param maxBatchSize Largest batch
+     */
+    public record Options(int dimension, long batchOverheadMicros, long nanosPerPaddedToken, int concurrentBatches,
+                          int maxBatchSize) {
+    }
+
+    private final EmbeddingModel model;
+    private final String modelId;
+    private final Options options;
+    private final long modelSeed;
+    private final ExecutorService inferenceExecutor;
+    private final DynamicBatcher batcher;
+    private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+
+    public HashingVectorizer(EmbeddingModel model, Options options) {
+        if (options.dimension() <= 0) {
+            throw new IllegalArgumentException("Stand-in vector dimension must be positive: " + options.dimension());
+        }
+        this.model = model;
+        this.modelId = model.name();
+        this.options = options;
+        byte[] modelBytes = modelId.getBytes(StandardCharsets.UTF_8);
+        this.modelSeed = hash(modelBytes, 0, modelBytes.length, 0);
+        // Platform threads: the simulated cost spins like a native inference call
+        this.inferenceExecutor = Executors.newFixedThreadPool(options.concurrentBatches(), Thread.ofPlatform()
+                .name("stand-in-vectorizer-", 0)
+                .daemon(true)
+                .factory());
+        this.batcher = new DynamicBatcher(this::predictBatch, DynamicBatcher::estimateTokens,
+                options.maxBatchSize(), ReactiveVectorizer.DEFAULT_MAX_BATCH_DELAY_MILLIS,
+                options.concurrentBatches(), inferenceExecutor);
+        log.info("Stand-in model {} ready: {}", modelId, options);
+    }
+
+    @Override
+    public Uni<float[]> embeddings(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            log.warn("Attempted to vectorize null or empty text");
+            return Uni.createFrom().item(new float[0]);
+        }
+        if (isShutdown.get()) {
+            return Uni.createFrom().failure(new IllegalStateException("Vectorizer has been shut down"));
+        }
+        return batcher.submit(text);
+    }
+
+    @Override
+    public Uni<List<float[]>> batchEmbeddings(List<String> texts) {
+        if (texts == null || texts.isEmpty()) {
+            log.warn("Attempted to vectorize null or empty batch");
+            return Uni.createFrom().item(Collections.emptyList());
+        }
+        if (isShutdown.get()) {
+            return Uni.createFrom().failure(new IllegalStateException("Vectorizer has been shut down"));
+        }
+        return batcher.submitAll(texts);
+    }
+
+    private List<float[]> predictBatch(List<String> batch) {
+        long start = System.nanoTime();
+        int longest = 0;
+        List<float[]> vectors = new ArrayList<>(batch.size());
+        for (String text : batch) {
+            longest = Math.max(longest, DynamicBatcher.estimateTokens(text));
+            vectors.add(vectorFor(text));
+        }
+        long costNanos = TimeUnit.MICROSECONDS.toNanos(options.batchOverheadMicros())
+                + (long) batch.size() * longest * options.nanosPerPaddedToken();
+        // Spin rather than sleep so the simulated cost occupies a core, as inference does
+        while (System.nanoTime() - start < costNanos) {
+            Thread.onSpinWait();
+        }
+        return vectors;
+    }
+
+    /**
+     * The vector of one text: the normalized sum of one pseudo-random direction per word (maximal run of
+     * letters or digits, lower-cased). Text without words gets the direction of the whole text.
+     */
+    float[] vectorFor(String text) {
+        float[] vector = new float[options.dimension()];
+        byte[] bytes = text.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        int words = 0;
+        int start = -1;
+        for (int i = 0; i <= bytes.length; i++) {
+            // Multi-byte UTF-8 sequences (negative bytes) count as word characters
+            boolean wordByte = i < bytes.length && (bytes[i] < 0 || Character.isLetterOrDigit(bytes[i]));
+            if (wordByte && start < 0) {
+                start = i;
+            } else if (!wordByte && start >= 0) {
+                addDirection(vector, hash(bytes, start, i, modelSeed));
+                words++;
+                start = -1;
+            }
+        }
+        if (words == 0) {
+            addDirection(vector, hash(bytes, 0, bytes.length, modelSeed));
+        }
+        return normalize(vector);
+    }
+
+    /**
+     * Adds a pseudo-random vector with components uniform in [-1, 1), generated by SplitMix64 from the seed.
+     */
+    private static void addDirection(float[] vector, long seed) {
+        long state = seed;
+        for (int i = 0; i < vector.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            z ^= z >>> 31;
+            // Top 24 bits as a float in [0, 1), mapped to [-1, 1)
+            vector[i] += ((z >>> 40) * 0x1.0p-24f) * 2 - 1;
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a of {@code bytes[from, to)}, mixed with a seed.
+     */
+    private static long hash(byte[] bytes, int from, int to, long seed) {
+        long hash = 0xCBF29CE484222325L ^ seed;
+        for (int i = from; i < to; i++) {
+            hash ^= bytes[i] & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    @Override
+    public String getModelId() {
+        return modelId;
+    }
+
+    @Override
+    public EmbeddingModel getModel() {
+        return model;
+    }
+
+    @Override
+    public boolean isUsingGpu() {
+        return false;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return options.maxBatchSize();
+    }
+
+    @Override
+    public void close() {
+        if (isShutdown.compareAndSet(false, true)) {
+            log.info("Shutting down HashingVectorizer for model: {}", modelId);
+            batcher.shutdown();
+            inferenceExecutor.shutdown();
+            try {
+                if (!inferenceExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    inferenceExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                inferenceExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.rokkon.modules.embedder;
+
+import io.smallrye.mutiny.Uni;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Loads embedding models on first use and shares one {@link Vectorizer} (with its predictor pool) per
+ * model across all requests.
+ *
+ * <p>Models are loaded from {@code <modelDirectory>/<MODEL_NAME>} (or the directory named after the last
+ * segment of the model URI, e.g. {@code all-MiniLM-L6-v2}) when present, otherwise from the DJL model zoo.
+ * Loaded models are kept within a memory budget based on {@link EmbeddingModel#getApproximateMemoryMb()}:
+ * loading a model unloads the least recently used idle models until it fits. Models in use by a request
+ * are never unloaded; if they alone exceed the budget the registry logs a warning and loads anyway.
+ */
+public class ModelRegistry implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelRegistry.class);
+
+    private final VectorizerFactory factory;
+    private final Path modelDirectory;
+    private final long memoryBudgetMb;
+    private final Executor loadExecutor;
+
+    // Guarded by this
+    private final Map<EmbeddingModel, LoadedModel> models = new EnumMap<>(EmbeddingModel.class);
+    private long useClock;
+    private boolean closed;
+
+    /**
+     * @param factory Creates a vectorizer for a model
+     * @param modelDirectory Directory searched for local copies of models
+     * @param memoryBudgetMb Approximate memory that loaded models may use together
+     * @param loadExecutor Executor that runs (blocking) model loads
+     */
+    public ModelRegistry(VectorizerFactory factory, Path modelDirectory, long memoryBudgetMb, Executor loadExecutor) {
+        this.factory = factory;
+        this.modelDirectory = modelDirectory;
+        this.memoryBudgetMb = memoryBudgetMb;
+        this.loadExecutor = loadExecutor;
+    }
+
+    /**
+     * Runs {@code work} with the model's vectorizer, loading the model first if needed. The model is
+     * not unloaded until {@code work} terminates.
+     */
+    public <T> Uni<T> withModel(EmbeddingModel model, Function<Vectorizer, Uni<T>> work) {
+        return Uni.createFrom().deferred(() -> {
+            LoadedModel loaded = acquire(model);
+            // copy() so a cancelled request does not cancel the shared load
+            return Uni.createFrom().completionStage(loaded.vectorizer.copy())
+                    .onFailure(CompletionException.class).transform(Throwable::getCause)
+                    .chain(work)
+                    .onTermination().invoke(() -> release(loaded));
+        });
+    }
+
+    /**
+     * Loads models ahead of the first request, blocking until they are ready.
+     */
+    public void preload(List<EmbeddingModel> toLoad) {
+        for (EmbeddingModel model : toLoad) {
+            LoadedModel loaded = acquire(model);
+            try {
+                loaded.vectorizer.join();
+            } finally {
+                release(loaded);
+            }
+        }
+    }
+
+    /**
+     * @return Models currently loaded or loading
+     */
+    public synchronized Set<EmbeddingModel> loadedModels() {
+        return Set.copyOf(models.keySet());
+    }
+
+    /**
+     * @return Whether any loaded model runs on a GPU
+     */
+    public synchronized boolean isUsingGpu() {
+        for (LoadedModel loaded : models.values()) {
+            Vectorizer vectorizer = loaded.vectorizer.getNow(null);
+            if (vectorizer != null && vectorizer.isUsingGpu()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unloads all models.
+     */
+    @Override
+    public void close() {
+        List<LoadedModel> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayList<>(models.values());
+            models.clear();
+        }
+        toClose.forEach(this::unload);
+    }
+
+    /**
+     * Local directory holding the model, as a URI, or the model's DJL URI when there is no local copy.
+     */
+    String resolveModelUri(EmbeddingModel model) {
+        String uri = model.getUri();
+        for (String name : List.of(model.name(), uri.substring(uri.lastIndexOf('/') + 1))) {
+            Path local = modelDirectory.resolve(name);
+            if (Files.isDirectory(local)) {
+                return local.toAbsolutePath().toUri().toString();
+            }
+        }
+        return uri;
+    }
+
+    private synchronized LoadedModel acquire(EmbeddingModel model) {
+        if (closed) {
+            throw new IllegalStateException("Model registry has been closed");
+        }
+        LoadedModel loaded = models.get(model);
+        if (loaded == null) {
+            makeRoomFor(model);
+            loaded = new LoadedModel(model, load(model));
+            if (!loaded.vectorizer.isCompletedExceptionally()) {
+                models.put(model, loaded);
+            }
+        }
+        loaded.leases++;
+        loaded.lastUsed = ++useClock;
+        return loaded;
+    }
+
+    private synchronized void release(LoadedModel loaded) {
+        loaded.leases--;
+        loaded.lastUsed = ++useClock;
+    }
+
+    private CompletableFuture<Vectorizer> load(EmbeddingModel model) {
+        String uri = resolveModelUri(model);
+        CompletableFuture<Vectorizer> vectorizer = CompletableFuture.supplyAsync(() -> {
+            log.info("Loading embedding model {} from {}", model, uri);
+            try {
+                return factory.create(model, uri);
+            } catch (Exception e) {
+                throw new CompletionException(new IllegalStateException("Failed to load embedding model " + model, e));
+            }
+        }, loadExecutor);
+        vectorizer.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                log.error("Failed to load embedding model {}", model, failure);
+                // Forget the failed load so the next request retries
+                synchronized (this) {
+                    LoadedModel current = models.get(model);
+                    if (current != null && current.vectorizer == vectorizer) {
+                        models.remove(model);
+                    }
+                }
+            }
+        });
+        return vectorizer;
+    }
+
+    /**
+     * Unloads least recently used idle models until {@code model} fits in the budget.
+     */
+    private void makeRoomFor(EmbeddingModel model) {
+        long used = 0;
+        for (LoadedModel loaded : models.values()) {
+            used += loaded.model.getApproximateMemoryMb();
+        }
+        while (used + model.getApproximateMemoryMb() > memoryBudgetMb) {
+            LoadedModel victim = null;
+            for (LoadedModel loaded : models.values()) {
+                if (loaded.leases == 0 && loaded.vectorizer.isDone()
+                        && (victim == null || loaded.lastUsed < victim.lastUsed)) {
+                    victim = loaded;
+                }
+            }
+            if (victim == null) {
+                log.warn("Loading embedding model {} ({} MB) exceeds the {} MB model memory budget ({} MB in use)",
+                        model, model.getApproximateMemoryMb(), memoryBudgetMb, used);
+                return;
+            }
+            models.remove(victim.model);
+            used -= victim.model.getApproximateMemoryMb();
+            log.info("Unloading least recently used embedding model {} to make room for {}", victim.model, model);
+            LoadedModel unloaded = victim;
+            loadExecutor.execute(() -> unload(unloaded));
+        }
+    }
+
+    private void unload(LoadedModel loaded) {
+        loaded.vectorizer.thenAccept(vectorizer -> {
+            if (vectorizer instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close embedding model {}: {}", loaded.model, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static final class LoadedModel {
+        final EmbeddingModel model;
+        final CompletableFuture<Vectorizer> vectorizer;
+        int leases;
+        long lastUsed;
+
+        LoadedModel(EmbeddingModel model, CompletableFuture<Vectorizer> vectorizer) {
+            this.model = model;
+            this.vectorizer = vectorizer;
+        }
+    }
+}
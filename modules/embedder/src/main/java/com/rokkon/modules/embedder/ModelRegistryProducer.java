@@ -0,0 +1,162 @@
+package com.rokkon.modules.embedder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+
+/**
+ * Produces the {@link ModelRegistry} used by the embedder service. Each model is served by the configured
+ * backend ({@link ReactiveVectorizer} on DJL/PyTorch, {@link OnnxVectorizer} on ONNX Runtime, or the
+ * model-free {@link HashingVectorizer} for offline load tests), wrapped in a {@link CachingVectorizer} when
+ * the embedding cache is enabled. The stand-in backend is never cached: its vectors are not model output and
+ * must not be served to a real backend later, and a load test should measure simulated compute, not cache hits.
+ */
+@Singleton
+public class ModelRegistryProducer {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelRegistryProducer.class);
+
+    @ConfigProperty(name = "embedder.cache.enabled", defaultValue = "false")
+    boolean cacheEnabled;
+
+    @ConfigProperty(name = "embedder.cache.directory", defaultValue = "data/embedding-cache")
+    String cacheDirectory;
+
+    @ConfigProperty(name = "embedder.cache.max-entries", defaultValue = "1000000")
+    long cacheMaxEntries;
+
+    @ConfigProperty(name = "embedder.models.directory", defaultValue = "models")
+    String modelDirectory;
+
+    @ConfigProperty(name = "embedder.models.memory-budget-mb", defaultValue = "4096")
+    long memoryBudgetMb;
+
+    @ConfigProperty(name = "embedder.models.preload")
+    Optional<List<String>> preloadModels;
+
+    @ConfigProperty(name = "embedder.models.pool-size", defaultValue = "4")
+    int poolSize;
+
+    @ConfigProperty(name = "embedder.models.max-batch-size", defaultValue = "32")
+    int maxBatchSize;
+
+    @ConfigProperty(name = "embedder.models.backend", defaultValue = "djl")
+    String backend;
+
+    @ConfigProperty(name = "embedder.onnx.quantization", defaultValue = "fp32")
+    String onnxQuantization;
+
+    @ConfigProperty(name = "embedder.onnx.intra-op-threads", defaultValue = "0")
+    int onnxIntraOpThreads;
+
+    @ConfigProperty(name = "embedder.onnx.inter-op-threads", defaultValue = "0")
+    int onnxInterOpThreads;
+
+    @ConfigProperty(name = "embedder.onnx.max-sequence-length", defaultValue = "512")
+    int onnxMaxSequenceLength;
+
+    @ConfigProperty(name = "embedder.stand-in.dimension", defaultValue = "384")
+    int standInDimension;
+
+    @ConfigProperty(name = "embedder.stand-in.batch-overhead-micros", defaultValue = "0")
+    long standInBatchOverheadMicros;
+
+    @ConfigProperty(name = "embedder.stand-in.nanos-per-padded-token", defaultValue = "0")
+    long standInNanosPerPaddedToken;
+
+    @Produces
+    @Singleton
+    @Startup
+    public ModelRegistry modelRegistry(MeterRegistry registry) {
+        VectorizerFactory backendFactory = backendFactory();
+        boolean cached = cacheEnabled && !isStandIn();
+        if (cacheEnabled && !cached) {
+            log.info("Embedding cache disabled for the stand-in backend");
+        }
+        VectorizerFactory factory = (model, modelUri) -> {
+            Vectorizer vectorizer = backendFactory.create(model, modelUri);
+            if (!cached) {
+                return vectorizer;
+            }
+            String namespace = cacheNamespace(model, backend, onnxQuantization);
+            log.info("Embedding cache enabled for model {} in {} as {} with up to {} entries",
+                    model, cacheDirectory, namespace, cacheMaxEntries);
+            return new CachingVectorizer(vectorizer, namespace, Paths.get(cacheDirectory), cacheMaxEntries, registry);
+        };
+        ModelRegistry modelRegistry = new ModelRegistry(factory, Paths.get(modelDirectory), memoryBudgetMb,
+                Executors.newVirtualThreadPerTaskExecutor());
+
+        List<EmbeddingModel> preload = preloadModels.orElse(List.of()).stream()
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(EmbeddingModel::fromValue)
+                .toList();
+        if (!preload.isEmpty()) {
+            log.info("Preloading embedding models {} (memory budget {} MB)", preload, memoryBudgetMb);
+            modelRegistry.preload(preload);
+        }
+        return modelRegistry;
+    }
+
+    /**
+     * Embedding cache namespace of a model on a backend: the same model yields different vectors on DJL/PyTorch
+     * (fp32) and on ONNX Runtime at each quantization, so each combination gets its own store file and keys.
+     */
+    static String cacheNamespace(EmbeddingModel model, String backend, String onnxQuantization) {
+        String normalizedBackend = backend.trim().toLowerCase(Locale.ROOT);
+        String precision = normalizedBackend.equals("onnx")
+                ? OnnxVectorizer.Quantization.fromValue(onnxQuantization).name().toLowerCase(Locale.ROOT)
+                : "fp32";
+        return model.name() + "@" + normalizedBackend + "/" + precision;
+    }
+
+    private boolean isStandIn() {
+        return backend.trim().toLowerCase(Locale.ROOT).equals("stand-in");
+    }
+
+    private VectorizerFactory backendFactory() {
+        switch (backend.trim().toLowerCase(Locale.ROOT)) {
+            case "djl":
+                return (model, modelUri) -> new ReactiveVectorizer(model, modelUri, poolSize, maxBatchSize,
+                        ReactiveVectorizer.DEFAULT_MAX_BATCH_DELAY_MILLIS);
+            case "onnx":
+                OnnxVectorizer.Options options = new OnnxVectorizer.Options(
+                        OnnxVectorizer.Quantization.fromValue(onnxQuantization), onnxIntraOpThreads,
+                        onnxInterOpThreads, poolSize, maxBatchSize, onnxMaxSequenceLength);
+                log.info("Using ONNX Runtime embedding backend: {}", options);
+                return (model, modelUri) -> {
+                    if (!modelUri.startsWith("file:")) {
+                        throw new IllegalStateException(String.format(
+                                "The ONNX backend loads models from local files; no directory for %s in %s",
+                                model, modelDirectory));
+                    }
+                    return new OnnxVectorizer(model, Paths.get(URI.create(modelUri)), options);
+                };
+            case "stand-in":
+                HashingVectorizer.Options standInOptions = new HashingVectorizer.Options(standInDimension,
+                        standInBatchOverheadMicros, standInNanosPerPaddedToken, poolSize, maxBatchSize);
+                log.warn("Using the stand-in embedding backend: vectors are word hashes, not model output ({})",
+                        standInOptions);
+                return (model, modelUri) -> new HashingVectorizer(model, standInOptions);
+            default:
+                throw new IllegalArgumentException("Unknown embedder.models.backend: " + backend
+                        + " (expected djl, onnx or stand-in)");
+        }
+    }
+
+    void closeModelRegistry(@Disposes ModelRegistry modelRegistry) {
+        modelRegistry.close();
+    }
+}
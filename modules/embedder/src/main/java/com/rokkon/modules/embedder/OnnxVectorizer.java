@@ -0,0 +1,323 @@
+package com.rokkon.modules.embedder;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import io.smallrye.mutiny.Uni;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CPU {@link Vectorizer} backed by ONNX Runtime, loading sentence-transformers ONNX exports from a local
+ * model directory ({@code model.onnx} or an int8 dynamically quantized {@code model_quantized.onnx}, plus
+ * {@code tokenizer.json}). Token embeddings are mean-pooled over the attention mask and L2-normalized,
+ * matching the DJL text embedding translator, so both backends produce comparable vectors.
+ *
+ * <p>Requests are batched across callers by the same length-bucketed {@link DynamicBatcher} as
+ * {@link ReactiveVectorizer}. The ONNX session is shared; intra-op threads parallelize one batch and
+ * {@code concurrentBatches} batches run at once.
+ */
+public class OnnxVectorizer implements Vectorizer, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OnnxVectorizer.class);
+
+    /**
+     * Weight precision of the ONNX export to load.
+     */
+    public enum Quantization {
+        FP32(List.of("model.onnx", "onnx/model.onnx")),
+        INT8(List.of("model_quantized.onnx", "model_int8.onnx", "onnx/model_quantized.onnx", "onnx/model_int8.onnx"));
+
+        private final List<String> fileNames;
+
+        Quantization(List<String> fileNames) {
+            this.fileNames = fileNames;
+        }
+
+        public static Quantization fromValue(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown ONNX quantization: " + value + " (expected fp32 or int8)");
+            }
+        }
+    }
+
+    /**
+     * @param quantization Which export to load
+     * @param intraOpThreads Threads used inside one operator; 0 lets ONNX Runtime decide
+     * @param interOpThreads Threads used across independent operators; 0 lets ONNX Runtime decide
+     * @param concurrentBatches Batches run on the session at once
+     * @param maxBatchSize Largest batch passed to the session
+     * @param maxSequenceLength Tokens per text; longer texts are truncated
+     */
+    public record Options(Quantization quantization, int intraOpThreads, int interOpThreads, int concurrentBatches,
+                          int maxBatchSize, int maxSequenceLength) {
+    }
+
+    private final EmbeddingModel model;
+    private final String modelId;
+    private final Options options;
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final HuggingFaceTokenizer tokenizer;
+    private final boolean needsTokenTypeIds;
+    private final ExecutorService inferenceExecutor;
+    private final DynamicBatcher batcher;
+    private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+
+    /**
+     * Loads the model's ONNX export and tokenizer from {@code modelDirectory}.
+     *
+     * @throws IllegalArgumentException if the directory has no export for the requested quantization
+     */
+    public OnnxVectorizer(EmbeddingModel model, Path modelDirectory, Options options) throws OrtException, IOException {
+        this.model = model;
+        this.modelId = model.name();
+        this.options = options;
+
+        Path modelFile = resolveModelFile(modelDirectory, options.quantization());
+        log.info("Loading ONNX model {} from {} (intra-op threads: {}, inter-op threads: {})",
+                modelId, modelFile, options.intraOpThreads(), options.interOpThreads());
+
+        this.environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions sessionOptions = new OrtSession.SessionOptions()) {
+            sessionOptions.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            if (options.intraOpThreads() > 0) {
+                sessionOptions.setIntraOpNumThreads(options.intraOpThreads());
+            }
+            if (options.interOpThreads() > 0) {
+                sessionOptions.setInterOpNumThreads(options.interOpThreads());
+                sessionOptions.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.PARALLEL);
+            }
+            this.session = environment.createSession(modelFile.toString(), sessionOptions);
+        }
+        this.needsTokenTypeIds = session.getInputNames().contains("token_type_ids");
+        this.tokenizer = HuggingFaceTokenizer.builder()
+                .optTokenizerPath(modelDirectory)
+                .optMaxLength(options.maxSequenceLength())
+                .optTruncation(true)
+                .optPadding(false)
+                .build();
+
+        // Platform threads: inference is a long native call
+        this.inferenceExecutor = Executors.newFixedThreadPool(options.concurrentBatches(), Thread.ofPlatform()
+                .name("onnx-vectorizer-", 0)
+                .daemon(true)
+                .factory());
+        this.batcher = new DynamicBatcher(this::predictBatch, DynamicBatcher::estimateTokens,
+                options.maxBatchSize(), ReactiveVectorizer.DEFAULT_MAX_BATCH_DELAY_MILLIS,
+                options.concurrentBatches(), inferenceExecutor);
+        log.info("ONNX model {} loaded ({})", modelId, options.quantization());
+    }
+
+    /**
+     * Finds the export for {@code quantization} in a model directory.
+     *
+     * @throws IllegalArgumentException if there is none
+     */
+    static Path resolveModelFile(Path modelDirectory, Quantization quantization) {
+        for (String fileName : quantization.fileNames) {
+            Path candidate = modelDirectory.resolve(fileName);
+            if (Files.isRegularFile(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException(String.format("No %s ONNX model in %s (looked for %s)",
+                quantization, modelDirectory, quantization.fileNames));
+    }
+
+    @Override
+    public Uni<float[]> embeddings(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            log.warn("Attempted to vectorize null or empty text");
+            return Uni.createFrom().item(new float[0]);
+        }
+        if (isShutdown.get()) {
+            return Uni.createFrom().failure(new IllegalStateException("Vectorizer has been shut down"));
+        }
+        return batcher.submit(text);
+    }
+
+    @Override
+    public Uni<List<float[]>> batchEmbeddings(List<String> texts) {
+        if (texts == null || texts.isEmpty()) {
+            log.warn("Attempted to vectorize null or empty batch");
+            return Uni.createFrom().item(Collections.emptyList());
+        }
+        if (isShutdown.get()) {
+            return Uni.createFrom().failure(new IllegalStateException("Vectorizer has been shut down"));
+        }
+        return batcher.submitAll(texts);
+    }
+
+    private List<float[]> predictBatch(List<String> batch) {
+        Encoding[] encodings = tokenizer.batchEncode(batch);
+        int batchSize = encodings.length;
+        int sequenceLength = 0;
+        for (Encoding encoding : encodings) {
+            sequenceLength = Math.max(sequenceLength, encoding.getIds().length);
+        }
+
+        // Pad to the longest text in the batch; the batcher keeps lengths in a batch close
+        long[] shape = {batchSize, sequenceLength};
+        LongBuffer inputIds = LongBuffer.allocate(batchSize * sequenceLength);
+        LongBuffer attentionMask = LongBuffer.allocate(batchSize * sequenceLength);
+        LongBuffer tokenTypeIds = LongBuffer.allocate(batchSize * sequenceLength);
+        long[] mask = new long[batchSize * sequenceLength];
+        for (int i = 0; i < batchSize; i++) {
+            Encoding encoding = encodings[i];
+            long[] ids = encoding.getIds();
+            long[] encodingMask = encoding.getAttentionMask();
+            long[] typeIds = encoding.getTypeIds();
+            int offset = i * sequenceLength;
+            for (int t = 0; t < ids.length; t++) {
+                inputIds.put(offset + t, ids[t]);
+                attentionMask.put(offset + t, encodingMask[t]);
+                tokenTypeIds.put(offset + t, typeIds[t]);
+                mask[offset + t] = encodingMask[t];
+            }
+        }
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put("input_ids", OnnxTensor.createTensor(environment, inputIds, shape));
+            inputs.put("attention_mask", OnnxTensor.createTensor(environment, attentionMask, shape));
+            if (needsTokenTypeIds) {
+                inputs.put("token_type_ids", OnnxTensor.createTensor(environment, tokenTypeIds, shape));
+            }
+            try (OrtSession.Result result = session.run(inputs)) {
+                OnnxTensor output = (OnnxTensor) result.get(0);
+                long[] outputShape = output.getInfo().getShape();
+                FloatBuffer values = output.getFloatBuffer();
+                if (outputShape.length == 2) {
+                    // Export already pools (sentence_embedding output)
+                    return normalizeRows(values, batchSize, (int) outputShape[1]);
+                }
+                List<float[]> vectors = meanPool(values, mask, batchSize, sequenceLength, (int) outputShape[2]);
+                log.debug("Processed ONNX batch of size {} (sequence length {})", batchSize, sequenceLength);
+                return vectors;
+            }
+        } catch (OrtException e) {
+            throw new RuntimeException("Error during ONNX batch prediction", e);
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    /**
+     * Averages token embeddings ({@code [batch, sequence, hidden]}, row-major) over the attention mask
+     * and L2-normalizes each result.
+     */
+    static List<float[]> meanPool(FloatBuffer tokenEmbeddings, long[] attentionMask, int batchSize,
+                                  int sequenceLength, int hiddenSize) {
+        List<float[]> vectors = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            float[] vector = new float[hiddenSize];
+            int tokens = 0;
+            for (int t = 0; t < sequenceLength; t++) {
+                if (attentionMask[i * sequenceLength + t] == 0) {
+                    continue;
+                }
+                tokens++;
+                int base = (i * sequenceLength + t) * hiddenSize;
+                for (int h = 0; h < hiddenSize; h++) {
+                    vector[h] += tokenEmbeddings.get(base + h);
+                }
+            }
+            if (tokens > 0) {
+                for (int h = 0; h < hiddenSize; h++) {
+                    vector[h] /= tokens;
+                }
+            }
+            vectors.add(normalize(vector));
+        }
+        return vectors;
+    }
+
+    private static List<float[]> normalizeRows(FloatBuffer values, int batchSize, int dimension) {
+        List<float[]> vectors = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            float[] vector = new float[dimension];
+            values.get(i * dimension, vector);
+            vectors.add(normalize(vector));
+        }
+        return vectors;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    @Override
+    public String getModelId() {
+        return modelId;
+    }
+
+    @Override
+    public EmbeddingModel getModel() {
+        return model;
+    }
+
+    @Override
+    public boolean isUsingGpu() {
+        return false;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return options.maxBatchSize();
+    }
+
+    @Override
+    public void close() {
+        if (isShutdown.compareAndSet(false, true)) {
+            log.info("Shutting down OnnxVectorizer for model: {}", modelId);
+            batcher.shutdown();
+            inferenceExecutor.shutdown();
+            try {
+                if (!inferenceExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    inferenceExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                inferenceExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            try {
+                session.close();
+            } catch (OrtException e) {
+                log.warn("Failed to close ONNX session for model {}: {}", modelId, e.getMessage());
+            }
+            tokenizer.close();
+        }
+    }
+}
@@ -9,11 +9,7 @@ import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
 import ai.djl.translate.TranslateException;
-import io.quarkus.runtime.Startup;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.infrastructure.Infrastructure;
-import jakarta.annotation.PreDestroy;
-import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,15 +21,18 @@ import java.util.concurrent.atomic.AtomicBoolean;
 /**
  * Reactive implementation of the Vectorizer interface using DJL (Deep Java Library).
  * This class manages GPU/CPU resources efficiently with reactive patterns and virtual threads.
+ * Texts from all concurrent callers go through a shared {@link DynamicBatcher}, which groups them
+ * by length so batches carry little padding. Instances are created and closed by {@link ModelRegistry}.
  */
-@Singleton
-@Startup
-public class ReactiveVectorizer implements Vectorizer {
+public class ReactiveVectorizer implements Vectorizer, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(ReactiveVectorizer.class);
     
     private final EmbeddingModel model;
     private final String modelId;
+    /** Longest time a text waits for other texts of similar length to fill its batch. */
+    public static final long DEFAULT_MAX_BATCH_DELAY_MILLIS = 5;
+
     private final ZooModel<String, float[]> djlModel;
     private final BlockingQueue<Predictor<String, float[]>> predictorPool;
     private final int poolSize;
@@ -43,6 +42,7 @@ public class ReactiveVectorizer implements Vectorizer {
     
     // Executor for CPU-bound ML operations
     private final ExecutorService mlExecutor;
+    private final DynamicBatcher batcher;
     
     /**
      * Creates a ReactiveVectorizer with the default model (ALL_MINILM_L6_V2).
@@ -60,6 +60,34 @@ public class ReactiveVectorizer implements Vectorizer {
      */
     public ReactiveVectorizer(EmbeddingModel model, int poolSize, int maxBatchSize) 
             throws ModelNotFoundException, MalformedModelException, IOException {
+        this(model, poolSize, maxBatchSize, DEFAULT_MAX_BATCH_DELAY_MILLIS);
+    }
+
+    /**
+     * Creates a ReactiveVectorizer with the specified configuration.
+     *
+     * @param model the embedding model to use
+     * @param poolSize the size of the predictor pool
+     * @param maxBatchSize the maximum batch size for processing
+     * @param maxBatchDelayMillis how long a text may wait for its batch to fill
+     */
+    public ReactiveVectorizer(EmbeddingModel model, int poolSize, int maxBatchSize, long maxBatchDelayMillis)
+            throws ModelNotFoundException, MalformedModelException, IOException {
+        this(model, model.getUri(), poolSize, maxBatchSize, maxBatchDelayMillis);
+    }
+
+    /**
+     * Creates a ReactiveVectorizer loading the model from the given location.
+     *
+     * @param model the embedding model to use
+     * @param modelUri DJL URI or local model directory (file URI) to load the model from
+     * @param poolSize the size of the predictor pool
+     * @param maxBatchSize the maximum batch size for processing
+     * @param maxBatchDelayMillis how long a text may wait for its batch to fill
+     */
+    public ReactiveVectorizer(EmbeddingModel model, String modelUri, int poolSize, int maxBatchSize,
+                              long maxBatchDelayMillis)
+            throws ModelNotFoundException, MalformedModelException, IOException {
         this.model = model;
         this.modelId = model.name();
         this.poolSize = poolSize;
@@ -71,11 +99,13 @@ public class ReactiveVectorizer implements Vectorizer {
         // Load the DJL model with device selection
         Device device = selectOptimalDevice();
         this.usingGpu = device.isGpu();
-        this.djlModel = loadModel(model.getUri(), device);
+        this.djlModel = loadModel(modelUri, device);
         this.predictorPool = createPredictorPool();
         
         // Create a dedicated executor for ML operations
         this.mlExecutor = createMLExecutor();
+        this.batcher = new DynamicBatcher(this::predictBatch, DynamicBatcher::estimateTokens,
+                maxBatchSize, maxBatchDelayMillis, poolSize, mlExecutor);
         
         log.info("ReactiveVectorizer initialized successfully. Using device: {}, GPU: {}", 
                 device, usingGpu);
@@ -143,31 +173,7 @@ public class ReactiveVectorizer implements Vectorizer {
             return Uni.createFrom().failure(new IllegalStateException("Vectorizer has been shut down"));
         }
 
-        return Uni.createFrom().item(text)
-                .emitOn(Infrastructure.getDefaultExecutor())
-                .chain(inputText -> {
-                    return Uni.createFrom().completionStage(() -> 
-                        CompletableFuture.supplyAsync(() -> {
-                            Predictor<String, float[]> predictor = null;
-                            try {
-                                predictor = predictorPool.take();
-                                float[] result = predictor.predict(inputText);
-                                log.debug("Generated embedding for text (length: {}) -> embedding size: {}", 
-                                        inputText.length(), result.length);
-                                return result;
-                            } catch (InterruptedException e) {
-                                Thread.currentThread().interrupt();
-                                throw new RuntimeException("Thread interrupted while waiting for predictor", e);
-                            } catch (TranslateException e) {
-                                throw new RuntimeException("Error generating embedding", e);
-                            } finally {
-                                if (predictor != null) {
-                                    predictorPool.offer(predictor);
-                                }
-                            }
-                        }, mlExecutor)
-                    );
-                });
+        return batcher.submit(text);
     }
 
     @Override
@@ -181,66 +187,31 @@ public class ReactiveVectorizer implements Vectorizer {
             return Uni.createFrom().failure(new IllegalStateException("Vectorizer has been shut down"));
         }
 
-        log.debug("Processing batch of {} texts with max batch size: {}", texts.size(), maxBatchSize);
-
-        return Uni.createFrom().item(texts)
-                .emitOn(Infrastructure.getDefaultExecutor())
-                .chain(inputTexts -> {
-                    // Split into optimal batch sizes for GPU processing
-                    List<List<String>> batches = createOptimalBatches(inputTexts);
-                    
-                    // Process batches in parallel using reactive streams
-                    List<Uni<List<float[]>>> batchUnis = batches.stream()
-                            .map(this::processBatch)
-                            .toList();
-                    
-                    // Combine all batch results
-                    return Uni.combine().all().unis(batchUnis)
-                            .with(results -> {
-                                List<float[]> allEmbeddings = new ArrayList<>();
-                                for (Object result : results) {
-                                    @SuppressWarnings("unchecked")
-                                    List<float[]> batchResult = (List<float[]>) result;
-                                    allEmbeddings.addAll(batchResult);
-                                }
-                                log.debug("Completed batch processing: {} texts -> {} embeddings", 
-                                        inputTexts.size(), allEmbeddings.size());
-                                return allEmbeddings;
-                            });
-                });
+        log.debug("Queueing {} texts for length-bucketed batches of up to {}", texts.size(), maxBatchSize);
+        return batcher.submitAll(texts);
     }
 
-    private List<List<String>> createOptimalBatches(List<String> texts) {
-        List<List<String>> batches = new ArrayList<>();
-        for (int i = 0; i < texts.size(); i += maxBatchSize) {
-            int end = Math.min(i + maxBatchSize, texts.size());
-            batches.add(texts.subList(i, end));
+    /**
+     * Runs one batch on a pooled predictor. Called by the batcher, which never runs more batches
+     * at once than there are predictors.
+     */
+    private List<float[]> predictBatch(List<String> batch) {
+        Predictor<String, float[]> predictor = null;
+        try {
+            predictor = predictorPool.take();
+            List<float[]> results = predictor.batchPredict(batch);
+            log.debug("Processed batch of size {} -> {} embeddings", batch.size(), results.size());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Thread interrupted during batch processing", e);
+        } catch (TranslateException e) {
+            throw new RuntimeException("Error during batch prediction", e);
+        } finally {
+            if (predictor != null) {
+                predictorPool.offer(predictor);
+            }
         }
-        log.debug("Split {} texts into {} batches of max size {}", texts.size(), batches.size(), maxBatchSize);
-        return batches;
-    }
-
-    private Uni<List<float[]>> processBatch(List<String> batch) {
-        return Uni.createFrom().completionStage(() ->
-                CompletableFuture.supplyAsync(() -> {
-                    Predictor<String, float[]> predictor = null;
-                    try {
-                        predictor = predictorPool.take();
-                        List<float[]> results = predictor.batchPredict(batch);
-                        log.debug("Processed batch of size {} -> {} embeddings", batch.size(), results.size());
-                        return results;
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("Thread interrupted during batch processing", e);
-                    } catch (TranslateException e) {
-                        throw new RuntimeException("Error during batch prediction", e);
-                    } finally {
-                        if (predictor != null) {
-                            predictorPool.offer(predictor);
-                        }
-                    }
-                }, mlExecutor)
-        );
     }
 
     @Override
@@ -263,10 +234,17 @@ public class ReactiveVectorizer implements Vectorizer {
         return maxBatchSize;
     }
 
-    @PreDestroy
+    @Override
+    public void close() {
+        shutdown();
+    }
+
     public void shutdown() {
         if (isShutdown.compareAndSet(false, true)) {
             log.info("Shutting down ReactiveVectorizer for model: {}", modelId);
+
+            // Fail texts still waiting for a batch
+            batcher.shutdown();
             
             // Close all predictors in the pool
             predictorPool.forEach(Predictor::close);
@@ -0,0 +1,18 @@
+package com.rokkon.modules.embedder;
+
+/**
+ * Creates the {@link Vectorizer} for a model when {@link ModelRegistry} first needs it.
+ */
+@FunctionalInterface
+public interface VectorizerFactory {
+
+    /**
+     * Loads a model. May block; the registry calls it off the request thread.
+     *
+     * @param model the embedding model to load
+     * @param modelUri where to load it from: a local model directory or the model's DJL URI
+     * @return a ready vectorizer, closed by the registry (if {@link AutoCloseable}) when the model is unloaded
+     * @throws Exception if the model cannot be loaded
+     */
+    Vectorizer create(EmbeddingModel model, String modelUri) throws Exception;
+}
@@ -0,0 +1,138 @@
+package com.rokkon.modules.embedder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests that {@link CachingVectorizer} only sends cache misses to the wrapped vectorizer.
+ */
+class CachingVectorizerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void onlyMissesReachTheDelegate() {
+        RecordingVectorizer delegate = new RecordingVectorizer();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CachingVectorizer vectorizer = new CachingVectorizer(delegate, tempDir, 10_000, registry);
+
+        List<float[]> first = vectorizer.batchEmbeddings(List.of("Copyright 2024 Rokkon", "unique text", "Copyright 2024 Rokkon"))
+                .await().indefinitely();
+        // Duplicates within a batch are embedded once
+        assertThat(delegate.embeddedTexts).containsExactly("Copyright 2024 Rokkon", "unique text");
+        assertThat(first.get(0)).containsExactly(first.get(2));
+
+        delegate.embeddedTexts.clear();
+        // Whitespace differences normalize to the same key
+        List<float[]> second = vectorizer.batchEmbeddings(List.of("Copyright  2024\nRokkon ", "new text"))
+                .await().indefinitely();
+        assertThat(delegate.embeddedTexts).containsExactly("new text");
+        assertThat(second.get(0)).containsExactly(first.get(0));
+        assertThat(second.get(1)).containsExactly(RecordingVectorizer.vectorFor("new text"));
+
+        assertThat(registry.get("embedder.cache.hits").counter().count()).isEqualTo(1);
+        assertThat(registry.get("embedder.cache.misses").counter().count()).isEqualTo(4);
+        assertThat(vectorizer.hitRatio()).isEqualTo(0.2);
+        vectorizer.close();
+    }
+
+    @Test
+    void singleEmbeddingsAreCachedAndSurviveRestart() {
+        RecordingVectorizer delegate = new RecordingVectorizer();
+        CachingVectorizer vectorizer = new CachingVectorizer(delegate, tempDir, 10_000, new SimpleMeterRegistry());
+        float[] computed = vectorizer.embeddings("Terms of service").await().indefinitely();
+        vectorizer.close();
+
+        RecordingVectorizer restartedDelegate = new RecordingVectorizer();
+        CachingVectorizer restarted = new CachingVectorizer(restartedDelegate, tempDir, 10_000, new SimpleMeterRegistry());
+        float[] cached = restarted.embeddings("Terms of service").await().indefinitely();
+
+        assertThat(cached).containsExactly(computed);
+        assertThat(restartedDelegate.embeddedTexts).isEmpty();
+        restarted.close();
+    }
+
+    @Test
+    void keysDependOnModel() {
+        assertThat(CachingVectorizer.key("model-a", "text")).isNotEqualTo(CachingVectorizer.key("model-b", "text"));
+        assertThat(CachingVectorizer.key("model-a", " text\t")).isEqualTo(CachingVectorizer.key("model-a", "text"));
+    }
+
+    @Test
+    void backendsAndQuantizationsDoNotShareCachedVectors() {
+        EmbeddingModel model = EmbeddingModel.ALL_MINILM_L6_V2;
+        String djl = ModelRegistryProducer.cacheNamespace(model, "djl", "int8");
+        String onnxFp32 = ModelRegistryProducer.cacheNamespace(model, "onnx", "fp32");
+        String onnxInt8 = ModelRegistryProducer.cacheNamespace(model, " ONNX", "int8");
+
+        assertThat(djl).isEqualTo("ALL_MINILM_L6_V2@djl/fp32");
+        assertThat(onnxInt8).isEqualTo("ALL_MINILM_L6_V2@onnx/int8");
+        assertThat(List.of(djl, onnxFp32, onnxInt8))
+                .extracting(namespace -> CachingVectorizer.storeFile(tempDir, namespace))
+                .doesNotHaveDuplicates();
+        assertThat(CachingVectorizer.key(onnxFp32, "text")).isNotEqualTo(CachingVectorizer.key(onnxInt8, "text"));
+
+        // A vector cached by one backend is computed again by the other, even in the same directory
+        CachingVectorizer fp32 = new CachingVectorizer(new RecordingVectorizer(), onnxFp32, tempDir, 10_000,
+                new SimpleMeterRegistry());
+        fp32.embeddings("shared text").await().indefinitely();
+        fp32.close();
+        RecordingVectorizer int8Delegate = new RecordingVectorizer();
+        CachingVectorizer int8 = new CachingVectorizer(int8Delegate, onnxInt8, tempDir, 10_000, new SimpleMeterRegistry());
+        int8.embeddings("shared text").await().indefinitely();
+        assertThat(int8Delegate.embeddedTexts).containsExactly("shared text");
+        int8.close();
+    }
+
+    /**
+     * Deterministic stand-in for a model that records which texts it was asked to embed.
+     */
+    private static class RecordingVectorizer implements Vectorizer {
+        final List<String> embeddedTexts = new ArrayList<>();
+
+        static float[] vectorFor(String text) {
+            return new float[]{text.length(), text.hashCode() % 1000, 1f};
+        }
+
+        @Override
+        public Uni<float[]> embeddings(String text) {
+            embeddedTexts.add(text);
+            return Uni.createFrom().item(vectorFor(text));
+        }
+
+        @Override
+        public Uni<List<float[]>> batchEmbeddings(List<String> texts) {
+            embeddedTexts.addAll(texts);
+            return Uni.createFrom().item(texts.stream().map(RecordingVectorizer::vectorFor).toList());
+        }
+
+        @Override
+        public String getModelId() {
+            return "TEST_MODEL";
+        }
+
+        @Override
+        public EmbeddingModel getModel() {
+            return EmbeddingModel.ALL_MINILM_L6_V2;
+        }
+
+        @Override
+        public boolean isUsingGpu() {
+            return false;
+        }
+
+        @Override
+        public int getMaxBatchSize() {
+            return 32;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.rokkon.modules.embedder;
+
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests {@link DynamicBatcher} flushing and bucketing, and compares it against per-request arrival-order
+ * batching (the previous {@code ReactiveVectorizer} behaviour) under concurrent callers. The model is a
+ * deterministic stand-in whose cost grows with batch size times the longest text in the batch, like a
+ * padded transformer forward pass.
+ */
+class DynamicBatcherTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DynamicBatcherTest.class);
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int POOL_SIZE = 4;
+    private static final int MAX_BATCH_SIZE = 32;
+    private static final int CONCURRENT_REQUESTS = 64;
+    private static final int CHUNKS_PER_REQUEST = 12;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void singleTextIsFlushedAtTheDeadline() {
+        StandInModel model = new StandInModel(0, 0);
+        DynamicBatcher batcher = new DynamicBatcher(model, DynamicBatcher::estimateTokens, MAX_BATCH_SIZE, 20, POOL_SIZE, executor);
+
+        float[] vector = batcher.submit("a lonely chunk").await().atMost(TIMEOUT);
+
+        assertThat(vector).containsExactly(StandInModel.vectorFor("a lonely chunk"));
+        assertThat(model.batchSizes).containsExactly(1);
+        batcher.shutdown();
+    }
+
+    @Test
+    void fullBucketIsFlushedWithoutWaitingForTheDeadline() {
+        StandInModel model = new StandInModel(0, 0);
+        DynamicBatcher batcher = new DynamicBatcher(model, DynamicBatcher::estimateTokens, 4, 60_000, POOL_SIZE, executor);
+
+        List<float[]> vectors = batcher.submitAll(List.of("one", "two", "six", "ten")).await().atMost(TIMEOUT);
+
+        assertThat(vectors).hasSize(4);
+        assertThat(model.batchSizes).containsExactly(4);
+        batcher.shutdown();
+    }
+
+    @Test
+    void textsAreBatchedByLength() {
+        StandInModel model = new StandInModel(0, 0);
+        DynamicBatcher batcher = new DynamicBatcher(model, DynamicBatcher::estimateTokens, 4, 60_000, 1, executor);
+        String shortText = "tiny";
+        String longText = "x".repeat(2_000);
+
+        List<float[]> vectors = batcher.submitAll(List.of(shortText, longText, shortText, longText,
+                        shortText, longText, shortText, longText))
+                .await().atMost(TIMEOUT);
+
+        // Results come back in input order even though the batches were regrouped
+        for (int i = 0; i < vectors.size(); i++) {
+            assertThat(vectors.get(i)).containsExactly(StandInModel.vectorFor(i % 2 == 0 ? shortText : longText));
+        }
+        assertThat(model.batches).hasSize(2);
+        assertThat(model.batches).allSatisfy(batch -> assertThat(batch).containsOnly(batch.get(0)));
+        batcher.shutdown();
+    }
+
+    @Test
+    void failuresReachEveryCallerInTheBatch() {
+        DynamicBatcher batcher = new DynamicBatcher(texts -> {
+            throw new IllegalStateException("model exploded");
+        }, DynamicBatcher::estimateTokens, MAX_BATCH_SIZE, 1, POOL_SIZE, executor);
+
+        assertThatThrownBy(() -> batcher.submitAll(List.of("a", "b")).await().atMost(TIMEOUT))
+                .hasMessageContaining("model exploded");
+        assertThatThrownBy(() -> batcher.submit("c").await().atMost(TIMEOUT))
+                .hasMessageContaining("model exploded");
+        batcher.shutdown();
+    }
+
+    @Test
+    void bucketsArePowersOfTwo() {
+        assertThat(DynamicBatcher.bucketOf(0)).isZero();
+        assertThat(DynamicBatcher.bucketOf(1)).isZero();
+        assertThat(DynamicBatcher.bucketOf(2)).isEqualTo(1);
+        assertThat(DynamicBatcher.bucketOf(3)).isEqualTo(2);
+        assertThat(DynamicBatcher.bucketOf(4)).isEqualTo(2);
+        assertThat(DynamicBatcher.bucketOf(5)).isEqualTo(3);
+        assertThat(DynamicBatcher.bucketOf(512)).isEqualTo(9);
+        assertThat(DynamicBatcher.bucketOf(100_000)).isEqualTo(DynamicBatcher.BUCKETS - 1);
+    }
+
+    @Test
+    void benchmarkConcurrentRequests() {
+        List<List<String>> requests = generateRequests(7L);
+        long actualTokens = requests.stream().flatMap(List::stream).mapToLong(DynamicBatcher::estimateTokens).sum();
+
+        // Warm up both paths before measuring
+        runArrivalOrder(requests, new StandInModel(0, 0));
+        DynamicBatcher warmup = new DynamicBatcher(new StandInModel(0, 0), DynamicBatcher::estimateTokens,
+                MAX_BATCH_SIZE, ReactiveVectorizer.DEFAULT_MAX_BATCH_DELAY_MILLIS, POOL_SIZE, executor);
+        runBatched(requests, warmup);
+        warmup.shutdown();
+
+        StandInModel arrivalOrderModel = new StandInModel(2_000_000, 1_000);
+        RunResult arrivalOrder = runArrivalOrder(requests, arrivalOrderModel);
+
+        StandInModel batchedModel = new StandInModel(2_000_000, 1_000);
+        DynamicBatcher batcher = new DynamicBatcher(batchedModel, DynamicBatcher::estimateTokens,
+                MAX_BATCH_SIZE, ReactiveVectorizer.DEFAULT_MAX_BATCH_DELAY_MILLIS, POOL_SIZE, executor);
+        RunResult batched = runBatched(requests, batcher);
+        batcher.shutdown();
+
+        assertCorrect(requests, arrivalOrder.vectors());
+        assertCorrect(requests, batched.vectors());
+        // Within a bucket the longest text is under twice the shortest, so padding is bounded
+        assertThat(batchedModel.paddedTokens.get()).isLessThanOrEqualTo(2 * actualTokens);
+
+        LOG.info("Dynamic batching, {} concurrent requests x {} chunks ({} tokens):",
+                CONCURRENT_REQUESTS, CHUNKS_PER_REQUEST, actualTokens);
+        report("arrival order", arrivalOrder, arrivalOrderModel, actualTokens);
+        report("length-bucketed", batched, batchedModel, actualTokens);
+    }
+
+    private RunResult runArrivalOrder(List<List<String>> requests, StandInModel model) {
+        Semaphore predictors = new Semaphore(POOL_SIZE);
+        Function<List<String>, CompletableFuture<List<float[]>>> perRequest = texts -> {
+            List<CompletableFuture<List<float[]>>> batches = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i += MAX_BATCH_SIZE) {
+                List<String> batch = texts.subList(i, Math.min(i + MAX_BATCH_SIZE, texts.size()));
+                batches.add(CompletableFuture.supplyAsync(() -> {
+                    predictors.acquireUninterruptibly();
+                    try {
+                        return model.apply(batch);
+                    } finally {
+                        predictors.release();
+                    }
+                }, executor));
+            }
+            return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]))
+                    .thenApply(ignored -> batches.stream().flatMap(batch -> batch.join().stream()).toList());
+        };
+        return run(requests, texts -> Uni.createFrom().completionStage(() -> perRequest.apply(texts)));
+    }
+
+    private RunResult runBatched(List<List<String>> requests, DynamicBatcher batcher) {
+        return run(requests, batcher::submitAll);
+    }
+
+    private RunResult run(List<List<String>> requests, Function<List<String>, Uni<List<float[]>>> embed) {
+        long[] latencies = new long[requests.size()];
+        List<CompletableFuture<List<float[]>>> calls = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests.size(); i++) {
+            int request = i;
+            calls.add(CompletableFuture.supplyAsync(() -> {
+                long requestStart = System.nanoTime();
+                List<float[]> vectors = embed.apply(requests.get(request)).await().atMost(TIMEOUT);
+                latencies[request] = System.nanoTime() - requestStart;
+                return vectors;
+            }, executor));
+        }
+        List<List<float[]>> vectors = calls.stream().map(CompletableFuture::join).toList();
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new RunResult(vectors, elapsed, latencies);
+    }
+
+    private void assertCorrect(List<List<String>> requests, List<List<float[]>> vectors) {
+        assertThat(vectors).hasSize(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            List<String> texts = requests.get(i);
+            assertThat(vectors.get(i)).hasSize(texts.size());
+            for (int j = 0; j < texts.size(); j++) {
+                assertThat(vectors.get(i).get(j)).containsExactly(StandInModel.vectorFor(texts.get(j)));
+            }
+        }
+    }
+
+    private void report(String label, RunResult result, StandInModel model, long actualTokens) {
+        double seconds = result.elapsedNanos() / 1e9;
+        int texts = CONCURRENT_REQUESTS * CHUNKS_PER_REQUEST;
+        LOG.info("  {}: {} batches, padded tokens {} ({}x), {} texts/s, latency p50 {} ms, p99 {} ms",
+                label, model.batchSizes.size(), model.paddedTokens.get(),
+                String.format("%.2f", (double) model.paddedTokens.get() / actualTokens),
+                String.format("%.0f", texts / seconds),
+                String.format("%.1f", result.percentileMillis(0.50)),
+                String.format("%.1f", result.percentileMillis(0.99)));
+    }
+
+    /**
+     * Chunks of 10 to 500 estimated tokens, like a chunker emitting everything from headings to full paragraphs.
+     */
+    private static List<List<String>> generateRequests(long seed) {
+        Random random = new Random(seed);
+        String[] words = {"pipeline", "vector", "chunk", "model", "search", "index", "token", "batch"};
+        List<List<String>> requests = new ArrayList<>();
+        for (int r = 0; r < CONCURRENT_REQUESTS; r++) {
+            List<String> texts = new ArrayList<>();
+            for (int c = 0; c < CHUNKS_PER_REQUEST; c++) {
+                int chars = (10 + random.nextInt(491)) * 4;
+                StringBuilder text = new StringBuilder(chars);
+                while (text.length() < chars) {
+                    text.append(words[random.nextInt(words.length)]).append(' ');
+                }
+                texts.add(text.substring(0, chars));
+            }
+            requests.add(texts);
+        }
+        return requests;
+    }
+
+    private record RunResult(List<List<float[]>> vectors, long elapsedNanos, long[] sortedLatencies) {
+        double percentileMillis(double percentile) {
+            int index = Math.min(sortedLatencies.length - 1, (int) Math.ceil(percentile * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    /**
+     * Deterministic stand-in model. Each batch costs a fixed overhead plus a per-token cost for
+     * batch size times the longest text, and records what it was asked to embed.
+     */
+    private static class StandInModel implements Function<List<String>, List<float[]>> {
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        final AtomicLong paddedTokens = new AtomicLong();
+        private final long batchOverheadNanos;
+        private final long nanosPerPaddedToken;
+
+        StandInModel(long batchOverheadNanos, long nanosPerPaddedToken) {
+            this.batchOverheadNanos = batchOverheadNanos;
+            this.nanosPerPaddedToken = nanosPerPaddedToken;
+        }
+
+        static float[] vectorFor(String text) {
+            Random random = new Random(text.hashCode());
+            float[] vector = new float[8];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = random.nextFloat();
+            }
+            return vector;
+        }
+
+        @Override
+        public List<float[]> apply(List<String> texts) {
+            int longest = texts.stream().mapToInt(DynamicBatcher::estimateTokens).max().orElse(0);
+            long padded = (long) longest * texts.size();
+            paddedTokens.addAndGet(padded);
+            batchSizes.add(texts.size());
+            batches.add(List.copyOf(texts));
+            long cost = batchOverheadNanos + padded * nanosPerPaddedToken;
+            if (cost > 0) {
+                LockSupport.parkNanos(cost);
+            }
+            return texts.stream().map(StandInModel::vectorFor).toList();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.rokkon.modules.embedder;
+
+import com.rokkon.modules.embedder.EmbedderServiceFixtures.StandInVectorizer;
+import com.rokkon.search.model.ChunkEmbedding;
+import com.rokkon.search.model.PipeDoc;
+import com.rokkon.search.model.SemanticChunk;
+import com.rokkon.search.model.SemanticProcessingResult;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.CHUNKS_PER_RESULT;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.DIMENSION;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.TIMEOUT;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.assertEmbedded;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.generateDocument;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.request;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.service;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures per-document latency of {@link EmbedderService} for documents with 1, 10 and 100 semantic
+ * results, against the previous approach (one blocking vectorizer call per result set, floats copied
+ * one at a time) kept here as a reference. The vectorizer is a deterministic stand-in with a fixed
+ * per-call latency, like a round trip to a batched model. Timings are only logged, since they depend on
+ * the machine; the one vectorizer call per document is asserted.
+ */
+class EmbedderServiceBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmbedderServiceBenchmarkTest.class);
+    private static final Duration CALL_LATENCY = Duration.ofMillis(2);
+    private static final int ITERATIONS = 5;
+
+    @Test
+    void benchmarkPerDocumentLatency() {
+        StandInVectorizer vectorizer = new StandInVectorizer(CALL_LATENCY);
+        EmbedderService service = service(vectorizer);
+
+        LOG.info("Embedder per-document latency ({} chunks per result set, {}-d vectors, {} ms per vectorizer call):",
+                CHUNKS_PER_RESULT, DIMENSION, CALL_LATENCY.toMillis());
+        for (int resultSets : new int[]{1, 10, 100}) {
+            PipeDoc doc = generateDocument(resultSets, resultSets);
+
+            // Warm up both paths before measuring
+            runReference(vectorizer, doc);
+            service.processData(request(doc)).await().atMost(TIMEOUT);
+
+            long referenceNanos = 0;
+            long singlePassNanos = 0;
+            PipeDoc output = null;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                runReference(vectorizer, doc);
+                referenceNanos += System.nanoTime() - start;
+
+                int callsBefore = vectorizer.calls.get();
+                start = System.nanoTime();
+                output = service.processData(request(doc)).await().atMost(TIMEOUT).getOutputDoc();
+                singlePassNanos += System.nanoTime() - start;
+                assertThat(vectorizer.calls.get() - callsBefore).isEqualTo(1);
+            }
+            assertEmbedded(doc, output, vectorizer.getModelId());
+
+            LOG.info("  {} result sets: per result set {} ms, single pass {} ms",
+                    resultSets,
+                    String.format("%.2f", referenceNanos / 1e6 / ITERATIONS),
+                    String.format("%.2f", singlePassNanos / 1e6 / ITERATIONS));
+        }
+    }
+
+    /**
+     * The previous implementation: one blocking call per result set, vectors copied float by float.
+     */
+    private static PipeDoc runReference(Vectorizer vectorizer, PipeDoc doc) {
+        PipeDoc.Builder output = doc.toBuilder();
+        for (SemanticProcessingResult result : doc.getSemanticResultsList()) {
+            List<String> texts = new ArrayList<>();
+            for (SemanticChunk chunk : result.getChunksList()) {
+                texts.add(chunk.getEmbeddingInfo().getTextContent());
+            }
+            List<float[]> embeddings = vectorizer.batchEmbeddings(texts).await().indefinitely();
+            SemanticProcessingResult.Builder newResult = result.toBuilder();
+            for (int j = 0; j < result.getChunksCount(); j++) {
+                ChunkEmbedding.Builder info = result.getChunks(j).getEmbeddingInfo().toBuilder().clearVector();
+                for (float value : embeddings.get(j)) {
+                    info.addVector(value);
+                }
+                newResult.setChunks(j, result.getChunks(j).toBuilder().setEmbeddingInfo(info).build());
+            }
+            output.addSemanticResults(newResult.build());
+        }
+        return output.build();
+    }
+}
@@ -0,0 +1,153 @@
+package com.rokkon.modules.embedder;
+
+import com.rokkon.search.model.ChunkEmbedding;
+import com.rokkon.search.model.PipeDoc;
+import com.rokkon.search.model.SemanticChunk;
+import com.rokkon.search.model.SemanticProcessingResult;
+import com.rokkon.search.sdk.ProcessConfiguration;
+import com.rokkon.search.sdk.ProcessRequest;
+import com.rokkon.search.sdk.ServiceMetadata;
+import io.smallrye.mutiny.Uni;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Documents, requests and a deterministic stand-in vectorizer shared by the {@link EmbedderService} unit tests
+ * and benchmarks, which wire the service by hand.
+ */
+final class EmbedderServiceFixtures {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(30);
+    static final int CHUNKS_PER_RESULT = 20;
+    static final int DIMENSION = 384;
+
+    private EmbedderServiceFixtures() {
+    }
+
+    static EmbedderService service(Vectorizer vectorizer) {
+        EmbedderService service = new EmbedderService();
+        service.modelRegistry = new ModelRegistry((model, uri) -> vectorizer, Path.of("no-local-models"),
+                Long.MAX_VALUE, Runnable::run);
+        return service;
+    }
+
+    static ProcessRequest request(PipeDoc doc) {
+        return ProcessRequest.newBuilder()
+                .setDocument(doc)
+                .setMetadata(ServiceMetadata.newBuilder()
+                        .setPipelineName("benchmark-pipeline")
+                        .setPipeStepName("embedder-step")
+                        .setStreamId("benchmark-stream")
+                        .build())
+                .setConfig(ProcessConfiguration.getDefaultInstance())
+                .build();
+    }
+
+    static PipeDoc generateDocument(int resultSets, long seed) {
+        Random random = new Random(seed);
+        String[] words = {"pipeline", "vector", "chunk", "model", "search", "index", "token", "batch"};
+        PipeDoc.Builder doc = PipeDoc.newBuilder().setId("doc-" + seed).setBody("body");
+        for (int r = 0; r < resultSets; r++) {
+            SemanticProcessingResult.Builder result = SemanticProcessingResult.newBuilder()
+                    .setResultId("result-" + r)
+                    .setSourceFieldName("body")
+                    .setChunkConfigId("config-" + r);
+            for (int c = 0; c < CHUNKS_PER_RESULT; c++) {
+                StringBuilder text = new StringBuilder();
+                for (int w = 0; w < 30; w++) {
+                    text.append(words[random.nextInt(words.length)]).append(' ');
+                }
+                result.addChunks(SemanticChunk.newBuilder()
+                        .setChunkId("result-" + r + "-chunk-" + c)
+                        .setChunkNumber(c)
+                        .setEmbeddingInfo(ChunkEmbedding.newBuilder().setTextContent(text.toString().strip())));
+            }
+            doc.addSemanticResults(result);
+        }
+        return doc.build();
+    }
+
+    static void assertEmbedded(PipeDoc input, PipeDoc output, String modelId) {
+        // The embedded result sets are appended after the input's own
+        int inputResults = input.getSemanticResultsCount();
+        assertThat(output.getSemanticResultsCount()).isEqualTo(2 * inputResults);
+        for (int i = 0; i < inputResults; i++) {
+            SemanticProcessingResult embedded = output.getSemanticResults(inputResults + i);
+            assertThat(embedded.getEmbeddingConfigId()).isEqualTo(modelId);
+            for (SemanticChunk chunk : embedded.getChunksList()) {
+                float[] expected = StandInVectorizer.vectorFor(chunk.getEmbeddingInfo().getTextContent());
+                List<Float> vector = chunk.getEmbeddingInfo().getVectorList();
+                assertThat(vector).hasSize(DIMENSION);
+                assertThat(vector.get(0)).isEqualTo(expected[0]);
+                assertThat(vector.get(DIMENSION - 1)).isEqualTo(expected[DIMENSION - 1]);
+            }
+        }
+    }
+
+    /**
+     * Deterministic stand-in vectorizer with a fixed, non-blocking delay per call.
+     */
+    static class StandInVectorizer implements Vectorizer {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger embeddedTexts = new AtomicInteger();
+        private final Duration callLatency;
+        private final EmbeddingModel model;
+
+        StandInVectorizer(Duration callLatency) {
+            this(callLatency, EmbeddingModel.ALL_MINILM_L6_V2);
+        }
+
+        StandInVectorizer(Duration callLatency, EmbeddingModel model) {
+            this.callLatency = callLatency;
+            this.model = model;
+        }
+
+        static float[] vectorFor(String text) {
+            Random random = new Random(text.hashCode());
+            float[] vector = new float[DIMENSION];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = random.nextFloat();
+            }
+            return vector;
+        }
+
+        @Override
+        public Uni<float[]> embeddings(String text) {
+            return batchEmbeddings(List.of(text)).map(vectors -> vectors.get(0));
+        }
+
+        @Override
+        public Uni<List<float[]>> batchEmbeddings(List<String> texts) {
+            calls.incrementAndGet();
+            embeddedTexts.addAndGet(texts.size());
+            Uni<List<float[]>> vectors = Uni.createFrom().item(() -> texts.stream().map(StandInVectorizer::vectorFor).toList());
+            return callLatency.isZero() ? vectors : vectors.onItem().delayIt().by(callLatency);
+        }
+
+        @Override
+        public String getModelId() {
+            return model.name();
+        }
+
+        @Override
+        public EmbeddingModel getModel() {
+            return model;
+        }
+
+        @Override
+        public boolean isUsingGpu() {
+            return false;
+        }
+
+        @Override
+        public int getMaxBatchSize() {
+            return 32;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.rokkon.modules.embedder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.rokkon.modules.embedder.EmbedderServiceFixtures.StandInVectorizer;
+import com.rokkon.pipeline.util.ChunkMetadataKeys;
+import com.rokkon.pipeline.util.PackedVectors;
+import com.rokkon.search.model.ChunkEmbedding;
+import com.rokkon.search.model.PipeDoc;
+import com.rokkon.search.model.SemanticChunk;
+import com.rokkon.search.model.SemanticProcessingResult;
+import com.rokkon.search.sdk.ProcessConfiguration;
+import com.rokkon.search.sdk.ProcessRequest;
+import com.rokkon.search.sdk.ProcessResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.CHUNKS_PER_RESULT;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.DIMENSION;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.TIMEOUT;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.assertEmbedded;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.generateDocument;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.request;
+import static com.rokkon.modules.embedder.EmbedderServiceFixtures.service;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Pure unit tests for {@link EmbedderService} without any CDI or Quarkus context: batching, deduplication,
+ * near-duplicate skipping, multiple models and packed vector encodings, against a deterministic stand-in
+ * vectorizer.
+ */
+class EmbedderServiceUnitTest {
+
+    @Test
+    void allResultSetsShareOneVectorizerCall() {
+        StandInVectorizer vectorizer = new StandInVectorizer(Duration.ZERO);
+        EmbedderService service = service(vectorizer);
+        PipeDoc doc = generateDocument(10, 1L);
+
+        ProcessResponse response = service.processData(request(doc)).await().atMost(TIMEOUT);
+
+        assertThat(response.getSuccess()).isTrue();
+        assertThat(vectorizer.calls.get()).isEqualTo(1);
+        assertEmbedded(doc, response.getOutputDoc(), vectorizer.getModelId());
+    }
+
+    @Test
+    void repeatedChunkTextsAreEmbeddedOnce() {
+        StandInVectorizer vectorizer = new StandInVectorizer(Duration.ZERO);
+        EmbedderService service = service(vectorizer);
+        PipeDoc single = generateDocument(1, 2L);
+        // The same result set twice, as produced by two chunk configs that agree on a chunk
+        PipeDoc doc = single.toBuilder().addSemanticResults(single.getSemanticResults(0)).build();
+
+        ProcessResponse response = service.processData(request(doc)).await().atMost(TIMEOUT);
+
+        assertThat(vectorizer.embeddedTexts.get()).isEqualTo(CHUNKS_PER_RESULT);
+        assertEmbedded(doc, response.getOutputDoc(), vectorizer.getModelId());
+    }
+
+    @Test
+    void nearDuplicateChunksAreNotEmbedded() {
+        StandInVectorizer vectorizer = new StandInVectorizer(Duration.ZERO);
+        EmbedderService service = service(vectorizer);
+        PipeDoc single = generateDocument(1, 5L);
+        SemanticProcessingResult.Builder marked = single.getSemanticResults(0).toBuilder();
+        marked.getChunksBuilder(1).putMetadata(ChunkMetadataKeys.NEAR_DUPLICATE_OF,
+                Value.newBuilder().setStringValue("other-doc_chunk_7").build());
+        PipeDoc doc = single.toBuilder().setSemanticResults(0, marked).build();
+
+        PipeDoc output = service.processData(request(doc)).await().atMost(TIMEOUT).getOutputDoc();
+
+        assertThat(vectorizer.embeddedTexts.get()).isEqualTo(CHUNKS_PER_RESULT - 1);
+        SemanticProcessingResult embedded = output.getSemanticResults(1);
+        assertThat(embedded.getChunks(1).getEmbeddingInfo().getVectorCount()).isZero();
+        assertThat(embedded.getChunks(0).getEmbeddingInfo().getVectorCount()).isEqualTo(DIMENSION);
+        assertThat(embedded.getChunks(2).getEmbeddingInfo().getVectorCount()).isEqualTo(DIMENSION);
+    }
+
+    @Test
+    void everyRequestedModelEmbedsTheSameBatch() {
+        List<String> loaded = new ArrayList<>();
+        EmbedderService service = new EmbedderService();
+        service.objectMapper = new ObjectMapper();
+        service.modelRegistry = new ModelRegistry((model, uri) -> {
+            loaded.add(model.name());
+            return new StandInVectorizer(Duration.ZERO, model);
+        }, Path.of("no-local-models"), Long.MAX_VALUE, Runnable::run);
+        PipeDoc doc = generateDocument(2, 3L);
+        ProcessRequest request = request(doc).toBuilder()
+                .setConfig(ProcessConfiguration.newBuilder()
+                        .setCustomJsonConfig(Struct.newBuilder()
+                                .putFields("embedding_models", Value.newBuilder().setListValue(ListValue.newBuilder()
+                                        .addValues(Value.newBuilder().setStringValue("ALL_MINILM_L6_V2"))
+                                        .addValues(Value.newBuilder().setStringValue("E5_SMALL_V2"))
+                                        .addValues(Value.newBuilder().setStringValue("ALL_MINILM_L6_V2")))
+                                        .build())))
+                .build();
+
+        PipeDoc output = service.processData(request).await().atMost(TIMEOUT).getOutputDoc();
+
+        assertThat(loaded).containsExactlyInAnyOrder("ALL_MINILM_L6_V2", "E5_SMALL_V2");
+        // Two input result sets, then one embedded copy of each per model
+        assertThat(output.getSemanticResultsList().subList(2, 6))
+                .extracting(SemanticProcessingResult::getEmbeddingConfigId)
+                .containsExactly("ALL_MINILM_L6_V2", "ALL_MINILM_L6_V2", "E5_SMALL_V2", "E5_SMALL_V2");
+        assertThat(output.getSemanticResults(4).getResultSetName()).isEqualTo("embedder-step_embeddings_E5_SMALL_V2");
+    }
+
+    @Test
+    void packedVectorEncodingsShrinkTheOutput() {
+        StandInVectorizer vectorizer = new StandInVectorizer(Duration.ZERO);
+        EmbedderService service = service(vectorizer);
+        service.objectMapper = new ObjectMapper();
+        PipeDoc doc = generateDocument(10, 4L);
+
+        long floatBytes = embeddedResultBytes(doc, service.processData(request(doc)).await().atMost(TIMEOUT).getOutputDoc());
+        for (String encoding : new String[]{"fp32", "fp16", "int8"}) {
+            ProcessRequest request = request(doc).toBuilder()
+                    .setConfig(ProcessConfiguration.newBuilder()
+                            .setCustomJsonConfig(Struct.newBuilder()
+                                    .putFields("vector_encoding", Value.newBuilder().setStringValue(encoding).build())))
+                    .build();
+            PipeDoc output = service.processData(request).await().atMost(TIMEOUT).getOutputDoc();
+
+            for (int i = doc.getSemanticResultsCount(); i < output.getSemanticResultsCount(); i++) {
+                for (SemanticChunk chunk : output.getSemanticResults(i).getChunksList()) {
+                    ChunkEmbedding info = chunk.getEmbeddingInfo();
+                    assertThat(info.getVectorCount()).isZero();
+                    assertThat(info.getPackedVector().getEncoding()).isEqualTo(PackedVectors.encodingOf(encoding));
+                    // Stand-in values lie in [0, 1), so one int8 step is 1/255
+                    assertThat(PackedVectors.vectorOf(info))
+                            .containsExactly(StandInVectorizer.vectorFor(info.getTextContent()), within(0.005f));
+                }
+            }
+            if (!encoding.equals("fp32")) {
+                // Chunk text and ids are not compressed, so the ratio is a little below 2x / 4x
+                assertThat(embeddedResultBytes(doc, output))
+                        .isLessThan(floatBytes * (encoding.equals("fp16") ? 60 : 40) / 100);
+            }
+        }
+    }
+
+    private static long embeddedResultBytes(PipeDoc input, PipeDoc output) {
+        long bytes = 0;
+        for (int i = input.getSemanticResultsCount(); i < output.getSemanticResultsCount(); i++) {
+            bytes += output.getSemanticResults(i).getSerializedSize();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,165 @@
+package com.rokkon.modules.embedder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Side-by-side benchmark of the DJL/PyTorch and ONNX Runtime (fp32 and int8) backends: startup time,
+ * documents per second, p99 request latency and resident memory. Needs real models, so it only runs when
+ * {@code -Dembedder.benchmark.model-dir=<dir>} points at an ONNX export of all-MiniLM-L6-v2
+ * ({@code model.onnx}, {@code model_quantized.onnx}, {@code tokenizer.json}); the PyTorch model comes
+ * from the DJL model zoo.
+ */
+@EnabledIfSystemProperty(named = "embedder.benchmark.model-dir", matches = ".+")
+class EmbeddingBackendBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddingBackendBenchmarkTest.class);
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+    private static final EmbeddingModel MODEL = EmbeddingModel.ALL_MINILM_L6_V2;
+    private static final int DOCUMENTS = 400;
+    private static final int CHUNKS_PER_DOCUMENT = 8;
+    private static final int CONCURRENT_DOCUMENTS = 8;
+
+    private final Path modelDirectory = Paths.get(System.getProperty("embedder.benchmark.model-dir"));
+
+    @Test
+    void compareBackends() throws Exception {
+        List<List<String>> documents = generateDocuments(11L);
+        String probe = "ONNX Runtime and PyTorch should agree on this sentence.";
+
+        BackendResult djl = run("djl-pytorch", documents, probe,
+                () -> new ReactiveVectorizer(MODEL, 4, 32));
+        BackendResult onnxFp32 = run("onnx-fp32", documents, probe,
+                () -> new OnnxVectorizer(MODEL, modelDirectory, onnxOptions(OnnxVectorizer.Quantization.FP32)));
+        BackendResult onnxInt8 = run("onnx-int8", documents, probe,
+                () -> new OnnxVectorizer(MODEL, modelDirectory, onnxOptions(OnnxVectorizer.Quantization.INT8)));
+
+        // Same pooling and normalization, so the backends produce (nearly) the same vectors
+        assertThat(cosine(djl.probeVector(), onnxFp32.probeVector())).isGreaterThan(0.99);
+        assertThat(cosine(onnxFp32.probeVector(), onnxInt8.probeVector())).isGreaterThan(0.95);
+    }
+
+    private OnnxVectorizer.Options onnxOptions(OnnxVectorizer.Quantization quantization) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new OnnxVectorizer.Options(quantization, Math.max(1, cores / 2), 1, 2, 32, 256);
+    }
+
+    private BackendResult run(String label, List<List<String>> documents, String probe,
+                              VectorizerSupplier supplier) throws Exception {
+        long rssBefore = residentSetKb();
+        long loadStart = System.nanoTime();
+        Vectorizer vectorizer = supplier.get();
+        long startupMillis = (System.nanoTime() - loadStart) / 1_000_000;
+        try {
+            float[] probeVector = vectorizer.embeddings(probe).await().atMost(TIMEOUT);
+            // Warm up before measuring
+            for (List<String> document : documents.subList(0, 20)) {
+                vectorizer.batchEmbeddings(document).await().atMost(TIMEOUT);
+            }
+
+            long[] latencies = new long[documents.size()];
+            List<CompletableFuture<Void>> calls = new ArrayList<>();
+            long start = System.nanoTime();
+            try (ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_DOCUMENTS)) {
+                for (int i = 0; i < documents.size(); i++) {
+                    int document = i;
+                    calls.add(CompletableFuture.runAsync(() -> {
+                        long documentStart = System.nanoTime();
+                        List<float[]> vectors = vectorizer.batchEmbeddings(documents.get(document)).await().atMost(TIMEOUT);
+                        latencies[document] = System.nanoTime() - documentStart;
+                        assertThat(vectors).hasSize(CHUNKS_PER_DOCUMENT);
+                    }, callers));
+                }
+                calls.forEach(CompletableFuture::join);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(latencies);
+            long rssAfter = residentSetKb();
+
+            LOG.info("{}: startup {} ms, {} docs/s, p99 {} ms, RSS +{} MB",
+                    label, startupMillis,
+                    String.format("%.1f", documents.size() / seconds),
+                    String.format("%.1f", latencies[(int) Math.ceil(0.99 * latencies.length) - 1] / 1e6),
+                    rssBefore < 0 ? "n/a" : String.valueOf((rssAfter - rssBefore) / 1024));
+            return new BackendResult(probeVector);
+        } finally {
+            if (vectorizer instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     * Resident set size from /proc (Linux); -1 elsewhere. Backends run in one JVM, so later deltas also
+     * include memory not yet returned by earlier ones.
+     */
+    private static long residentSetKb() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux
+        }
+        return -1;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private static List<List<String>> generateDocuments(long seed) {
+        Random random = new Random(seed);
+        String[] words = {"pipeline", "vector", "search", "document", "embedding", "model", "index", "query",
+                "relevance", "ranking", "semantic", "token"};
+        List<List<String>> documents = new ArrayList<>();
+        for (int d = 0; d < DOCUMENTS; d++) {
+            List<String> chunks = new ArrayList<>();
+            for (int c = 0; c < CHUNKS_PER_DOCUMENT; c++) {
+                int length = 10 + random.nextInt(120);
+                StringBuilder chunk = new StringBuilder();
+                for (int w = 0; w < length; w++) {
+                    chunk.append(words[random.nextInt(words.length)]).append(' ');
+                }
+                chunks.add(chunk.toString().strip());
+            }
+            documents.add(chunks);
+        }
+        return documents;
+    }
+
+    @FunctionalInterface
+    private interface VectorizerSupplier {
+        Vectorizer get() throws Exception;
+    }
+
+    private record BackendResult(float[] probeVector) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.rokkon.modules.embedder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the memory-mapped {@link EmbeddingStore}: lookups, per-set LRU eviction and persistence.
+ */
+class EmbeddingStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void storesAndReturnsVectors() throws IOException {
+        try (EmbeddingStore store = EmbeddingStore.open(tempDir.resolve("store.embcache"), 4, 1_000)) {
+            store.put(1L, 2L, new float[]{0.1f, 0.2f, 0.3f, 0.4f});
+            store.put(3L, 4L, new float[]{1f, 2f, 3f, 4f});
+
+            assertThat(store.get(1L, 2L)).containsExactly(0.1f, 0.2f, 0.3f, 0.4f);
+            assertThat(store.get(3L, 4L)).containsExactly(1f, 2f, 3f, 4f);
+            assertThat(store.get(5L, 6L)).isNull();
+            assertThat(store.size()).isEqualTo(2);
+
+            // Overwriting an existing key does not add an entry
+            store.put(1L, 2L, new float[]{9f, 9f, 9f, 9f});
+            assertThat(store.get(1L, 2L)).containsExactly(9f, 9f, 9f, 9f);
+            assertThat(store.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntryWhenFull() throws IOException {
+        // A capacity of one set: every key competes for the same WAYS slots
+        try (EmbeddingStore store = EmbeddingStore.open(tempDir.resolve("lru.embcache"), 2, EmbeddingStore.WAYS)) {
+            for (int i = 0; i < EmbeddingStore.WAYS; i++) {
+                store.put(i, i, new float[]{i, i});
+            }
+            // Touch key 0 so key 1 becomes the least recently used
+            assertThat(store.get(0, 0)).isNotNull();
+
+            store.put(100, 100, new float[]{100, 100});
+
+            assertThat(store.size()).isEqualTo(EmbeddingStore.WAYS);
+            assertThat(store.evictions()).isEqualTo(1);
+            assertThat(store.get(1, 1)).isNull();
+            assertThat(store.get(0, 0)).containsExactly(0f, 0f);
+            assertThat(store.get(100, 100)).containsExactly(100f, 100f);
+        }
+    }
+
+    @Test
+    void reopensPersistedEntries() throws IOException {
+        Path file = tempDir.resolve("persist.embcache");
+        try (EmbeddingStore store = EmbeddingStore.open(file, 3, 100)) {
+            store.put(7L, 8L, new float[]{7f, 8f, 9f});
+        }
+
+        assertThat(EmbeddingStore.readDimension(file)).isEqualTo(3);
+        try (EmbeddingStore reopened = EmbeddingStore.open(file, 3, 100)) {
+            assertThat(reopened.size()).isEqualTo(1);
+            assertThat(reopened.get(7L, 8L)).containsExactly(7f, 8f, 9f);
+        }
+
+        // A different capacity cannot reuse the layout, so the store starts empty
+        try (EmbeddingStore resized = EmbeddingStore.open(file, 3, 1_000)) {
+            assertThat(resized.size()).isZero();
+            assertThat(resized.get(7L, 8L)).isNull();
+        }
+    }
+
+    @Test
+    void rejectsVectorsOfTheWrongDimension() throws IOException {
+        try (EmbeddingStore store = EmbeddingStore.open(tempDir.resolve("dim.embcache"), 4, 100)) {
+            assertThatThrownBy(() -> store.put(1L, 1L, new float[]{1f, 2f}))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
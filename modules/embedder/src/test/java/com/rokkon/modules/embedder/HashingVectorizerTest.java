@@ -0,0 +1,108 @@
+package com.rokkon.modules.embedder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests the vectors and simulated cost of the {@link HashingVectorizer} stand-in backend.
+ */
+class HashingVectorizerTest {
+
+    private final List<HashingVectorizer> vectorizers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        vectorizers.forEach(HashingVectorizer::close);
+    }
+
+    @Test
+    void vectorsAreDeterministicNormalizedAndOfTheConfiguredDimension() {
+        HashingVectorizer first = vectorizer(EmbeddingModel.ALL_MINILM_L6_V2, 48, 0, 0);
+        HashingVectorizer second = vectorizer(EmbeddingModel.ALL_MINILM_L6_V2, 48, 0, 0);
+
+        float[] vector = first.embeddings("The quick brown fox").await().indefinitely();
+
+        assertThat(vector).hasSize(48);
+        assertThat(second.embeddings("The quick brown fox").await().indefinitely()).containsExactly(vector);
+        assertThat(dot(vector, vector)).isCloseTo(1f, within(1e-5f));
+        // Case and punctuation do not change the words
+        assertThat(first.embeddings("the QUICK, brown fox!").await().indefinitely()).containsExactly(vector);
+    }
+
+    @Test
+    void textsSharingWordsAreCloserThanUnrelatedTexts() {
+        HashingVectorizer vectorizer = vectorizer(EmbeddingModel.ALL_MINILM_L6_V2, 384, 0, 0);
+
+        List<float[]> vectors = vectorizer.batchEmbeddings(List.of(
+                "ships waited outside the harbour at dawn",
+                "ships waited outside the harbour at noon",
+                "quarterly revenue grew by twelve percent")).await().indefinitely();
+
+        float related = dot(vectors.get(0), vectors.get(1));
+        float unrelated = dot(vectors.get(0), vectors.get(2));
+        assertThat(related).isGreaterThan(0.7f);
+        assertThat(Math.abs(unrelated)).isLessThan(0.3f);
+    }
+
+    @Test
+    void modelsProduceDifferentVectors() {
+        float[] miniLm = vectorizer(EmbeddingModel.ALL_MINILM_L6_V2, 64, 0, 0).vectorFor("harbour");
+        float[] mpnet = vectorizer(EmbeddingModel.ALL_MPNET_BASE_V2, 64, 0, 0).vectorFor("harbour");
+
+        assertThat(Math.abs(dot(miniLm, mpnet))).isLessThan(0.5f);
+        assertThat(vectorizer(EmbeddingModel.ALL_MINILM_L6_V2, 64, 0, 0).vectorFor("...")).hasSize(64);
+    }
+
+    @Test
+    void batchesTakeTheSimulatedCost() {
+        // 2 ms per batch; 10 texts of ~25 tokens in one batch add 10 * 25 * 4 us = 1 ms
+        HashingVectorizer vectorizer = vectorizer(EmbeddingModel.ALL_MINILM_L6_V2, 16, 2000, 4000);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            texts.add("word ".repeat(20) + i);
+        }
+
+        long start = System.nanoTime();
+        List<float[]> vectors = vectorizer.batchEmbeddings(texts).await().indefinitely();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(vectors).hasSize(10);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void rejectsRequestsAfterClose() {
+        HashingVectorizer vectorizer = vectorizer(EmbeddingModel.ALL_MINILM_L6_V2, 16, 0, 0);
+        vectorizer.close();
+
+        assertThatThrownBy(() -> vectorizer.embeddings("text").await().indefinitely())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new HashingVectorizer(EmbeddingModel.ALL_MINILM_L6_V2,
+                new HashingVectorizer.Options(0, 0, 0, 1, 8)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private HashingVectorizer vectorizer(EmbeddingModel model, int dimension, long batchOverheadMicros,
+                                         long nanosPerPaddedToken) {
+        HashingVectorizer vectorizer = new HashingVectorizer(model,
+                new HashingVectorizer.Options(dimension, batchOverheadMicros, nanosPerPaddedToken, 2, 32));
+        vectorizers.add(vectorizer);
+        return vectorizer;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,65 @@
+package com.rokkon.modules.embedder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests which backends {@link ModelRegistryProducer} wraps in the embedding cache, and where their vectors
+ * would be stored.
+ */
+class ModelRegistryProducerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void standInBackendIsNeverCached() {
+        ModelRegistryProducer producer = producer("stand-in");
+
+        try (ModelRegistry registry = producer.modelRegistry(new SimpleMeterRegistry())) {
+            Vectorizer vectorizer = registry.withModel(EmbeddingModel.ALL_MINILM_L6_V2, v -> Uni.createFrom().item(v))
+                    .await().indefinitely();
+            vectorizer.batchEmbeddings(List.of("a load test chunk")).await().indefinitely();
+
+            assertThat(vectorizer).isInstanceOf(HashingVectorizer.class);
+        }
+        // Nothing a real backend could later read back as model output
+        assertThat(tempDir.resolve("cache")).doesNotExist();
+    }
+
+    @Test
+    void standInAndRealBackendsResolveToDifferentStoreFiles() {
+        EmbeddingModel model = EmbeddingModel.ALL_MINILM_L6_V2;
+
+        assertThat(List.of("stand-in", "djl", "onnx"))
+                .extracting(backend -> CachingVectorizer.storeFile(tempDir,
+                        ModelRegistryProducer.cacheNamespace(model, backend, "fp32")))
+                .doesNotHaveDuplicates();
+    }
+
+    private ModelRegistryProducer producer(String backend) {
+        ModelRegistryProducer producer = new ModelRegistryProducer();
+        producer.cacheEnabled = true;
+        producer.cacheDirectory = tempDir.resolve("cache").toString();
+        producer.cacheMaxEntries = 1_000;
+        producer.modelDirectory = tempDir.resolve("models").toString();
+        producer.memoryBudgetMb = 4096;
+        producer.preloadModels = Optional.empty();
+        producer.poolSize = 1;
+        producer.maxBatchSize = 32;
+        producer.backend = backend;
+        producer.onnxQuantization = "fp32";
+        producer.standInDimension = 384;
+        producer.standInBatchOverheadMicros = 0;
+        producer.standInNanosPerPaddedToken = 0;
+        return producer;
+    }
+}
@@ -0,0 +1,176 @@
+package com.rokkon.modules.embedder;
+
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests lazy loading, sharing and memory-budgeted LRU unloading in {@link ModelRegistry}.
+ */
+class ModelRegistryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @TempDir
+    Path modelDirectory;
+
+    private final List<EmbeddingModel> loads = Collections.synchronizedList(new ArrayList<>());
+    private final List<EmbeddingModel> closes = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void loadsModelsLazilyAndSharesThem() {
+        ModelRegistry registry = registry(10_000);
+        assertThat(registry.loadedModels()).isEmpty();
+
+        String first = registry.withModel(EmbeddingModel.ALL_MINILM_L6_V2, vectorizer -> Uni.createFrom().item(vectorizer.getModelId()))
+                .await().atMost(TIMEOUT);
+        registry.withModel(EmbeddingModel.ALL_MINILM_L6_V2, vectorizer -> Uni.createFrom().item(vectorizer.getModelId()))
+                .await().atMost(TIMEOUT);
+
+        assertThat(first).isEqualTo("ALL_MINILM_L6_V2");
+        assertThat(loads).containsExactly(EmbeddingModel.ALL_MINILM_L6_V2);
+        assertThat(registry.loadedModels()).containsExactly(EmbeddingModel.ALL_MINILM_L6_V2);
+    }
+
+    @Test
+    void unloadsLeastRecentlyUsedIdleModelToStayWithinBudget() {
+        // Room for the two MiniLM models (90 MB each) but not a third model
+        ModelRegistry registry = registry(200);
+        use(registry, EmbeddingModel.ALL_MINILM_L6_V2);
+        use(registry, EmbeddingModel.MULTI_QA_MINILM_L6_COS_V1);
+        use(registry, EmbeddingModel.ALL_MINILM_L6_V2);
+
+        use(registry, EmbeddingModel.PARAPHRASE_MINILM_L3_V2);
+
+        assertThat(closes).containsExactly(EmbeddingModel.MULTI_QA_MINILM_L6_COS_V1);
+        assertThat(registry.loadedModels())
+                .containsExactlyInAnyOrder(EmbeddingModel.ALL_MINILM_L6_V2, EmbeddingModel.PARAPHRASE_MINILM_L3_V2);
+    }
+
+    @Test
+    void modelsInUseAreNotUnloaded() {
+        ModelRegistry registry = registry(100);
+        CompletableFuture<String> inFlight = new CompletableFuture<>();
+        Uni<String> longRequest = registry.withModel(EmbeddingModel.ALL_MINILM_L6_V2,
+                vectorizer -> Uni.createFrom().completionStage(inFlight));
+        CompletableFuture<String> result = longRequest.subscribeAsCompletionStage().toCompletableFuture();
+
+        // Over budget, but the only candidate is busy: both stay loaded
+        use(registry, EmbeddingModel.PARAPHRASE_MINILM_L3_V2);
+        assertThat(closes).isEmpty();
+
+        inFlight.complete("done");
+        assertThat(result.join()).isEqualTo("done");
+        // Both are idle now; the one released first goes first
+        use(registry, EmbeddingModel.MULTI_QA_MINILM_L6_COS_V1);
+        assertThat(closes).containsExactly(EmbeddingModel.PARAPHRASE_MINILM_L3_V2, EmbeddingModel.ALL_MINILM_L6_V2);
+    }
+
+    @Test
+    void failedLoadsAreRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        ModelRegistry registry = new ModelRegistry((model, uri) -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("download failed");
+            }
+            return new StandInVectorizer(model, closes);
+        }, modelDirectory, 10_000, Runnable::run);
+
+        assertThatThrownBy(() -> use(registry, EmbeddingModel.E5_SMALL_V2))
+                .hasMessageContaining("Failed to load embedding model E5_SMALL_V2");
+        assertThat(registry.loadedModels()).isEmpty();
+
+        use(registry, EmbeddingModel.E5_SMALL_V2);
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void prefersLocalModelDirectories() throws Exception {
+        ModelRegistry registry = registry(10_000);
+        assertThat(registry.resolveModelUri(EmbeddingModel.E5_SMALL_V2)).isEqualTo(EmbeddingModel.E5_SMALL_V2.getUri());
+
+        Path local = Files.createDirectory(modelDirectory.resolve("all-MiniLM-L6-v2"));
+        assertThat(registry.resolveModelUri(EmbeddingModel.ALL_MINILM_L6_V2)).isEqualTo(local.toUri().toString());
+    }
+
+    @Test
+    void closeUnloadsEverything() {
+        ModelRegistry registry = registry(10_000);
+        registry.preload(List.of(EmbeddingModel.ALL_MINILM_L6_V2, EmbeddingModel.E5_SMALL_V2));
+        registry.close();
+
+        assertThat(closes).containsExactlyInAnyOrder(EmbeddingModel.ALL_MINILM_L6_V2, EmbeddingModel.E5_SMALL_V2);
+        assertThatThrownBy(() -> use(registry, EmbeddingModel.ALL_MINILM_L6_V2)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private ModelRegistry registry(long budgetMb) {
+        return new ModelRegistry((model, uri) -> {
+            loads.add(model);
+            return new StandInVectorizer(model, closes);
+        }, modelDirectory, budgetMb, Runnable::run);
+    }
+
+    private static void use(ModelRegistry registry, EmbeddingModel model) {
+        registry.withModel(model, vectorizer -> vectorizer.embeddings("text")).await().atMost(TIMEOUT);
+    }
+
+    /**
+     * Stand-in for a loaded model that records when it is closed.
+     */
+    private static class StandInVectorizer implements Vectorizer, AutoCloseable {
+        private final EmbeddingModel model;
+        private final List<EmbeddingModel> closes;
+
+        StandInVectorizer(EmbeddingModel model, List<EmbeddingModel> closes) {
+            this.model = model;
+            this.closes = closes;
+        }
+
+        @Override
+        public Uni<float[]> embeddings(String text) {
+            return Uni.createFrom().item(new float[]{text.length()});
+        }
+
+        @Override
+        public Uni<List<float[]>> batchEmbeddings(List<String> texts) {
+            return Uni.createFrom().item(texts.stream().map(text -> new float[]{text.length()}).toList());
+        }
+
+        @Override
+        public String getModelId() {
+            return model.name();
+        }
+
+        @Override
+        public EmbeddingModel getModel() {
+            return model;
+        }
+
+        @Override
+        public boolean isUsingGpu() {
+            return false;
+        }
+
+        @Override
+        public int getMaxBatchSize() {
+            return 32;
+        }
+
+        @Override
+        public void close() {
+            closes.add(model);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.rokkon.modules.embedder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests the model-independent parts of {@link OnnxVectorizer}: export lookup and pooling.
+ */
+class OnnxVectorizerTest {
+
+    @TempDir
+    Path modelDirectory;
+
+    @Test
+    void findsTheExportForEachQuantization() throws Exception {
+        Files.createFile(modelDirectory.resolve("model.onnx"));
+        Files.createDirectory(modelDirectory.resolve("onnx"));
+        Files.createFile(modelDirectory.resolve("onnx/model_quantized.onnx"));
+
+        assertThat(OnnxVectorizer.resolveModelFile(modelDirectory, OnnxVectorizer.Quantization.FP32))
+                .isEqualTo(modelDirectory.resolve("model.onnx"));
+        assertThat(OnnxVectorizer.resolveModelFile(modelDirectory, OnnxVectorizer.Quantization.INT8))
+                .isEqualTo(modelDirectory.resolve("onnx/model_quantized.onnx"));
+    }
+
+    @Test
+    void missingExportIsReported() {
+        assertThatThrownBy(() -> OnnxVectorizer.resolveModelFile(modelDirectory, OnnxVectorizer.Quantization.INT8))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("No INT8 ONNX model");
+        assertThat(OnnxVectorizer.Quantization.fromValue(" int8 ")).isEqualTo(OnnxVectorizer.Quantization.INT8);
+    }
+
+    @Test
+    void meanPoolsOverTheAttentionMaskAndNormalizes() {
+        // Two texts, sequence length 3, hidden size 2; the second text has one padding token
+        FloatBuffer tokenEmbeddings = FloatBuffer.wrap(new float[]{
+                1, 0, 3, 0, 2, 0,
+                0, 2, 0, 4, 100, 100
+        });
+        long[] mask = {1, 1, 1, 1, 1, 0};
+
+        List<float[]> vectors = OnnxVectorizer.meanPool(tokenEmbeddings, mask, 2, 3, 2);
+
+        assertThat(vectors.get(0)).containsExactly(new float[]{1f, 0f}, within(1e-6f));
+        // Padding is ignored: mean is (0, 3) before normalization
+        assertThat(vectors.get(1)).containsExactly(new float[]{0f, 1f}, within(1e-6f));
+    }
+}
@@ -0,0 +1,47 @@
+package com.rokkon.pipeline.textindex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into index terms: maximal runs of letters and digits, lower-cased. Queries are analyzed the
+ * same way, so a term matches regardless of case or surrounding punctuation.
+ */
+final class Analyzer {
+
+    /**
+     * Longer runs (base64 blobs, hashes, run-together URLs) are not useful terms and are skipped.
+     */
+    static final int MAX_TERM_LENGTH = 64;
+
+    private Analyzer() {
+    }
+
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i < length; ) {
+            int codePoint = text.codePointAt(i);
+            boolean termChar = Character.isLetterOrDigit(codePoint);
+            if (termChar && start < 0) {
+                start = i;
+            } else if (!termChar && start >= 0) {
+                addTerm(terms, text, start, i);
+                start = -1;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (start >= 0) {
+            addTerm(terms, text, start, length);
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String text, int start, int end) {
+        if (end - start <= MAX_TERM_LENGTH) {
+            terms.add(text.substring(start, end).toLowerCase(Locale.ROOT));
+        }
+    }
+}
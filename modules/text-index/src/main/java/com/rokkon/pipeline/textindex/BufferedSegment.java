@@ -0,0 +1,181 @@
+package com.rokkon.pipeline.textindex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The in-memory segment that receives new entries until it is flushed to a {@link MappedSegment}. Also used
+ * to build merged segments.
+ */
+final class BufferedSegment extends Segment {
+
+    private static final int[] NO_DOCS = new int[0];
+
+    private final List<String> entryIds = new ArrayList<>();
+    private final List<String> documentIds = new ArrayList<>();
+    private final Map<String, int[]> docsByDocument = new HashMap<>();
+    private final Map<String, FieldData> fields = new TreeMap<>();
+
+    static final class FieldData {
+        final Map<String, Postings.Builder> terms = new HashMap<>();
+        int[] lengths = new int[16];
+        long totalTokens;
+        int docsWithField;
+    }
+
+    BufferedSegment() {
+        super(new BitSet());
+    }
+
+    /**
+     * Analyzes and adds an entry.
+     *
+     * @param fieldTexts Text per field; blank fields are skipped
+     * @return The new entry's number
+     */
+    int add(String entryId, String documentId, Map<String, String> fieldTexts) {
+        int doc = addEntry(entryId, documentId);
+        for (Map.Entry<String, String> fieldText : fieldTexts.entrySet()) {
+            List<String> terms = Analyzer.terms(fieldText.getValue());
+            if (terms.isEmpty()) {
+                continue;
+            }
+            Map<String, int[]> frequencies = new HashMap<>();
+            for (String term : terms) {
+                frequencies.computeIfAbsent(term, t -> new int[1])[0]++;
+            }
+            setLength(fieldText.getKey(), doc, terms.size());
+            for (Map.Entry<String, int[]> frequency : frequencies.entrySet()) {
+                addPosting(fieldText.getKey(), frequency.getKey(), doc, frequency.getValue()[0]);
+            }
+        }
+        return doc;
+    }
+
+    /**
+     * Adds an entry without fields; merges then add its lengths and postings directly.
+     *
+     * @return The new entry's number
+     */
+    int addEntry(String entryId, String documentId) {
+        int doc = entryIds.size();
+        entryIds.add(entryId);
+        documentIds.add(documentId);
+        docsByDocument.merge(documentId, new int[]{doc}, (existing, added) -> {
+            int[] docs = Arrays.copyOf(existing, existing.length + 1);
+            docs[existing.length] = added[0];
+            return docs;
+        });
+        return doc;
+    }
+
+    void setLength(String field, int doc, int length) {
+        FieldData data = fields.computeIfAbsent(field, f -> new FieldData());
+        if (doc >= data.lengths.length) {
+            data.lengths = Arrays.copyOf(data.lengths, Math.max(doc + 1, data.lengths.length * 2));
+        }
+        if (length > 0 && data.lengths[doc] == 0) {
+            data.docsWithField++;
+        } else if (length == 0 && data.lengths[doc] > 0) {
+            data.docsWithField--;
+        }
+        data.totalTokens += length - data.lengths[doc];
+        data.lengths[doc] = length;
+    }
+
+    /**
+     * Adds a posting; for each term, entries must be added in increasing order.
+     */
+    void addPosting(String field, String term, int doc, int freq) {
+        fields.computeIfAbsent(field, f -> new FieldData()).terms
+                .computeIfAbsent(term, t -> new Postings.Builder())
+                .add(doc, freq);
+    }
+
+    /**
+     * @return The field's postings with terms sorted by UTF-8 bytes, the order segment files use
+     */
+    List<Map.Entry<byte[], Postings.Builder>> sortedTerms(String field) {
+        FieldData data = fields.get(field);
+        List<Map.Entry<byte[], Postings.Builder>> sorted = new ArrayList<>(data.terms.size());
+        for (Map.Entry<String, Postings.Builder> term : data.terms.entrySet()) {
+            sorted.add(Map.entry(term.getKey().getBytes(StandardCharsets.UTF_8), term.getValue()));
+        }
+        sorted.sort((a, b) -> Arrays.compareUnsigned(a.getKey(), b.getKey()));
+        return sorted;
+    }
+
+    @Override
+    int docCount() {
+        return entryIds.size();
+    }
+
+    @Override
+    String entryId(int doc) {
+        return entryIds.get(doc);
+    }
+
+    @Override
+    String documentId(int doc) {
+        return documentIds.get(doc);
+    }
+
+    @Override
+    int[] docsOf(String documentId) {
+        return docsByDocument.getOrDefault(documentId, NO_DOCS);
+    }
+
+    @Override
+    List<String> fields() {
+        return List.copyOf(fields.keySet());
+    }
+
+    @Override
+    long totalTokens(String field) {
+        FieldData data = fields.get(field);
+        return data != null ? data.totalTokens : 0;
+    }
+
+    @Override
+    int docsWithField(String field) {
+        FieldData data = fields.get(field);
+        return data != null ? data.docsWithField : 0;
+    }
+
+    @Override
+    int length(String field, int doc) {
+        FieldData data = fields.get(field);
+        return data != null && doc < data.lengths.length ? data.lengths[doc] : 0;
+    }
+
+    @Override
+    int docFreq(String field, String term) {
+        FieldData data = fields.get(field);
+        Postings.Builder postings = data != null ? data.terms.get(term) : null;
+        return postings != null ? postings.docFreq() : 0;
+    }
+
+    @Override
+    Postings.Cursor postings(String field, String term) {
+        FieldData data = fields.get(field);
+        Postings.Builder postings = data != null ? data.terms.get(term) : null;
+        return postings != null ? postings.cursor() : null;
+    }
+
+    @Override
+    void forEachTerm(String field, BiConsumer<String, Postings.Cursor> action) {
+        if (!fields.containsKey(field)) {
+            return;
+        }
+        for (Map.Entry<byte[], Postings.Builder> term : sortedTerms(field)) {
+            action.accept(new String(term.getKey(), StandardCharsets.UTF_8), term.getValue().cursor());
+        }
+    }
+}
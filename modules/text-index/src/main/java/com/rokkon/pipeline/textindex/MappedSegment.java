@@ -0,0 +1,256 @@
+package com.rokkon.pipeline.textindex;
+
+import com.rokkon.pipeline.util.SegmentedIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A flushed, immutable segment read in place through a read-only memory mapping of the file written by
+ * {@link SegmentWriter}. Term lookups binary-search the mapped term table and postings are decoded straight
+ * from the mapping, so only the document-to-entry map and the deletion bits live on the heap. Reads use
+ * absolute gets and are safe from many threads.
+ */
+final class MappedSegment extends Segment {
+
+    private static final int[] NO_DOCS = new int[0];
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int docCount;
+    private final StringTable entryIds;
+    private final StringTable documentIds;
+    private final Map<String, FieldInfo> fields = new LinkedHashMap<>();
+    private final Map<String, int[]> docsByDocument;
+
+    /**
+     * Positions of a string table: {@code count + 1} offsets, then the bytes.
+     */
+    private record StringTable(int offsetsStart, int count) {
+        int bytesStart() {
+            return offsetsStart + (count + 1) * Integer.BYTES;
+        }
+
+        int end(ByteBuffer buffer) {
+            return bytesStart() + buffer.getInt(offsetsStart + count * Integer.BYTES);
+        }
+    }
+
+    private record FieldInfo(long totalTokens, int docsWithField, int lengthsStart, StringTable terms, int docFreqsStart,
+                             int postingsOffsetsStart, int postingsStart) {
+    }
+
+    private MappedSegment(Path file, ByteBuffer buffer, BitSet deleted) throws IOException {
+        super(deleted);
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.limit() < 16 || buffer.getInt(0) != SegmentWriter.MAGIC) {
+            throw new IOException("Not a text index segment: " + file);
+        }
+        if (buffer.getInt(4) != SegmentWriter.VERSION) {
+            throw new IOException("Unsupported segment version " + buffer.getInt(4) + " in " + file);
+        }
+        this.docCount = buffer.getInt(8);
+        int fieldCount = buffer.getInt(12);
+        this.entryIds = new StringTable(16, docCount);
+        this.documentIds = new StringTable(entryIds.end(buffer), docCount);
+        int position = documentIds.end(buffer);
+        try {
+            for (int f = 0; f < fieldCount; f++) {
+                int nameLength = buffer.getInt(position);
+                String name = readString(position + Integer.BYTES, nameLength);
+                position += Integer.BYTES + nameLength;
+                long totalTokens = buffer.getLong(position);
+                int docsWithField = buffer.getInt(position + Long.BYTES);
+                position += Long.BYTES + Integer.BYTES;
+                int lengthsStart = position;
+                position += docCount * Integer.BYTES;
+                int termCount = buffer.getInt(position);
+                StringTable terms = new StringTable(position + Integer.BYTES, termCount);
+                int docFreqsStart = terms.end(buffer);
+                int postingsOffsetsStart = docFreqsStart + termCount * Integer.BYTES;
+                int postingsStart = postingsOffsetsStart + (termCount + 1) * Integer.BYTES;
+                position = postingsStart + buffer.getInt(postingsOffsetsStart + termCount * Integer.BYTES);
+                fields.put(name, new FieldInfo(totalTokens, docsWithField, lengthsStart, terms, docFreqsStart,
+                        postingsOffsetsStart, postingsStart));
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated text index segment: " + file, e);
+        }
+        if (position != buffer.limit()) {
+            throw new IOException("Corrupt text index segment: " + file);
+        }
+        this.docsByDocument = indexDocuments();
+    }
+
+    /**
+     * Maps a segment file and its deletion bits, if any.
+     */
+    static MappedSegment open(Path file, Path deletesFile) throws IOException {
+        BitSet deleted = SegmentedIndex.readDeletes(deletesFile);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Segment " + file + " is larger than 2GB");
+            }
+            // The mapping stays valid after the channel is closed
+            return new MappedSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, length), deleted);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long sizeInBytes() {
+        return buffer.limit();
+    }
+
+    @Override
+    int docCount() {
+        return docCount;
+    }
+
+    @Override
+    String entryId(int doc) {
+        return readString(entryIds, doc);
+    }
+
+    @Override
+    String documentId(int doc) {
+        return readString(documentIds, doc);
+    }
+
+    @Override
+    int[] docsOf(String documentId) {
+        return docsByDocument.getOrDefault(documentId, NO_DOCS);
+    }
+
+    @Override
+    List<String> fields() {
+        return List.copyOf(fields.keySet());
+    }
+
+    @Override
+    long totalTokens(String field) {
+        FieldInfo info = fields.get(field);
+        return info != null ? info.totalTokens() : 0;
+    }
+
+    @Override
+    int docsWithField(String field) {
+        FieldInfo info = fields.get(field);
+        return info != null ? info.docsWithField() : 0;
+    }
+
+    @Override
+    int length(String field, int doc) {
+        FieldInfo info = fields.get(field);
+        return info != null ? buffer.getInt(info.lengthsStart() + doc * Integer.BYTES) : 0;
+    }
+
+    @Override
+    int docFreq(String field, String term) {
+        FieldInfo info = fields.get(field);
+        int ordinal = info != null ? findTerm(info, term) : -1;
+        return ordinal >= 0 ? buffer.getInt(info.docFreqsStart() + ordinal * Integer.BYTES) : 0;
+    }
+
+    @Override
+    Postings.Cursor postings(String field, String term) {
+        FieldInfo info = fields.get(field);
+        int ordinal = info != null ? findTerm(info, term) : -1;
+        return ordinal >= 0 ? cursor(info, ordinal) : null;
+    }
+
+    @Override
+    void forEachTerm(String field, BiConsumer<String, Postings.Cursor> action) {
+        FieldInfo info = fields.get(field);
+        if (info == null) {
+            return;
+        }
+        for (int ordinal = 0; ordinal < info.terms().count(); ordinal++) {
+            action.accept(readString(info.terms(), ordinal), cursor(info, ordinal));
+        }
+    }
+
+    private Postings.Cursor cursor(FieldInfo info, int ordinal) {
+        int start = info.postingsStart() + buffer.getInt(info.postingsOffsetsStart() + ordinal * Integer.BYTES);
+        int docFreq = buffer.getInt(info.docFreqsStart() + ordinal * Integer.BYTES);
+        return new Postings.Cursor(buffer, start, docFreq);
+    }
+
+    /**
+     * @return The term's ordinal, or -1 if the field does not contain it
+     */
+    private int findTerm(FieldInfo info, String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        StringTable terms = info.terms();
+        int low = 0;
+        int high = terms.count() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareTerm(terms, mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the stored term with the key as unsigned bytes, the order the terms were written in.
+     */
+    private int compareTerm(StringTable terms, int ordinal, byte[] key) {
+        int from = terms.bytesStart() + buffer.getInt(terms.offsetsStart() + ordinal * Integer.BYTES);
+        int to = terms.bytesStart() + buffer.getInt(terms.offsetsStart() + (ordinal + 1) * Integer.BYTES);
+        int length = Math.min(to - from, key.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(from + i), key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(to - from, key.length);
+    }
+
+    private String readString(StringTable table, int index) {
+        int from = buffer.getInt(table.offsetsStart() + index * Integer.BYTES);
+        int to = buffer.getInt(table.offsetsStart() + (index + 1) * Integer.BYTES);
+        return readString(table.bytesStart() + from, to - from);
+    }
+
+    private String readString(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Map<String, int[]> indexDocuments() {
+        Map<String, int[]> index = new HashMap<>();
+        for (int doc = 0; doc < docCount; doc++) {
+            int added = doc;
+            index.merge(documentId(doc), new int[]{doc}, (existing, ignored) -> {
+                int[] docs = Arrays.copyOf(existing, existing.length + 1);
+                docs[existing.length] = added;
+                return docs;
+            });
+        }
+        return index;
+    }
+}
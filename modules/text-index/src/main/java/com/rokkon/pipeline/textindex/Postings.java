@@ -0,0 +1,130 @@
+package com.rokkon.pipeline.textindex;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Postings codec. A term's postings list is its documents in increasing order with the term's frequency
+ * in each, encoded as variable-length ints: the gap to the previous document shifted left by one, with the
+ * low bit set when the frequency is 1 (the common case), followed by the frequency otherwise. Typical
+ * lists take one or two bytes per document.
+ */
+final class Postings {
+
+    static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    private Postings() {
+    }
+
+    /**
+     * An append-only postings list on the heap, for segments being built.
+     */
+    static final class Builder {
+
+        private byte[] bytes = new byte[8];
+        private int length;
+        private int lastDoc = -1;
+        private int docFreq;
+
+        /**
+         * Appends a document; documents must be added in increasing order.
+         */
+        void add(int doc, int freq) {
+            if (doc <= lastDoc) {
+                throw new IllegalArgumentException("Postings must be added in document order: " + doc + " after " + lastDoc);
+            }
+            // The first document is stored as is
+            int gap = lastDoc < 0 ? doc : doc - lastDoc;
+            if (freq == 1) {
+                writeVInt((gap << 1) | 1);
+            } else {
+                writeVInt(gap << 1);
+                writeVInt(freq);
+            }
+            lastDoc = doc;
+            docFreq++;
+        }
+
+        int docFreq() {
+            return docFreq;
+        }
+
+        int length() {
+            return length;
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        Cursor cursor() {
+            return new Cursor(ByteBuffer.wrap(bytes, 0, length), 0, docFreq);
+        }
+
+        private void writeVInt(int value) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+    }
+
+    /**
+     * Iterates a postings list in a heap or memory-mapped buffer using absolute reads, so cursors over a
+     * shared mapping are independent.
+     */
+    static final class Cursor {
+
+        private final ByteBuffer buffer;
+        private final int docFreq;
+        private int position;
+        private int remaining;
+        private int doc = -1;
+        private int freq;
+
+        Cursor(ByteBuffer buffer, int start, int docFreq) {
+            this.buffer = buffer;
+            this.position = start;
+            this.docFreq = docFreq;
+            this.remaining = docFreq;
+        }
+
+        int docFreq() {
+            return docFreq;
+        }
+
+        /**
+         * @return The next document, or {@link #NO_MORE_DOCS}
+         */
+        int nextDoc() {
+            if (remaining == 0) {
+                doc = NO_MORE_DOCS;
+                return doc;
+            }
+            remaining--;
+            int code = readVInt();
+            int gap = code >>> 1;
+            doc = doc < 0 ? gap : doc + gap;
+            freq = (code & 1) != 0 ? 1 : readVInt();
+            return doc;
+        }
+
+        int freq() {
+            return freq;
+        }
+
+        private int readVInt() {
+            byte b = buffer.get(position++);
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+            }
+            return value;
+        }
+    }
+}
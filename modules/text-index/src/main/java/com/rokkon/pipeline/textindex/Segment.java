@@ -0,0 +1,117 @@
+package com.rokkon.pipeline.textindex;
+
+import com.rokkon.pipeline.util.DeletableSegment;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A unit of the index: postings and token counts per field for a range of entries, plus each entry's ID
+ * and the document it came from. Entries are numbered 0..docCount-1 within the segment. Deleted entries
+ * keep their postings until a merge drops them, but are left out of the live term statistics. Callers
+ * serialize mutations against reads ({@link TextIndex} holds a read-write lock).
+ */
+abstract class Segment extends DeletableSegment {
+
+    protected Segment(BitSet deleted) {
+        super(deleted);
+    }
+
+    abstract int docCount();
+
+    abstract String entryId(int doc);
+
+    abstract String documentId(int doc);
+
+    /**
+     * @return The entries of the document; empty if none
+     */
+    abstract int[] docsOf(String documentId);
+
+    /**
+     * @return Indexed field names, sorted
+     */
+    abstract List<String> fields();
+
+    /**
+     * @return Sum of the field's token counts over all entries
+     */
+    abstract long totalTokens(String field);
+
+    /**
+     * @return Number of entries that have the field
+     */
+    abstract int docsWithField(String field);
+
+    /**
+     * @return Number of tokens of the field in the entry; 0 if it does not have the field
+     */
+    abstract int length(String field, int doc);
+
+    /**
+     * @return Number of entries containing the term in the field
+     */
+    abstract int docFreq(String field, String term);
+
+    /**
+     * @return A cursor over the term's postings in the field, or null if no entry contains it
+     */
+    abstract Postings.Cursor postings(String field, String term);
+
+    /**
+     * Visits every term of the field with its postings, in sorted (UTF-8 byte) order.
+     */
+    abstract void forEachTerm(String field, BiConsumer<String, Postings.Cursor> action);
+
+    /**
+     * @return Sum of the field's token counts over the entries not deleted
+     */
+    long liveTotalTokens(String field) {
+        long tokens = totalTokens(field);
+        for (int doc = deleted.nextSetBit(0); doc >= 0; doc = deleted.nextSetBit(doc + 1)) {
+            tokens -= length(field, doc);
+        }
+        return tokens;
+    }
+
+    /**
+     * @return Number of entries not deleted that have the field
+     */
+    int liveDocsWithField(String field) {
+        int docs = docsWithField(field);
+        for (int doc = deleted.nextSetBit(0); doc >= 0; doc = deleted.nextSetBit(doc + 1)) {
+            if (length(field, doc) > 0) {
+                docs--;
+            }
+        }
+        return docs;
+    }
+
+    /**
+     * @return Number of entries not deleted containing the term in the field
+     */
+    int liveDocFreq(String field, String term) {
+        int docFreq = docFreq(field, term);
+        if (docFreq == 0 || deleted.isEmpty()) {
+            return docFreq;
+        }
+        Postings.Cursor postings = postings(field, term);
+        for (int doc = postings.nextDoc(); doc != Postings.NO_MORE_DOCS; doc = postings.nextDoc()) {
+            if (deleted.get(doc)) {
+                docFreq--;
+            }
+        }
+        return docFreq;
+    }
+
+    @Override
+    public int size() {
+        return docCount();
+    }
+
+    @Override
+    protected int[] entriesOf(String documentId) {
+        return docsOf(documentId);
+    }
+}
@@ -0,0 +1,106 @@
+package com.rokkon.pipeline.textindex;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Writes a segment file that {@link MappedSegment} maps. Values are big-endian ints and longs; strings are
+ * UTF-8 in tables of {@code count + 1} int offsets followed by the bytes.
+ *
+ * <pre>
+ * header        MAGIC, VERSION, docCount, fieldCount
+ * entry IDs     string table
+ * document IDs  string table
+ * per field, in name order:
+ *   name          int length, UTF-8 bytes
+ *   totalTokens   long
+ *   docsWithField int
+ *   lengths       docCount ints: the field's token count per entry
+ *   terms         int termCount, then a string table of the terms sorted by UTF-8 bytes
+ *   docFreqs      termCount ints
+ *   postings      termCount + 1 int offsets into the postings bytes, then the bytes ({@link Postings})
+ * </pre>
+ *
+ * Files are written under a temporary name, forced to disk and renamed into place, so a segment file is
+ * either complete or absent.
+ */
+final class SegmentWriter {
+
+    static final int MAGIC = 0x494E5658; // "INVX"
+    static final int VERSION = 1;
+
+    private SegmentWriter() {
+    }
+
+    static void write(BufferedSegment segment, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            writeSegment(segment, out);
+            out.flush();
+            stream.getChannel().force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeSegment(BufferedSegment segment, DataOutputStream out) throws IOException {
+        int docCount = segment.docCount();
+        List<String> fields = segment.fields();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(docCount);
+        out.writeInt(fields.size());
+        writeStrings(out, docCount, doc -> segment.entryId(doc).getBytes(StandardCharsets.UTF_8));
+        writeStrings(out, docCount, doc -> segment.documentId(doc).getBytes(StandardCharsets.UTF_8));
+
+        for (String field : fields) {
+            byte[] name = field.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            out.writeLong(segment.totalTokens(field));
+            out.writeInt(segment.docsWithField(field));
+            for (int doc = 0; doc < docCount; doc++) {
+                out.writeInt(segment.length(field, doc));
+            }
+
+            List<Map.Entry<byte[], Postings.Builder>> terms = segment.sortedTerms(field);
+            out.writeInt(terms.size());
+            writeStrings(out, terms.size(), i -> terms.get(i).getKey());
+            for (Map.Entry<byte[], Postings.Builder> term : terms) {
+                out.writeInt(term.getValue().docFreq());
+            }
+            int offset = 0;
+            out.writeInt(offset);
+            for (Map.Entry<byte[], Postings.Builder> term : terms) {
+                offset += term.getValue().length();
+                out.writeInt(offset);
+            }
+            for (Map.Entry<byte[], Postings.Builder> term : terms) {
+                out.write(term.getValue().bytes(), 0, term.getValue().length());
+            }
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, int count, IntFunction<byte[]> values) throws IOException {
+        byte[][] encoded = new byte[count][];
+        int offset = 0;
+        out.writeInt(offset);
+        for (int i = 0; i < count; i++) {
+            encoded[i] = values.apply(i);
+            offset += encoded[i].length;
+            out.writeInt(offset);
+        }
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+    }
+}
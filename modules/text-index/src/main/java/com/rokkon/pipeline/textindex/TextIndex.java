@@ -0,0 +1,291 @@
+package com.rokkon.pipeline.textindex;
+
+import com.rokkon.pipeline.util.SegmentedIndex;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * One keyword index in its own directory, scored with BM25.
+ *
+ * <p>New entries go to an in-memory {@link BufferedSegment}, flushed to immutable {@link MappedSegment}s and
+ * merged by {@link SegmentedIndex}; merges copy postings of live entries without re-analyzing text. Searches
+ * score every segment with index-wide term statistics over live entries, so scores do not depend on how
+ * entries are spread over segments, nor on whether a merge has dropped the deleted ones yet.
+ *
+ * <p>Entries are grouped by document: replacing a document deletes all its entries (the document itself and
+ * its chunks) and adds the new ones. See {@link SegmentedIndex} for when deletes and inserts become durable.
+ */
+final class TextIndex extends SegmentedIndex<Segment, BufferedSegment, MappedSegment> {
+
+    private static final String SEGMENT_SUFFIX = ".inv";
+
+    // BM25 parameters, the usual defaults
+    static final float K1 = 1.2f;
+    static final float B = 0.75f;
+
+    record Entry(String entryId, Map<String, String> fields) {
+    }
+
+    record Hit(String entryId, String documentId, float score) {
+    }
+
+    record Stats(String name, long liveEntries, long deletedEntries, int segments, List<String> fields) {
+    }
+
+    private record Candidate(Segment segment, int doc, float score) {
+    }
+
+    private TextIndex(String name, Path directory) {
+        super(name, directory, SEGMENT_SUFFIX, generation -> new BufferedSegment());
+    }
+
+    /**
+     * Creates an empty index in {@code directory}.
+     */
+    static TextIndex create(String name, Path directory) throws IOException {
+        TextIndex index = new TextIndex(name, directory);
+        index.createEmpty();
+        return index;
+    }
+
+    /**
+     * Opens an index from its manifest, removing segment files the manifest does not name (left by a flush
+     * or merge that did not complete).
+     */
+    static TextIndex open(String name, Path directory) throws IOException {
+        TextIndex index = new TextIndex(name, directory);
+        index.openSegments(readManifest(directory));
+        return index;
+    }
+
+    /**
+     * Replaces all entries of a document; an empty list deletes the document.
+     */
+    void replaceDocument(String documentId, List<Entry> entries) {
+        replace(documentId, buffer -> {
+            for (Entry entry : entries) {
+                buffer.add(entry.entryId(), documentId, entry.fields());
+            }
+        });
+    }
+
+    /**
+     * Finds the {@code k} entries scoring highest for the query under BM25, summed over the searched fields.
+     *
+     * @param fields     Fields to search; empty for every field
+     * @param requireAll true to only return entries containing every query term (in any searched field)
+     * @return Hits, best first
+     */
+    List<Hit> search(String query, List<String> fields, int k, boolean requireAll) {
+        List<String> terms = List.copyOf(new LinkedHashSet<>(Analyzer.terms(query)));
+        if (terms.isEmpty() || k <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Candidate> best = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Candidate::score));
+        List<Hit> hits = read(all -> {
+            List<String> searchFields = fields.isEmpty() ? allFields(all) : fields;
+            FieldStats[] stats = new FieldStats[searchFields.size()];
+            for (int f = 0; f < stats.length; f++) {
+                stats[f] = FieldStats.of(all, searchFields.get(f), terms);
+            }
+            for (Segment segment : all) {
+                scoreSegment(segment, searchFields, stats, terms, requireAll, k, best);
+            }
+            List<Hit> ranked = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                Candidate candidate = best.poll();
+                ranked.add(new Hit(candidate.segment().entryId(candidate.doc()),
+                        candidate.segment().documentId(candidate.doc()), candidate.score()));
+            }
+            return ranked;
+        });
+        Collections.reverse(hits);
+        return hits;
+    }
+
+    /**
+     * Index-wide BM25 statistics of one field: the number of entries with it, their average length and
+     * each query term's inverse document frequency, all over live entries. Leaving deleted entries out costs
+     * a pass over the deletion bits and the query terms' postings of segments with deletes, and keeps scores
+     * unchanged when a merge drops those entries.
+     */
+    private record FieldStats(float averageLength, float[] idf) {
+
+        static FieldStats of(List<Segment> segments, String field, List<String> terms) {
+            long docs = 0;
+            long tokens = 0;
+            long[] docFreqs = new long[terms.size()];
+            for (Segment segment : segments) {
+                docs += segment.liveDocsWithField(field);
+                tokens += segment.liveTotalTokens(field);
+                for (int t = 0; t < docFreqs.length; t++) {
+                    docFreqs[t] += segment.liveDocFreq(field, terms.get(t));
+                }
+            }
+            float[] idf = new float[terms.size()];
+            for (int t = 0; t < idf.length; t++) {
+                idf[t] = (float) Math.log(1 + (docs - docFreqs[t] + 0.5) / (docFreqs[t] + 0.5));
+            }
+            return new FieldStats(docs > 0 ? (float) tokens / docs : 0, idf);
+        }
+    }
+
+    /**
+     * Term-at-a-time scoring of one segment: accumulates each term's BM25 contribution for the entries in
+     * its postings, then offers the touched entries to the top-k queue.
+     */
+    private static void scoreSegment(Segment segment, List<String> fields, FieldStats[] stats, List<String> terms,
+                                     boolean requireAll, int k, PriorityQueue<Candidate> best) {
+        int docCount = segment.docCount();
+        if (docCount == 0 || segment.liveCount() == 0) {
+            return;
+        }
+        float[] scores = new float[docCount];
+        // Per entry: 1 + the last term that matched it (0 if none yet) and the number of terms that matched
+        int[] lastTerm = new int[docCount];
+        int[] matchedTerms = new int[docCount];
+        int[] touched = new int[Math.min(docCount, 1024)];
+        int touchedCount = 0;
+        for (int t = 0; t < terms.size(); t++) {
+            for (int f = 0; f < fields.size(); f++) {
+                String field = fields.get(f);
+                Postings.Cursor postings = segment.postings(field, terms.get(t));
+                if (postings == null) {
+                    continue;
+                }
+                float idf = stats[f].idf()[t];
+                float averageLength = stats[f].averageLength();
+                for (int doc = postings.nextDoc(); doc != Postings.NO_MORE_DOCS; doc = postings.nextDoc()) {
+                    if (segment.isDeleted(doc)) {
+                        continue;
+                    }
+                    int freq = postings.freq();
+                    float lengthRatio = segment.length(field, doc) / averageLength;
+                    scores[doc] += idf * freq * (K1 + 1) / (freq + K1 * (1 - B + B * lengthRatio));
+                    if (lastTerm[doc] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, Math.min(docCount, touched.length * 2));
+                        }
+                        touched[touchedCount++] = doc;
+                    }
+                    // Count each term once per entry, however many fields it matched in
+                    if (lastTerm[doc] != t + 1) {
+                        lastTerm[doc] = t + 1;
+                        matchedTerms[doc]++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            if (requireAll && matchedTerms[doc] != terms.size()) {
+                continue;
+            }
+            float score = scores[doc];
+            if (best.size() < k) {
+                best.add(new Candidate(segment, doc, score));
+            } else if (score > best.peek().score()) {
+                best.poll();
+                best.add(new Candidate(segment, doc, score));
+            }
+        }
+    }
+
+    private static List<String> allFields(List<Segment> segments) {
+        Set<String> fields = new TreeSet<>();
+        for (Segment segment : segments) {
+            fields.addAll(segment.fields());
+        }
+        return List.copyOf(fields);
+    }
+
+    Stats stats() {
+        return read(all -> {
+            long live = 0;
+            long deleted = 0;
+            for (Segment segment : all) {
+                live += segment.liveCount();
+                deleted += segment.deletedCount();
+            }
+            return new Stats(name(), live, deleted, segmentCount(), allFields(all));
+        });
+    }
+
+    @Override
+    protected MappedSegment openSegment(Path file, Path deletesFile) throws IOException {
+        return MappedSegment.open(file, deletesFile);
+    }
+
+    @Override
+    protected void writeSegment(BufferedSegment segment, Path file) throws IOException {
+        SegmentWriter.write(segment, file);
+    }
+
+    @Override
+    protected BufferedSegment mergeLive(List<MappedSegment> sources, List<BitSet> deletions, long generation) {
+        BufferedSegment builder = mergeInto(sources, deletions);
+        return builder.docCount() > 0 ? builder : null;
+    }
+
+    @Override
+    protected long mergeBytes(MappedSegment segment) {
+        return segment.sizeInBytes();
+    }
+
+    @Override
+    protected Path fileOf(MappedSegment segment) {
+        return segment.file();
+    }
+
+    /**
+     * Copies the live entries of the sources, in order, into a new buffer. Entry numbers only grow from
+     * one source to the next, so each term's postings can be appended source by source and stay sorted.
+     */
+    private static BufferedSegment mergeInto(List<MappedSegment> sources, List<BitSet> deletions) {
+        BufferedSegment builder = new BufferedSegment();
+        int[][] docMaps = new int[sources.size()][];
+        Set<String> fields = new TreeSet<>();
+        for (int s = 0; s < sources.size(); s++) {
+            MappedSegment source = sources.get(s);
+            BitSet deleted = deletions.get(s);
+            int[] docMap = new int[source.docCount()];
+            for (int doc = 0; doc < docMap.length; doc++) {
+                docMap[doc] = deleted.get(doc) ? -1 : builder.addEntry(source.entryId(doc), source.documentId(doc));
+            }
+            docMaps[s] = docMap;
+            fields.addAll(source.fields());
+        }
+        for (String field : fields) {
+            for (int s = 0; s < sources.size(); s++) {
+                MappedSegment source = sources.get(s);
+                int[] docMap = docMaps[s];
+                for (int doc = 0; doc < docMap.length; doc++) {
+                    int length = source.length(field, doc);
+                    if (docMap[doc] >= 0 && length > 0) {
+                        builder.setLength(field, docMap[doc], length);
+                    }
+                }
+                source.forEachTerm(field, (term, postings) -> {
+                    for (int doc = postings.nextDoc(); doc != Postings.NO_MORE_DOCS; doc = postings.nextDoc()) {
+                        if (docMap[doc] >= 0) {
+                            builder.addPosting(field, term, docMap[doc], postings.freq());
+                        }
+                    }
+                });
+            }
+        }
+        return builder;
+    }
+}
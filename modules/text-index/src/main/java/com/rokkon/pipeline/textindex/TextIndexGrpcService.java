@@ -0,0 +1,70 @@
+package com.rokkon.pipeline.textindex;
+
+import com.rokkon.search.index.ListTextIndexesRequest;
+import com.rokkon.search.index.ListTextIndexesResponse;
+import com.rokkon.search.index.TextIndexInfo;
+import com.rokkon.search.index.TextIndexService;
+import com.rokkon.search.index.TextSearchHit;
+import com.rokkon.search.index.TextSearchRequest;
+import com.rokkon.search.index.TextSearchResponse;
+import io.grpc.Status;
+import io.quarkus.grpc.GrpcService;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * gRPC keyword query API over the local text indexes.
+ */
+@GrpcService
+@Singleton
+public class TextIndexGrpcService implements TextIndexService {
+
+    static final int DEFAULT_K = 10;
+
+    @Inject
+    TextIndexManager indexManager;
+
+    @Override
+    public Uni<TextSearchResponse> search(TextSearchRequest request) {
+        return Uni.createFrom().item(() -> {
+            if (request.getQuery().isBlank()) {
+                throw Status.INVALID_ARGUMENT.withDescription("A query is required").asRuntimeException();
+            }
+            try {
+                if (indexManager.stats(request.getIndexName()).isEmpty()) {
+                    throw Status.NOT_FOUND.withDescription("No text index named '" + request.getIndexName() + "'")
+                            .asRuntimeException();
+                }
+            } catch (IllegalArgumentException e) {
+                throw Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+            }
+            int k = request.getK() > 0 ? request.getK() : DEFAULT_K;
+            TextSearchResponse.Builder response = TextSearchResponse.newBuilder();
+            for (TextIndex.Hit hit : indexManager.search(request.getIndexName(), request.getQuery(),
+                    request.getFieldsList(), k, request.getRequireAll())) {
+                response.addHits(TextSearchHit.newBuilder()
+                        .setEntryId(hit.entryId())
+                        .setDocumentId(hit.documentId())
+                        .setScore(hit.score()));
+            }
+            return response.build();
+        });
+    }
+
+    @Override
+    public Uni<ListTextIndexesResponse> listIndexes(ListTextIndexesRequest request) {
+        return Uni.createFrom().item(() -> {
+            ListTextIndexesResponse.Builder response = ListTextIndexesResponse.newBuilder();
+            for (TextIndex.Stats stats : indexManager.list()) {
+                response.addIndexes(TextIndexInfo.newBuilder()
+                        .setIndexName(stats.name())
+                        .setLiveEntries(stats.liveEntries())
+                        .setDeletedEntries(stats.deletedEntries())
+                        .setSegments(stats.segments())
+                        .addAllFields(stats.fields()));
+            }
+            return response.build();
+        });
+    }
+}
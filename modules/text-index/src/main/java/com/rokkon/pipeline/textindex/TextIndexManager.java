@@ -0,0 +1,221 @@
+package com.rokkon.pipeline.textindex;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Owns the text indexes under {@code text-index.directory}, one subdirectory per index, and the single
+ * maintenance thread that flushes buffered entries and merges segments in the background.
+ *
+ * <p>Indexes are created on first insert. A buffer is flushed when it reaches {@code text-index.flush-threshold}
+ * entries or on the next {@code text-index.flush-interval-seconds} tick, whichever comes first; merges run
+ * after flushes. At most one threshold-triggered maintenance run per index is queued at a time.
+ */
+@Singleton
+public class TextIndexManager {
+
+    private static final Logger LOG = Logger.getLogger(TextIndexManager.class);
+
+    private final Path directory;
+    private final int flushThreshold;
+    private final int maxSegments;
+    private final double maxDeletedRatio;
+    private final Map<String, TextIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicBoolean> maintenanceScheduled = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance;
+
+    @Inject
+    public TextIndexManager(
+            @ConfigProperty(name = "text-index.directory", defaultValue = "data/text-index") String directory,
+            @ConfigProperty(name = "text-index.flush-threshold", defaultValue = "10000") int flushThreshold,
+            @ConfigProperty(name = "text-index.flush-interval-seconds", defaultValue = "30") int flushIntervalSeconds,
+            @ConfigProperty(name = "text-index.max-segments", defaultValue = "8") int maxSegments,
+            @ConfigProperty(name = "text-index.max-deleted-ratio", defaultValue = "0.3") double maxDeletedRatio) {
+        this.directory = Path.of(directory);
+        this.flushThreshold = Math.max(1, flushThreshold);
+        this.maxSegments = Math.max(1, maxSegments);
+        this.maxDeletedRatio = maxDeletedRatio;
+        openExisting();
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "text-index-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (flushIntervalSeconds > 0) {
+            maintenance.scheduleWithFixedDelay(this::maintainAll, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+        }
+        LOG.infof("Text index manager opened %d indexes in %s (flush threshold: %d)",
+                indexes.size(), this.directory.toAbsolutePath(), this.flushThreshold);
+    }
+
+    /**
+     * Maps an index name from a step config or query to a directory name: lower case, with anything outside
+     * {@code [a-z0-9._-]} replaced by an underscore.
+     */
+    public static String indexName(String id) {
+        String name = id.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9._-]", "_");
+        if (name.isEmpty() || name.chars().allMatch(c -> c == '.')) {
+            throw new IllegalArgumentException("Invalid text index name: '" + id + "'");
+        }
+        return name;
+    }
+
+    /**
+     * Replaces the document's entries in the index, creating the index if needed. An empty list only
+     * deletes the document's earlier entries.
+     */
+    public void replaceDocument(String indexName, String documentId, List<TextIndex.Entry> entries) {
+        String name = indexName(indexName);
+        TextIndex index = entries.isEmpty() ? indexes.get(name) : indexFor(name);
+        if (index == null) {
+            return;
+        }
+        index.replaceDocument(documentId, entries);
+        if (index.bufferedCount() >= flushThreshold) {
+            scheduleMaintenance(index);
+        }
+    }
+
+    /**
+     * Deletes the document's entries from every index.
+     *
+     * @return Number of entries deleted
+     */
+    public int deleteDocument(String documentId) {
+        int deleted = 0;
+        for (TextIndex index : indexes.values()) {
+            deleted += index.deleteDocument(documentId);
+        }
+        return deleted;
+    }
+
+    /**
+     * @param fields     Fields to search; empty for every field
+     * @param requireAll true to only return entries containing every query term
+     * @return Hits, best first; empty if the index does not exist
+     */
+    public List<TextIndex.Hit> search(String indexName, String query, List<String> fields, int k, boolean requireAll) {
+        TextIndex index = indexes.get(indexName(indexName));
+        if (index == null) {
+            return List.of();
+        }
+        return index.search(query, fields, k, requireAll);
+    }
+
+    public Optional<TextIndex.Stats> stats(String indexName) {
+        return Optional.ofNullable(indexes.get(indexName(indexName))).map(TextIndex::stats);
+    }
+
+    public List<TextIndex.Stats> list() {
+        List<TextIndex.Stats> stats = new ArrayList<>();
+        for (TextIndex index : indexes.values()) {
+            stats.add(index.stats());
+        }
+        stats.sort(Comparator.comparing(TextIndex.Stats::name));
+        return stats;
+    }
+
+    /**
+     * Flushes every index and runs merges, waiting for completion.
+     */
+    public void flushAll() {
+        for (TextIndex index : indexes.values()) {
+            maintain(index);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        maintenance.shutdown();
+        try {
+            if (!maintenance.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOG.warn("Text index maintenance did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (TextIndex index : indexes.values()) {
+            try {
+                index.close();
+            } catch (IOException e) {
+                LOG.errorf(e, "Failed to flush text index '%s' on shutdown", index.name());
+            }
+        }
+    }
+
+    private TextIndex indexFor(String name) {
+        return indexes.computeIfAbsent(name, key -> {
+            try {
+                LOG.infof("Creating text index '%s'", key);
+                return TextIndex.create(key, directory.resolve(key));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create text index '" + key + "'", e);
+            }
+        });
+    }
+
+    private void scheduleMaintenance(TextIndex index) {
+        AtomicBoolean scheduled = maintenanceScheduled.computeIfAbsent(index.name(), name -> new AtomicBoolean());
+        if (scheduled.compareAndSet(false, true)) {
+            maintenance.execute(() -> {
+                try {
+                    maintain(index);
+                } finally {
+                    scheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private void maintainAll() {
+        for (TextIndex index : indexes.values()) {
+            maintain(index);
+        }
+    }
+
+    private void maintain(TextIndex index) {
+        try {
+            index.flush();
+            index.merge(maxSegments, maxDeletedRatio);
+        } catch (IOException | RuntimeException e) {
+            // Keep the maintenance thread alive; the next tick retries
+            LOG.errorf(e, "Maintenance of text index '%s' failed", index.name());
+        }
+    }
+
+    private void openExisting() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+            for (Path child : children) {
+                if (Files.exists(child.resolve(TextIndex.MANIFEST))) {
+                    String name = child.getFileName().toString();
+                    indexes.put(name, TextIndex.open(name, child));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open text indexes in " + directory, e);
+        }
+    }
+}
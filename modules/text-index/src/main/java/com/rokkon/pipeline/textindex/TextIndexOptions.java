@@ -0,0 +1,60 @@
+package com.rokkon.pipeline.textindex;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TextIndexOptions(
+        @JsonProperty("index_name") String indexName,
+        @JsonProperty("fields") List<String> fields,
+        @JsonProperty("include_chunks") Boolean includeChunks
+) {
+    public static final String DEFAULT_INDEX_NAME = "documents";
+    public static final List<String> DEFAULT_FIELDS = List.of("title", "body");
+    public static final boolean DEFAULT_INCLUDE_CHUNKS = true;
+
+    public TextIndexOptions(String indexName, List<String> fields, Boolean includeChunks) {
+        this.indexName = indexName != null && !indexName.isBlank() ? indexName : DEFAULT_INDEX_NAME;
+        this.fields = fields != null ? List.copyOf(fields) : DEFAULT_FIELDS;
+        this.includeChunks = includeChunks != null ? includeChunks : DEFAULT_INCLUDE_CHUNKS;
+    }
+
+    public TextIndexOptions() {
+        this(DEFAULT_INDEX_NAME, DEFAULT_FIELDS, DEFAULT_INCLUDE_CHUNKS);
+    }
+
+    public static String getJsonV7Schema() {
+        return """
+                {
+                  "$schema": "http://json-schema.org/draft-07/schema#",
+                  "title": "TextIndexOptions",
+                  "description": "Configuration of the text index sink. Each document is indexed as one entry with the selected fields, and each chunk of its semantic results as one more entry with the chunk text in the field 'chunk'.",
+                  "type": "object",
+                  "properties": {
+                    "index_name": {
+                      "description": "Index to write. Lower-cased, with characters outside [a-z0-9._-] replaced by '_'.",
+                      "type": "string",
+                      "default": "%s"
+                    },
+                    "fields": {
+                      "description": "PipeDoc string fields to index, e.g. title, body, keywords, document_type, source_uri.",
+                      "type": "array",
+                      "items": { "type": "string" },
+                      "default": ["%s"]
+                    },
+                    "include_chunks": {
+                      "description": "Whether to index the text of semantic result chunks, keyed by chunk_id.",
+                      "type": "boolean",
+                      "default": %b
+                    }
+                  }
+                }
+                """.formatted(
+                DEFAULT_INDEX_NAME,
+                String.join("\", \"", DEFAULT_FIELDS),
+                DEFAULT_INCLUDE_CHUNKS
+        );
+    }
+}
@@ -0,0 +1,70 @@
+package com.rokkon.pipeline.textindex;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.util.List;
+import java.util.Map;
+
+@Path("/api/text-index")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@Tag(name = "Text Index", description = "Keyword queries against the local text indexes")
+public class TextIndexResource {
+
+    /**
+     * Body of a search request; everything but {@code query} is optional.
+     */
+    public record SearchRequest(String query, Integer k, List<String> fields,
+                                @JsonProperty("require_all") Boolean requireAll) {
+    }
+
+    @Inject
+    TextIndexManager indexManager;
+
+    @GET
+    @Operation(summary = "List text indexes", description = "Lists the indexes with their entry counts and fields")
+    public List<TextIndex.Stats> list() {
+        return indexManager.list();
+    }
+
+    @POST
+    @Path("/{index}/search")
+    @Operation(summary = "Search a text index",
+               description = "Returns the k entries scoring highest (BM25) for the query")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "Hits, best first"),
+        @APIResponse(responseCode = "400", description = "Missing query or invalid index name"),
+        @APIResponse(responseCode = "404", description = "No such index")
+    })
+    public Response search(@PathParam("index") String index, SearchRequest request) {
+        if (request == null || request.query() == null || request.query().isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "A query is required")).build();
+        }
+        try {
+            if (indexManager.stats(index).isEmpty()) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(Map.of("error", "No text index named '" + index + "'")).build();
+            }
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Map.of("error", e.getMessage())).build();
+        }
+        int k = request.k() != null && request.k() > 0 ? request.k() : TextIndexGrpcService.DEFAULT_K;
+        List<String> fields = request.fields() != null ? request.fields() : List.of();
+        boolean requireAll = request.requireAll() != null && request.requireAll();
+        return Response.ok(indexManager.search(index, request.query(), fields, k, requireAll)).build();
+    }
+}
@@ -0,0 +1,200 @@
+package com.rokkon.pipeline.textindex;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Struct;
+import com.google.protobuf.util.JsonFormat;
+import com.rokkon.search.model.ActionType;
+import com.rokkon.search.model.ChunkEmbedding;
+import com.rokkon.search.model.PipeDoc;
+import com.rokkon.search.model.SemanticChunk;
+import com.rokkon.search.model.SemanticProcessingResult;
+import com.rokkon.search.sdk.PipeStepProcessor;
+import com.rokkon.search.sdk.ProcessRequest;
+import com.rokkon.search.sdk.ProcessResponse;
+import com.rokkon.search.sdk.RegistrationRequest;
+import com.rokkon.search.sdk.ServiceMetadata;
+import com.rokkon.search.sdk.ServiceRegistrationResponse;
+import io.quarkus.grpc.GrpcService;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sink step that stores the text of each document, and of its chunks, in the local inverted indexes managed
+ * by {@link TextIndexManager}. A document replaces its earlier entries; streams with {@link ActionType#DELETE}
+ * remove them. The document is passed through unchanged.
+ */
+@GrpcService
+@Singleton
+public class TextIndexServiceImpl implements PipeStepProcessor {
+
+    private static final Logger LOG = Logger.getLogger(TextIndexServiceImpl.class);
+
+    private static final String MODULE_NAME = "text-index";
+
+    /** Field holding the text of chunk entries. */
+    static final String CHUNK_FIELD = "chunk";
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    TextIndexManager indexManager;
+
+    @Override
+    public Uni<ProcessResponse> processData(ProcessRequest request) {
+        if (request == null) {
+            LOG.error("Received null request");
+            return Uni.createFrom().item(createErrorResponse("Request cannot be null", null));
+        }
+        return processDataInternal(request, false);
+    }
+
+    @Override
+    public Uni<ServiceRegistrationResponse> getServiceRegistration(RegistrationRequest request) {
+        return Uni.createFrom().item(() -> ServiceRegistrationResponse.newBuilder()
+                .setModuleName(MODULE_NAME)
+                .setVersion("1.0.0")
+                .setDisplayName("Text Index")
+                .setDescription("Stores document and chunk text in local inverted indexes and serves BM25 keyword queries")
+                .addTags("sink")
+                .addTags("text")
+                .addTags("search")
+                .setJsonConfigSchema(TextIndexOptions.getJsonV7Schema())
+                .setHealthCheckPassed(true)
+                .setHealthCheckMessage("Text index module is healthy and ready to index documents")
+                .build());
+    }
+
+    @Override
+    public Uni<ProcessResponse> testProcessData(ProcessRequest request) {
+        LOG.debug("TestProcessData called - collecting entries without indexing them");
+        if (request == null) {
+            request = ProcessRequest.newBuilder()
+                    .setDocument(PipeDoc.newBuilder().setId("test-doc-" + System.currentTimeMillis()).build())
+                    .setMetadata(ServiceMetadata.newBuilder().setStreamId("test-stream").setPipeStepName("test-step").build())
+                    .build();
+        }
+        return processDataInternal(request, true);
+    }
+
+    private Uni<ProcessResponse> processDataInternal(ProcessRequest request, boolean isTest) {
+        return Uni.createFrom().item(() -> {
+            String logPrefix = isTest ? "[TEST] " : "";
+            try {
+                if (!request.hasDocument()) {
+                    return ProcessResponse.newBuilder()
+                            .setSuccess(true)
+                            .addProcessorLogs(logPrefix + "Text index: no document to index")
+                            .build();
+                }
+                PipeDoc document = request.getDocument();
+                ActionType actionType = request.getMetadata().getActionType();
+                ProcessResponse.Builder responseBuilder = ProcessResponse.newBuilder()
+                        .setSuccess(true)
+                        .setOutputDoc(document);
+
+                if (actionType == ActionType.NO_OP) {
+                    return responseBuilder
+                            .addProcessorLogs(logPrefix + "Text index: NO_OP stream, nothing indexed")
+                            .build();
+                }
+                if (actionType == ActionType.DELETE) {
+                    int deleted = isTest ? 0 : indexManager.deleteDocument(document.getId());
+                    return responseBuilder
+                            .addProcessorLogs(String.format("%sText index: deleted %d entries of document %s",
+                                    logPrefix, deleted, document.getId()))
+                            .build();
+                }
+
+                TextIndexOptions options = parseOptions(request.getConfig().getCustomJsonConfig());
+                String indexName = TextIndexManager.indexName(options.indexName());
+                List<TextIndex.Entry> entries = collectEntries(document, options);
+                if (!isTest) {
+                    indexManager.replaceDocument(indexName, document.getId(), entries);
+                }
+                LOG.debugf("%sIndexed %d entries of document %s into %s", logPrefix, entries.size(), document.getId(), indexName);
+                return responseBuilder
+                        .addProcessorLogs(String.format("%sText index: indexed %d entries of document %s into %s",
+                                logPrefix, entries.size(), document.getId(), indexName))
+                        .build();
+            } catch (Exception e) {
+                String errorMessage = String.format("%sError in text index: %s", logPrefix, e.getMessage());
+                LOG.error(errorMessage, e);
+                return createErrorResponse(errorMessage, e);
+            }
+        });
+    }
+
+    private TextIndexOptions parseOptions(Struct customJsonConfig) throws Exception {
+        if (customJsonConfig != null && customJsonConfig.getFieldsCount() > 0) {
+            return objectMapper.readValue(JsonFormat.printer().print(customJsonConfig), TextIndexOptions.class);
+        }
+        return new TextIndexOptions();
+    }
+
+    /**
+     * Builds the document's entries: one for the document with the configured fields (left out when they are
+     * all empty) and one per chunk with text, keyed by chunk ID.
+     *
+     * @throws IllegalArgumentException if a configured field is not a PipeDoc text field
+     */
+    static List<TextIndex.Entry> collectEntries(PipeDoc document, TextIndexOptions options) {
+        List<TextIndex.Entry> entries = new ArrayList<>();
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String field : options.fields()) {
+            String text = fieldText(document, field);
+            if (!text.isEmpty()) {
+                fields.put(field, text);
+            }
+        }
+        if (!fields.isEmpty()) {
+            entries.add(new TextIndex.Entry(document.getId(), fields));
+        }
+        if (options.includeChunks()) {
+            for (SemanticProcessingResult result : document.getSemanticResultsList()) {
+                for (SemanticChunk chunk : result.getChunksList()) {
+                    ChunkEmbedding embedding = chunk.getEmbeddingInfo();
+                    if (embedding.getTextContent().isBlank()) {
+                        continue;
+                    }
+                    String entryId = embedding.hasChunkId() ? embedding.getChunkId() : chunk.getChunkId();
+                    entries.add(new TextIndex.Entry(entryId, Map.of(CHUNK_FIELD, embedding.getTextContent())));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static String fieldText(PipeDoc document, String field) {
+        return switch (field) {
+            case "title" -> document.getTitle();
+            case "body" -> document.getBody();
+            case "keywords" -> String.join("\n", document.getKeywordsList());
+            case "document_type" -> document.getDocumentType();
+            case "source_uri" -> document.getSourceUri();
+            default -> throw new IllegalArgumentException("Unsupported text index field: '" + field
+                    + "' (supported: title, body, keywords, document_type, source_uri)");
+        };
+    }
+
+    private ProcessResponse createErrorResponse(String errorMessage, Exception e) {
+        ProcessResponse.Builder responseBuilder = ProcessResponse.newBuilder();
+        responseBuilder.setSuccess(false);
+        responseBuilder.addProcessorLogs(errorMessage);
+
+        Struct.Builder errorDetailsBuilder = Struct.newBuilder();
+        errorDetailsBuilder.putFields("error_message", com.google.protobuf.Value.newBuilder().setStringValue(errorMessage).build());
+        if (e != null) {
+            errorDetailsBuilder.putFields("error_type", com.google.protobuf.Value.newBuilder().setStringValue(e.getClass().getName()).build());
+        }
+        responseBuilder.setErrorDetails(errorDetailsBuilder.build());
+        return responseBuilder.build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.rokkon.pipeline.textindex;
+
+import com.rokkon.pipeline.util.SegmentedIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the analyzer, the postings codec and the round trip of a segment through its file format.
+ */
+class PostingsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void analyzerSplitsOnNonLetterOrDigitAndLowerCases() {
+        assertThat(Analyzer.terms("Hello, World! HNSW-2024 café_au_lait"))
+                .containsExactly("hello", "world", "hnsw", "2024", "café", "au", "lait");
+        assertThat(Analyzer.terms("  ...  ")).isEmpty();
+        assertThat(Analyzer.terms("a " + "x".repeat(Analyzer.MAX_TERM_LENGTH + 1) + " b")).containsExactly("a", "b");
+    }
+
+    @Test
+    void postingsRoundTripGapsAndFrequencies() {
+        Postings.Builder builder = new Postings.Builder();
+        int[] docs = {0, 1, 5, 130, 20_000, 1_000_000};
+        int[] freqs = {1, 3, 1, 200, 1, 70_000};
+        for (int i = 0; i < docs.length; i++) {
+            builder.add(docs[i], freqs[i]);
+        }
+
+        Postings.Cursor cursor = builder.cursor();
+        assertThat(cursor.docFreq()).isEqualTo(docs.length);
+        for (int i = 0; i < docs.length; i++) {
+            assertThat(cursor.nextDoc()).isEqualTo(docs[i]);
+            assertThat(cursor.freq()).isEqualTo(freqs[i]);
+        }
+        assertThat(cursor.nextDoc()).isEqualTo(Postings.NO_MORE_DOCS);
+        assertThatThrownBy(() -> builder.add(1_000_000, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void writtenSegmentReadsBackLikeTheBuffer() throws Exception {
+        BufferedSegment buffer = new BufferedSegment();
+        buffer.add("doc-1", "doc-1", Map.of("title", "Quick brown fox", "body", "The fox jumps over the lazy dog"));
+        buffer.add("doc-2", "doc-2", Map.of("title", "Lazy dogs", "body", "Dogs sleep; the fox does not"));
+        buffer.add("doc-2_chunk_0", "doc-2", Map.of("chunk", "Dogs sleep"));
+        buffer.deleteDocument("doc-1");
+
+        Path file = tempDir.resolve("seg_0.inv");
+        SegmentWriter.write(buffer, file);
+        SegmentedIndex.writeDeletes(buffer.deletedSnapshot(), tempDir.resolve("seg_0.del"));
+        MappedSegment mapped = MappedSegment.open(file, tempDir.resolve("seg_0.del"));
+
+        assertThat(mapped.docCount()).isEqualTo(3);
+        assertThat(mapped.fields()).containsExactly("body", "chunk", "title");
+        assertThat(mapped.entryId(2)).isEqualTo("doc-2_chunk_0");
+        assertThat(mapped.documentId(2)).isEqualTo("doc-2");
+        assertThat(mapped.docsOf("doc-2")).containsExactly(1, 2);
+        assertThat(mapped.isDeleted(0)).isTrue();
+        assertThat(mapped.liveCount()).isEqualTo(2);
+        for (String field : buffer.fields()) {
+            assertThat(mapped.totalTokens(field)).isEqualTo(buffer.totalTokens(field));
+            assertThat(mapped.docsWithField(field)).isEqualTo(buffer.docsWithField(field));
+            for (int doc = 0; doc < 3; doc++) {
+                assertThat(mapped.length(field, doc)).isEqualTo(buffer.length(field, doc));
+            }
+            assertThat(terms(mapped, field)).isEqualTo(terms(buffer, field));
+        }
+        assertThat(mapped.docFreq("body", "fox")).isEqualTo(2);
+        assertThat(mapped.docFreq("body", "cat")).isZero();
+        assertThat(mapped.postings("body", "cat")).isNull();
+        assertThat(mapped.postings("nope", "fox")).isNull();
+    }
+
+    private static List<String> terms(Segment segment, String field) {
+        List<String> terms = new ArrayList<>();
+        segment.forEachTerm(field, (term, postings) -> {
+            StringBuilder entry = new StringBuilder(term);
+            for (int doc = postings.nextDoc(); doc != Postings.NO_MORE_DOCS; doc = postings.nextDoc()) {
+                entry.append(' ').append(doc).append(':').append(postings.freq());
+            }
+            terms.add(entry.toString());
+        });
+        return terms;
+    }
+}
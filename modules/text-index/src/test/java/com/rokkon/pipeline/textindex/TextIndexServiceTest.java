@@ -0,0 +1,158 @@
+package com.rokkon.pipeline.textindex;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.rokkon.search.model.ActionType;
+import com.rokkon.search.model.ChunkEmbedding;
+import com.rokkon.search.model.PipeDoc;
+import com.rokkon.search.model.SemanticChunk;
+import com.rokkon.search.model.SemanticProcessingResult;
+import com.rokkon.search.sdk.ProcessConfiguration;
+import com.rokkon.search.sdk.ProcessRequest;
+import com.rokkon.search.sdk.ProcessResponse;
+import com.rokkon.search.sdk.ServiceMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the sink step against a real index manager in a temporary directory.
+ */
+class TextIndexServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TextIndexManager manager;
+    private TextIndexServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        manager = new TextIndexManager(tempDir.toString(), 10_000, 0, 8, 0.3);
+        service = new TextIndexServiceImpl();
+        service.objectMapper = new ObjectMapper();
+        service.indexManager = manager;
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void indexesDocumentFieldsAndChunks() {
+        ProcessResponse response = process(document("doc-1", "Harbour report"), ActionType.CREATE, Struct.getDefaultInstance());
+
+        assertThat(response.getSuccess()).isTrue();
+        assertThat(response.getOutputDoc().getId()).isEqualTo("doc-1");
+        TextIndex.Stats stats = manager.stats("documents").orElseThrow();
+        assertThat(stats.liveEntries()).isEqualTo(3);
+        assertThat(stats.fields()).containsExactly("body", "chunk", "title");
+        assertThat(manager.search("documents", "harbour", List.of("title"), 10, false))
+                .extracting(TextIndex.Hit::entryId).containsExactly("doc-1");
+        assertThat(manager.search("documents", "tide", List.of("chunk"), 10, false))
+                .extracting(TextIndex.Hit::entryId).containsExactly("doc-1_chunk_1");
+    }
+
+    @Test
+    void updatesReplaceAndDeletesRemoveEntries() {
+        process(document("doc-1", "Harbour report"), ActionType.CREATE, Struct.getDefaultInstance());
+        process(document("doc-1", "Weather report"), ActionType.UPDATE, Struct.getDefaultInstance());
+
+        assertThat(manager.stats("documents").orElseThrow().liveEntries()).isEqualTo(3);
+        assertThat(manager.search("documents", "harbour", List.of("title"), 10, false)).isEmpty();
+        assertThat(manager.search("documents", "weather", List.of(), 10, false)).hasSize(1);
+
+        ProcessResponse response = process(document("doc-1", "Weather report"), ActionType.DELETE, Struct.getDefaultInstance());
+
+        assertThat(response.getSuccess()).isTrue();
+        assertThat(response.getProcessorLogs(0)).contains("deleted 3 entries");
+        assertThat(manager.stats("documents").orElseThrow().liveEntries()).isZero();
+    }
+
+    @Test
+    void honoursOptions() {
+        Struct options = Struct.newBuilder()
+                .putFields("index_name", Value.newBuilder().setStringValue("News Archive").build())
+                .putFields("fields", Value.newBuilder().setListValue(ListValue.newBuilder()
+                        .addValues(Value.newBuilder().setStringValue("title"))
+                        .addValues(Value.newBuilder().setStringValue("keywords"))).build())
+                .putFields("include_chunks", Value.newBuilder().setBoolValue(false).build())
+                .build();
+
+        process(document("doc-1", "Harbour report"), ActionType.CREATE, options);
+
+        TextIndex.Stats stats = manager.stats("news_archive").orElseThrow();
+        assertThat(stats.liveEntries()).isEqualTo(1);
+        assertThat(stats.fields()).containsExactly("keywords", "title");
+        assertThat(manager.search("news_archive", "shipping", List.of(), 10, false)).hasSize(1);
+    }
+
+    @Test
+    void reportsUnsupportedFields() {
+        Struct options = Struct.newBuilder()
+                .putFields("fields", Value.newBuilder().setListValue(ListValue.newBuilder()
+                        .addValues(Value.newBuilder().setStringValue("summary"))).build())
+                .build();
+
+        ProcessResponse response = process(document("doc-1", "Harbour report"), ActionType.CREATE, options);
+
+        assertThat(response.getSuccess()).isFalse();
+        assertThat(response.getProcessorLogs(0)).contains("summary");
+    }
+
+    @Test
+    void testProcessingDoesNotIndex() {
+        ProcessResponse response = service.testProcessData(request(document("doc-1", "Harbour report"), ActionType.CREATE,
+                Struct.getDefaultInstance())).await().indefinitely();
+
+        assertThat(response.getSuccess()).isTrue();
+        assertThat(response.getProcessorLogs(0)).startsWith("[TEST]");
+        assertThat(manager.list()).isEmpty();
+    }
+
+    private ProcessResponse process(PipeDoc document, ActionType actionType, Struct options) {
+        return service.processData(request(document, actionType, options)).await().indefinitely();
+    }
+
+    private static ProcessRequest request(PipeDoc document, ActionType actionType, Struct options) {
+        return ProcessRequest.newBuilder()
+                .setDocument(document)
+                .setConfig(ProcessConfiguration.newBuilder().setCustomJsonConfig(options))
+                .setMetadata(ServiceMetadata.newBuilder()
+                        .setPipelineName("test-pipeline")
+                        .setPipeStepName("text-index")
+                        .setStreamId("stream-1")
+                        .setActionType(actionType))
+                .build();
+    }
+
+    /**
+     * A document with a title, body, keywords and two chunks of its body.
+     */
+    private static PipeDoc document(String id, String title) {
+        return PipeDoc.newBuilder()
+                .setId(id)
+                .setTitle(title)
+                .setBody("Ships waited outside the harbour. The tide turned at noon.")
+                .addKeywords("shipping")
+                .addSemanticResults(SemanticProcessingResult.newBuilder()
+                        .setResultId("result-1")
+                        .setChunkConfigId("body_sentences")
+                        .addChunks(SemanticChunk.newBuilder().setChunkId(id + "_chunk_0")
+                                .setEmbeddingInfo(ChunkEmbedding.newBuilder().setChunkId(id + "_chunk_0")
+                                        .setTextContent("Ships waited outside the harbour.")))
+                        .addChunks(SemanticChunk.newBuilder().setChunkId(id + "_chunk_1")
+                                .setEmbeddingInfo(ChunkEmbedding.newBuilder().setChunkId(id + "_chunk_1")
+                                        .setTextContent("The tide turned at noon."))))
+                .build();
+    }
+}
@@ -0,0 +1,189 @@
+package com.rokkon.pipeline.textindex;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests BM25 scoring, document replacement, deletes, flushing, merging and reopening of a single index.
+ */
+class TextIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void ranksByBm25AcrossFields() throws Exception {
+        TextIndex index = TextIndex.create("test", tempDir);
+        index.replaceDocument("doc-1", List.of(entry("doc-1", "Fox facts", "The quick brown fox jumps over the lazy dog")));
+        index.replaceDocument("doc-2", List.of(entry("doc-2", "Dogs", "A dog, another dog and a fox")));
+        index.replaceDocument("doc-3", List.of(entry("doc-3", "Cats", "Cats sleep all day")));
+
+        List<TextIndex.Hit> hits = index.search("fox", List.of(), 10, false);
+        assertThat(hits).extracting(TextIndex.Hit::entryId).containsExactly("doc-1", "doc-2");
+        assertThat(hits).isSortedAccordingTo((a, b) -> Float.compare(b.score(), a.score()));
+
+        assertThat(index.search("dog", List.of("body"), 10, false).get(0).entryId()).isEqualTo("doc-2");
+        assertThat(index.search("fox", List.of("title"), 10, false)).extracting(TextIndex.Hit::entryId).containsExactly("doc-1");
+        assertThat(index.search("FOX cats", List.of(), 10, false)).hasSize(3);
+        assertThat(index.search("fox dog", List.of(), 10, true)).extracting(TextIndex.Hit::entryId)
+                .containsExactlyInAnyOrder("doc-1", "doc-2");
+        assertThat(index.search("fox sleep", List.of(), 10, true)).isEmpty();
+        assertThat(index.search("fox", List.of(), 1, false)).hasSize(1);
+        assertThat(index.search("...", List.of(), 10, false)).isEmpty();
+    }
+
+    @Test
+    void replacingADocumentDeletesAllItsEntries() throws Exception {
+        TextIndex index = TextIndex.create("test", tempDir);
+        index.replaceDocument("doc-1", List.of(entry("doc-1", "Old title", "old body"),
+                new TextIndex.Entry("doc-1_chunk_0", Map.of("chunk", "old chunk"))));
+        index.flush();
+        index.replaceDocument("doc-1", List.of(entry("doc-1", "New title", "new body")));
+
+        assertThat(index.stats().liveEntries()).isEqualTo(1);
+        assertThat(index.search("old", List.of(), 10, false)).isEmpty();
+        assertThat(index.search("new", List.of(), 10, false)).extracting(TextIndex.Hit::documentId).containsExactly("doc-1");
+        assertThat(index.deleteDocument("doc-1")).isEqualTo(1);
+        assertThat(index.search("new", List.of(), 10, false)).isEmpty();
+    }
+
+    @Test
+    void scoresDoNotDependOnHowEntriesAreSpreadOverSegments() throws Exception {
+        TextIndex index = TextIndex.create("test", tempDir);
+        List<String> words = List.of("alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta");
+        for (int i = 0; i < 300; i++) {
+            StringBuilder body = new StringBuilder();
+            for (int w = 0; w < 3 + i % 7; w++) {
+                body.append(words.get((i * 31 + w * 7) % (1 + i % words.size()))).append(' ');
+            }
+            index.replaceDocument("doc-" + i, List.of(entry("doc-" + i, "title " + i, body.toString())));
+            if (i % 100 == 99) {
+                index.flush();
+            }
+        }
+        List<TextIndex.Hit> before = index.search("beta delta eta", List.of(), 20, false);
+
+        assertThat(index.stats().segments()).isEqualTo(3);
+        assertThat(index.merge(1, 0.3)).isTrue();
+        assertThat(index.stats().segments()).isEqualTo(1);
+        assertThat(index.stats().liveEntries()).isEqualTo(300);
+        List<TextIndex.Hit> after = index.search("beta delta eta", List.of(), 20, false);
+
+        assertThat(after).hasSameSizeAs(before);
+        for (int i = 0; i < before.size(); i++) {
+            assertThat(after.get(i).score()).isCloseTo(before.get(i).score(), within(1e-4f));
+        }
+    }
+
+    @Test
+    void deletedEntriesDoNotCountTowardsScores() throws Exception {
+        TextIndex index = TextIndex.create("test", tempDir.resolve("test"));
+        TextIndex liveOnly = TextIndex.create("live-only", tempDir.resolve("live-only"));
+        List<String> words = List.of("alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta");
+        for (int i = 0; i < 250; i++) {
+            StringBuilder body = new StringBuilder();
+            for (int w = 0; w < 3 + i % 7; w++) {
+                body.append(words.get((i * 31 + w * 7) % (1 + i % words.size()))).append(' ');
+            }
+            TextIndex.Entry entry = entry("doc-" + i, "title " + i, body.toString());
+            index.replaceDocument("doc-" + i, List.of(entry));
+            if (i % 3 != 0) {
+                liveOnly.replaceDocument("doc-" + i, List.of(entry));
+            }
+            if (i % 100 == 99) {
+                index.flush();
+            }
+        }
+        // Tombstones in both flushed segments and in the buffer
+        for (int i = 0; i < 250; i += 3) {
+            index.deleteDocument("doc-" + i);
+        }
+        List<TextIndex.Hit> expected = liveOnly.search("beta delta eta", List.of(), 20, false);
+
+        List<TextIndex.Hit> beforeMerge = index.search("beta delta eta", List.of(), 20, false);
+        assertThat(index.merge(1, 0.3)).isTrue();
+        List<TextIndex.Hit> afterMerge = index.search("beta delta eta", List.of(), 20, false);
+
+        assertThat(beforeMerge).hasSameSizeAs(expected);
+        assertThat(afterMerge).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(beforeMerge.get(i).score()).isCloseTo(expected.get(i).score(), within(1e-4f));
+            assertThat(afterMerge.get(i).score()).isCloseTo(expected.get(i).score(), within(1e-4f));
+        }
+    }
+
+    @Test
+    void deletesOfFlushedEntriesSurviveReopen() throws Exception {
+        TextIndex index = TextIndex.create("test", tempDir);
+        for (int i = 0; i < 50; i++) {
+            index.replaceDocument("doc-" + i, List.of(entry("doc-" + i, "title", "word" + i)));
+        }
+        index.flush();
+
+        assertThat(index.deleteDocument("doc-3")).isEqualTo(1);
+        assertThat(index.deleteDocument("doc-3")).isZero();
+        index.flush();
+
+        TextIndex reopened = TextIndex.open("test", tempDir);
+        assertThat(reopened.stats().liveEntries()).isEqualTo(49);
+        assertThat(reopened.search("word3", List.of(), 10, false)).isEmpty();
+        assertThat(reopened.search("word4", List.of(), 10, false)).extracting(TextIndex.Hit::entryId).containsExactly("doc-4");
+    }
+
+    @Test
+    void mergeDropsDeletedEntriesAndRemovesOldSegments() throws Exception {
+        TextIndex index = TextIndex.create("test", tempDir);
+        for (int segment = 0; segment < 3; segment++) {
+            for (int i = segment * 100; i < (segment + 1) * 100; i++) {
+                index.replaceDocument("doc-" + i, List.of(entry("doc-" + i, "title " + i, "shared word" + i)));
+            }
+            index.flush();
+        }
+        for (int i = 0; i < 100; i += 2) {
+            index.deleteDocument("doc-" + i);
+        }
+
+        assertThat(index.merge(1, 0.3)).isTrue();
+        assertThat(index.merge(1, 0.3)).isFalse();
+
+        TextIndex.Stats stats = index.stats();
+        assertThat(stats.segments()).isEqualTo(1);
+        assertThat(stats.liveEntries()).isEqualTo(250);
+        assertThat(stats.deletedEntries()).isZero();
+        assertThat(index.search("shared", List.of(), 1000, false)).hasSize(250);
+        assertThat(index.search("word2", List.of(), 10, false)).isEmpty();
+        assertThat(index.search("word299", List.of(), 10, false)).extracting(TextIndex.Hit::entryId).containsExactly("doc-299");
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(".inv")))
+                    .hasSize(1);
+        }
+
+        TextIndex reopened = TextIndex.open("test", tempDir);
+        assertThat(reopened.stats().liveEntries()).isEqualTo(250);
+    }
+
+    @Test
+    void openRemovesFilesNotInTheManifest() throws Exception {
+        TextIndex index = TextIndex.create("test", tempDir);
+        index.replaceDocument("doc-1", List.of(entry("doc-1", "title", "body")));
+        index.flush();
+        Files.writeString(tempDir.resolve("seg_7.inv"), "partial");
+
+        TextIndex reopened = TextIndex.open("test", tempDir);
+        assertThat(Files.exists(tempDir.resolve("seg_7.inv"))).isFalse();
+        assertThat(reopened.search("body", List.of(), 10, false)).hasSize(1);
+    }
+
+    private static TextIndex.Entry entry(String entryId, String title, String body) {
+        return new TextIndex.Entry(entryId, Map.of("title", title, "body", body));
+    }
+}
@@ -0,0 +1,84 @@
+plugins {
+    java
+    id("io.quarkus")
+    `maven-publish`
+}
+
+
+
+dependencies {
+    // Module BOM provides all standard module dependencies
+    implementation(platform(project(":bom:module")))
+
+    // Module-specific dependencies only
+    implementation(project(":commons:util")) // For PackedVectors and SegmentedIndex
+
+    // Module-specific test dependencies
+    testImplementation("io.quarkus:quarkus-junit5")
+    testImplementation("org.assertj:assertj-core")
+}
+
+group = "com.rokkon.pipeline"
+version = "1.0.0-SNAPSHOT"
+description = "vector-index"
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_21
+    targetCompatibility = JavaVersion.VERSION_21
+}
+
+// Configure Quarkus to use Mutiny for gRPC code generation
+quarkus {
+    buildForkOptions {
+        systemProperty("quarkus.grpc.codegen.type", "mutiny")
+    }
+}
+
+// Exclude integration tests from regular test task
+tasks.test {
+    exclude("**/*IT.class")
+}
+
+tasks.withType<Test> {
+    systemProperty("java.util.logging.manager", "org.jboss.logmanager.LogManager")
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+    options.compilerArgs.add("-parameters")
+}
+
+// Configuration to consume the CLI jar from cli-register
+val cliJar by configurations.creating {
+    isCanBeConsumed = false
+    isCanBeResolved = true
+    attributes {
+        attribute(Usage.USAGE_ATTRIBUTE, objects.named(Usage::class, "cli-jar"))
+    }
+}
+
+dependencies {
+    cliJar(project(":cli:register-module", "cliJar"))
+}
+
+// Copy CLI jar for Docker build
+tasks.register<Copy>("copyDockerAssets") {
+    from(cliJar) {
+        rename { "pipeline-cli.jar" }
+    }
+    into(layout.buildDirectory.dir("docker"))
+}
+
+// Hook the copy task before Docker build
+tasks.named("quarkusBuild") {
+    dependsOn("copyDockerAssets")
+}
+
+publishing {
+    publications {
+        create<MavenPublication>("maven") {
+            from(components["java"])
+            artifactId = "vector-index-module"
+        }
+    }
+}
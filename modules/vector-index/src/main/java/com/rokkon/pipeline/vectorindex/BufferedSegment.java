@@ -0,0 +1,69 @@
+package com.rokkon.pipeline.vectorindex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The in-memory segment that receives inserts until it is flushed to a {@link MappedSegment}. Also used
+ * to build merged segments.
+ */
+final class BufferedSegment extends Segment {
+
+    private static final int[] NO_NODES = new int[0];
+
+    private final OnHeapHnswGraph graph;
+    private final List<String> vectorIds = new ArrayList<>();
+    private final List<String> documentIds = new ArrayList<>();
+    private final Map<String, int[]> nodesByDocument = new HashMap<>();
+
+    BufferedSegment(int dimension, int m, int efConstruction, long seed) {
+        super(new BitSet());
+        this.graph = new OnHeapHnswGraph(dimension, m, efConstruction, seed);
+    }
+
+    /**
+     * Adds a unit-length vector.
+     *
+     * @return The new node
+     */
+    int add(String vectorId, String documentId, float[] vector) {
+        int node = graph.add(vector);
+        vectorIds.add(vectorId);
+        documentIds.add(documentId);
+        nodesByDocument.merge(documentId, new int[]{node}, (existing, added) -> {
+            int[] nodes = Arrays.copyOf(existing, existing.length + 1);
+            nodes[existing.length] = added[0];
+            return nodes;
+        });
+        return node;
+    }
+
+    @Override
+    OnHeapHnswGraph graph() {
+        return graph;
+    }
+
+    @Override
+    String vectorId(int node) {
+        return vectorIds.get(node);
+    }
+
+    @Override
+    String documentId(int node) {
+        return documentIds.get(node);
+    }
+
+    @Override
+    int[] nodesOf(String documentId) {
+        return nodesByDocument.getOrDefault(documentId, NO_NODES);
+    }
+
+    @Override
+    float[] vector(int node) {
+        return graph.vector(node).clone();
+    }
+}
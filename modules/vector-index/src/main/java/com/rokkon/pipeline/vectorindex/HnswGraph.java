@@ -0,0 +1,43 @@
+package com.rokkon.pipeline.vectorindex;
+
+/**
+ * Read access to a hierarchical navigable small world graph, on the heap ({@link OnHeapHnswGraph}) or in a
+ * memory-mapped segment file ({@link MappedSegment}). Nodes are numbered 0..size-1 in insertion order and
+ * vectors are unit length, so similarity is the dot product (cosine).
+ */
+interface HnswGraph {
+
+    /**
+     * @return Number of nodes, including deleted ones
+     */
+    int size();
+
+    int dimension();
+
+    /**
+     * @return The node search starts from, or -1 if the graph is empty
+     */
+    int entryPoint();
+
+    /**
+     * @return The highest level of any node
+     */
+    int maxLevel();
+
+    /**
+     * Copies the neighbours of a node on one level into the buffer.
+     *
+     * @return Number of neighbours copied
+     */
+    int neighbors(int level, int node, int[] buffer);
+
+    /**
+     * @return Dot product of the query with the node's vector
+     */
+    float similarity(float[] query, int node);
+
+    /**
+     * @return Largest neighbour count on any level, the buffer size {@link #neighbors} needs
+     */
+    int maxConnections();
+}
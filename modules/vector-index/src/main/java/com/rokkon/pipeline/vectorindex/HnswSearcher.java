@@ -0,0 +1,108 @@
+package com.rokkon.pipeline.vectorindex;
+
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+/**
+ * Graph search shared by graph construction and queries: greedy descent through the upper levels, then a
+ * best-first beam search of width {@code ef} on the target level.
+ */
+final class HnswSearcher {
+
+    private HnswSearcher() {
+    }
+
+    /**
+     * Finds the nearest accepted nodes to the query.
+     *
+     * @param accept Filter for result nodes (e.g. not deleted); rejected nodes are still traversed so the
+     *               graph stays connected
+     * @return Up to {@code k} nodes, as a min-queue (worst hit on top)
+     */
+    static NeighborQueue search(HnswGraph graph, float[] query, int k, int ef, IntPredicate accept) {
+        int entry = graph.entryPoint();
+        if (entry < 0) {
+            return new NeighborQueue(1, false);
+        }
+        int[] buffer = new int[graph.maxConnections()];
+        entry = greedyDescent(graph, query, entry, graph.maxLevel(), 0, buffer);
+        NeighborQueue results = searchLevel(graph, query, new int[]{entry}, Math.max(ef, k), 0, accept, buffer);
+        while (results.size() > k) {
+            results.pop();
+        }
+        return results;
+    }
+
+    /**
+     * Follows the single best neighbour from {@code fromLevel} down to just above {@code toLevel}.
+     *
+     * @return The closest node found, the entry point for the next level
+     */
+    static int greedyDescent(HnswGraph graph, float[] query, int entry, int fromLevel, int toLevel, int[] buffer) {
+        int current = entry;
+        float currentScore = graph.similarity(query, current);
+        for (int level = fromLevel; level > toLevel; level--) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                int count = graph.neighbors(level, current, buffer);
+                for (int i = 0; i < count; i++) {
+                    float score = graph.similarity(query, buffer[i]);
+                    if (score > currentScore) {
+                        currentScore = score;
+                        current = buffer[i];
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search on one level.
+     *
+     * @return Up to {@code ef} accepted nodes, as a min-queue
+     */
+    static NeighborQueue searchLevel(HnswGraph graph, float[] query, int[] entryPoints, int ef, int level,
+                                     IntPredicate accept, int[] buffer) {
+        BitSet visited = new BitSet(graph.size());
+        NeighborQueue candidates = new NeighborQueue(ef, true);
+        NeighborQueue results = new NeighborQueue(ef, false);
+        // Lower bound for candidates: the worst of the best ef nodes seen so far, accepted or not
+        NeighborQueue frontier = new NeighborQueue(ef, false);
+        for (int entry : entryPoints) {
+            visited.set(entry);
+            float score = graph.similarity(query, entry);
+            candidates.add(entry, score);
+            frontier.insertWithOverflow(entry, score, ef);
+            if (accept == null || accept.test(entry)) {
+                results.insertWithOverflow(entry, score, ef);
+            }
+        }
+        while (!candidates.isEmpty()) {
+            float candidateScore = candidates.topScore();
+            if (frontier.size() >= ef && candidateScore < frontier.topScore()) {
+                break;
+            }
+            int candidate = candidates.pop();
+            int count = graph.neighbors(level, candidate, buffer);
+            for (int i = 0; i < count; i++) {
+                int neighbor = buffer[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float score = graph.similarity(query, neighbor);
+                if (frontier.size() < ef || score > frontier.topScore()) {
+                    candidates.add(neighbor, score);
+                    frontier.insertWithOverflow(neighbor, score, ef);
+                    if (accept == null || accept.test(neighbor)) {
+                        results.insertWithOverflow(neighbor, score, ef);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,218 @@
+package com.rokkon.pipeline.vectorindex;
+
+import com.rokkon.pipeline.util.SegmentedIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A flushed, immutable segment searched in place through a read-only memory mapping of the file written by
+ * {@link SegmentWriter}, so the OS page cache rather than the heap holds vectors and graph. Only the
+ * document-to-node map and the deletion bits live on the heap. Reads use absolute gets and are safe from
+ * many threads.
+ */
+final class MappedSegment extends Segment implements HnswGraph {
+
+    private static final int[] NO_NODES = new int[0];
+
+    private final Path file;
+    private final ByteBuffer bytes;
+    private final IntBuffer ints;
+    private final FloatBuffer floats;
+    private final int dimension;
+    private final int size;
+    private final int maxConnections0;
+    private final int maxConnectionsUpper;
+    private final int maxLevel;
+    private final int entryPoint;
+    private final int levelsStart;
+    private final int level0Start;
+    private final int upperIndexStart;
+    private final int upperStart;
+    private final int vectorIdsStart;
+    private final int documentIdsStart;
+    private final Map<String, int[]> nodesByDocument;
+
+    private MappedSegment(Path file, MappedByteBuffer mapped, BitSet deleted) throws IOException {
+        super(deleted);
+        this.file = file;
+        this.bytes = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        this.ints = bytes.asIntBuffer();
+        this.floats = bytes.asFloatBuffer();
+        if (ints.limit() < SegmentWriter.HEADER_INTS || ints.get(0) != SegmentWriter.MAGIC) {
+            throw new IOException("Not a vector index segment: " + file);
+        }
+        if (ints.get(1) != SegmentWriter.VERSION) {
+            throw new IOException("Unsupported segment version " + ints.get(1) + " in " + file);
+        }
+        this.dimension = ints.get(2);
+        this.size = ints.get(3);
+        this.maxConnections0 = ints.get(4);
+        this.maxConnectionsUpper = ints.get(5);
+        this.maxLevel = ints.get(6);
+        this.entryPoint = ints.get(7);
+        this.levelsStart = SegmentWriter.HEADER_INTS + size * dimension;
+        this.level0Start = levelsStart + size;
+        this.upperIndexStart = level0Start + size * (maxConnections0 + 1);
+        this.upperStart = upperIndexStart + size + 1;
+        this.vectorIdsStart = upperStart + ints.get(upperIndexStart + size);
+        this.documentIdsStart = vectorIdsStart + stringTableInts(vectorIdsStart);
+        if (documentIdsStart + stringTableInts(documentIdsStart) > ints.limit()) {
+            throw new IOException("Truncated vector index segment: " + file);
+        }
+        this.nodesByDocument = indexDocuments();
+    }
+
+    /**
+     * Maps a segment file and its deletion bits, if any.
+     */
+    static MappedSegment open(Path file, Path deletesFile) throws IOException {
+        BitSet deleted = SegmentedIndex.readDeletes(deletesFile);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Segment " + file + " is larger than 2GB");
+            }
+            // The mapping stays valid after the channel is closed
+            return new MappedSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, length), deleted);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int level(int node) {
+        return ints.get(levelsStart + node);
+    }
+
+    @Override
+    HnswGraph graph() {
+        return this;
+    }
+
+    @Override
+    String vectorId(int node) {
+        return readString(vectorIdsStart, node);
+    }
+
+    @Override
+    String documentId(int node) {
+        return readString(documentIdsStart, node);
+    }
+
+    @Override
+    int[] nodesOf(String documentId) {
+        return nodesByDocument.getOrDefault(documentId, NO_NODES);
+    }
+
+    @Override
+    float[] vector(int node) {
+        float[] vector = new float[dimension];
+        floats.get(SegmentWriter.HEADER_INTS + node * dimension, vector);
+        return vector;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public int entryPoint() {
+        return entryPoint;
+    }
+
+    @Override
+    public int maxLevel() {
+        return maxLevel;
+    }
+
+    @Override
+    public int neighbors(int level, int node, int[] buffer) {
+        int list;
+        if (level == 0) {
+            list = level0Start + node * (maxConnections0 + 1);
+        } else {
+            if (level > level(node)) {
+                return 0;
+            }
+            list = upperStart + ints.get(upperIndexStart + node) + (level - 1) * (maxConnectionsUpper + 1);
+        }
+        int count = ints.get(list);
+        ints.get(list + 1, buffer, 0, count);
+        return count;
+    }
+
+    @Override
+    public float similarity(float[] query, int node) {
+        int base = SegmentWriter.HEADER_INTS + node * dimension;
+        float sum0 = 0;
+        float sum1 = 0;
+        float sum2 = 0;
+        float sum3 = 0;
+        int i = 0;
+        int bound = dimension & ~3;
+        for (; i < bound; i += 4) {
+            sum0 += query[i] * floats.get(base + i);
+            sum1 += query[i + 1] * floats.get(base + i + 1);
+            sum2 += query[i + 2] * floats.get(base + i + 2);
+            sum3 += query[i + 3] * floats.get(base + i + 3);
+        }
+        for (; i < dimension; i++) {
+            sum0 += query[i] * floats.get(base + i);
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    @Override
+    public int maxConnections() {
+        return maxConnections0;
+    }
+
+    /**
+     * @return Length in ints of the string table starting at {@code start}
+     */
+    private int stringTableInts(int start) {
+        int byteLength = ints.get(start + size);
+        return size + 1 + (byteLength + 3) / 4;
+    }
+
+    private String readString(int tableStart, int index) {
+        int from = ints.get(tableStart + index);
+        int to = ints.get(tableStart + index + 1);
+        byte[] encoded = new byte[to - from];
+        bytes.get((tableStart + size + 1) * Integer.BYTES + from, encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    private Map<String, int[]> indexDocuments() {
+        Map<String, int[]> index = new HashMap<>();
+        for (int node = 0; node < size; node++) {
+            int added = node;
+            index.merge(documentId(node), new int[]{node}, (existing, ignored) -> {
+                int[] nodes = Arrays.copyOf(existing, existing.length + 1);
+                nodes[existing.length] = added;
+                return nodes;
+            });
+        }
+        return index;
+    }
+}
@@ -0,0 +1,128 @@
+package com.rokkon.pipeline.vectorindex;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (node, score) pairs packed into longs, so graph search does not allocate per candidate.
+ * The score occupies the high 32 bits in an order-preserving encoding; a min-queue pops the lowest score
+ * first, a max-queue the highest.
+ */
+final class NeighborQueue {
+
+    private final boolean maxQueue;
+    private long[] heap;
+    private int size;
+
+    NeighborQueue(int initialCapacity, boolean maxQueue) {
+        this.heap = new long[Math.max(1, initialCapacity)];
+        this.maxQueue = maxQueue;
+    }
+
+    void add(int node, float score) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        long value = encode(node, score);
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(value, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    /**
+     * Adds the pair if the queue holds fewer than {@code capacity} entries, or replaces the top entry if the
+     * pair would come after it. Used as a bounded min-queue that keeps the best {@code capacity} scores.
+     *
+     * @return true if the pair was added
+     */
+    boolean insertWithOverflow(int node, float score, int capacity) {
+        if (size < capacity) {
+            add(node, score);
+            return true;
+        }
+        long value = encode(node, score);
+        if (size == 0 || before(value, heap[0]) || value == heap[0]) {
+            return false;
+        }
+        heap[0] = value;
+        siftDown(0);
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int topNode() {
+        return decodeNode(heap[0]);
+    }
+
+    float topScore() {
+        return decodeScore(heap[0]);
+    }
+
+    /**
+     * @return The node at the top, which is removed
+     */
+    int pop() {
+        int node = decodeNode(heap[0]);
+        heap[0] = heap[--size];
+        if (size > 0) {
+            siftDown(0);
+        }
+        return node;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private void siftDown(int i) {
+        long value = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && before(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!before(heap[child], value)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    private boolean before(long a, long b) {
+        return maxQueue ? a > b : a < b;
+    }
+
+    private static long encode(int node, float score) {
+        int bits = Float.floatToIntBits(score);
+        // Flip negative floats so that signed int order matches float order
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return ((long) bits << 32) | (node & 0xffffffffL);
+    }
+
+    private static int decodeNode(long value) {
+        return (int) value;
+    }
+
+    private static float decodeScore(long value) {
+        int bits = (int) (value >> 32);
+        bits ^= (bits >> 31) & 0x7fffffff;
+        return Float.intBitsToFloat(bits);
+    }
+}
@@ -0,0 +1,212 @@
+package com.rokkon.pipeline.vectorindex;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * HNSW graph under construction, on the heap. Backs the in-memory segment that receives inserts and is
+ * used to build merged segments before they are written to disk. Not thread-safe; {@link VectorIndex}
+ * serializes inserts against searches.
+ *
+ * <p>Each node gets a random level drawn with probability {@code M^-level}. Inserting a node searches
+ * for its {@code efConstruction} nearest nodes on each of its levels, links it to a diverse subset of them
+ * (the neighbour selection heuristic of the HNSW paper) and links them back, pruning their lists with the
+ * same heuristic when full. Level 0 keeps up to {@code 2M} neighbours, upper levels {@code M}.
+ */
+final class OnHeapHnswGraph implements HnswGraph {
+
+    private final int dimension;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+
+    private float[][] vectors = new float[64][];
+    // links[node][level] = {count, neighbour...}
+    private int[][][] links = new int[64][][];
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel;
+
+    OnHeapHnswGraph(int dimension, int m, int efConstruction, long seed) {
+        this.dimension = dimension;
+        this.m = Math.max(2, m);
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1 / Math.log(this.m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Adds a unit-length vector.
+     *
+     * @return The new node
+     */
+    int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension + " but got " + vector.length);
+        }
+        int node = size;
+        int level = randomLevel();
+        ensureCapacity(node + 1);
+        vectors[node] = vector;
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[maxConnections(l) + 1];
+        }
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int[] buffer = new int[maxConnections()];
+        int entry = HnswSearcher.greedyDescent(this, vector, entryPoint, maxLevel, level, buffer);
+        int[] entryPoints = {entry};
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            NeighborQueue candidates = HnswSearcher.searchLevel(this, vector, entryPoints, efConstruction, l, null, buffer);
+            int[] selected = selectNeighbors(vector, candidates, maxConnections(l));
+            for (int neighbor : selected) {
+                addLink(node, l, neighbor);
+                addReverseLink(neighbor, l, node);
+            }
+            entryPoints = selected.length > 0 ? selected : entryPoints;
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    float[] vector(int node) {
+        return vectors[node];
+    }
+
+    /**
+     * @return The level of a node (its highest level)
+     */
+    int level(int node) {
+        return links[node].length - 1;
+    }
+
+    int m() {
+        return m;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public int entryPoint() {
+        return entryPoint;
+    }
+
+    @Override
+    public int maxLevel() {
+        return maxLevel;
+    }
+
+    @Override
+    public int neighbors(int level, int node, int[] buffer) {
+        int[][] nodeLinks = links[node];
+        if (level >= nodeLinks.length) {
+            return 0;
+        }
+        int[] list = nodeLinks[level];
+        int count = list[0];
+        System.arraycopy(list, 1, buffer, 0, count);
+        return count;
+    }
+
+    @Override
+    public float similarity(float[] query, int node) {
+        return VectorMath.dot(query, vectors[node]);
+    }
+
+    @Override
+    public int maxConnections() {
+        return maxConnections(0);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int randomLevel() {
+        double uniform = 1.0 - random.nextDouble();
+        return (int) (-Math.log(uniform) * levelMultiplier);
+    }
+
+    private void addLink(int node, int level, int neighbor) {
+        int[] list = links[node][level];
+        list[++list[0]] = neighbor;
+    }
+
+    private void addReverseLink(int node, int level, int newNeighbor) {
+        int[] list = links[node][level];
+        int capacity = list.length - 1;
+        if (list[0] < capacity) {
+            list[++list[0]] = newNeighbor;
+            return;
+        }
+        // Full: re-select among the current neighbours plus the new one
+        float[] vector = vectors[node];
+        NeighborQueue candidates = new NeighborQueue(capacity + 1, false);
+        for (int i = 1; i <= list[0]; i++) {
+            candidates.add(list[i], VectorMath.dot(vector, vectors[list[i]]));
+        }
+        candidates.add(newNeighbor, VectorMath.dot(vector, vectors[newNeighbor]));
+        int[] selected = selectNeighbors(vector, candidates, capacity);
+        list[0] = selected.length;
+        System.arraycopy(selected, 0, list, 1, selected.length);
+    }
+
+    /**
+     * Neighbour selection heuristic: walking candidates from the closest, keep one only if it is closer
+     * to the base vector than to every neighbour kept so far. This favours links in different directions,
+     * which keeps clustered data navigable. Consumes the candidate queue.
+     */
+    private int[] selectNeighbors(float[] base, NeighborQueue candidates, int max) {
+        int count = candidates.size();
+        int[] nodes = new int[count];
+        float[] scores = new float[count];
+        // The min-queue pops the farthest first; fill from the back to get closest first
+        for (int i = count - 1; i >= 0; i--) {
+            scores[i] = candidates.topScore();
+            nodes[i] = candidates.pop();
+        }
+        int[] selected = new int[Math.min(max, count)];
+        int selectedCount = 0;
+        for (int i = 0; i < count && selectedCount < selected.length; i++) {
+            float[] candidate = vectors[nodes[i]];
+            boolean diverse = true;
+            for (int j = 0; j < selectedCount; j++) {
+                if (VectorMath.dot(candidate, vectors[selected[j]]) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[selectedCount++] = nodes[i];
+            }
+        }
+        return selectedCount == selected.length ? selected : Arrays.copyOf(selected, selectedCount);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > vectors.length) {
+            int newLength = Math.max(capacity, vectors.length * 2);
+            vectors = Arrays.copyOf(vectors, newLength);
+            links = Arrays.copyOf(links, newLength);
+        }
+    }
+}
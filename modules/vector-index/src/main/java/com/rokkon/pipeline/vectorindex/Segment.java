@@ -0,0 +1,43 @@
+package com.rokkon.pipeline.vectorindex;
+
+import com.rokkon.pipeline.util.DeletableSegment;
+
+import java.util.BitSet;
+
+/**
+ * A unit of the index: an HNSW graph over some vectors plus, per node, the vector ID and the document it
+ * came from. Deleted nodes stay in the graph (so it stays connected) but are filtered from results until a
+ * merge drops them. Callers serialize mutations against reads ({@link VectorIndex} holds a read-write lock).
+ */
+abstract class Segment extends DeletableSegment {
+
+    protected Segment(BitSet deleted) {
+        super(deleted);
+    }
+
+    abstract HnswGraph graph();
+
+    abstract String vectorId(int node);
+
+    abstract String documentId(int node);
+
+    /**
+     * @return The nodes holding vectors of the document; empty if none
+     */
+    abstract int[] nodesOf(String documentId);
+
+    /**
+     * @return A copy of the node's (unit-length) vector
+     */
+    abstract float[] vector(int node);
+
+    @Override
+    public int size() {
+        return graph().size();
+    }
+
+    @Override
+    protected int[] entriesOf(String documentId) {
+        return nodesOf(documentId);
+    }
+}
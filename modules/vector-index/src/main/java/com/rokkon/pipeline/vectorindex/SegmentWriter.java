@@ -0,0 +1,171 @@
+package com.rokkon.pipeline.vectorindex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+/**
+ * Writes a segment file that {@link MappedSegment} maps. All values are little-endian 32-bit ints and
+ * floats, in fixed-stride sections so any node's vector and neighbour list is found by arithmetic:
+ *
+ * <pre>
+ * header        MAGIC, VERSION, dimension, size, maxConnections (level 0), maxConnections (upper),
+ *               maxLevel, entryPoint
+ * vectors       size * dimension floats
+ * levels        size ints
+ * level 0       size * (maxConnections0 + 1) ints: count, neighbours
+ * upper index   size ints: offset of the node's upper-level lists in the upper block, or -1
+ * upper block   length int, then per node with level > 0: level * (maxConnectionsUpper + 1) ints
+ * vector IDs    string table: size + 1 int offsets into UTF-8 bytes, bytes padded to 4
+ * document IDs  string table
+ * </pre>
+ *
+ * Files are written under a temporary name, forced to disk and renamed into place, so a segment file is
+ * either complete or absent.
+ */
+final class SegmentWriter {
+
+    static final int MAGIC = 0x484E5357; // "HNSW"
+    static final int VERSION = 1;
+    static final int HEADER_INTS = 8;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private SegmentWriter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes the segment's graph, vectors and IDs to {@code file}. Segments are only ever written once,
+     * from the buffer that built them (a flush or a merge).
+     */
+    static void write(BufferedSegment segment, Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            new SegmentWriter(channel).writeSegment(segment);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void writeSegment(BufferedSegment segment) throws IOException {
+        OnHeapHnswGraph graph = segment.graph();
+        int size = graph.size();
+        int dimension = graph.dimension();
+        int maxConnections0 = graph.maxConnections();
+        int maxConnectionsUpper = maxConnections0 / 2;
+        int[] levels = new int[size];
+        for (int node = 0; node < size; node++) {
+            levels[node] = graph.level(node);
+        }
+
+        putInt(MAGIC);
+        putInt(VERSION);
+        putInt(dimension);
+        putInt(size);
+        putInt(maxConnections0);
+        putInt(maxConnectionsUpper);
+        putInt(graph.maxLevel());
+        putInt(graph.entryPoint());
+
+        for (int node = 0; node < size; node++) {
+            for (float value : graph.vector(node)) {
+                putFloat(value);
+            }
+        }
+        for (int level : levels) {
+            putInt(level);
+        }
+
+        int[] neighbors = new int[maxConnections0];
+        for (int node = 0; node < size; node++) {
+            writeList(graph, 0, node, neighbors, maxConnections0);
+        }
+
+        int upperLength = 0;
+        for (int node = 0; node < size; node++) {
+            putInt(levels[node] > 0 ? upperLength : -1);
+            upperLength += levels[node] * (maxConnectionsUpper + 1);
+        }
+        putInt(upperLength);
+        for (int node = 0; node < size; node++) {
+            for (int level = 1; level <= levels[node]; level++) {
+                writeList(graph, level, node, neighbors, maxConnectionsUpper);
+            }
+        }
+
+        writeStrings(size, segment::vectorId);
+        writeStrings(size, segment::documentId);
+        flushBuffer();
+    }
+
+    private void writeList(HnswGraph graph, int level, int node, int[] neighbors, int capacity) throws IOException {
+        int count = graph.neighbors(level, node, neighbors);
+        putInt(count);
+        for (int i = 0; i < capacity; i++) {
+            putInt(i < count ? neighbors[i] : -1);
+        }
+    }
+
+    private void writeStrings(int count, IntFunction<String> values) throws IOException {
+        byte[][] encoded = new byte[count][];
+        int offset = 0;
+        putInt(offset);
+        for (int i = 0; i < count; i++) {
+            encoded[i] = values.apply(i).getBytes(StandardCharsets.UTF_8);
+            offset += encoded[i].length;
+            putInt(offset);
+        }
+        for (byte[] bytes : encoded) {
+            putBytes(bytes);
+        }
+        for (int padding = (4 - offset % 4) % 4; padding > 0; padding--) {
+            putBytes(new byte[]{0});
+        }
+    }
+
+    private void putInt(int value) throws IOException {
+        ensureRoom(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    private void putFloat(float value) throws IOException {
+        ensureRoom(Float.BYTES);
+        buffer.putFloat(value);
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        int written = 0;
+        while (written < bytes.length) {
+            ensureRoom(1);
+            int length = Math.min(buffer.remaining(), bytes.length - written);
+            buffer.put(bytes, written, length);
+            written += length;
+        }
+    }
+
+    private void ensureRoom(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,190 @@
+package com.rokkon.pipeline.vectorindex;
+
+import com.rokkon.pipeline.util.SegmentedIndex;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One k-NN index (one embedding model or chunk embedding config) in its own directory.
+ *
+ * <p>Inserts go to an in-memory {@link BufferedSegment}, flushed to immutable {@link MappedSegment}s and merged
+ * by {@link SegmentedIndex}; merges rebuild the graph from the live vectors. Searches query every segment and
+ * merge their top hits.
+ *
+ * <p>Vectors are grouped by document: replacing a document deletes all its vectors and inserts the new
+ * ones. See {@link SegmentedIndex} for when deletes and inserts become durable.
+ */
+final class VectorIndex extends SegmentedIndex<Segment, BufferedSegment, MappedSegment> {
+
+    private static final String SEGMENT_SUFFIX = ".hnsw";
+    private static final String DIMENSION_HEADER = "dimension=";
+
+    record VectorEntry(String vectorId, float[] vector) {
+    }
+
+    record Hit(String vectorId, String documentId, float score) {
+    }
+
+    record Stats(String name, int dimension, long liveVectors, long deletedVectors, int segments) {
+    }
+
+    private final int dimension;
+    private final int m;
+    private final int efConstruction;
+
+    private VectorIndex(String name, Path directory, int dimension, int m, int efConstruction) {
+        super(name, directory, SEGMENT_SUFFIX, generation -> new BufferedSegment(dimension, m, efConstruction, generation));
+        this.dimension = dimension;
+        this.m = m;
+        this.efConstruction = efConstruction;
+    }
+
+    /**
+     * Creates an empty index in {@code directory}.
+     */
+    static VectorIndex create(String name, Path directory, int dimension, int m, int efConstruction) throws IOException {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Vector dimension must be positive, got " + dimension);
+        }
+        VectorIndex index = new VectorIndex(name, directory, dimension, m, efConstruction);
+        index.createEmpty();
+        return index;
+    }
+
+    /**
+     * Opens an index from its manifest, removing segment files the manifest does not name (left by a flush
+     * or merge that did not complete).
+     */
+    static VectorIndex open(String name, Path directory, int m, int efConstruction) throws IOException {
+        List<String> lines = readManifest(directory);
+        if (lines.isEmpty() || !lines.get(0).startsWith(DIMENSION_HEADER)) {
+            throw new IOException("Corrupt vector index manifest in " + directory);
+        }
+        int dimension = Integer.parseInt(lines.get(0).substring(DIMENSION_HEADER.length()));
+        VectorIndex index = new VectorIndex(name, directory, dimension, m, efConstruction);
+        index.openSegments(lines.subList(1, lines.size()));
+        return index;
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Replaces all vectors of a document; an empty list deletes the document.
+     *
+     * @throws IllegalArgumentException if a vector has the wrong dimension or is zero
+     */
+    void replaceDocument(String documentId, List<VectorEntry> entries) {
+        List<float[]> normalized = new ArrayList<>(entries.size());
+        for (VectorEntry entry : entries) {
+            if (entry.vector().length != dimension) {
+                throw new IllegalArgumentException("Index '" + name() + "' holds vectors of dimension " + dimension
+                        + " but vector " + entry.vectorId() + " has " + entry.vector().length);
+            }
+            normalized.add(VectorMath.normalize(entry.vector()));
+        }
+        replace(documentId, buffer -> {
+            for (int i = 0; i < entries.size(); i++) {
+                buffer.add(entries.get(i).vectorId(), documentId, normalized.get(i));
+            }
+        });
+    }
+
+    /**
+     * Finds the {@code k} vectors most similar (cosine) to the query.
+     *
+     * @param ef Search beam width; larger is slower with better recall
+     * @return Hits, most similar first
+     */
+    List<Hit> search(float[] query, int k, int ef) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Index '" + name() + "' holds vectors of dimension " + dimension
+                    + " but the query has " + query.length);
+        }
+        float[] normalized = VectorMath.normalize(query);
+        List<Hit> hits = read(segments -> {
+            List<Hit> collected = new ArrayList<>();
+            for (Segment segment : segments) {
+                collect(segment, normalized, k, ef, collected);
+            }
+            return collected;
+        });
+        hits.sort(Comparator.comparing(Hit::score).reversed());
+        return hits.size() > k ? new ArrayList<>(hits.subList(0, k)) : hits;
+    }
+
+    private static void collect(Segment segment, float[] query, int k, int ef, List<Hit> hits) {
+        if (segment.liveCount() == 0) {
+            return;
+        }
+        NeighborQueue results = HnswSearcher.search(segment.graph(), query, k, ef, node -> !segment.isDeleted(node));
+        while (!results.isEmpty()) {
+            float score = results.topScore();
+            int node = results.pop();
+            hits.add(new Hit(segment.vectorId(node), segment.documentId(node), score));
+        }
+    }
+
+    Stats stats() {
+        return read(segments -> {
+            long live = 0;
+            long deleted = 0;
+            for (Segment segment : segments) {
+                live += segment.liveCount();
+                deleted += segment.deletedCount();
+            }
+            return new Stats(name(), dimension, live, deleted, segmentCount());
+        });
+    }
+
+    @Override
+    protected MappedSegment openSegment(Path file, Path deletesFile) throws IOException {
+        return MappedSegment.open(file, deletesFile);
+    }
+
+    @Override
+    protected void writeSegment(BufferedSegment segment, Path file) throws IOException {
+        SegmentWriter.write(segment, file);
+    }
+
+    /**
+     * Inserts the live vectors of the sources into a new graph.
+     */
+    @Override
+    protected BufferedSegment mergeLive(List<MappedSegment> sources, List<BitSet> deletions, long generation) {
+        BufferedSegment builder = null;
+        for (int s = 0; s < sources.size(); s++) {
+            MappedSegment source = sources.get(s);
+            BitSet deleted = deletions.get(s);
+            for (int node = deleted.nextClearBit(0); node < source.size(); node = deleted.nextClearBit(node + 1)) {
+                if (builder == null) {
+                    builder = new BufferedSegment(dimension, m, efConstruction, generation);
+                }
+                builder.add(source.vectorId(node), source.documentId(node), source.vector(node));
+            }
+        }
+        return builder;
+    }
+
+    @Override
+    protected long mergeBytes(MappedSegment segment) {
+        // Vector, level-0 list and a few upper-level links and ID bytes per node
+        return segment.liveCount() * (4L * dimension + 4L * (2 * m + 1) + 4L * (m + 1) + 64);
+    }
+
+    @Override
+    protected Path fileOf(MappedSegment segment) {
+        return segment.file();
+    }
+
+    @Override
+    protected List<String> manifestHeader() {
+        return List.of(DIMENSION_HEADER + dimension);
+    }
+}
@@ -0,0 +1,74 @@
+package com.rokkon.pipeline.vectorindex;
+
+import com.rokkon.search.index.ListVectorIndexesRequest;
+import com.rokkon.search.index.ListVectorIndexesResponse;
+import com.rokkon.search.index.VectorIndexInfo;
+import com.rokkon.search.index.VectorIndexService;
+import com.rokkon.search.index.VectorSearchHit;
+import com.rokkon.search.index.VectorSearchRequest;
+import com.rokkon.search.index.VectorSearchResponse;
+import io.grpc.Status;
+import io.quarkus.grpc.GrpcService;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.List;
+
+/**
+ * gRPC k-NN query API over the local vector indexes.
+ */
+@GrpcService
+@Singleton
+public class VectorIndexGrpcService implements VectorIndexService {
+
+    static final int DEFAULT_K = 10;
+
+    @Inject
+    VectorIndexManager indexManager;
+
+    @Override
+    public Uni<VectorSearchResponse> search(VectorSearchRequest request) {
+        return Uni.createFrom().item(() -> {
+            if (indexManager.stats(request.getIndexName()).isEmpty()) {
+                throw Status.NOT_FOUND.withDescription("No vector index named '" + request.getIndexName() + "'")
+                        .asRuntimeException();
+            }
+            float[] query = new float[request.getVectorCount()];
+            for (int i = 0; i < query.length; i++) {
+                query[i] = request.getVector(i);
+            }
+            int k = request.getK() > 0 ? request.getK() : DEFAULT_K;
+            List<VectorIndex.Hit> hits;
+            try {
+                hits = indexManager.search(request.getIndexName(), query, k, request.getEfSearch());
+            } catch (IllegalArgumentException e) {
+                throw Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+            }
+            VectorSearchResponse.Builder response = VectorSearchResponse.newBuilder();
+            for (VectorIndex.Hit hit : hits) {
+                response.addHits(VectorSearchHit.newBuilder()
+                        .setVectorId(hit.vectorId())
+                        .setDocumentId(hit.documentId())
+                        .setScore(hit.score()));
+            }
+            return response.build();
+        });
+    }
+
+    @Override
+    public Uni<ListVectorIndexesResponse> listIndexes(ListVectorIndexesRequest request) {
+        return Uni.createFrom().item(() -> {
+            ListVectorIndexesResponse.Builder response = ListVectorIndexesResponse.newBuilder();
+            for (VectorIndex.Stats stats : indexManager.list()) {
+                response.addIndexes(VectorIndexInfo.newBuilder()
+                        .setIndexName(stats.name())
+                        .setDimension(stats.dimension())
+                        .setLiveVectors(stats.liveVectors())
+                        .setDeletedVectors(stats.deletedVectors())
+                        .setSegments(stats.segments()));
+            }
+            return response.build();
+        });
+    }
+}
@@ -0,0 +1,244 @@
+package com.rokkon.pipeline.vectorindex;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Owns the vector indexes under {@code vector-index.directory}, one subdirectory per index, and the single
+ * maintenance thread that flushes buffered vectors and merges segments in the background.
+ *
+ * <p>Indexes are created on first insert with the dimension of the first vector. A buffer is flushed when
+ * it reaches {@code vector-index.flush-threshold} vectors or on the next {@code vector-index.flush-interval-seconds}
+ * tick, whichever comes first; merges run after flushes. At most one threshold-triggered maintenance run per
+ * index is queued at a time, however many inserts cross the threshold while it waits.
+ */
+@Singleton
+public class VectorIndexManager {
+
+    private static final Logger LOG = Logger.getLogger(VectorIndexManager.class);
+
+    private final Path directory;
+    private final int m;
+    private final int efConstruction;
+    private final int defaultEfSearch;
+    private final int flushThreshold;
+    private final int maxSegments;
+    private final double maxDeletedRatio;
+    private final Map<String, VectorIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicBoolean> maintenanceScheduled = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance;
+
+    @Inject
+    public VectorIndexManager(
+            @ConfigProperty(name = "vector-index.directory", defaultValue = "data/vector-index") String directory,
+            @ConfigProperty(name = "vector-index.hnsw.m", defaultValue = "16") int m,
+            @ConfigProperty(name = "vector-index.hnsw.ef-construction", defaultValue = "100") int efConstruction,
+            @ConfigProperty(name = "vector-index.hnsw.ef-search", defaultValue = "64") int defaultEfSearch,
+            @ConfigProperty(name = "vector-index.flush-threshold", defaultValue = "10000") int flushThreshold,
+            @ConfigProperty(name = "vector-index.flush-interval-seconds", defaultValue = "30") int flushIntervalSeconds,
+            @ConfigProperty(name = "vector-index.max-segments", defaultValue = "8") int maxSegments,
+            @ConfigProperty(name = "vector-index.max-deleted-ratio", defaultValue = "0.3") double maxDeletedRatio) {
+        this.directory = Path.of(directory);
+        this.m = Math.max(2, m);
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.defaultEfSearch = Math.max(1, defaultEfSearch);
+        this.flushThreshold = Math.max(1, flushThreshold);
+        this.maxSegments = Math.max(1, maxSegments);
+        this.maxDeletedRatio = maxDeletedRatio;
+        openExisting();
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vector-index-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (flushIntervalSeconds > 0) {
+            maintenance.scheduleWithFixedDelay(this::maintainAll, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+        }
+        LOG.infof("Vector index manager opened %d indexes in %s (M: %d, efConstruction: %d, flush threshold: %d)",
+                indexes.size(), this.directory.toAbsolutePath(), this.m, this.efConstruction, this.flushThreshold);
+    }
+
+    /**
+     * Maps a model or config ID to an index (and directory) name: lower case, with anything outside
+     * {@code [a-z0-9._-]} replaced by an underscore.
+     */
+    public static String indexName(String id) {
+        String name = id.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9._-]", "_");
+        if (name.isEmpty() || name.chars().allMatch(c -> c == '.')) {
+            throw new IllegalArgumentException("Invalid vector index name: '" + id + "'");
+        }
+        return name;
+    }
+
+    /**
+     * Replaces the document's vectors: each index gets the given entries (indexes are created as needed) and
+     * the document is deleted from every other index, so the stored vectors always mirror the latest
+     * version of the document.
+     *
+     * @throws IllegalArgumentException if a vector does not match its index's dimension
+     */
+    public void replaceDocument(String documentId, Map<String, List<VectorIndex.VectorEntry>> entriesByIndex) {
+        Map<String, List<VectorIndex.VectorEntry>> byName = new HashMap<>();
+        for (Map.Entry<String, List<VectorIndex.VectorEntry>> entry : entriesByIndex.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                byName.computeIfAbsent(indexName(entry.getKey()), name -> new ArrayList<>()).addAll(entry.getValue());
+            }
+        }
+        for (Map.Entry<String, List<VectorIndex.VectorEntry>> entry : byName.entrySet()) {
+            List<VectorIndex.VectorEntry> entries = entry.getValue();
+            VectorIndex index = indexFor(entry.getKey(), entries.get(0).vector().length);
+            index.replaceDocument(documentId, entries);
+            if (index.bufferedCount() >= flushThreshold) {
+                scheduleMaintenance(index);
+            }
+        }
+        for (VectorIndex index : indexes.values()) {
+            if (!byName.containsKey(index.name())) {
+                index.deleteDocument(documentId);
+            }
+        }
+    }
+
+    /**
+     * Deletes the document's vectors from every index.
+     *
+     * @return Number of vectors deleted
+     */
+    public int deleteDocument(String documentId) {
+        int deleted = 0;
+        for (VectorIndex index : indexes.values()) {
+            deleted += index.deleteDocument(documentId);
+        }
+        return deleted;
+    }
+
+    /**
+     * @param efSearch Search beam width, or 0 for the configured default
+     * @return Hits, most similar first; empty if the index does not exist
+     */
+    public List<VectorIndex.Hit> search(String indexName, float[] query, int k, int efSearch) {
+        VectorIndex index = indexes.get(indexName(indexName));
+        if (index == null) {
+            return List.of();
+        }
+        return index.search(query, k, efSearch > 0 ? efSearch : defaultEfSearch);
+    }
+
+    public Optional<VectorIndex.Stats> stats(String indexName) {
+        return Optional.ofNullable(indexes.get(indexName(indexName))).map(VectorIndex::stats);
+    }
+
+    public List<VectorIndex.Stats> list() {
+        List<VectorIndex.Stats> stats = new ArrayList<>();
+        for (VectorIndex index : indexes.values()) {
+            stats.add(index.stats());
+        }
+        stats.sort(Comparator.comparing(VectorIndex.Stats::name));
+        return stats;
+    }
+
+    /**
+     * Flushes every index and runs merges, waiting for completion.
+     */
+    public void flushAll() {
+        for (VectorIndex index : indexes.values()) {
+            maintain(index);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        maintenance.shutdown();
+        try {
+            if (!maintenance.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOG.warn("Vector index maintenance did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (VectorIndex index : indexes.values()) {
+            try {
+                index.close();
+            } catch (IOException e) {
+                LOG.errorf(e, "Failed to flush vector index '%s' on shutdown", index.name());
+            }
+        }
+    }
+
+    private VectorIndex indexFor(String name, int dimension) {
+        return indexes.computeIfAbsent(name, key -> {
+            try {
+                LOG.infof("Creating vector index '%s' with dimension %d", key, dimension);
+                return VectorIndex.create(key, directory.resolve(key), dimension, m, efConstruction);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create vector index '" + key + "'", e);
+            }
+        });
+    }
+
+    private void scheduleMaintenance(VectorIndex index) {
+        AtomicBoolean scheduled = maintenanceScheduled.computeIfAbsent(index.name(), name -> new AtomicBoolean());
+        if (scheduled.compareAndSet(false, true)) {
+            maintenance.execute(() -> {
+                try {
+                    maintain(index);
+                } finally {
+                    scheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private void maintainAll() {
+        for (VectorIndex index : indexes.values()) {
+            maintain(index);
+        }
+    }
+
+    private void maintain(VectorIndex index) {
+        try {
+            index.flush();
+            index.merge(maxSegments, maxDeletedRatio);
+        } catch (IOException | RuntimeException e) {
+            // Keep the maintenance thread alive; the next tick retries
+            LOG.errorf(e, "Maintenance of vector index '%s' failed", index.name());
+        }
+    }
+
+    private void openExisting() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+            for (Path child : children) {
+                if (Files.exists(child.resolve(VectorIndex.MANIFEST))) {
+                    String name = child.getFileName().toString();
+                    indexes.put(name, VectorIndex.open(name, child, m, efConstruction));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open vector indexes in " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.rokkon.pipeline.vectorindex;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record VectorIndexOptions(
+        @JsonProperty("include_chunks") Boolean includeChunks,
+        @JsonProperty("include_named_embeddings") Boolean includeNamedEmbeddings,
+        @JsonProperty("index_prefix") String indexPrefix
+) {
+    public static final boolean DEFAULT_INCLUDE_CHUNKS = true;
+    public static final boolean DEFAULT_INCLUDE_NAMED_EMBEDDINGS = true;
+    public static final String DEFAULT_INDEX_PREFIX = "";
+
+    public VectorIndexOptions(Boolean includeChunks, Boolean includeNamedEmbeddings, String indexPrefix) {
+        this.includeChunks = includeChunks != null ? includeChunks : DEFAULT_INCLUDE_CHUNKS;
+        this.includeNamedEmbeddings = includeNamedEmbeddings != null ? includeNamedEmbeddings : DEFAULT_INCLUDE_NAMED_EMBEDDINGS;
+        this.indexPrefix = indexPrefix != null ? indexPrefix : DEFAULT_INDEX_PREFIX;
+    }
+
+    public VectorIndexOptions() {
+        this(DEFAULT_INCLUDE_CHUNKS, DEFAULT_INCLUDE_NAMED_EMBEDDINGS, DEFAULT_INDEX_PREFIX);
+    }
+
+    public static String getJsonV7Schema() {
+        return """
+                {
+                  "$schema": "http://json-schema.org/draft-07/schema#",
+                  "title": "VectorIndexOptions",
+                  "description": "Configuration of the vector index sink. Chunk vectors go to one index per embedding_config_id of their semantic result and named embeddings to one index per model_id (or map key when the model is not set). Index names are lower-cased with characters outside [a-z0-9._-] replaced by '_'.",
+                  "type": "object",
+                  "properties": {
+                    "include_chunks": {
+                      "description": "Whether to index the vectors of semantic result chunks, keyed by chunk_id.",
+                      "type": "boolean",
+                      "default": %b
+                    },
+                    "include_named_embeddings": {
+                      "description": "Whether to index named embeddings, keyed by <document id>#<embedding name>.",
+                      "type": "boolean",
+                      "default": %b
+                    },
+                    "index_prefix": {
+                      "description": "Prefix for the names of the indexes this step writes, e.g. to keep the vectors of separate pipelines apart.",
+                      "type": "string",
+                      "default": "%s"
+                    }
+                  }
+                }
+                """.formatted(
+                DEFAULT_INCLUDE_CHUNKS,
+                DEFAULT_INCLUDE_NAMED_EMBEDDINGS,
+                DEFAULT_INDEX_PREFIX
+        );
+    }
+}
@@ -0,0 +1,68 @@
+package com.rokkon.pipeline.vectorindex;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.util.List;
+import java.util.Map;
+
+@Path("/api/vector-index")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@Tag(name = "Vector Index", description = "k-NN queries against the local vector indexes")
+public class VectorIndexResource {
+
+    /**
+     * Body of a search request; {@code k} and {@code ef_search} are optional.
+     */
+    public record SearchRequest(float[] vector, Integer k, @JsonProperty("ef_search") Integer efSearch) {
+    }
+
+    @Inject
+    VectorIndexManager indexManager;
+
+    @GET
+    @Operation(summary = "List vector indexes", description = "Lists the indexes with their dimension and vector counts")
+    public List<VectorIndex.Stats> list() {
+        return indexManager.list();
+    }
+
+    @POST
+    @Path("/{index}/search")
+    @Operation(summary = "Search a vector index",
+               description = "Returns the k stored vectors most similar (cosine) to the query vector")
+    @APIResponses({
+        @APIResponse(responseCode = "200", description = "Hits, most similar first"),
+        @APIResponse(responseCode = "400", description = "Missing vector or dimension mismatch"),
+        @APIResponse(responseCode = "404", description = "No such index")
+    })
+    public Response search(@PathParam("index") String index, SearchRequest request) {
+        if (request == null || request.vector() == null || request.vector().length == 0) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "A query vector is required")).build();
+        }
+        if (indexManager.stats(index).isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("error", "No vector index named '" + index + "'")).build();
+        }
+        int k = request.k() != null && request.k() > 0 ? request.k() : VectorIndexGrpcService.DEFAULT_K;
+        int efSearch = request.efSearch() != null ? request.efSearch() : 0;
+        try {
+            return Response.ok(indexManager.search(index, request.vector(), k, efSearch)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+}
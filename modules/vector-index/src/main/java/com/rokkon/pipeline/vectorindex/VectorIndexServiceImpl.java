@@ -0,0 +1,193 @@
+package com.rokkon.pipeline.vectorindex;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Struct;
+import com.google.protobuf.util.JsonFormat;
+import com.rokkon.pipeline.util.PackedVectors;
+import com.rokkon.search.model.ActionType;
+import com.rokkon.search.model.ChunkEmbedding;
+import com.rokkon.search.model.Embedding;
+import com.rokkon.search.model.PipeDoc;
+import com.rokkon.search.model.SemanticChunk;
+import com.rokkon.search.model.SemanticProcessingResult;
+import com.rokkon.search.sdk.PipeStepProcessor;
+import com.rokkon.search.sdk.ProcessRequest;
+import com.rokkon.search.sdk.ProcessResponse;
+import com.rokkon.search.sdk.RegistrationRequest;
+import com.rokkon.search.sdk.ServiceMetadata;
+import com.rokkon.search.sdk.ServiceRegistrationResponse;
+import io.quarkus.grpc.GrpcService;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sink step that stores the vectors of each document in the local HNSW indexes managed by
+ * {@link VectorIndexManager}. A document replaces its earlier vectors; streams with
+ * {@link ActionType#DELETE} remove them. The document is passed through unchanged.
+ */
+@GrpcService
+@Singleton
+public class VectorIndexServiceImpl implements PipeStepProcessor {
+
+    private static final Logger LOG = Logger.getLogger(VectorIndexServiceImpl.class);
+
+    private static final String MODULE_NAME = "vector-index";
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    VectorIndexManager indexManager;
+
+    @Override
+    public Uni<ProcessResponse> processData(ProcessRequest request) {
+        if (request == null) {
+            LOG.error("Received null request");
+            return Uni.createFrom().item(createErrorResponse("Request cannot be null", null));
+        }
+        return processDataInternal(request, false);
+    }
+
+    @Override
+    public Uni<ServiceRegistrationResponse> getServiceRegistration(RegistrationRequest request) {
+        return Uni.createFrom().item(() -> ServiceRegistrationResponse.newBuilder()
+                .setModuleName(MODULE_NAME)
+                .setVersion("1.0.0")
+                .setDisplayName("Vector Index")
+                .setDescription("Stores chunk and named embedding vectors in local HNSW indexes and serves k-NN queries")
+                .addTags("sink")
+                .addTags("vector")
+                .addTags("search")
+                .setJsonConfigSchema(VectorIndexOptions.getJsonV7Schema())
+                .setHealthCheckPassed(true)
+                .setHealthCheckMessage("Vector index module is healthy and ready to index documents")
+                .build());
+    }
+
+    @Override
+    public Uni<ProcessResponse> testProcessData(ProcessRequest request) {
+        LOG.debug("TestProcessData called - collecting vectors without indexing them");
+        if (request == null) {
+            request = ProcessRequest.newBuilder()
+                    .setDocument(PipeDoc.newBuilder().setId("test-doc-" + System.currentTimeMillis()).build())
+                    .setMetadata(ServiceMetadata.newBuilder().setStreamId("test-stream").setPipeStepName("test-step").build())
+                    .build();
+        }
+        return processDataInternal(request, true);
+    }
+
+    private Uni<ProcessResponse> processDataInternal(ProcessRequest request, boolean isTest) {
+        return Uni.createFrom().item(() -> {
+            String logPrefix = isTest ? "[TEST] " : "";
+            try {
+                if (!request.hasDocument()) {
+                    return ProcessResponse.newBuilder()
+                            .setSuccess(true)
+                            .addProcessorLogs(logPrefix + "Vector index: no document to index")
+                            .build();
+                }
+                PipeDoc document = request.getDocument();
+                ActionType actionType = request.getMetadata().getActionType();
+                ProcessResponse.Builder responseBuilder = ProcessResponse.newBuilder()
+                        .setSuccess(true)
+                        .setOutputDoc(document);
+
+                if (actionType == ActionType.NO_OP) {
+                    return responseBuilder
+                            .addProcessorLogs(logPrefix + "Vector index: NO_OP stream, nothing indexed")
+                            .build();
+                }
+                if (actionType == ActionType.DELETE) {
+                    int deleted = isTest ? 0 : indexManager.deleteDocument(document.getId());
+                    return responseBuilder
+                            .addProcessorLogs(String.format("%sVector index: deleted %d vectors of document %s",
+                                    logPrefix, deleted, document.getId()))
+                            .build();
+                }
+
+                VectorIndexOptions options = parseOptions(request.getConfig().getCustomJsonConfig());
+                Map<String, List<VectorIndex.VectorEntry>> vectors = collectVectors(document, options);
+                int count = vectors.values().stream().mapToInt(List::size).sum();
+                if (!isTest) {
+                    indexManager.replaceDocument(document.getId(), vectors);
+                }
+                LOG.debugf("%sIndexed %d vectors of document %s into %s", logPrefix, count, document.getId(), vectors.keySet());
+                return responseBuilder
+                        .addProcessorLogs(String.format("%sVector index: indexed %d vectors of document %s into %d indexes",
+                                logPrefix, count, document.getId(), vectors.size()))
+                        .build();
+            } catch (Exception e) {
+                String errorMessage = String.format("%sError in vector index: %s", logPrefix, e.getMessage());
+                LOG.error(errorMessage, e);
+                return createErrorResponse(errorMessage, e);
+            }
+        });
+    }
+
+    private VectorIndexOptions parseOptions(Struct customJsonConfig) throws Exception {
+        if (customJsonConfig != null && customJsonConfig.getFieldsCount() > 0) {
+            return objectMapper.readValue(JsonFormat.printer().print(customJsonConfig), VectorIndexOptions.class);
+        }
+        return new VectorIndexOptions();
+    }
+
+    /**
+     * Groups the document's vectors by index name. Chunks without a vector (not embedded, or skipped as
+     * near-duplicates) are left out.
+     */
+    static Map<String, List<VectorIndex.VectorEntry>> collectVectors(PipeDoc document, VectorIndexOptions options) {
+        Map<String, List<VectorIndex.VectorEntry>> vectors = new LinkedHashMap<>();
+        if (options.includeChunks()) {
+            for (SemanticProcessingResult result : document.getSemanticResultsList()) {
+                if (result.getEmbeddingConfigId().isEmpty()) {
+                    continue;
+                }
+                String indexName = VectorIndexManager.indexName(options.indexPrefix() + result.getEmbeddingConfigId());
+                for (SemanticChunk chunk : result.getChunksList()) {
+                    ChunkEmbedding embedding = chunk.getEmbeddingInfo();
+                    float[] vector = PackedVectors.vectorOf(embedding);
+                    if (vector.length > 0) {
+                        String vectorId = embedding.hasChunkId() ? embedding.getChunkId() : chunk.getChunkId();
+                        vectors.computeIfAbsent(indexName, name -> new ArrayList<>())
+                                .add(new VectorIndex.VectorEntry(vectorId, vector));
+                    }
+                }
+            }
+        }
+        if (options.includeNamedEmbeddings()) {
+            for (Map.Entry<String, Embedding> named : document.getNamedEmbeddingsMap().entrySet()) {
+                Embedding embedding = named.getValue();
+                float[] vector = PackedVectors.vectorOf(embedding);
+                if (vector.length == 0) {
+                    continue;
+                }
+                String model = embedding.hasModelId() && !embedding.getModelId().isEmpty() ? embedding.getModelId() : named.getKey();
+                String indexName = VectorIndexManager.indexName(options.indexPrefix() + model);
+                vectors.computeIfAbsent(indexName, name -> new ArrayList<>())
+                        .add(new VectorIndex.VectorEntry(document.getId() + "#" + named.getKey(), vector));
+            }
+        }
+        return vectors;
+    }
+
+    private ProcessResponse createErrorResponse(String errorMessage, Exception e) {
+        ProcessResponse.Builder responseBuilder = ProcessResponse.newBuilder();
+        responseBuilder.setSuccess(false);
+        responseBuilder.addProcessorLogs(errorMessage);
+
+        Struct.Builder errorDetailsBuilder = Struct.newBuilder();
+        errorDetailsBuilder.putFields("error_message", com.google.protobuf.Value.newBuilder().setStringValue(errorMessage).build());
+        if (e != null) {
+            errorDetailsBuilder.putFields("error_type", com.google.protobuf.Value.newBuilder().setStringValue(e.getClass().getName()).build());
+        }
+        responseBuilder.setErrorDetails(errorDetailsBuilder.build());
+        return responseBuilder.build();
+    }
+}
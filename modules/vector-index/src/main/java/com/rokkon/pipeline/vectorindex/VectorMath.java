@@ -0,0 +1,51 @@
+package com.rokkon.pipeline.vectorindex;
+
+/**
+ * Vector arithmetic for the index. Vectors are normalized on the way in, so cosine similarity is a dot
+ * product.
+ */
+final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    static float dot(float[] a, float[] b) {
+        float sum0 = 0;
+        float sum1 = 0;
+        float sum2 = 0;
+        float sum3 = 0;
+        int i = 0;
+        int bound = a.length & ~3;
+        // Four independent accumulators let the JIT pipeline (and vectorize) the loop
+        for (; i < bound; i += 4) {
+            sum0 += a[i] * b[i];
+            sum1 += a[i + 1] * b[i + 1];
+            sum2 += a[i + 2] * b[i + 2];
+            sum3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            sum0 += a[i] * b[i];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    /**
+     * @return A unit-length copy of the vector
+     * @throws IllegalArgumentException if the vector is all zeros or not finite
+     */
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += (double) value * value;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0 || !Double.isFinite(norm)) {
+            throw new IllegalArgumentException("Cannot index a zero or non-finite vector");
+        }
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,120 @@
+package com.rokkon.pipeline.vectorindex;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Tests graph construction and search, and that a segment reads back identically from its mapped file.
+ */
+class HnswGraphTest {
+
+    private static final int DIMENSION = 32;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void findsTheExactNearestNeighboursOfMostQueries() {
+        float[][] vectors = TestVectors.clustered(3000, DIMENSION, 20, 1);
+        BufferedSegment segment = build(vectors);
+        float[][] queries = TestVectors.clustered(100, DIMENSION, 20, 2);
+
+        double recall = recall(segment, vectors, queries, 10, 100);
+
+        assertThat(recall).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void aVectorIsItsOwnNearestNeighbour() {
+        float[][] vectors = TestVectors.clustered(500, DIMENSION, 5, 3);
+        BufferedSegment segment = build(vectors);
+
+        for (int i = 0; i < vectors.length; i += 50) {
+            NeighborQueue hits = HnswSearcher.search(segment.graph(), VectorMath.normalize(vectors[i]), 1, 32, null);
+            assertThat(hits.topNode()).isEqualTo(i);
+            assertThat(hits.topScore()).isCloseTo(1f, offset(1e-5f));
+        }
+    }
+
+    @Test
+    void deletedNodesAreSkippedButStillTraversed() {
+        float[][] vectors = TestVectors.clustered(1000, DIMENSION, 5, 4);
+        BufferedSegment segment = build(vectors);
+        // Delete every even node
+        for (int i = 0; i < vectors.length; i += 2) {
+            segment.deleteDocument("doc-" + i);
+        }
+
+        NeighborQueue hits = HnswSearcher.search(segment.graph(), VectorMath.normalize(vectors[10]), 10, 64,
+                node -> !segment.isDeleted(node));
+
+        assertThat(hits.size()).isEqualTo(10);
+        while (!hits.isEmpty()) {
+            assertThat(hits.pop() % 2).isEqualTo(1);
+        }
+        assertThat(segment.liveCount()).isEqualTo(500);
+    }
+
+    @Test
+    void mappedSegmentMatchesTheSegmentItWasWrittenFrom() throws Exception {
+        float[][] vectors = TestVectors.clustered(2000, DIMENSION, 10, 5);
+        BufferedSegment buffered = build(vectors);
+        Path file = tempDir.resolve("seg_0.hnsw");
+        SegmentWriter.write(buffered, file);
+
+        MappedSegment mapped = MappedSegment.open(file, tempDir.resolve("seg_0.del"));
+
+        assertThat(mapped.size()).isEqualTo(buffered.graph().size());
+        assertThat(mapped.entryPoint()).isEqualTo(buffered.graph().entryPoint());
+        assertThat(mapped.maxLevel()).isEqualTo(buffered.graph().maxLevel());
+        assertThat(mapped.vectorId(1234)).isEqualTo("vec-1234");
+        assertThat(mapped.documentId(1234)).isEqualTo("doc-1234");
+        assertThat(mapped.nodesOf("doc-1234")).containsExactly(1234);
+        assertThat(mapped.vector(7)).containsExactly(buffered.vector(7));
+        for (float[] query : TestVectors.clustered(20, DIMENSION, 10, 6)) {
+            float[] normalized = VectorMath.normalize(query);
+            assertThat(nodes(HnswSearcher.search(mapped, normalized, 10, 50, null)))
+                    .isEqualTo(nodes(HnswSearcher.search(buffered.graph(), normalized, 10, 50, null)));
+        }
+    }
+
+    private static BufferedSegment build(float[][] vectors) {
+        BufferedSegment segment = new BufferedSegment(DIMENSION, 16, 100, 42);
+        for (int i = 0; i < vectors.length; i++) {
+            segment.add("vec-" + i, "doc-" + i, VectorMath.normalize(vectors[i]));
+        }
+        return segment;
+    }
+
+    private static double recall(Segment segment, float[][] vectors, float[][] queries, int k, int ef) {
+        int found = 0;
+        for (float[] query : queries) {
+            Set<Integer> expected = new HashSet<>();
+            for (int node : TestVectors.exactNearest(vectors, query, k)) {
+                expected.add(node);
+            }
+            NeighborQueue hits = HnswSearcher.search(segment.graph(), VectorMath.normalize(query), k, ef, null);
+            while (!hits.isEmpty()) {
+                if (expected.contains(hits.pop())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (queries.length * k);
+    }
+
+    private static Set<Integer> nodes(NeighborQueue queue) {
+        Set<Integer> nodes = new HashSet<>();
+        while (!queue.isEmpty()) {
+            nodes.add(queue.pop());
+        }
+        return nodes;
+    }
+}
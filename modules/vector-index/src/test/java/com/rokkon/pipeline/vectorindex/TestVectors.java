@@ -0,0 +1,47 @@
+package com.rokkon.pipeline.vectorindex;
+
+import java.util.Random;
+
+/**
+ * Synthetic embeddings for index tests: vectors scattered around random cluster centres, which is closer
+ * to real embeddings (and harder for graph search) than uniform noise.
+ */
+final class TestVectors {
+
+    private TestVectors() {
+    }
+
+    static float[][] clustered(int count, int dimension, int clusters, long seed) {
+        Random random = new Random(seed);
+        float[][] centres = new float[clusters][dimension];
+        for (float[] centre : centres) {
+            for (int i = 0; i < dimension; i++) {
+                centre[i] = (float) random.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[count][dimension];
+        for (int v = 0; v < count; v++) {
+            float[] centre = centres[random.nextInt(clusters)];
+            for (int i = 0; i < dimension; i++) {
+                vectors[v][i] = centre[i] + 0.5f * (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    /**
+     * @return Indexes of the {@code k} vectors most similar (cosine) to the query, by exhaustive scan
+     */
+    static int[] exactNearest(float[][] vectors, float[] query, int k) {
+        float[] normalizedQuery = VectorMath.normalize(query);
+        NeighborQueue best = new NeighborQueue(k, false);
+        for (int i = 0; i < vectors.length; i++) {
+            best.insertWithOverflow(i, VectorMath.dot(normalizedQuery, VectorMath.normalize(vectors[i])), k);
+        }
+        int[] nearest = new int[best.size()];
+        for (int i = nearest.length - 1; i >= 0; i--) {
+            nearest[i] = best.pop();
+        }
+        return nearest;
+    }
+}
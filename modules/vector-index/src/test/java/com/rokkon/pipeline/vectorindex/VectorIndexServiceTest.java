@@ -0,0 +1,166 @@
+package com.rokkon.pipeline.vectorindex;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.rokkon.pipeline.util.PackedVectors;
+import com.rokkon.search.model.ActionType;
+import com.rokkon.search.model.ChunkEmbedding;
+import com.rokkon.search.model.Embedding;
+import com.rokkon.search.model.PackedVector;
+import com.rokkon.search.model.PipeDoc;
+import com.rokkon.search.model.SemanticChunk;
+import com.rokkon.search.model.SemanticProcessingResult;
+import com.rokkon.search.sdk.ProcessConfiguration;
+import com.rokkon.search.sdk.ProcessRequest;
+import com.rokkon.search.sdk.ProcessResponse;
+import com.rokkon.search.sdk.ServiceMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the sink step against a real index manager in a temporary directory.
+ */
+class VectorIndexServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private VectorIndexManager manager;
+    private VectorIndexServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        manager = new VectorIndexManager(tempDir.toString(), 16, 100, 64, 10_000, 0, 8, 0.3);
+        service = new VectorIndexServiceImpl();
+        service.objectMapper = new ObjectMapper();
+        service.indexManager = manager;
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void indexesChunkAndNamedEmbeddingVectors() {
+        ProcessResponse response = process(document("doc-1", 0), ActionType.CREATE, Struct.getDefaultInstance());
+
+        assertThat(response.getSuccess()).isTrue();
+        assertThat(response.getOutputDoc().getId()).isEqualTo("doc-1");
+        assertThat(manager.list()).extracting(VectorIndex.Stats::name).containsExactly("all-minilm-l6-v2", "title_model");
+        assertThat(manager.stats("all-MiniLM-L6-v2").orElseThrow().liveVectors()).isEqualTo(2);
+        assertThat(manager.search("all-minilm-l6-v2", new float[]{1, 0, 0}, 1, 0).get(0).vectorId()).isEqualTo("doc-1_chunk_0");
+        assertThat(manager.search("title_model", new float[]{0, 0, 1}, 1, 0).get(0).vectorId()).isEqualTo("doc-1#title");
+    }
+
+    @Test
+    void skipsChunksWithoutVectors() {
+        PipeDoc document = document("doc-1", 0).toBuilder()
+                .setSemanticResults(0, document("doc-1", 0).getSemanticResults(0).toBuilder()
+                        .addChunks(SemanticChunk.newBuilder().setChunkId("doc-1_chunk_2")
+                                .setEmbeddingInfo(ChunkEmbedding.newBuilder().setChunkId("doc-1_chunk_2"))))
+                .build();
+
+        process(document, ActionType.CREATE, Struct.getDefaultInstance());
+
+        assertThat(manager.stats("all-minilm-l6-v2").orElseThrow().liveVectors()).isEqualTo(2);
+    }
+
+    @Test
+    void updatesReplaceAndDeletesRemoveVectors() {
+        process(document("doc-1", 0), ActionType.CREATE, Struct.getDefaultInstance());
+        process(document("doc-1", 1), ActionType.UPDATE, Struct.getDefaultInstance());
+
+        assertThat(manager.stats("all-minilm-l6-v2").orElseThrow().liveVectors()).isEqualTo(2);
+        assertThat(manager.search("all-minilm-l6-v2", new float[]{1, 1, 0}, 1, 0).get(0).vectorId()).isEqualTo("doc-1_chunk_0");
+
+        ProcessResponse response = process(document("doc-1", 1), ActionType.DELETE, Struct.getDefaultInstance());
+
+        assertThat(response.getSuccess()).isTrue();
+        assertThat(response.getProcessorLogs(0)).contains("deleted 3 vectors");
+        assertThat(manager.list()).allSatisfy(stats -> assertThat(stats.liveVectors()).isZero());
+    }
+
+    @Test
+    void honoursOptions() {
+        Struct options = Struct.newBuilder()
+                .putFields("include_named_embeddings", Value.newBuilder().setBoolValue(false).build())
+                .putFields("index_prefix", Value.newBuilder().setStringValue("news_").build())
+                .build();
+
+        process(document("doc-1", 0), ActionType.CREATE, options);
+
+        assertThat(manager.list()).extracting(VectorIndex.Stats::name).containsExactly("news_all-minilm-l6-v2");
+    }
+
+    @Test
+    void testProcessingDoesNotIndex() {
+        ProcessResponse response = service.testProcessData(request(document("doc-1", 0), ActionType.CREATE,
+                Struct.getDefaultInstance())).await().indefinitely();
+
+        assertThat(response.getSuccess()).isTrue();
+        assertThat(response.getProcessorLogs(0)).startsWith("[TEST]");
+        assertThat(manager.list()).isEmpty();
+    }
+
+    @Test
+    void reportsDimensionMismatches() {
+        process(document("doc-1", 0), ActionType.CREATE, Struct.getDefaultInstance());
+        PipeDoc wrongDimension = PipeDoc.newBuilder().setId("doc-2")
+                .putNamedEmbeddings("title", Embedding.newBuilder().setModelId("title_model")
+                        .addVector(1).addVector(0).build())
+                .build();
+
+        ProcessResponse response = process(wrongDimension, ActionType.CREATE, Struct.getDefaultInstance());
+
+        assertThat(response.getSuccess()).isFalse();
+        assertThat(response.getProcessorLogs(0)).contains("dimension");
+    }
+
+    private ProcessResponse process(PipeDoc document, ActionType actionType, Struct options) {
+        return service.processData(request(document, actionType, options)).await().indefinitely();
+    }
+
+    private static ProcessRequest request(PipeDoc document, ActionType actionType, Struct options) {
+        return ProcessRequest.newBuilder()
+                .setDocument(document)
+                .setConfig(ProcessConfiguration.newBuilder().setCustomJsonConfig(options))
+                .setMetadata(ServiceMetadata.newBuilder()
+                        .setPipelineName("test-pipeline")
+                        .setPipeStepName("vector-index")
+                        .setStreamId("stream-1")
+                        .setActionType(actionType))
+                .build();
+    }
+
+    /**
+     * A document with two embedded chunks (one packed, one plain) and one named embedding. The revision
+     * moves the first chunk's vector.
+     */
+    private static PipeDoc document(String id, int revision) {
+        float[] first = revision == 0 ? new float[]{1, 0, 0} : new float[]{1, 1, 0};
+        PackedVector packed = PackedVectors.pack(first, PackedVector.Encoding.FP16);
+        return PipeDoc.newBuilder()
+                .setId(id)
+                .addSemanticResults(SemanticProcessingResult.newBuilder()
+                        .setResultId("result-1")
+                        .setChunkConfigId("body_overlap_char_500_50")
+                        .setEmbeddingConfigId("all-MiniLM-L6-v2")
+                        .addChunks(SemanticChunk.newBuilder().setChunkId(id + "_chunk_0")
+                                .setEmbeddingInfo(ChunkEmbedding.newBuilder().setChunkId(id + "_chunk_0")
+                                        .setPackedVector(packed)))
+                        .addChunks(SemanticChunk.newBuilder().setChunkId(id + "_chunk_1")
+                                .setEmbeddingInfo(ChunkEmbedding.newBuilder().setChunkId(id + "_chunk_1")
+                                        .addVector(0).addVector(1).addVector(0))))
+                .putNamedEmbeddings("title", Embedding.newBuilder().setModelId("title_model")
+                        .addVector(0).addVector(0).addVector(1).build())
+                .build();
+    }
+}
@@ -0,0 +1,176 @@
+package com.rokkon.pipeline.vectorindex;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests document replacement, deletes, flushing, merging and reopening of a single index.
+ */
+class VectorIndexTest {
+
+    private static final int DIMENSION = 16;
+
+    @TempDir
+    Path tempDir;
+
+    private final float[][] vectors = TestVectors.clustered(3000, DIMENSION, 10, 7);
+
+    @Test
+    void replacingADocumentDeletesItsEarlierVectors() throws Exception {
+        VectorIndex index = VectorIndex.create("test", tempDir, DIMENSION, 16, 100);
+        index.replaceDocument("doc-1", List.of(entry(0), entry(1)));
+        index.replaceDocument("doc-1", List.of(entry(2)));
+
+        assertThat(index.stats().liveVectors()).isEqualTo(1);
+        assertThat(index.search(vectors[0], 1, 32).get(0).vectorId()).isEqualTo("v2");
+        assertThat(index.search(vectors[2], 1, 32).get(0).documentId()).isEqualTo("doc-1");
+    }
+
+    @Test
+    void searchesBufferedAndFlushedVectors() throws Exception {
+        VectorIndex index = VectorIndex.create("test", tempDir, DIMENSION, 16, 100);
+        for (int i = 0; i < 1000; i++) {
+            index.replaceDocument("doc-" + i, List.of(entry(i)));
+        }
+        index.flush();
+        for (int i = 1000; i < 1500; i++) {
+            index.replaceDocument("doc-" + i, List.of(entry(i)));
+        }
+
+        assertThat(index.stats().segments()).isEqualTo(1);
+        assertThat(index.bufferedCount()).isEqualTo(500);
+        assertThat(index.search(vectors[10], 1, 64).get(0).vectorId()).isEqualTo("v10");
+        assertThat(index.search(vectors[1200], 1, 64).get(0).vectorId()).isEqualTo("v1200");
+        List<VectorIndex.Hit> hits = index.search(vectors[10], 5, 64);
+        assertThat(hits).hasSize(5);
+        assertThat(hits).isSortedAccordingTo((a, b) -> Float.compare(b.score(), a.score()));
+    }
+
+    @Test
+    void flushedIndexFindsTheExactNearestNeighboursOfMostQueries() throws Exception {
+        VectorIndex index = VectorIndex.create("test", tempDir, DIMENSION, 16, 100);
+        for (int i = 0; i < vectors.length; i++) {
+            index.replaceDocument("doc-" + i, List.of(entry(i)));
+        }
+        index.flush();
+        float[][] queries = TestVectors.clustered(100, DIMENSION, 10, 8);
+
+        int found = 0;
+        for (float[] query : queries) {
+            Set<String> expected = new HashSet<>();
+            for (int node : TestVectors.exactNearest(vectors, query, 10)) {
+                expected.add("v" + node);
+            }
+            for (VectorIndex.Hit hit : index.search(query, 10, 128)) {
+                if (expected.contains(hit.vectorId())) {
+                    found++;
+                }
+            }
+        }
+
+        // Recall@10 over the memory-mapped segment
+        assertThat((double) found / (queries.length * 10)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void deletesOfFlushedVectorsSurviveReopen() throws Exception {
+        VectorIndex index = VectorIndex.create("test", tempDir, DIMENSION, 16, 100);
+        for (int i = 0; i < 500; i++) {
+            index.replaceDocument("doc-" + i, List.of(entry(i)));
+        }
+        index.flush();
+
+        assertThat(index.deleteDocument("doc-3")).isEqualTo(1);
+        assertThat(index.deleteDocument("doc-3")).isZero();
+        index.flush();
+
+        VectorIndex reopened = VectorIndex.open("test", tempDir, 16, 100);
+        assertThat(reopened.stats().liveVectors()).isEqualTo(499);
+        assertThat(reopened.search(vectors[3], 1, 64).get(0).vectorId()).isNotEqualTo("v3");
+    }
+
+    @Test
+    void mergeDropsDeletedVectorsAndRemovesOldSegments() throws Exception {
+        VectorIndex index = VectorIndex.create("test", tempDir, DIMENSION, 16, 100);
+        for (int segment = 0; segment < 3; segment++) {
+            for (int i = segment * 500; i < (segment + 1) * 500; i++) {
+                index.replaceDocument("doc-" + i, List.of(entry(i)));
+            }
+            index.flush();
+        }
+        for (int i = 0; i < 100; i++) {
+            index.deleteDocument("doc-" + i);
+        }
+
+        assertThat(index.merge(1, 0.3)).isTrue();
+
+        VectorIndex.Stats stats = index.stats();
+        assertThat(stats.segments()).isEqualTo(1);
+        assertThat(stats.liveVectors()).isEqualTo(1400);
+        assertThat(stats.deletedVectors()).isZero();
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(index.search(vectors[700], 1, 64).get(0).vectorId()).isEqualTo("v700");
+        assertThat(VectorIndex.open("test", tempDir, 16, 100).stats().liveVectors()).isEqualTo(1400);
+        // Nothing left to merge
+        assertThat(index.merge(1, 0.3)).isFalse();
+    }
+
+    @Test
+    void rewritesSegmentsWithManyDeletes() throws Exception {
+        VectorIndex index = VectorIndex.create("test", tempDir, DIMENSION, 16, 100);
+        for (int i = 0; i < 100; i++) {
+            index.replaceDocument("doc-" + i, List.of(entry(i)));
+        }
+        index.flush();
+        for (int i = 0; i < 50; i++) {
+            index.deleteDocument("doc-" + i);
+        }
+
+        assertThat(index.merge(8, 0.3)).isTrue();
+        assertThat(index.stats().deletedVectors()).isZero();
+        assertThat(index.stats().liveVectors()).isEqualTo(50);
+    }
+
+    @Test
+    void opensIgnoringFilesOfUnfinishedFlushes() throws Exception {
+        VectorIndex index = VectorIndex.create("test", tempDir, DIMENSION, 16, 100);
+        index.replaceDocument("doc-1", List.of(entry(1)));
+        index.flush();
+        Files.writeString(tempDir.resolve("seg_9.hnsw.tmp"), "partial");
+
+        VectorIndex reopened = VectorIndex.open("test", tempDir, 16, 100);
+
+        assertThat(reopened.stats().liveVectors()).isEqualTo(1);
+        assertThat(tempDir.resolve("seg_9.hnsw.tmp")).doesNotExist();
+    }
+
+    @Test
+    void rejectsVectorsOfTheWrongDimension() throws Exception {
+        VectorIndex index = VectorIndex.create("test", tempDir, DIMENSION, 16, 100);
+
+        assertThatThrownBy(() -> index.replaceDocument("doc-1", List.of(new VectorIndex.VectorEntry("v", new float[3]))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.search(new float[3], 1, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private VectorIndex.VectorEntry entry(int i) {
+        return new VectorIndex.VectorEntry("v" + i, vectors[i]);
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".hnsw")).toList();
+        }
+    }
+}
@@ -44,6 +44,8 @@ include(
     ":modules:chunker",
     ":modules:parser",
     ":modules:embedder",
+    ":modules:vector-index",
+    ":modules:text-index",
     ":modules:test-module",
     ":modules:proxy-module",
     ":modules:connectors:filesystem-crawler",